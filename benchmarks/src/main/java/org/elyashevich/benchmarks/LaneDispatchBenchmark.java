@@ -0,0 +1,75 @@
+package org.elyashevich.benchmarks;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.elyashevich.consumer.config.OrderConsumerProperties;
+import org.elyashevich.consumer.config.OrderConsumerProperties.ThreadMode;
+import org.elyashevich.consumer.metrics.GrafanaKafkaConsumerMetrics;
+import org.elyashevich.consumer.processing.OrderLane;
+import org.elyashevich.consumer.processing.OrderedLaneExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Picking a lane for an order id and handing a no-op task to it, as the listener does for every
+ * record. Once the lanes fill up {@code submit} waits for the workers, so its score is the
+ * steady-state handoff cost rather than the cost of an enqueue alone.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class LaneDispatchBenchmark {
+    private static final int ORDERS = 1024;
+    private static final Runnable NO_OP = () -> { };
+
+    @Param({"PLATFORM", "VIRTUAL"})
+    private ThreadMode threadMode;
+
+    @Param({"4"})
+    private int lanes;
+
+    private OrderedLaneExecutor executor;
+    private long orderId;
+
+    @Setup
+    public void setUp() {
+        var properties = new OrderConsumerProperties();
+        properties.getLanes().setThreadMode(threadMode);
+        properties.getLanes().setCount(lanes);
+        executor = new OrderedLaneExecutor(properties, new GrafanaKafkaConsumerMetrics(new SimpleMeterRegistry()), 10);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public OrderLane laneFor() {
+        return executor.laneFor(nextOrderId());
+    }
+
+    @Benchmark
+    public boolean submit() throws InterruptedException {
+        return executor.submit(nextOrderId(), NO_OP);
+    }
+
+    private long nextOrderId() {
+        orderId = (orderId + 1) % ORDERS;
+        return orderId;
+    }
+}
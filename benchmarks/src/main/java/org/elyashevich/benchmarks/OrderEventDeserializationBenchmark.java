@@ -0,0 +1,74 @@
+package org.elyashevich.benchmarks;
+
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.elyashevich.consumer.api.dto.order.OrderEvent;
+import org.elyashevich.consumer.api.kafka.serialization.OrderEventDeserializer;
+import org.elyashevich.consumer.api.kafka.serialization.OrderEventSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The listener's {@link OrderEventDeserializer} on a binary record with the schema version header
+ * and on a JSON record without it, which takes the fallback path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class OrderEventDeserializationBenchmark {
+
+    private OrderEventDeserializer deserializer;
+    private RecordHeaders binaryHeaders;
+    private RecordHeaders jsonHeaders;
+    private byte[] binary;
+    private byte[] json;
+
+    @Setup
+    public void setUp() {
+        deserializer = new OrderEventDeserializer();
+        deserializer.configure(Map.of(
+                JsonDeserializer.VALUE_DEFAULT_TYPE, OrderEvent.class.getName(),
+                JsonDeserializer.TRUSTED_PACKAGES, "*"
+        ), false);
+
+        var event = OrderFixtures.orderEvent();
+        try (var serializer = new OrderEventSerializer(); var jsonSerializer = new JsonSerializer<OrderEvent>()) {
+            binaryHeaders = new RecordHeaders();
+            binary = serializer.serialize("orders", binaryHeaders, event);
+            jsonSerializer.setAddTypeInfo(false);
+            jsonHeaders = new RecordHeaders();
+            json = jsonSerializer.serialize("orders", jsonHeaders, event);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        deserializer.close();
+    }
+
+    @Benchmark
+    public OrderEvent binary() {
+        return deserializer.deserialize("orders", binaryHeaders, binary);
+    }
+
+    @Benchmark
+    public OrderEvent jsonFallback() {
+        return deserializer.deserialize("orders", jsonHeaders, json);
+    }
+}
@@ -0,0 +1,44 @@
+package org.elyashevich.benchmarks;
+
+import org.elyashevich.producer.api.dto.order.OrderCreateRequest;
+import org.elyashevich.producer.api.mapper.OrderEventMapper;
+import org.elyashevich.producer.model.OrderEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Producer side {@link OrderEventMapper#toOrderEvent(OrderCreateRequest)}, including the event id
+ * and timestamp it generates, with the default time-ordered UUID generator.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class OrderEventMapperBenchmark {
+
+    private OrderEventMapper mapper;
+    private OrderCreateRequest request;
+
+    @Setup
+    public void setUp() {
+        mapper = OrderEventMapper.INSTANCE;
+        request = OrderFixtures.createRequest();
+    }
+
+    @Benchmark
+    public OrderEvent toOrderEvent() {
+        return mapper.toOrderEvent(request);
+    }
+}
@@ -0,0 +1,53 @@
+package org.elyashevich.benchmarks;
+
+import org.elyashevich.consumer.api.dto.order.EventType;
+import org.elyashevich.consumer.api.dto.order.OrderData;
+import org.elyashevich.consumer.api.dto.order.OrderEvent;
+import org.elyashevich.producer.api.dto.order.OrderCreateRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * The same order, as the consumer and the producer see it, shared by all suites.
+ */
+final class OrderFixtures {
+
+    private OrderFixtures() {
+    }
+
+    static OrderData orderData() {
+        var order = new OrderData();
+        order.setOrderId(42L);
+        order.setProductName("27-inch Monitor");
+        order.setCategoryId(3L);
+        order.setCategoryName("Electronics");
+        order.setPrice(new BigDecimal("249.99"));
+        order.setQuantity(2);
+        order.setStatus("PENDING");
+        order.setCustomerId(1001L);
+        return order;
+    }
+
+    static OrderEvent orderEvent() {
+        var event = new OrderEvent();
+        event.setEventId("0190f5c2-7a4e-7b3c-8d2e-3f1a9b6c5d4e");
+        event.setEventType(EventType.ORDER_CREATED);
+        event.setTimestamp(LocalDateTime.of(2024, 7, 1, 12, 30));
+        event.setOrder(orderData());
+        return event;
+    }
+
+    static OrderCreateRequest createRequest() {
+        return new OrderCreateRequest(
+                42L,
+                "27-inch Monitor",
+                "Electronics",
+                new BigDecimal("249.99"),
+                2,
+                "PENDING",
+                1001L,
+                "ORDER_CREATED"
+        );
+    }
+}
@@ -0,0 +1,43 @@
+package org.elyashevich.benchmarks;
+
+import org.elyashevich.consumer.api.dto.order.OrderData;
+import org.elyashevich.consumer.api.mapper.OrderMapper;
+import org.elyashevich.consumer.domain.entity.Order;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consumer side {@link OrderMapper#toEntity(OrderData)}, run for every created order.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class OrderMapperBenchmark {
+
+    private OrderMapper mapper;
+    private OrderData orderData;
+
+    @Setup
+    public void setUp() {
+        mapper = OrderMapper.INSTANCE;
+        orderData = OrderFixtures.orderData();
+    }
+
+    @Benchmark
+    public Order toEntity() {
+        return mapper.toEntity(orderData);
+    }
+}
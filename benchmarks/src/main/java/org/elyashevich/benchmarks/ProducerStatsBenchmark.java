@@ -0,0 +1,57 @@
+package org.elyashevich.benchmarks;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.elyashevich.consumer.config.OrderConsumerProperties;
+import org.elyashevich.consumer.metrics.GrafanaKafkaConsumerMetrics;
+import org.elyashevich.consumer.service.impl.ProducerStatsServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ProducerStatsServiceImpl#recordProducerCall(String, String)} from several listener
+ * threads at once: the map lookup and the per-key counters the listener hits for every record.
+ * The repository is never reached because nothing flushes during a run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+public class ProducerStatsBenchmark {
+
+    @Param({"1", "64"})
+    private int producers;
+
+    private ProducerStatsServiceImpl service;
+    private String[] producerIds;
+
+    @Setup
+    public void setUp() {
+        service = new ProducerStatsServiceImpl(
+                null, new OrderConsumerProperties(), new GrafanaKafkaConsumerMetrics(new SimpleMeterRegistry()));
+        producerIds = new String[producers];
+        for (var i = 0; i < producers; i++) {
+            producerIds[i] = "producer-" + i;
+        }
+    }
+
+    @Benchmark
+    public void recordProducerCall() {
+        service.recordProducerCall(producerIds[ThreadLocalRandom.current().nextInt(producers)], "orders");
+    }
+}
@@ -0,0 +1,121 @@
+package org.elyashevich.benchmarks.bulk;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.elyashevich.consumer.ConsumerApplication;
+import org.elyashevich.consumer.domain.entity.Category;
+import org.elyashevich.consumer.domain.entity.Order;
+import org.elyashevich.consumer.domain.entity.OrderStatus;
+import org.elyashevich.consumer.repository.CategoryRepository;
+import org.elyashevich.consumer.repository.OrderRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.test.condition.EmbeddedKafkaCondition;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Inserts {@code bench.bulk.sizes} new orders through the JPA path ({@code saveAll}) and through
+ * the COPY path ({@code insertAll}) against an embedded Postgres, {@code bench.bulk.chunk} rows
+ * per transaction, and reports rows/s for both. Fails when COPY is not faster at the largest
+ * size. Excluded from the default build; run with
+ * {@code mvn test -Dgroups=benchmark -Dsurefire.excludedGroups= -Dtest=OrderBulkCreateBenchmarkTest}.
+ */
+@Tag("benchmark")
+@EmbeddedKafka(topics = "orders")
+class OrderBulkCreateBenchmarkTest {
+
+    private static final int[] SIZES = Arrays.stream(System.getProperty("bench.bulk.sizes", "10000,100000,1000000")
+            .split(",")).mapToInt(size -> Integer.parseInt(size.trim())).toArray();
+    private static final int CHUNK = Integer.getInteger("bench.bulk.chunk", 10_000);
+    private static final int WARMUP_ROWS = Integer.getInteger("bench.bulk.warmup-rows", 20_000);
+
+    private static EmbeddedPostgres postgres;
+    private static ConfigurableApplicationContext consumer;
+
+    @BeforeAll
+    static void startConsumer() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        consumer = new SpringApplicationBuilder(ConsumerApplication.class)
+                .properties(
+                        "spring.config.name=e2e-consumer",
+                        "spring.kafka.bootstrap-servers=" + EmbeddedKafkaCondition.getBroker().getBrokersAsString(),
+                        "spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true"
+                )
+                .run();
+    }
+
+    @AfterAll
+    static void stopConsumer() throws IOException {
+        if (consumer != null) {
+            consumer.close();
+        }
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    @Test
+    void copyAgainstJpa() {
+        var orders = consumer.getBean(OrderRepository.class);
+        var transactions = consumer.getBean(TransactionTemplate.class);
+        var category = consumer.getBean(CategoryRepository.class)
+                .save(Category.builder().name("Electronics").description("Bulk benchmark").build());
+
+        Consumer<List<Order>> jpa = chunk -> transactions.executeWithoutResult(status -> orders.saveAll(chunk));
+        Consumer<List<Order>> copy = chunk -> transactions.executeWithoutResult(status -> orders.insertAll(chunk));
+
+        insert(WARMUP_ROWS, category, jpa);
+        insert(WARMUP_ROWS, category, copy);
+
+        double jpaRowsPerSecond = 0;
+        double copyRowsPerSecond = 0;
+        for (var size : SIZES) {
+            var before = orders.count();
+            jpaRowsPerSecond = insert(size, category, jpa);
+            copyRowsPerSecond = insert(size, category, copy);
+
+            assertEquals(before + 2L * size, orders.count());
+            System.out.printf("rows=%d chunk=%d jpa rows/s=%.0f copy rows/s=%.0f speedup=%.1fx%n",
+                    size, CHUNK, jpaRowsPerSecond, copyRowsPerSecond, copyRowsPerSecond / jpaRowsPerSecond);
+        }
+
+        assertTrue(copyRowsPerSecond > jpaRowsPerSecond,
+                "COPY %.0f rows/s is not faster than JPA %.0f rows/s".formatted(copyRowsPerSecond, jpaRowsPerSecond));
+    }
+
+    private static double insert(int rows, Category category, Consumer<List<Order>> write) {
+        var startedAt = System.nanoTime();
+        for (var offset = 0; offset < rows; offset += CHUNK) {
+            write.accept(newOrders(Math.min(CHUNK, rows - offset), offset, category));
+        }
+        return rows / ((System.nanoTime() - startedAt) / 1e9);
+    }
+
+    private static List<Order> newOrders(int count, int offset, Category category) {
+        List<Order> chunk = new ArrayList<>(count);
+        for (var i = 0; i < count; i++) {
+            chunk.add(Order.builder()
+                    .category(category)
+                    .productName("Product " + (offset + i))
+                    .price(BigDecimal.valueOf(10 + (offset + i) % 990, 2))
+                    .quantity(1 + i % 5)
+                    .status(OrderStatus.PENDING)
+                    .build());
+        }
+        return chunk;
+    }
+}
@@ -0,0 +1,248 @@
+package org.elyashevich.benchmarks.e2e;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.elyashevich.consumer.ConsumerApplication;
+import org.elyashevich.consumer.domain.entity.Category;
+import org.elyashevich.consumer.domain.entity.Order;
+import org.elyashevich.consumer.domain.entity.OrderStatus;
+import org.elyashevich.consumer.processing.BackpressureController;
+import org.elyashevich.consumer.repository.CategoryRepository;
+import org.elyashevich.consumer.repository.OrderRepository;
+import org.elyashevich.producer.ProducerApplication;
+import org.elyashevich.producer.api.dto.order.OrderCreateRequest;
+import org.elyashevich.producer.ids.EventIds;
+import org.elyashevich.producer.ids.RandomUuidEventIdGenerator;
+import org.elyashevich.producer.ids.UuidV7EventIdGenerator;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.test.condition.EmbeddedKafkaCondition;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs both applications in this JVM against an embedded broker and an embedded Postgres, posts
+ * a mix of order events to the producer over HTTP at {@code bench.rate} events/s and measures
+ * until the consumer has applied all of them. Reports sustained events/s and producer-to-database
+ * p50/p99/p999, taken from the consumer's {@code kafka.consumer.event.latency} timer, and fails
+ * when a result is outside its threshold. By default the run has to keep up with 90% of the
+ * offered rate; {@code bench.rate=0} posts as fast as the producer answers, which finds the
+ * saturation throughput but makes the latencies measure the backlog.
+ * <p>
+ * A create-only warm-up runs first with random event ids, which the latency timer ignores. The
+ * orders updates and cancels point at are inserted directly before the run. Excluded from the
+ * default build; run with
+ * {@code mvn test -Dgroups=benchmark -Dsurefire.excludedGroups= -Dtest=EndToEndBenchmarkTest}
+ * and tune with the {@code bench.*} properties below and in {@link EventMix}.
+ */
+@Tag("benchmark")
+@EmbeddedKafka(partitions = 4, topics = "orders")
+class EndToEndBenchmarkTest {
+
+    private static final int EVENTS = Integer.getInteger("bench.events", 3_000);
+    private static final int RATE = Integer.getInteger("bench.rate", 50);
+    private static final int WARMUP_EVENTS = Integer.getInteger("bench.warmup-events", 1_000);
+    private static final int CONCURRENCY = Integer.getInteger("bench.concurrency", 32);
+    private static final int HOT_ORDERS = Integer.getInteger("bench.hot-orders", 1_000);
+    private static final long SEED = Long.getLong("bench.seed", 42);
+    private static final double MIN_EVENTS_PER_SECOND = Double.parseDouble(
+            System.getProperty("bench.min-events-per-second", String.valueOf(RATE * 0.9)));
+    private static final double MAX_P50_MILLIS = Double.parseDouble(System.getProperty("bench.max-p50-millis", "250"));
+    private static final double MAX_P99_MILLIS = Double.parseDouble(System.getProperty("bench.max-p99-millis", "1000"));
+    private static final double MAX_P999_MILLIS = Double.parseDouble(System.getProperty("bench.max-p999-millis", "2000"));
+    private static final Duration DRAIN_TIMEOUT = Duration.ofMinutes(2);
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static EmbeddedPostgres postgres;
+    private static ConfigurableApplicationContext consumer;
+    private static ConfigurableApplicationContext producer;
+    private static HttpClient httpClient;
+    private static URI ordersUri;
+
+    @BeforeAll
+    static void startApplications() throws IOException {
+        var bootstrapServers = EmbeddedKafkaCondition.getBroker().getBrokersAsString();
+        postgres = EmbeddedPostgres.start();
+
+        consumer = new SpringApplicationBuilder(ConsumerApplication.class, EventLatencyPercentilesConfig.class)
+                .properties(
+                        "spring.config.name=e2e-consumer",
+                        "spring.kafka.bootstrap-servers=" + bootstrapServers,
+                        "spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true"
+                )
+                .run();
+        producer = new SpringApplicationBuilder(ProducerApplication.class)
+                .properties(
+                        "spring.config.name=e2e-producer",
+                        "spring.kafka.bootstrap-servers=" + bootstrapServers
+                )
+                .run();
+
+        var listener = consumer.getBean(KafkaListenerEndpointRegistry.class)
+                .getListenerContainer(BackpressureController.ORDER_LISTENER_ID);
+        ContainerTestUtils.waitForAssignment(listener, 4);
+
+        httpClient = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+        ordersUri = URI.create("http://localhost:%s/api/v1/orders"
+                .formatted(producer.getEnvironment().getProperty("local.server.port")));
+    }
+
+    @AfterAll
+    static void stopApplications() throws IOException {
+        EventIds.use(new UuidV7EventIdGenerator());
+        if (producer != null) {
+            producer.close();
+        }
+        if (consumer != null) {
+            consumer.close();
+        }
+        if (httpClient != null) {
+            httpClient.close();
+        }
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    @Test
+    void sustainedThroughputAndEndToEndLatency() throws InterruptedException {
+        var mix = EventMix.fromSystemProperties();
+        var random = new Random(SEED);
+        var orders = consumer.getBean(OrderRepository.class);
+        var category = consumer.getBean(CategoryRepository.class)
+                .save(Category.builder().name(EventMix.CATEGORY).build());
+
+        var seeded = seedOrders(orders, category, HOT_ORDERS + mix.cancelsIn(EVENTS));
+        var plan = mix.plan(EVENTS, seeded.subList(0, HOT_ORDERS), seeded.subList(HOT_ORDERS, seeded.size()), random);
+
+        EventIds.use(new RandomUuidEventIdGenerator());
+        var warmup = IntStream.range(0, WARMUP_EVENTS).mapToObj(i -> EventMix.create(random)).toList();
+        var expectedRows = orders.count() + post(warmup, 0);
+        awaitUntil(() -> orders.count() >= expectedRows, "warm-up creates to be applied");
+
+        EventIds.use(new UuidV7EventIdGenerator());
+        var latency = consumer.getBean(MeterRegistry.class).get(EventLatencyPercentilesConfig.EVENT_LATENCY).timer();
+        var startedAt = System.nanoTime();
+        var accepted = post(plan, RATE);
+        awaitUntil(() -> latency.count() >= accepted, "all accepted events to be applied");
+        var elapsedSeconds = (System.nanoTime() - startedAt) / 1e9;
+
+        var eventsPerSecond = accepted / elapsedSeconds;
+        var p50 = percentileMillis(latency, 0.5);
+        var p99 = percentileMillis(latency, 0.99);
+        var p999 = percentileMillis(latency, 0.999);
+        System.out.printf("%s rate=%d events=%d accepted=%d events/s=%.0f p50=%.1fms p99=%.1fms p999=%.1fms%n",
+                mix, RATE, EVENTS, accepted, eventsPerSecond, p50, p99, p999);
+
+        assertAll(
+            () -> assertEquals(EVENTS, accepted, "events rejected by the producer"),
+            () -> assertTrue(eventsPerSecond >= MIN_EVENTS_PER_SECOND,
+                    "events/s %.0f below %.0f".formatted(eventsPerSecond, MIN_EVENTS_PER_SECOND)),
+            () -> assertTrue(p50 <= MAX_P50_MILLIS, "p50 %.1fms above %.0fms".formatted(p50, MAX_P50_MILLIS)),
+            () -> assertTrue(p99 <= MAX_P99_MILLIS, "p99 %.1fms above %.0fms".formatted(p99, MAX_P99_MILLIS)),
+            () -> assertTrue(p999 <= MAX_P999_MILLIS, "p999 %.1fms above %.0fms".formatted(p999, MAX_P999_MILLIS))
+        );
+    }
+
+    private static List<Long> seedOrders(OrderRepository orders, Category category, int count) {
+        var seeded = new ArrayList<Order>(count);
+        for (var i = 0; i < count; i++) {
+            seeded.add(Order.builder()
+                    .category(category)
+                    .productName("27-inch Monitor")
+                    .price(new BigDecimal("249.99"))
+                    .quantity(1)
+                    .status(OrderStatus.PENDING)
+                    .build());
+        }
+        return orders.saveAll(seeded).stream().map(Order::getId).toList();
+    }
+
+    /**
+     * Posts the requests on a fixed schedule of {@code rate} per second, or back to back when the
+     * rate is zero, with at most {@link #CONCURRENCY} in flight.
+     *
+     * @return how many were answered with 202
+     */
+    private static int post(List<OrderCreateRequest> requests, int rate) throws InterruptedException {
+        var inFlight = new Semaphore(CONCURRENCY);
+        var accepted = new AtomicInteger();
+        var interval = rate > 0 ? TimeUnit.SECONDS.toNanos(1) / rate : 0;
+        var startedAt = System.nanoTime();
+        for (var i = 0; i < requests.size(); i++) {
+            var wait = startedAt + i * interval - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            inFlight.acquire();
+            httpClient.sendAsync(toHttpRequest(requests.get(i)), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, ex) -> {
+                        if (ex == null && response.statusCode() == 202) {
+                            accepted.incrementAndGet();
+                        }
+                        inFlight.release();
+                    });
+        }
+        inFlight.acquire(CONCURRENCY);
+        return accepted.get();
+    }
+
+    private static HttpRequest toHttpRequest(OrderCreateRequest request) {
+        try {
+            return HttpRequest.newBuilder(ordersUri)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(request)))
+                    .build();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void awaitUntil(BooleanSupplier condition, String description) throws InterruptedException {
+        var deadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Timed out waiting for " + description);
+            }
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+    }
+
+    private static double percentileMillis(Timer timer, double percentile) {
+        for (var value : timer.takeSnapshot().percentileValues()) {
+            if (value.percentile() == percentile) {
+                return value.value(TimeUnit.MILLISECONDS);
+            }
+        }
+        throw new IllegalStateException("Timer does not publish p" + percentile);
+    }
+}
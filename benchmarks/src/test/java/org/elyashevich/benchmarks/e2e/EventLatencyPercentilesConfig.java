@@ -0,0 +1,37 @@
+package org.elyashevich.benchmarks.e2e;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Added to the consumer context so the end-to-end latency timer keeps p50/p99/p999 over the
+ * whole run instead of the default two-minute rolling window.
+ */
+@Configuration(proxyBeanMethods = false)
+class EventLatencyPercentilesConfig {
+    static final String EVENT_LATENCY = "kafka.consumer.event.latency";
+
+    @Bean
+    MeterFilter eventLatencyPercentiles() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (!id.getName().equals(EVENT_LATENCY)) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder()
+                        .percentiles(0.5, 0.99, 0.999)
+                        .percentilePrecision(2)
+                        .expiry(Duration.ofHours(1))
+                        .bufferLength(1)
+                        .build()
+                        .merge(config);
+            }
+        };
+    }
+}
@@ -0,0 +1,101 @@
+package org.elyashevich.benchmarks.e2e;
+
+import org.elyashevich.producer.api.dto.order.OrderCreateRequest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Share of creates, updates and cancels in a run and how strongly updates favour a few hot
+ * orders. Update targets are drawn from a Zipf distribution over the hot orders with exponent
+ * {@code hotKeySkew}: {@code 0} spreads them evenly, {@code 1} sends roughly a fifth of a
+ * thousand-order set's updates to its hottest order. Cancels take orders of their own, one
+ * each, so no update lands on a cancelled order.
+ */
+record EventMix(double createRatio, double updateRatio, double cancelRatio, double hotKeySkew) {
+
+    static final String CATEGORY = "Electronics";
+
+    EventMix {
+        if (createRatio < 0 || updateRatio < 0 || cancelRatio < 0 || createRatio + updateRatio + cancelRatio <= 0) {
+            throw new IllegalArgumentException("Event ratios must be non-negative and not all zero");
+        }
+    }
+
+    static EventMix fromSystemProperties() {
+        return new EventMix(
+                Double.parseDouble(System.getProperty("bench.create-ratio", "0.5")),
+                Double.parseDouble(System.getProperty("bench.update-ratio", "0.4")),
+                Double.parseDouble(System.getProperty("bench.cancel-ratio", "0.1")),
+                Double.parseDouble(System.getProperty("bench.hot-key-skew", "1.0"))
+        );
+    }
+
+    int cancelsIn(int events) {
+        return (int) Math.round(events * cancelRatio / (createRatio + updateRatio + cancelRatio));
+    }
+
+    /**
+     * @param hotOrders   ids updates are drawn from, hottest first
+     * @param spareOrders ids cancels use, at least {@link #cancelsIn(int)} of them
+     */
+    List<OrderCreateRequest> plan(int events, List<Long> hotOrders, List<Long> spareOrders, Random random) {
+        var cancels = cancelsIn(events);
+        var updateShare = updateRatio / (createRatio + updateRatio);
+        var hotKeys = new ZipfSampler(hotOrders.size(), hotKeySkew);
+
+        var plan = new ArrayList<OrderCreateRequest>(events);
+        for (var i = 0; i < cancels; i++) {
+            plan.add(cancel(spareOrders.get(i)));
+        }
+        while (plan.size() < events) {
+            plan.add(updateRatio > 0 && random.nextDouble() < updateShare && !hotOrders.isEmpty()
+                    ? update(hotOrders.get(hotKeys.next(random)), random)
+                    : create(random));
+        }
+        Collections.shuffle(plan, random);
+        return plan;
+    }
+
+    static OrderCreateRequest create(Random random) {
+        return new OrderCreateRequest(null, "27-inch Monitor", CATEGORY, price(random), 1 + random.nextInt(5),
+                "PENDING", (long) random.nextInt(10_000), "ORDER_CREATED");
+    }
+
+    private static OrderCreateRequest update(long orderId, Random random) {
+        return new OrderCreateRequest(orderId, "27-inch Monitor", CATEGORY, price(random), 1 + random.nextInt(5),
+                "PROCESSING", (long) random.nextInt(10_000), "ORDER_UPDATED");
+    }
+
+    private static OrderCreateRequest cancel(long orderId) {
+        return new OrderCreateRequest(orderId, "27-inch Monitor", CATEGORY, new BigDecimal("249.99"), 1,
+                "CANCELLED", null, "ORDER_CANCELLED");
+    }
+
+    private static BigDecimal price(Random random) {
+        return BigDecimal.valueOf(1_000 + random.nextInt(50_000), 2);
+    }
+
+    private static final class ZipfSampler {
+        private final double[] cumulative;
+
+        ZipfSampler(int keys, double exponent) {
+            cumulative = new double[keys];
+            var sum = 0.0;
+            for (var rank = 0; rank < keys; rank++) {
+                sum += 1 / Math.pow(rank + 1, exponent);
+                cumulative[rank] = sum;
+            }
+        }
+
+        int next(Random random) {
+            var point = random.nextDouble() * cumulative[cumulative.length - 1];
+            var index = Arrays.binarySearch(cumulative, point);
+            return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+        }
+    }
+}
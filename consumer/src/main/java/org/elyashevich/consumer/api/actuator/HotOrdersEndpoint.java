@@ -0,0 +1,33 @@
+package org.elyashevich.consumer.api.actuator;
+
+import lombok.RequiredArgsConstructor;
+import org.elyashevich.consumer.processing.OrderedLaneExecutor;
+import org.elyashevich.consumer.processing.OrderedLaneExecutor.OrderBacklog;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * {@code /actuator/hotorders}: the orders with the most events waiting in this instance's
+ * lanes. A few hot orders behind a deep lane point at key skew rather than overall overload.
+ */
+@Component
+@Endpoint(id = "hotorders")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "orders.consumer.batch", name = "enabled", havingValue = "false", matchIfMissing = true)
+public class HotOrdersEndpoint {
+    private static final int DEFAULT_LIMIT = 10;
+    private static final int MAX_LIMIT = 1000;
+
+    private final OrderedLaneExecutor laneExecutor;
+
+    @ReadOperation
+    public List<OrderBacklog> hotOrders(@Nullable Integer limit) {
+        var size = limit == null ? DEFAULT_LIMIT : Math.clamp(limit, 1, MAX_LIMIT);
+        return laneExecutor.hottestOrders(size);
+    }
+}
@@ -0,0 +1,172 @@
+package org.elyashevich.consumer.api.kafka.consumer;
+
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.elyashevich.consumer.api.dto.order.EventType;
+import org.elyashevich.consumer.api.dto.order.OrderEvent;
+import org.elyashevich.consumer.api.kafka.serialization.OrderEventHeaders;
+import org.elyashevich.consumer.api.mapper.OrderMapper;
+import org.elyashevich.consumer.domain.entity.Category;
+import org.elyashevich.consumer.domain.entity.Order;
+import org.elyashevich.consumer.metrics.GrafanaKafkaConsumerMetrics;
+import org.elyashevich.consumer.processing.OrderRetryPublisher;
+import org.elyashevich.consumer.service.OrderService;
+import org.elyashevich.consumer.service.ProcessedEventService;
+import org.elyashevich.consumer.service.ProducerStatsService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Batch counterpart of {@link OrderKafkaConsumer}: a whole poll is written with a few bulk
+ * transactions instead of one transaction per record.
+ * <p>
+ * Records are cut into segments in which every orderId occurs at most once, so applying the
+ * creates, updates and cancels of a segment as three bulk writes never reorders events of the
+ * same order. The creates of a segment are streamed with COPY on PostgreSQL, so a burst of
+ * creates costs one round trip per poll rather than one insert batch per fifty rows.
+ * <p>
+ * A failed send to the retry topics fails the whole batch: nothing is acknowledged and the
+ * container hands the batch back, while events already written are skipped as processed.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "orders.consumer.batch", name = "enabled", havingValue = "true")
+public class OrderBatchKafkaConsumer {
+    private static final OrderMapper orderMapper = OrderMapper.INSTANCE;
+
+    private final GrafanaKafkaConsumerMetrics metrics;
+    private final OrderService orderService;
+    private final ProducerStatsService producerStatsService;
+    private final ProcessedEventService processedEventService;
+    private final OrderRetryPublisher retryPublisher;
+
+    @KafkaListener(
+            topics = "orders",
+            concurrency = "4",
+            groupId = "order-group",
+            containerFactory = "batchKafkaListenerContainerFactory"
+    )
+    public void consumeOrders(List<ConsumerRecord<String, OrderEvent>> orderRecords) {
+        Timer.Sample timer = metrics.startTimer();
+
+        var segment = new Segment();
+        Set<String> batchEventIds = new HashSet<>();
+        List<CompletableFuture<?>> retries = new ArrayList<>();
+        for (var orderRecord : orderRecords) {
+            producerStatsService.recordProducerCall(OrderEventHeaders.producerIdOf(orderRecord), orderRecord.topic());
+
+            var event = orderRecord.value();
+            if (event == null || event.getOrder() == null) {
+                log.warn("Skipping order record without payload at offset {}", orderRecord.offset());
+                continue;
+            }
+            if (isDuplicate(event.getEventId(), batchEventIds)) {
+                log.debug("Skipping already processed order event: {}", event.getEventId());
+                continue;
+            }
+
+            if (!segment.add(orderRecord)) {
+                writeSegment(segment, retries);
+                segment = new Segment();
+                segment.add(orderRecord);
+            }
+        }
+        writeSegment(segment, retries);
+        CompletableFuture.allOf(retries.toArray(CompletableFuture[]::new)).join();
+        if (!processedEventService.flush()) {
+            throw new IllegalStateException("Processed event ids could not be stored, the batch will be redelivered");
+        }
+
+        metrics.recordBatchSuccess(timer, orderRecords);
+        log.debug("Processed batch of {} order events", orderRecords.size());
+    }
+
+    private void writeSegment(Segment segment, List<CompletableFuture<?>> retries) {
+        writeBulk(segment.creates, orderService::createAll, orderService::create, retries);
+        writeBulk(segment.updates, orderService::updateAll, orderService::update, retries);
+        writeBulk(segment.cancels, orderService::cancelAll, orderService::cancel, retries);
+    }
+
+    private void writeBulk(List<Entry> entries,
+                           Consumer<List<Order>> bulkWrite,
+                           Consumer<Order> singleWrite,
+                           List<CompletableFuture<?>> retries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        try {
+            bulkWrite.accept(entries.stream().map(Entry::order).toList());
+            entries.forEach(entry -> processedEventService.markProcessed(entry.eventId()));
+        } catch (Exception e) {
+            log.warn("Bulk write of {} orders failed, falling back to per-order writes", entries.size(), e);
+            entries.forEach(entry -> {
+                try {
+                    singleWrite.accept(entry.order());
+                    processedEventService.markProcessed(entry.eventId());
+                } catch (Exception ex) {
+                    log.warn("Error processing order {}, sending it to the retry topics", entry.order().getId(), ex);
+                    retries.add(retryPublisher.publishFailure(entry.orderRecord(), ex));
+                }
+            });
+        }
+    }
+
+    private boolean isDuplicate(String eventId, Set<String> batchEventIds) {
+        if (eventId == null) {
+            return false;
+        }
+        return !batchEventIds.add(eventId) || processedEventService.isProcessed(eventId);
+    }
+
+    private static Order toOrder(OrderEvent event) {
+        var order = orderMapper.toEntity(event.getOrder());
+        order.setCategory(Category.builder().name(event.getOrder().getCategoryName()).build());
+        if (event.getEventType() != EventType.ORDER_CREATED) {
+            order.setLastEventAt(event.getTimestamp());
+        }
+        return order;
+    }
+
+    private static class Segment {
+        private final Set<Long> orderIds = new HashSet<>();
+        private final List<Entry> creates = new ArrayList<>();
+        private final List<Entry> updates = new ArrayList<>();
+        private final List<Entry> cancels = new ArrayList<>();
+
+        boolean add(ConsumerRecord<String, OrderEvent> orderRecord) {
+            var event = orderRecord.value();
+            var orderId = event.getOrder().getOrderId();
+            if (orderId != null && !orderIds.add(orderId)) {
+                return false;
+            }
+
+            var entry = new Entry(orderRecord, toOrder(event));
+            switch (event.getEventType()) {
+                case ORDER_CREATED -> creates.add(entry);
+                case ORDER_UPDATED -> updates.add(entry);
+                case ORDER_CANCELLED -> cancels.add(entry);
+                default -> log.warn("Unknown event type: {}", event.getEventType());
+            }
+            return true;
+        }
+    }
+
+    private record Entry(ConsumerRecord<String, OrderEvent> orderRecord, Order order) {
+
+        String eventId() {
+            return orderRecord.value().getEventId();
+        }
+    }
+}
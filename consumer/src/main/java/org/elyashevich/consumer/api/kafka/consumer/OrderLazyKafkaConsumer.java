@@ -0,0 +1,151 @@
+package org.elyashevich.consumer.api.kafka.consumer;
+
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.elyashevich.consumer.api.dto.order.OrderEvent;
+import org.elyashevich.consumer.api.kafka.serialization.OrderEventHeaders;
+import org.elyashevich.consumer.metrics.GrafanaKafkaConsumerMetrics;
+import org.elyashevich.consumer.metrics.PipelineStage;
+import org.elyashevich.consumer.processing.BackpressureController;
+import org.elyashevich.consumer.processing.OffsetCommitTracker;
+import org.elyashevich.consumer.processing.OrderEventProcessor;
+import org.elyashevich.consumer.processing.OrderRetryPublisher;
+import org.elyashevich.consumer.processing.OrderedLaneExecutor;
+import org.elyashevich.consumer.service.ProducerStatsService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Record listener that leaves payloads as bytes and routes them to a lane by the
+ * {@link OrderEventHeaders#ORDER_ID} header, so deserialization runs on the lane workers instead
+ * of the poll thread. Creates carry no order id and so no header; they go to the lane of their
+ * record key, as {@link OrderedLaneExecutor#laneFor(Long, String)} does for decoded events.
+ * <p>
+ * A payload that cannot be deserialized, or whose {@link OrderEventHeaders#ORDER_ID} header is
+ * not a number, has no event to retry. It is counted and sent as-is to the dead-letter topic, and
+ * its offset completes only once that send succeeds.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "orders.consumer.batch", name = "enabled", havingValue = "false", matchIfMissing = true)
+@ConditionalOnProperty(prefix = "orders.consumer.listener", name = "lazy-deserialization", havingValue = "true")
+public class OrderLazyKafkaConsumer {
+    private final GrafanaKafkaConsumerMetrics metrics;
+    private final ProducerStatsService producerStatsService;
+    private final OrderEventProcessor orderEventProcessor;
+    private final OrderRetryPublisher retryPublisher;
+    private final OrderedLaneExecutor laneExecutor;
+    private final OffsetCommitTracker offsetCommitTracker;
+    private final BackpressureController backpressureController;
+    private final Deserializer<OrderEvent> orderEventDeserializer;
+
+    @KafkaListener(
+            id = BackpressureController.ORDER_LISTENER_ID,
+            idIsGroup = false,
+            topics = "orders",
+            concurrency = "4",
+            groupId = "order-group",
+            containerFactory = "lazyKafkaListenerContainerFactory"
+    )
+    public void consumeOrder(ConsumerRecord<String, byte[]> orderRecord, Consumer<?, ?> consumer) {
+        metrics.trackListenerThread("lazy");
+        Timer.Sample timer = metrics.startTimer();
+        var partition = new TopicPartition(orderRecord.topic(), orderRecord.partition());
+        offsetCommitTracker.track(orderRecord);
+        try {
+
+            var eventType = OrderEventHeaders.eventTypeOf(orderRecord.headers());
+            var statsStartedAt = System.nanoTime();
+            producerStatsService.recordProducerCall(OrderEventHeaders.producerIdOf(orderRecord), orderRecord.topic());
+            metrics.recordStage(PipelineStage.STATS_UPDATE, eventType, true, System.nanoTime() - statsStartedAt);
+
+            Long orderId;
+            try {
+                orderId = OrderEventHeaders.orderIdOf(orderRecord.headers());
+            } catch (Exception e) {
+                deadLetter(orderRecord, partition, e);
+                return;
+            }
+
+            var lane = laneExecutor.laneFor(orderId, orderRecord.key());
+            var queuedEventType = eventType;
+            var queuedAt = System.nanoTime();
+            if (!laneExecutor.submit(lane, orderId, () -> {
+                metrics.recordStage(PipelineStage.QUEUE_WAIT, queuedEventType, true, System.nanoTime() - queuedAt);
+                processAndComplete(orderRecord, partition);
+            })) {
+                log.warn("Order lanes are shutting down, record at offset {} will be redelivered", orderRecord.offset());
+                return;
+            }
+            backpressureController.onSubmitted(partition, lane);
+
+            metrics.recordSuccess(timer, orderRecord.topic(), orderRecord.serializedValueSize());
+            log.debug("Queued {} for order {}", eventType, orderId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while queueing order event at offset {}", orderRecord.offset());
+        } catch (Exception e) {
+            offsetCommitTracker.complete(partition, orderRecord.offset());
+            log.error("Failed to process order event", e);
+        } finally {
+            offsetCommitTracker.commit(consumer);
+        }
+    }
+
+    private void processAndComplete(ConsumerRecord<String, byte[]> orderRecord, TopicPartition partition) {
+        ConsumerRecord<String, OrderEvent> eventRecord;
+        try {
+            eventRecord = withValue(orderRecord, deserialize(orderRecord));
+        } catch (Exception e) {
+            deadLetter(orderRecord, partition, e);
+            return;
+        }
+
+        try {
+            orderEventProcessor.process(eventRecord.value());
+        } catch (Exception e) {
+            log.warn("Error processing order event {}, sending it to the retry topics",
+                    eventRecord.value().getEventId(), e);
+            retryPublisher.publishFailureUntilSent(eventRecord, e)
+                    .thenRun(() -> offsetCommitTracker.complete(partition, orderRecord.offset()));
+            return;
+        }
+        offsetCommitTracker.complete(partition, orderRecord.offset());
+    }
+
+    private void deadLetter(ConsumerRecord<String, byte[]> orderRecord, TopicPartition partition, Exception cause) {
+        metrics.recordDeserializationFailure(orderRecord.topic());
+        log.error("Sending undecodable order event at {}-{}@{} to the dead-letter topic",
+                orderRecord.topic(), orderRecord.partition(), orderRecord.offset(), cause);
+        retryPublisher.deadLetterUntilSent(orderRecord, cause)
+                .thenRun(() -> offsetCommitTracker.complete(partition, orderRecord.offset()));
+    }
+
+    private OrderEvent deserialize(ConsumerRecord<String, byte[]> orderRecord) {
+        return orderEventDeserializer.deserialize(orderRecord.topic(), orderRecord.headers(), orderRecord.value());
+    }
+
+    private static ConsumerRecord<String, OrderEvent> withValue(ConsumerRecord<String, byte[]> orderRecord,
+                                                              OrderEvent event) {
+        return new ConsumerRecord<>(
+                orderRecord.topic(),
+                orderRecord.partition(),
+                orderRecord.offset(),
+                orderRecord.timestamp(),
+                orderRecord.timestampType(),
+                orderRecord.serializedKeySize(),
+                orderRecord.serializedValueSize(),
+                orderRecord.key(),
+                event,
+                orderRecord.headers(),
+                orderRecord.leaderEpoch()
+        );
+    }
+}
@@ -0,0 +1,201 @@
+package org.elyashevich.consumer.api.kafka.consumer;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.elyashevich.consumer.api.dto.order.OrderEvent;
+import org.elyashevich.consumer.config.OrderConsumerProperties;
+import org.elyashevich.consumer.metrics.GrafanaKafkaConsumerMetrics;
+import org.elyashevich.consumer.metrics.PipelineStage;
+import org.elyashevich.consumer.processing.OrderEventProcessor;
+import org.elyashevich.consumer.processing.OrderRetryPublisher;
+import org.elyashevich.consumer.processing.OrderedLaneExecutor;
+import org.elyashevich.consumer.service.ProcessedEventService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.kafka.annotation.KafkaListenerConfigurer;
+import org.springframework.kafka.config.KafkaListenerContainerFactory;
+import org.springframework.kafka.config.KafkaListenerEndpoint;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistrar;
+import org.springframework.kafka.listener.AcknowledgingMessageListener;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.TopicPartitionOffset;
+import org.springframework.kafka.support.converter.MessageConverter;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Consumes the delayed retry stage topics. Every stage gets its own container: records of a
+ * stage share one delay, so their due times only grow along a partition and a record that is
+ * not due yet is handed back with {@link Acknowledgment#nack(Duration)}, which pauses just
+ * that stage's consumer instead of sleeping on a processing thread. Stages also use separate
+ * consumer groups so a rebalance in one stage does not stall the others. Processed event ids
+ * are flushed before a record is acknowledged.
+ * <p>
+ * With order lanes in use a due record runs on its order's lane and the stage consumer waits for
+ * it, so a retry never overlaps newer events of the same order from the main listener.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderRetryKafkaConsumer implements KafkaListenerConfigurer {
+    private static final Duration PUBLISH_FAILURE_BACKOFF = Duration.ofSeconds(1);
+
+    private final OrderConsumerProperties properties;
+    private final OrderEventProcessor orderEventProcessor;
+    private final OrderRetryPublisher retryPublisher;
+    private final ProcessedEventService processedEventService;
+    private final KafkaListenerContainerFactory<?> retryKafkaListenerContainerFactory;
+    private final GrafanaKafkaConsumerMetrics metrics;
+    private final ObjectProvider<OrderedLaneExecutor> laneExecutor;
+
+    @Override
+    public void configureKafkaListeners(KafkaListenerEndpointRegistrar registrar) {
+        stageEndpoints().forEach(endpoint -> registrar.registerEndpoint(endpoint, retryKafkaListenerContainerFactory));
+    }
+
+    List<KafkaListenerEndpoint> stageEndpoints() {
+        var retry = properties.getRetry();
+        List<KafkaListenerEndpoint> endpoints = new ArrayList<>();
+        for (var stage = 0; stage < retry.getStages().size(); stage++) {
+            var topic = retry.stageTopic(stage);
+            endpoints.add(new RetryStageEndpoint(
+                    "order-retry-listener-" + topic, "order-group-" + topic, topic, this::consumeRetry
+            ));
+        }
+        return endpoints;
+    }
+
+    public void consumeRetry(ConsumerRecord<String, OrderEvent> retryRecord, Acknowledgment acknowledgment) {
+        var remaining = OrderRetryPublisher.dueAtOf(retryRecord) - System.currentTimeMillis();
+        if (remaining > 0) {
+            acknowledgment.nack(Duration.ofMillis(remaining));
+            return;
+        }
+
+        var event = retryRecord.value();
+        var attempt = OrderRetryPublisher.attemptOf(retryRecord);
+        var backoffNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, System.currentTimeMillis() - retryRecord.timestamp()));
+        try {
+            processInOrder(retryRecord).get();
+            metrics.recordStage(PipelineStage.RETRY_BACKOFF, event.getEventType(), true, backoffNanos);
+            log.debug("Processed order event {} on attempt {}", event.getEventId(), attempt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acknowledgment.nack(PUBLISH_FAILURE_BACKOFF);
+            return;
+        } catch (RejectedExecutionException e) {
+            log.warn("Order lanes are shutting down, retry of event {} will be redelivered", event.getEventId());
+            acknowledgment.nack(PUBLISH_FAILURE_BACKOFF);
+            return;
+        } catch (ExecutionException e) {
+            metrics.recordStage(PipelineStage.RETRY_BACKOFF, event.getEventType(), false, backoffNanos);
+            log.warn("Retry of order event {} failed on attempt {}", event.getEventId(), attempt, e.getCause());
+            try {
+                retryPublisher.publishFailure(retryRecord, e.getCause()).join();
+            } catch (CompletionException ex) {
+                acknowledgment.nack(PUBLISH_FAILURE_BACKOFF);
+                return;
+            }
+        }
+        if (!processedEventService.flush()) {
+            acknowledgment.nack(PUBLISH_FAILURE_BACKOFF);
+            return;
+        }
+        acknowledgment.acknowledge();
+    }
+
+    private CompletableFuture<Void> processInOrder(ConsumerRecord<String, OrderEvent> retryRecord) throws InterruptedException {
+        var event = retryRecord.value();
+        var processed = new CompletableFuture<Void>();
+        Runnable process = () -> {
+            try {
+                orderEventProcessor.process(event);
+                processed.complete(null);
+            } catch (Throwable e) {
+                processed.completeExceptionally(e);
+            }
+        };
+
+        var lanes = laneExecutor.getIfAvailable();
+        if (lanes == null) {
+            process.run();
+            return processed;
+        }
+        var orderId = event.getOrder() == null ? null : event.getOrder().getOrderId();
+        if (!lanes.submit(lanes.laneFor(orderId, retryRecord.key()), orderId, process)) {
+            throw new RejectedExecutionException("Order lanes are shutting down");
+        }
+        return processed;
+    }
+
+    private record RetryStageEndpoint(String id, String groupId, String topic,
+                                      AcknowledgingMessageListener<String, OrderEvent> listener)
+            implements KafkaListenerEndpoint {
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public String getGroupId() {
+            return groupId;
+        }
+
+        @Override
+        public String getGroup() {
+            return null;
+        }
+
+        @Override
+        public Collection<String> getTopics() {
+            return List.of(topic);
+        }
+
+        @Override
+        public TopicPartitionOffset[] getTopicPartitionsToAssign() {
+            return new TopicPartitionOffset[0];
+        }
+
+        @Override
+        public Pattern getTopicPattern() {
+            return null;
+        }
+
+        @Override
+        public String getClientIdPrefix() {
+            return null;
+        }
+
+        @Override
+        public Integer getConcurrency() {
+            return null;
+        }
+
+        @Override
+        public Boolean getAutoStartup() {
+            return null;
+        }
+
+        @Override
+        public void setupListenerContainer(MessageListenerContainer listenerContainer, MessageConverter messageConverter) {
+            listenerContainer.setupMessageListener(listener);
+        }
+
+        @Override
+        public boolean isSplitIterables() {
+            return true;
+        }
+    }
+}
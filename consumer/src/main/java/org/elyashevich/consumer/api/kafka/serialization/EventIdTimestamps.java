@@ -0,0 +1,42 @@
+package org.elyashevich.consumer.api.kafka.serialization;
+
+/**
+ * Reads the creation time embedded in producer event ids: version 7 UUIDs carry epoch millis in
+ * their first 48 bits, and decimal snowflake ids carry millis since {@link #SNOWFLAKE_EPOCH_MILLIS}
+ * above 22 bits of node and sequence. The producer module defines both layouts; they must
+ * change together.
+ */
+public final class EventIdTimestamps {
+    public static final long UNKNOWN = -1;
+    public static final long SNOWFLAKE_EPOCH_MILLIS = 1_704_067_200_000L;
+
+    private static final int UUID_LENGTH = 36;
+    private static final int UUID_VERSION_INDEX = 14;
+    private static final int SNOWFLAKE_TIMESTAMP_SHIFT = 22;
+    private static final int MAX_LONG_DIGITS = 19;
+
+    private EventIdTimestamps() {
+    }
+
+    /**
+     * @return epoch millis the id was created at, or {@link #UNKNOWN} for ids without a timestamp
+     */
+    public static long epochMillisOf(String eventId) {
+        if (eventId == null || eventId.isEmpty()) {
+            return UNKNOWN;
+        }
+        try {
+            if (eventId.length() == UUID_LENGTH && eventId.charAt(UUID_VERSION_INDEX) == '7') {
+                var high = Long.parseLong(eventId, 0, 8, 16);
+                var low = Long.parseLong(eventId, 9, 13, 16);
+                return high << 16 | low;
+            }
+            if (eventId.length() <= MAX_LONG_DIGITS && eventId.chars().allMatch(Character::isDigit)) {
+                return (Long.parseLong(eventId) >>> SNOWFLAKE_TIMESTAMP_SHIFT) + SNOWFLAKE_EPOCH_MILLIS;
+            }
+        } catch (NumberFormatException e) {
+            return UNKNOWN;
+        }
+        return UNKNOWN;
+    }
+}
@@ -0,0 +1,83 @@
+package org.elyashevich.consumer.api.kafka.serialization;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.elyashevich.codec.OrderEventBinaryCodec;
+import org.elyashevich.consumer.api.dto.order.OrderEvent;
+import org.elyashevich.consumer.api.mapper.OrderEventWireMapper;
+import org.elyashevich.consumer.metrics.GrafanaKafkaConsumerMetrics;
+import org.elyashevich.consumer.metrics.PipelineStage;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Reads binary order events marked with {@link OrderEventSerializer#SCHEMA_VERSION_HEADER} and
+ * hands everything else to a {@link JsonDeserializer}, so JSON written by producers that have not
+ * been upgraded yet keeps working during a rolling migration. The delegate is configured from the
+ * same consumer properties as before ({@code spring.json.*}).
+ * <p>
+ * When the configs carry a {@link GrafanaKafkaConsumerMetrics} under {@link #METRICS_CONFIG},
+ * each record is timed as the {@link PipelineStage#DESERIALIZE} stage.
+ */
+public class OrderEventDeserializer implements Deserializer<OrderEvent> {
+    public static final String METRICS_CONFIG = "orders.consumer.metrics";
+
+    private final JsonDeserializer<OrderEvent> jsonDeserializer = new JsonDeserializer<>();
+    private GrafanaKafkaConsumerMetrics metrics;
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        jsonDeserializer.configure(configs, isKey);
+        if (configs.get(METRICS_CONFIG) instanceof GrafanaKafkaConsumerMetrics consumerMetrics) {
+            this.metrics = consumerMetrics;
+        }
+    }
+
+    @Override
+    public OrderEvent deserialize(String topic, byte[] data) {
+        return jsonDeserializer.deserialize(topic, data);
+    }
+
+    @Override
+    public OrderEvent deserialize(String topic, Headers headers, byte[] data) {
+        if (metrics == null) {
+            return decode(topic, headers, data);
+        }
+
+        var startedAt = System.nanoTime();
+        try {
+            var event = decode(topic, headers, data);
+            metrics.recordStage(PipelineStage.DESERIALIZE, event == null ? null : event.getEventType(), true,
+                    System.nanoTime() - startedAt);
+            return event;
+        } catch (RuntimeException e) {
+            metrics.recordStage(PipelineStage.DESERIALIZE, OrderEventHeaders.eventTypeOf(headers), false,
+                    System.nanoTime() - startedAt);
+            throw e;
+        }
+    }
+
+    private OrderEvent decode(String topic, Headers headers, byte[] data) {
+        var version = headers.lastHeader(OrderEventSerializer.SCHEMA_VERSION_HEADER);
+        if (version == null) {
+            return jsonDeserializer.deserialize(topic, headers, data);
+        }
+        if (data == null) {
+            return null;
+        }
+
+        var schemaVersion = new String(version.value(), StandardCharsets.UTF_8);
+        if (!String.valueOf(OrderEventBinaryCodec.SCHEMA_VERSION).equals(schemaVersion)) {
+            throw new SerializationException("Unsupported order event schema version " + schemaVersion);
+        }
+        return OrderEventWireMapper.INSTANCE.fromWire(OrderEventBinaryCodec.decode(data));
+    }
+
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+    }
+}
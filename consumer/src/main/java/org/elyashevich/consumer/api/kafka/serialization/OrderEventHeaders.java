@@ -0,0 +1,65 @@
+package org.elyashevich.consumer.api.kafka.serialization;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.elyashevich.consumer.api.dto.order.EventType;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Routing headers stamped by the producer, read before the payload is deserialized. Records
+ * from producers that predate them have neither header.
+ */
+public final class OrderEventHeaders {
+    public static final String ORDER_ID = "order-id";
+    public static final String EVENT_TYPE = "order-event-type";
+    public static final String PRODUCER_ID = "producer-id";
+
+    private OrderEventHeaders() {
+    }
+
+    /**
+     * @throws SerializationException when the header is present but not a number
+     */
+    public static Long orderIdOf(Headers headers) {
+        var value = text(headers, ORDER_ID);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new SerializationException("Malformed " + ORDER_ID + " header: " + value, e);
+        }
+    }
+
+    /**
+     * @return {@code null} when the header is missing or names a type this consumer does not know
+     */
+    public static EventType eventTypeOf(Headers headers) {
+        var value = text(headers, EVENT_TYPE);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return EventType.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Producers used to put their id in the record key, which now carries the orderId; records
+     * from those producers still do.
+     */
+    public static String producerIdOf(ConsumerRecord<String, ?> record) {
+        var producerId = text(record.headers(), PRODUCER_ID);
+        return producerId != null ? producerId : record.key();
+    }
+
+    private static String text(Headers headers, String name) {
+        var header = headers.lastHeader(name);
+        return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+}
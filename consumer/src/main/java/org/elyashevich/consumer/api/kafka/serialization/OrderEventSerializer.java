@@ -0,0 +1,51 @@
+package org.elyashevich.consumer.api.kafka.serialization;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.elyashevich.codec.OrderEventBinaryCodec;
+import org.elyashevich.consumer.api.mapper.OrderEventWireMapper;
+import org.elyashevich.consumer.api.dto.order.OrderEvent;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Writes {@link OrderEventBinaryCodec} payloads and marks them with the schema version header,
+ * which is what tells {@link OrderEventDeserializer} not to fall back to JSON. Callers that have no
+ * headers to mark get plain JSON instead, which the deserializer reads as such.
+ */
+public class OrderEventSerializer implements Serializer<OrderEvent> {
+    public static final String SCHEMA_VERSION_HEADER = OrderEventBinaryCodec.SCHEMA_VERSION_HEADER;
+
+    private static final byte[] SCHEMA_VERSION =
+            String.valueOf(OrderEventBinaryCodec.SCHEMA_VERSION).getBytes(StandardCharsets.UTF_8);
+
+    private final JsonSerializer<OrderEvent> jsonSerializer = new JsonSerializer<>();
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        jsonSerializer.configure(configs, isKey);
+    }
+
+    @Override
+    public byte[] serialize(String topic, OrderEvent data) {
+        return jsonSerializer.serialize(topic, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, OrderEvent data) {
+        if (data == null) {
+            return null;
+        }
+
+        headers.remove(SCHEMA_VERSION_HEADER);
+        headers.add(SCHEMA_VERSION_HEADER, SCHEMA_VERSION);
+        return OrderEventBinaryCodec.encode(OrderEventWireMapper.INSTANCE.toWire(data));
+    }
+
+    @Override
+    public void close() {
+        jsonSerializer.close();
+    }
+}
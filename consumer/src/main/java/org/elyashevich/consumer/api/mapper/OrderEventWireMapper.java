@@ -0,0 +1,24 @@
+package org.elyashevich.consumer.api.mapper;
+
+import org.elyashevich.codec.WireOrderData;
+import org.elyashevich.codec.WireOrderEvent;
+import org.elyashevich.consumer.api.dto.order.OrderData;
+import org.elyashevich.consumer.api.dto.order.OrderEvent;
+import org.mapstruct.Mapper;
+import org.mapstruct.factory.Mappers;
+
+import static org.mapstruct.MappingConstants.ComponentModel.SPRING;
+
+@Mapper(componentModel = SPRING)
+public interface OrderEventWireMapper {
+
+    OrderEventWireMapper INSTANCE = Mappers.getMapper(OrderEventWireMapper.class);
+
+    WireOrderEvent toWire(OrderEvent event);
+
+    WireOrderData toWire(OrderData order);
+
+    OrderEvent fromWire(WireOrderEvent event);
+
+    OrderData fromWire(WireOrderData order);
+}
@@ -20,6 +20,8 @@ public interface OrderMapper {
     @Mapping(target = "status", source = "status", qualifiedByName = "stringToStatus")
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "lastEventAt", ignore = true)
     Order toEntity(OrderData orderData);
 
     @Named("stringToStatus")
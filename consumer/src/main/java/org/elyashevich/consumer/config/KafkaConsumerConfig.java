@@ -1,43 +1,138 @@
 package org.elyashevich.consumer.config;
 
+import lombok.RequiredArgsConstructor;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.Deserializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.elyashevich.consumer.api.dto.order.OrderEvent;
+import org.elyashevich.consumer.api.kafka.serialization.OrderEventDeserializer;
+import org.elyashevich.consumer.metrics.GrafanaKafkaConsumerMetrics;
+import org.elyashevich.consumer.processing.CompositeRebalanceListener;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.util.backoff.FixedBackOff;
 
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @EnableKafka
 @Configuration
+@RequiredArgsConstructor
+@EnableConfigurationProperties(OrderConsumerProperties.class)
 public class KafkaConsumerConfig {
+    private static final Duration BATCH_RETRY_INTERVAL = Duration.ofSeconds(1);
+
+    private final OrderConsumerProperties properties;
+    private final KafkaProperties kafkaProperties;
+    private final List<ConsumerAwareRebalanceListener> rebalanceListeners;
+    private final GrafanaKafkaConsumerMetrics metrics;
 
     @Bean
     public ConsumerFactory<String, OrderEvent> orderEventConsumerFactory() {
-        Map<String, Object> props = new HashMap<>();
-        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
-        props.put(ConsumerConfig.GROUP_ID_CONFIG, "order-group");
-        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
-        props.put(JsonDeserializer.TRUSTED_PACKAGES, "org.elyashevich.consumer.api.dto.order");
-        props.put(JsonDeserializer.TYPE_MAPPINGS, "orderEvent:org.elyashevich.consumer.api.dto.order.OrderEvent");
-        props.put(JsonDeserializer.VALUE_DEFAULT_TYPE, "org.elyashevich.consumer.api.dto.order.OrderEvent");
+        return new DefaultKafkaConsumerFactory<>(this.orderEventConsumerProps());
+    }
+
+    @Bean
+    public ConsumerFactory<String, OrderEvent> batchOrderEventConsumerFactory() {
+        var props = this.orderEventConsumerProps();
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, this.properties.getBatch().getMaxPollRecords());
 
         return new DefaultKafkaConsumerFactory<>(props);
     }
 
+    @Bean
+    public ConsumerFactory<String, byte[]> lazyOrderEventConsumerFactory() {
+        var props = this.orderEventConsumerProps();
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+
+        return new DefaultKafkaConsumerFactory<>(props);
+    }
+
+    /**
+     * Deserializer for lazy mode, where payloads arrive as bytes and are decoded on the lane workers.
+     */
+    @Bean
+    public Deserializer<OrderEvent> orderEventDeserializer() {
+        var deserializer = new OrderEventDeserializer();
+        deserializer.configure(this.orderEventConsumerProps(), false);
+        return deserializer;
+    }
+
     @Bean
     public ConcurrentKafkaListenerContainerFactory<String, OrderEvent>
     kafkaListenerContainerFactory() {
         ConcurrentKafkaListenerContainerFactory<String, OrderEvent> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(orderEventConsumerFactory());
+        this.configureRecordListener(factory.getContainerProperties());
+        return factory;
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]>
+    lazyKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(lazyOrderEventConsumerFactory());
+        this.configureRecordListener(factory.getContainerProperties());
         return factory;
     }
-}
\ No newline at end of file
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, OrderEvent>
+    batchKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, OrderEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(batchOrderEventConsumerFactory());
+        factory.setBatchListener(true);
+        // a batch that failed to reach the retry topics is handed back until it does, never skipped
+        factory.setCommonErrorHandler(new DefaultErrorHandler(
+                new FixedBackOff(BATCH_RETRY_INTERVAL.toMillis(), FixedBackOff.UNLIMITED_ATTEMPTS)
+        ));
+        this.configureListenerThreads(factory.getContainerProperties(), "order-batch-listener-");
+        return factory;
+    }
+
+    private void configureRecordListener(ContainerProperties containerProperties) {
+        containerProperties.setAckMode(ContainerProperties.AckMode.MANUAL);
+        containerProperties.setIdleEventInterval(this.properties.getCommit().getInterval().toMillis());
+        containerProperties.setConsumerRebalanceListener(new CompositeRebalanceListener(this.rebalanceListeners));
+        this.configureListenerThreads(containerProperties, "order-listener-");
+    }
+
+    private void configureListenerThreads(ContainerProperties containerProperties, String threadNamePrefix) {
+        if (this.properties.getListener().getThreadMode() == OrderConsumerProperties.ThreadMode.VIRTUAL) {
+            var executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+            executor.setVirtualThreads(true);
+            containerProperties.setListenerTaskExecutor(executor);
+        }
+    }
+
+    private Map<String, Object> orderEventConsumerProps() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, this.kafkaProperties.getBootstrapServers());
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, "order-group");
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, OrderEventDeserializer.class);
+        props.put(JsonDeserializer.TRUSTED_PACKAGES, "org.elyashevich.consumer.api.dto.order");
+        props.put(JsonDeserializer.TYPE_MAPPINGS, "orderEvent:org.elyashevich.consumer.api.dto.order.OrderEvent");
+        props.put(JsonDeserializer.VALUE_DEFAULT_TYPE, "org.elyashevich.consumer.api.dto.order.OrderEvent");
+        props.put(OrderEventDeserializer.METRICS_CONFIG, this.metrics);
+        return props;
+    }
+}
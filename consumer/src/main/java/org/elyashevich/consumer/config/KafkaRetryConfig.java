@@ -0,0 +1,110 @@
+package org.elyashevich.consumer.config;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.elyashevich.consumer.api.dto.order.OrderEvent;
+import org.elyashevich.consumer.api.kafka.serialization.OrderEventSerializer;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+@RequiredArgsConstructor
+public class KafkaRetryConfig {
+    // nack(Duration) wake-ups are only checked between polls, so this bounds how late a retry runs
+    private static final Duration RETRY_POLL_TIMEOUT = Duration.ofMillis(100);
+
+    private final OrderConsumerProperties properties;
+    private final KafkaProperties kafkaProperties;
+
+    @Bean
+    public ProducerFactory<String, OrderEvent> retryProducerFactory() {
+        return new DefaultKafkaProducerFactory<>(
+                this.producerConfigs(),
+                new StringSerializer(),
+                new OrderEventSerializer()
+        );
+    }
+
+    @Bean
+    public KafkaTemplate<String, OrderEvent> retryKafkaTemplate(ProducerFactory<String, OrderEvent> retryProducerFactory) {
+        return new KafkaTemplate<>(retryProducerFactory);
+    }
+
+    /**
+     * Writes payloads that could not be decoded to the dead-letter topic exactly as they arrived.
+     */
+    @Bean
+    public ProducerFactory<String, byte[]> deadLetterProducerFactory() {
+        return new DefaultKafkaProducerFactory<>(
+                this.producerConfigs(),
+                new StringSerializer(),
+                new ByteArraySerializer()
+        );
+    }
+
+    @Bean
+    public KafkaTemplate<String, byte[]> deadLetterKafkaTemplate(ProducerFactory<String, byte[]> deadLetterProducerFactory) {
+        return new KafkaTemplate<>(deadLetterProducerFactory);
+    }
+
+    @Bean
+    public KafkaAdmin.NewTopics retryTopics() {
+        var retry = this.properties.getRetry();
+        var topics = new ArrayList<NewTopic>();
+        for (var stage = 0; stage < retry.getStages().size(); stage++) {
+            topics.add(this.topic(retry.stageTopic(stage)));
+        }
+        topics.add(this.topic(retry.getDeadLetterTopic()));
+
+        return new KafkaAdmin.NewTopics(topics.toArray(NewTopic[]::new));
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, OrderEvent>
+    retryKafkaListenerContainerFactory(ConsumerFactory<String, OrderEvent> orderEventConsumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<String, OrderEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(orderEventConsumerFactory);
+
+        var containerProperties = factory.getContainerProperties();
+        containerProperties.setAckMode(ContainerProperties.AckMode.MANUAL);
+        containerProperties.setPollTimeout(RETRY_POLL_TIMEOUT.toMillis());
+        containerProperties.getKafkaConsumerProperties()
+                .setProperty(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        return factory;
+    }
+
+    private Map<String, Object> producerConfigs() {
+        Map<String, Object> configProperties = new HashMap<>();
+        configProperties.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, this.kafkaProperties.getBootstrapServers());
+        configProperties.put(ProducerConfig.ACKS_CONFIG, "all");
+        configProperties.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        return configProperties;
+    }
+
+    private NewTopic topic(String name) {
+        var retry = this.properties.getRetry();
+        return TopicBuilder.name(name)
+                .partitions(retry.getPartitions())
+                .replicas(retry.getReplicas())
+                .build();
+    }
+}
@@ -0,0 +1,149 @@
+package org.elyashevich.consumer.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "orders.consumer")
+public class OrderConsumerProperties {
+
+    private final Batch batch = new Batch();
+    private final Lanes lanes = new Lanes();
+    private final Commit commit = new Commit();
+    private final Backpressure backpressure = new Backpressure();
+    private final Listener listener = new Listener();
+    private final Stats stats = new Stats();
+    private final CategoryCache categoryCache = new CategoryCache();
+    private final OrderCache orderCache = new OrderCache();
+    private final Dedup dedup = new Dedup();
+    private final Retry retry = new Retry();
+    private final EventLog eventLog = new EventLog();
+
+    public enum ThreadMode {
+        PLATFORM,
+        VIRTUAL
+    }
+
+    @Getter
+    @Setter
+    public static class Batch {
+        private boolean enabled = false;
+        private int maxPollRecords = 500;
+    }
+
+    @Getter
+    @Setter
+    public static class Lanes {
+        private int count = 0;
+        private int capacity = 1024;
+        private ThreadMode threadMode = ThreadMode.PLATFORM;
+        private int maxConcurrency = 0;
+    }
+
+    @Getter
+    @Setter
+    public static class Commit {
+        private Duration interval = Duration.ofSeconds(1);
+    }
+
+    @Getter
+    @Setter
+    public static class Backpressure {
+        private int inFlightHighWater = 4096;
+        private int inFlightLowWater = 2048;
+        private double laneHighWaterRatio = 0.8;
+        private double laneLowWaterRatio = 0.5;
+    }
+
+    @Getter
+    @Setter
+    public static class Listener {
+        private ThreadMode threadMode = ThreadMode.PLATFORM;
+        private boolean lazyDeserialization = false;
+    }
+
+    @Getter
+    @Setter
+    public static class Stats {
+        private Duration flushInterval = Duration.ofSeconds(1);
+        private Duration maxStaleness = Duration.ofSeconds(5);
+        private long maxPending = 10_000;
+    }
+
+    @Getter
+    @Setter
+    public static class CategoryCache {
+        private long maxSize = 1_000;
+        private Duration ttl = Duration.ofMinutes(10);
+        private Duration negativeTtl = Duration.ofSeconds(30);
+    }
+
+    @Getter
+    @Setter
+    public static class OrderCache {
+        private boolean enabled = true;
+        private long maxSize = 10_000;
+        private int warmLimit = 1_000;
+        private Duration warmWindow = Duration.ofHours(1);
+    }
+
+    @Getter
+    @Setter
+    public static class Dedup {
+        private boolean enabled = true;
+        private long recentCacheSize = 100_000;
+        private long expectedInsertions = 0;
+        private double expectedEventsPerSecond = 100;
+        private double falsePositiveRate = 0.01;
+        private Duration flushInterval = Duration.ofSeconds(1);
+        private Duration retention = Duration.ofDays(7);
+        private Duration purgeInterval = Duration.ofHours(1);
+
+        /**
+         * Ids stay in the filter for the retention plus up to one purge interval, so unless
+         * {@code expectedInsertions} is set the filter is sized for that much traffic.
+         */
+        public long filterCapacity() {
+            if (expectedInsertions > 0) {
+                return expectedInsertions;
+            }
+            var seconds = retention.plus(purgeInterval).toSeconds();
+            return Math.max(1, (long) Math.ceil(expectedEventsPerSecond * seconds));
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class Retry {
+        private List<Duration> stages = new ArrayList<>(List.of(
+                Duration.ofSeconds(1), Duration.ofSeconds(10), Duration.ofSeconds(60)
+        ));
+        private String topicPrefix = "orders-retry-";
+        private String deadLetterTopic = "orders-dlt";
+        private int partitions = 4;
+        private short replicas = 1;
+
+        public String stageTopic(int stage) {
+            var delay = stages.get(stage);
+            var suffix = delay.toMillis() % 1000 == 0 ? delay.toSeconds() + "s" : delay.toMillis() + "ms";
+            return topicPrefix + suffix;
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class EventLog {
+        private boolean enabled = false;
+        private int partitions = 8;
+        private int maxAppendBatch = 500;
+        private int compactionBatch = 5_000;
+        private Duration compactionInterval = Duration.ofSeconds(1);
+        private int tailCacheSize = 100_000;
+    }
+}
@@ -18,7 +18,7 @@ import java.time.LocalDateTime;
 
 @Getter
 @Setter
-@Builder
+@Builder(toBuilder = true)
 @ToString
 @EqualsAndHashCode
 @NoArgsConstructor
@@ -27,8 +27,14 @@ import java.time.LocalDateTime;
 @Table(name = "orders")
 public class Order {
 
+    /**
+     * Ids handed out per {@code orders_seq} call; bulk inserts reserve ids in the same blocks.
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -52,4 +58,27 @@ public class Order {
 
     @UpdateTimestamp
     private LocalDateTime updatedAt;
+
+    /**
+     * Timestamp of the newest event applied to the order; updates stamped earlier are stale.
+     */
+    private LocalDateTime lastEventAt;
+
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
+    /**
+     * @return {@code true} when an event stamped {@code eventAt} is older than one already applied;
+     * events without a timestamp are never stale
+     */
+    public boolean isStale(LocalDateTime eventAt) {
+        return eventAt != null && lastEventAt != null && eventAt.isBefore(lastEventAt);
+    }
+
+    public void advanceLastEventAt(LocalDateTime eventAt) {
+        if (eventAt != null && (lastEventAt == null || eventAt.isAfter(lastEventAt))) {
+            lastEventAt = eventAt;
+        }
+    }
 }
@@ -0,0 +1,74 @@
+package org.elyashevich.consumer.domain.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * One change to an existing order as kept in the append-only {@code order_events} table. Reads
+ * and compaction fold entries onto the {@code orders} row in {@code seq} order with
+ * {@link #applyTo(Order, Function)}, which follows the same rules as in-place writes.
+ *
+ * @param seq position in the log, {@code 0} until the entry is appended
+ */
+public record OrderEventLogEntry(long seq,
+                                 long orderId,
+                                 Change change,
+                                 Long categoryId,
+                                 String productName,
+                                 BigDecimal price,
+                                 Integer quantity,
+                                 OrderStatus status,
+                                 LocalDateTime eventTime) {
+
+    public enum Change {
+        UPDATE,
+        CANCEL
+    }
+
+    public static OrderEventLogEntry update(Order order, LocalDateTime eventTime) {
+        var category = order.getCategory();
+        return new OrderEventLogEntry(0, order.getId(), Change.UPDATE, category == null ? null : category.getId(),
+                order.getProductName(), order.getPrice(), order.getQuantity(), order.getStatus(), eventTime);
+    }
+
+    public static OrderEventLogEntry cancel(Long orderId, LocalDateTime eventTime) {
+        return new OrderEventLogEntry(0, orderId, Change.CANCEL, null, null, null, null, OrderStatus.CANCELLED, eventTime);
+    }
+
+    /**
+     * Cancels are never stale and move the order's last event time forward like updates do.
+     *
+     * @param categoryReference turns a category id into a {@link Category} to set on the order
+     * @return {@code false} when the change was skipped: a cancel of a cancelled order, an update
+     * {@link Order#isStale(LocalDateTime) older} than the newest applied event, or an update whose
+     * status move {@link OrderStatus#canMoveTo(OrderStatus) is not allowed}
+     */
+    public boolean applyTo(Order order, Function<Long, Category> categoryReference) {
+        var current = order.getStatus();
+        if (change == Change.CANCEL) {
+            if (current == OrderStatus.CANCELLED) {
+                return false;
+            }
+            order.setStatus(OrderStatus.CANCELLED);
+            order.advanceLastEventAt(eventTime);
+            return true;
+        }
+
+        if (order.isStale(eventTime) || current != null && status != null && !current.canMoveTo(status)) {
+            return false;
+        }
+        order.setProductName(productName);
+        order.setPrice(price);
+        order.setQuantity(quantity);
+        if (status != null) {
+            order.setStatus(status);
+        }
+        if (categoryId != null && (order.getCategory() == null || !Objects.equals(order.getCategory().getId(), categoryId))) {
+            order.setCategory(categoryReference.apply(categoryId));
+        }
+        order.advanceLastEventAt(eventTime);
+        return true;
+    }
+}
@@ -1,9 +1,66 @@
 package org.elyashevich.consumer.domain.entity;
 
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Order statuses and the moves allowed between them. The table is inverted once into the set of
+ * statuses each status can be entered from, which is what a guarded {@code UPDATE ... WHERE
+ * status IN (...)} needs.
+ */
 public enum OrderStatus {
     PENDING,
     PROCESSING,
     SHIPPED,
     DELIVERED,
-    CANCELLED
-}
\ No newline at end of file
+    CANCELLED;
+
+    private static final Map<OrderStatus, Set<OrderStatus>> NEXT = new EnumMap<>(OrderStatus.class);
+    private static final Map<OrderStatus, Set<OrderStatus>> SOURCES = new EnumMap<>(OrderStatus.class);
+    private static final Map<OrderStatus, Set<OrderStatus>> SOURCES_OR_SELF = new EnumMap<>(OrderStatus.class);
+
+    static {
+        NEXT.put(PENDING, EnumSet.of(PROCESSING, CANCELLED));
+        NEXT.put(PROCESSING, EnumSet.of(SHIPPED, DELIVERED, CANCELLED));
+        NEXT.put(SHIPPED, EnumSet.of(DELIVERED, CANCELLED));
+        NEXT.put(DELIVERED, EnumSet.of(CANCELLED));
+        NEXT.put(CANCELLED, EnumSet.noneOf(OrderStatus.class));
+
+        for (var target : values()) {
+            var sources = EnumSet.noneOf(OrderStatus.class);
+            NEXT.forEach((from, next) -> {
+                if (next.contains(target)) {
+                    sources.add(from);
+                }
+            });
+            var sourcesOrSelf = EnumSet.copyOf(sources);
+            sourcesOrSelf.add(target);
+            SOURCES.put(target, Collections.unmodifiableSet(sources));
+            SOURCES_OR_SELF.put(target, Collections.unmodifiableSet(sourcesOrSelf));
+        }
+    }
+
+    /**
+     * Staying in the same status is always allowed, so updates that leave the status alone pass.
+     */
+    public boolean canMoveTo(OrderStatus target) {
+        return this == target || NEXT.get(this).contains(target);
+    }
+
+    /**
+     * @return the statuses an order can move to this one from
+     */
+    public Set<OrderStatus> sources() {
+        return SOURCES.get(this);
+    }
+
+    /**
+     * @return {@link #sources()} plus this status, for writes that may keep the status as is
+     */
+    public Set<OrderStatus> sourcesOrSelf() {
+        return SOURCES_OR_SELF.get(this);
+    }
+}
@@ -0,0 +1,33 @@
+package org.elyashevich.consumer.domain.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(
+        name = "processed_events",
+        indexes = @Index(name = "idx_processed_events_processed_at", columnList = "processed_at")
+)
+public class ProcessedEvent {
+    @Id
+    @Column(length = 64)
+    private String eventId;
+
+    @Column(nullable = false)
+    private LocalDateTime processedAt;
+}
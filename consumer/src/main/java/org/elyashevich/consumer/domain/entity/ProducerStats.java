@@ -6,6 +6,7 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -20,7 +21,10 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "kafka_producer_stats")
+@Table(
+        name = "kafka_producer_stats",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"producer_id", "topic_name"})
+)
 public class ProducerStats {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
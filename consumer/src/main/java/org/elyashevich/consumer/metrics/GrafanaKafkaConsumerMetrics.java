@@ -2,27 +2,69 @@ package org.elyashevich.consumer.metrics;
 
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.elyashevich.consumer.api.dto.order.EventType;
+import org.elyashevich.consumer.api.kafka.serialization.EventIdTimestamps;
+import org.elyashevich.consumer.processing.OrderLane;
+import org.elyashevich.consumer.processing.OrderedLaneExecutor;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
 
 @Component
 public class GrafanaKafkaConsumerMetrics {
+    private static final String UNKNOWN_EVENT_TYPE = "unknown";
+    private static final EventType[] EVENT_TYPES = EventType.values();
+    private static final Duration[] STAGE_BUCKETS = {
+            Duration.ofNanos(100_000), Duration.ofNanos(500_000), Duration.ofMillis(1), Duration.ofMillis(5),
+            Duration.ofMillis(10), Duration.ofMillis(25), Duration.ofMillis(50), Duration.ofMillis(100),
+            Duration.ofMillis(250), Duration.ofMillis(500), Duration.ofSeconds(1), Duration.ofSeconds(5),
+            Duration.ofSeconds(10), Duration.ofSeconds(30), Duration.ofSeconds(60)
+    };
+    private static final Duration[] EVENT_AGE_BUCKETS = {
+            Duration.ofMillis(10), Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(250),
+            Duration.ofMillis(500), Duration.ofSeconds(1), Duration.ofMillis(2500), Duration.ofSeconds(5),
+            Duration.ofSeconds(10), Duration.ofSeconds(30), Duration.ofMinutes(1), Duration.ofMinutes(5),
+            Duration.ofMinutes(15), Duration.ofHours(1)
+    };
+
     private final MeterRegistry registry;
     private final Map<String, Timer> successTimers = new ConcurrentHashMap<>();
+    private final Map<String, ThreadCpuTime> listenerCpuTimes = new ConcurrentHashMap<>();
 
     private final Timer globalProcessingTimer;
     private final Counter totalMessagesCounter;
     private final DistributionSummary messageSizeSummary;
+    private final Counter partitionPausesCounter;
+    private final Counter partitionResumesCounter;
+    private final Timer statsFlushTimer;
+    private final DistributionSummary statsFlushBatchSummary;
+    private final Timer dedupFlushTimer;
+    private final DistributionSummary dedupFlushBatchSummary;
+    private final Timer eventLogAppendTimer;
+    private final DistributionSummary eventLogAppendBatchSummary;
+    private final Timer eventLogCompactionTimer;
+    private final DistributionSummary eventLogCompactionBatchSummary;
+    private final Timer eventLatencyTimer;
+    private final Timer[] stageTimers;
+    private final Timer[] eventAgeTimers;
 
     public GrafanaKafkaConsumerMetrics(MeterRegistry registry) {
         this.registry = registry;
 
         this.globalProcessingTimer = Timer.builder("kafka.consumer.processing.time.global")
-                .description("Total message processing time")
+                .description("Listener time per record up to handing it to a lane; see kafka.consumer.stage.time for the rest")
                 .publishPercentiles(0.5, 0.95, 0.99)
                 .register(registry);
 
@@ -34,6 +76,58 @@ public class GrafanaKafkaConsumerMetrics {
                 .description("Message size distribution")
                 .baseUnit("bytes")
                 .register(registry);
+
+        this.partitionPausesCounter = Counter.builder("kafka.consumer.backpressure.pauses")
+                .description("Partitions paused because processing passed a high-water mark")
+                .register(registry);
+
+        this.partitionResumesCounter = Counter.builder("kafka.consumer.backpressure.resumes")
+                .description("Partitions resumed after processing fell below a low-water mark")
+                .register(registry);
+
+        this.statsFlushTimer = Timer.builder("kafka.consumer.stats.flush.time")
+                .description("Time spent writing aggregated producer stats")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+
+        this.statsFlushBatchSummary = DistributionSummary.builder("kafka.consumer.stats.flush.batch.size")
+                .description("Producer stats rows written per flush")
+                .register(registry);
+
+        this.dedupFlushTimer = Timer.builder("kafka.consumer.dedup.flush.time")
+                .description("Time spent writing processed event ids")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+
+        this.dedupFlushBatchSummary = DistributionSummary.builder("kafka.consumer.dedup.flush.batch.size")
+                .description("Processed event ids written per flush")
+                .register(registry);
+
+        this.eventLogAppendTimer = Timer.builder("kafka.consumer.event.log.append.time")
+                .description("Time spent appending a group of order changes to the event log")
+                .serviceLevelObjectives(STAGE_BUCKETS)
+                .register(registry);
+
+        this.eventLogAppendBatchSummary = DistributionSummary.builder("kafka.consumer.event.log.append.batch.size")
+                .description("Order changes written per event log append")
+                .register(registry);
+
+        this.eventLogCompactionTimer = Timer.builder("kafka.consumer.event.log.compaction.time")
+                .description("Time spent folding a batch of logged changes into the orders table")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+
+        this.eventLogCompactionBatchSummary = DistributionSummary.builder("kafka.consumer.event.log.compaction.batch.size")
+                .description("Logged changes folded per compaction batch")
+                .register(registry);
+
+        this.eventLatencyTimer = Timer.builder("kafka.consumer.event.latency")
+                .description("Time from event id creation on the producer to the end of processing")
+                .serviceLevelObjectives(EVENT_AGE_BUCKETS)
+                .register(registry);
+
+        this.stageTimers = registerStageTimers();
+        this.eventAgeTimers = registerEventAgeTimers();
     }
 
     public Timer.Sample startTimer() {
@@ -52,6 +146,273 @@ public class GrafanaKafkaConsumerMetrics {
         messageSizeSummary.record(messageSize);
     }
 
+    public void recordBatchSuccess(Timer.Sample sample, List<? extends ConsumerRecord<?, ?>> records) {
+        if (sample == null || records.isEmpty()) {
+            return;
+        }
+
+        sample.stop(getSuccessTimer(records.get(0).topic()));
+        sample.stop(globalProcessingTimer);
+
+        totalMessagesCounter.increment(records.size());
+        records.forEach(record -> messageSizeSummary.record(record.serializedValueSize()));
+    }
+
+    /**
+     * Counts CPU time of the calling listener thread, polling and deserialization included,
+     * under {@code kafka.consumer.listener.cpu.time{mode}}. Divided by the message rate it gives
+     * the per-record cost that bounds one partition's throughput.
+     */
+    public void trackListenerThread(String mode) {
+        listenerCpuTimes.computeIfAbsent(mode, this::registerListenerCpuTime).track(Thread.currentThread());
+    }
+
+    public void recordDeserializationFailure(String topic) {
+        Counter.builder("kafka.consumer.deserialization.failures")
+                .description("Records sent to the dead-letter topic because their payload or routing headers could not be read")
+                .tag("topic", topic)
+                .register(registry)
+                .increment();
+    }
+
+    public void registerLane(OrderLane lane) {
+        var laneTag = String.valueOf(lane.getIndex());
+
+        Gauge.builder("kafka.consumer.lane.depth", lane, OrderLane::depth)
+                .description("Events waiting in the order lane")
+                .tag("lane", laneTag)
+                .register(registry);
+
+        Gauge.builder("kafka.consumer.lane.capacity", lane, OrderLane::capacity)
+                .description("Order lane ring buffer capacity")
+                .tag("lane", laneTag)
+                .register(registry);
+
+        FunctionCounter.builder("kafka.consumer.lane.processed", lane, OrderLane::processedCount)
+                .description("Events executed by the order lane")
+                .tag("lane", laneTag)
+                .register(registry);
+
+        FunctionCounter.builder("kafka.consumer.lane.full", lane, OrderLane::fullCount)
+                .description("Submissions that found the order lane full and had to wait")
+                .tag("lane", laneTag)
+                .register(registry);
+    }
+
+    public void registerLanePermits(Semaphore permits) {
+        Gauge.builder("kafka.consumer.lane.permits.available", permits, Semaphore::availablePermits)
+                .description("Free processing permits in virtual thread mode")
+                .register(registry);
+    }
+
+    public <T> void registerInFlight(T source, ToDoubleFunction<T> inFlight) {
+        Gauge.builder("kafka.consumer.inflight", source, inFlight)
+                .description("Events handed to the order lanes and not yet completed")
+                .register(registry);
+    }
+
+    /**
+     * Executor-wide view of the lanes next to the per-lane gauges. Utilization is measured
+     * between reads, so it assumes a single registry scraping at a steady interval.
+     */
+    public void registerLaneExecutor(OrderedLaneExecutor executor) {
+        Gauge.builder("kafka.consumer.lanes.active", executor, OrderedLaneExecutor::active)
+                .description("Events running on a lane worker")
+                .register(registry);
+
+        Gauge.builder("kafka.consumer.lanes.queued", executor, OrderedLaneExecutor::queued)
+                .description("Events handed to the order lanes that have not started running")
+                .register(registry);
+
+        Gauge.builder("kafka.consumer.lane.depth.max", executor, OrderedLaneExecutor::maxLaneDepth)
+                .description("Events waiting in the deepest order lane")
+                .register(registry);
+
+        Gauge.builder("kafka.consumer.lanes.utilization", executor, OrderedLaneExecutor::utilization)
+                .description("Share of lane worker time spent running events, decaying average over about ten seconds")
+                .register(registry);
+    }
+
+    public void registerPausedPartitions(Map<?, ?> pausedPartitions) {
+        Gauge.builder("kafka.consumer.backpressure.paused.partitions", pausedPartitions, Map::size)
+                .description("Partitions currently paused by backpressure")
+                .register(registry);
+    }
+
+    public void recordPartitionPaused() {
+        partitionPausesCounter.increment();
+    }
+
+    public void recordPartitionResumed() {
+        partitionResumesCounter.increment();
+    }
+
+    public void recordStatsFlush(Timer.Sample sample, int batchSize) {
+        sample.stop(statsFlushTimer);
+        statsFlushBatchSummary.record(batchSize);
+    }
+
+    public <T> void registerDedupStore(T source,
+                                       ToDoubleFunction<T> filterBytes,
+                                       ToDoubleFunction<T> filterInsertions,
+                                       ToDoubleFunction<T> pending) {
+        Gauge.builder("kafka.consumer.dedup.filter.size", source, filterBytes)
+                .description("Memory used by the event id Bloom filter")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("kafka.consumer.dedup.filter.insertions", source, filterInsertions)
+                .description("Event ids added to the Bloom filter since it was last rebuilt")
+                .register(registry);
+        Gauge.builder("kafka.consumer.dedup.pending", source, pending)
+                .description("Processed event ids waiting to be written")
+                .register(registry);
+    }
+
+    public void recordDedupCheck(String result) {
+        Counter.builder("kafka.consumer.dedup.checks")
+                .description("Event id lookups by the de-duplication store")
+                .tag("result", result)
+                .register(registry)
+                .increment();
+    }
+
+    public void recordDedupFlush(Timer.Sample sample, int batchSize) {
+        sample.stop(dedupFlushTimer);
+        dedupFlushBatchSummary.record(batchSize);
+    }
+
+    public void recordEventLogAppend(Timer.Sample sample, int batchSize) {
+        sample.stop(eventLogAppendTimer);
+        eventLogAppendBatchSummary.record(batchSize);
+    }
+
+    public void recordEventLogCompaction(Timer.Sample sample, int batchSize) {
+        sample.stop(eventLogCompactionTimer);
+        eventLogCompactionBatchSummary.record(batchSize);
+    }
+
+    public void recordRetry(String topic) {
+        Counter.builder("kafka.consumer.retry.attempts")
+                .description("Failed order events sent to a retry stage topic")
+                .tag("topic", topic)
+                .register(registry)
+                .increment();
+    }
+
+    public void recordDeadLetter(String exception) {
+        Counter.builder("kafka.consumer.dlt.messages")
+                .description("Order events sent to the dead-letter topic after the last retry stage, on a non-retryable failure or because they could not be decoded")
+                .tag("exception", exception)
+                .register(registry)
+                .increment();
+    }
+
+    public void recordRetryPublishFailure(String topic) {
+        Counter.builder("kafka.consumer.retry.publish.failures")
+                .description("Failed order events that could not be written to a retry or dead-letter topic")
+                .tag("topic", topic)
+                .register(registry)
+                .increment();
+    }
+
+    public void recordOffsetCommit(boolean success) {
+        Counter.builder("kafka.consumer.offset.commits")
+                .description("Offset commits issued by the completion tracker")
+                .tag("result", success ? "success" : "failure")
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Records one pass through a pipeline stage. Every stage, event type and outcome combination
+     * is registered up front with fixed histogram buckets, so this is an array lookup and a
+     * bucket increment.
+     */
+    public void recordStage(PipelineStage stage, EventType eventType, boolean success, long nanos) {
+        stageTimers[stageIndex(stage, eventTypeIndex(eventType), success)].record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Age of the event at the time its write committed, from the producer's
+     * {@link org.elyashevich.consumer.api.dto.order.OrderEvent#getTimestamp() timestamp}, which is
+     * local time on the producer host. Events without a timestamp and ages below zero are skipped.
+     */
+    public void recordEventAge(EventType eventType, LocalDateTime timestamp) {
+        if (timestamp == null) {
+            return;
+        }
+        var age = Duration.between(timestamp, LocalDateTime.now());
+        if (!age.isNegative()) {
+            eventAgeTimers[eventTypeIndex(eventType)].record(age);
+        }
+    }
+
+    /**
+     * Skips ids without an embedded timestamp and ids that appear to come from the future, which
+     * only clock skew between hosts can produce.
+     */
+    public void recordEventLatency(String eventId) {
+        var createdAt = EventIdTimestamps.epochMillisOf(eventId);
+        if (createdAt == EventIdTimestamps.UNKNOWN) {
+            return;
+        }
+        var latency = System.currentTimeMillis() - createdAt;
+        if (latency >= 0) {
+            eventLatencyTimer.record(latency, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private Timer[] registerStageTimers() {
+        var timers = new Timer[PipelineStage.values().length * (EVENT_TYPES.length + 1) * 2];
+        for (var stage : PipelineStage.values()) {
+            for (var eventType = 0; eventType <= EVENT_TYPES.length; eventType++) {
+                for (var success : new boolean[]{true, false}) {
+                    timers[stageIndex(stage, eventType, success)] = Timer.builder("kafka.consumer.stage.time")
+                            .description("Time an order event spends in one consumer pipeline stage")
+                            .tags("stage", stage.tag(), "event.type", eventTypeTag(eventType),
+                                    "outcome", success ? "success" : "failure")
+                            .serviceLevelObjectives(STAGE_BUCKETS)
+                            .register(registry);
+                }
+            }
+        }
+        return timers;
+    }
+
+    private Timer[] registerEventAgeTimers() {
+        var timers = new Timer[EVENT_TYPES.length + 1];
+        for (var eventType = 0; eventType < timers.length; eventType++) {
+            timers[eventType] = Timer.builder("kafka.consumer.event.age")
+                    .description("Time from the event timestamp on the producer to the commit of its write")
+                    .tag("event.type", eventTypeTag(eventType))
+                    .serviceLevelObjectives(EVENT_AGE_BUCKETS)
+                    .register(registry);
+        }
+        return timers;
+    }
+
+    private static int stageIndex(PipelineStage stage, int eventTypeIndex, boolean success) {
+        return (stage.ordinal() * (EVENT_TYPES.length + 1) + eventTypeIndex) * 2 + (success ? 0 : 1);
+    }
+
+    private static int eventTypeIndex(EventType eventType) {
+        return eventType == null ? EVENT_TYPES.length : eventType.ordinal();
+    }
+
+    private static String eventTypeTag(int index) {
+        return index < EVENT_TYPES.length ? EVENT_TYPES[index].name() : UNKNOWN_EVENT_TYPE;
+    }
+
+    private ThreadCpuTime registerListenerCpuTime(String mode) {
+        var cpuTime = new ThreadCpuTime();
+        FunctionCounter.builder("kafka.consumer.listener.cpu.time", cpuTime, ThreadCpuTime::totalSeconds)
+                .description("CPU time used by Kafka listener threads")
+                .baseUnit("seconds")
+                .tag("mode", mode)
+                .register(registry);
+        return cpuTime;
+    }
+
     private Timer getSuccessTimer(String topic) {
         return successTimers.computeIfAbsent(topic, t ->
                 Timer.builder("kafka.consumer.processing.time.success")
@@ -0,0 +1,30 @@
+package org.elyashevich.consumer.metrics;
+
+/**
+ * Steps an order event goes through in the consumer, each timed under
+ * {@code kafka.consumer.stage.time{stage}}.
+ */
+public enum PipelineStage {
+    /** Payload bytes to {@code OrderEvent}, on the poll thread or, in lazy mode, on the lane worker. */
+    DESERIALIZE("deserialize"),
+    /** Counting the record against its producer. */
+    STATS_UPDATE("stats_update"),
+    /** From handing the event to its lane until a worker picks it up. */
+    QUEUE_WAIT("queue_wait"),
+    /** Resolving the category named in the event. */
+    CATEGORY_LOOKUP("category_lookup"),
+    /** The order write and its transaction commit. */
+    DB_WRITE("db_write"),
+    /** From publishing a failed event to a retry topic until the retry runs. */
+    RETRY_BACKOFF("retry_backoff");
+
+    private final String tag;
+
+    PipelineStage(String tag) {
+        this.tag = tag;
+    }
+
+    public String tag() {
+        return tag;
+    }
+}
@@ -0,0 +1,32 @@
+package org.elyashevich.consumer.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sums the CPU time of the threads it has seen. The last reading of every thread is kept, so
+ * the total does not drop when a thread exits. Virtual threads report no CPU time and add nothing.
+ */
+final class ThreadCpuTime {
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final Map<Long, Long> cpuNanosByThread = new ConcurrentHashMap<>();
+
+    void track(Thread thread) {
+        var threadId = thread.threadId();
+        if (!cpuNanosByThread.containsKey(threadId)) {
+            cpuNanosByThread.putIfAbsent(threadId, 0L);
+        }
+    }
+
+    double totalSeconds() {
+        if (!THREADS.isThreadCpuTimeSupported()) {
+            return 0;
+        }
+
+        cpuNanosByThread.replaceAll((threadId, last) -> Math.max(last, THREADS.getThreadCpuTime(threadId)));
+        return cpuNanosByThread.values().stream().mapToLong(Long::longValue).sum() / 1e9;
+    }
+}
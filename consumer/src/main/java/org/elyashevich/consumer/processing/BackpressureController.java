@@ -0,0 +1,114 @@
+package org.elyashevich.consumer.processing;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.elyashevich.consumer.config.OrderConsumerProperties;
+import org.elyashevich.consumer.metrics.GrafanaKafkaConsumerMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pauses the partition feeding a lane once the lane or the total in-flight count passes its
+ * high-water mark, and resumes it when both fall back below the low-water marks.
+ * <p>
+ * A partition revoked or lost while paused is forgotten, along with the container's pause
+ * request, so it starts out unpaused when it is assigned again.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "orders.consumer.batch", name = "enabled", havingValue = "false", matchIfMissing = true)
+public class BackpressureController implements ConsumerAwareRebalanceListener {
+
+    public static final String ORDER_LISTENER_ID = "order-listener";
+
+    private final OrderConsumerProperties properties;
+    private final OrderedLaneExecutor laneExecutor;
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final GrafanaKafkaConsumerMetrics metrics;
+
+    private final Map<TopicPartition, PauseReason> pausedPartitions = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        laneExecutor.setCompletionListener(this::onCompleted);
+        metrics.registerPausedPartitions(pausedPartitions);
+    }
+
+    public void onSubmitted(TopicPartition partition, OrderLane lane) {
+        var backpressure = properties.getBackpressure();
+        var laneFull = lane.depth() >= lane.capacity() * backpressure.getLaneHighWaterRatio();
+        var inFlightFull = laneExecutor.inFlight() >= backpressure.getInFlightHighWater();
+
+        if ((laneFull || inFlightFull) && pausedPartitions.putIfAbsent(partition, new PauseReason(lane, inFlightFull)) == null) {
+            var container = listenerRegistry.getListenerContainer(ORDER_LISTENER_ID);
+            if (container != null) {
+                container.pausePartition(partition);
+            }
+            metrics.recordPartitionPaused();
+            log.debug("Paused partition {} (lane {} depth {}, in-flight {})",
+                    partition, lane.getIndex(), lane.depth(), laneExecutor.inFlight());
+        }
+    }
+
+    @Override
+    public void onPartitionsRevokedAfterCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        forget(partitions);
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        forget(partitions);
+    }
+
+    private void forget(Collection<TopicPartition> partitions) {
+        for (var partition : partitions) {
+            if (pausedPartitions.remove(partition) == null) {
+                continue;
+            }
+            var container = listenerRegistry.getListenerContainer(ORDER_LISTENER_ID);
+            if (container != null) {
+                container.resumePartition(partition);
+            }
+            log.debug("Dropped pause of revoked partition {}", partition);
+        }
+    }
+
+    private void onCompleted(OrderLane lane) {
+        if (pausedPartitions.isEmpty()) {
+            return;
+        }
+
+        var backpressure = properties.getBackpressure();
+        var inFlight = laneExecutor.inFlight();
+        if (inFlight >= backpressure.getInFlightHighWater()) {
+            return;
+        }
+
+        pausedPartitions.forEach((partition, reason) -> {
+            var laneDrained = reason.lane().depth() <= reason.lane().capacity() * backpressure.getLaneLowWaterRatio();
+            var inFlightDrained = !reason.inFlight() || inFlight <= backpressure.getInFlightLowWater();
+
+            if (laneDrained && inFlightDrained && pausedPartitions.remove(partition, reason)) {
+                var container = listenerRegistry.getListenerContainer(ORDER_LISTENER_ID);
+                if (container != null) {
+                    container.resumePartition(partition);
+                }
+                metrics.recordPartitionResumed();
+                log.debug("Resumed partition {}", partition);
+            }
+        });
+    }
+
+    private record PauseReason(OrderLane lane, boolean inFlight) {
+    }
+}
@@ -0,0 +1,173 @@
+package org.elyashevich.consumer.processing;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.elyashevich.consumer.config.OrderConsumerProperties;
+import org.elyashevich.consumer.metrics.GrafanaKafkaConsumerMetrics;
+import org.elyashevich.consumer.service.ProcessedEventService;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks records handed off to the lanes and commits, per partition, the highest offset below
+ * which every record has completed. Commits are asynchronous, throttled to the configured
+ * interval and always issued from the consumer thread that owns the partition.
+ * <p>
+ * Processed event ids are flushed before every commit, and a commit is skipped while they
+ * cannot be written, so a committed offset never runs ahead of the de-duplication store.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OffsetCommitTracker implements ConsumerAwareRebalanceListener {
+
+    private final OrderConsumerProperties properties;
+    private final GrafanaKafkaConsumerMetrics metrics;
+    private final ProcessedEventService processedEventService;
+
+    private final Map<TopicPartition, PartitionOffsets> partitions = new ConcurrentHashMap<>();
+
+    public void track(ConsumerRecord<?, ?> consumerRecord) {
+        partitions.computeIfAbsent(
+                new TopicPartition(consumerRecord.topic(), consumerRecord.partition()),
+                tp -> new PartitionOffsets()
+        ).track(consumerRecord.offset());
+    }
+
+    public void complete(TopicPartition partition, long offset) {
+        var offsets = partitions.get(partition);
+        if (offsets != null) {
+            offsets.complete(offset);
+        }
+    }
+
+    public void commit(Consumer<?, ?> consumer) {
+        var interval = properties.getCommit().getInterval().toNanos();
+        var now = System.nanoTime();
+
+        Map<TopicPartition, OffsetAndMetadata> commits = new HashMap<>();
+        for (var partition : consumer.assignment()) {
+            var offsets = partitions.get(partition);
+            if (offsets == null) {
+                continue;
+            }
+
+            var offset = offsets.nextCommit(now, interval);
+            if (offset >= 0) {
+                commits.put(partition, new OffsetAndMetadata(offset));
+            }
+        }
+
+        if (commits.isEmpty()) {
+            return;
+        }
+        if (!processedEventService.flush()) {
+            log.warn("Holding back offsets {} until processed event ids are stored", commits);
+            rollBack(commits);
+            return;
+        }
+
+        consumer.commitAsync(commits, (committed, exception) -> {
+            metrics.recordOffsetCommit(exception == null);
+            if (exception != null) {
+                log.warn("Failed to commit offsets {}", committed, exception);
+                rollBack(committed);
+            }
+        });
+    }
+
+    private void rollBack(Map<TopicPartition, OffsetAndMetadata> commits) {
+        commits.forEach((partition, offset) -> {
+            var offsets = partitions.get(partition);
+            if (offsets != null) {
+                offsets.commitFailed(offset.offset());
+            }
+        });
+    }
+
+    @EventListener
+    public void onIdle(ListenerContainerIdleEvent event) {
+        var consumer = event.getConsumer();
+        if (consumer != null) {
+            commit(consumer);
+        }
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> revoked) {
+        Map<TopicPartition, OffsetAndMetadata> commits = new HashMap<>();
+        for (var partition : revoked) {
+            var offsets = partitions.remove(partition);
+            if (offsets != null && offsets.committable() >= 0) {
+                commits.put(partition, new OffsetAndMetadata(offsets.committable()));
+            }
+        }
+
+        if (!commits.isEmpty()) {
+            if (!processedEventService.flush()) {
+                log.warn("Not committing offsets {} on revocation, processed event ids could not be stored", commits);
+                return;
+            }
+            try {
+                consumer.commitSync(commits);
+                metrics.recordOffsetCommit(true);
+            } catch (Exception e) {
+                metrics.recordOffsetCommit(false);
+                log.warn("Failed to commit offsets {} on revocation", commits, e);
+            }
+        }
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> lost) {
+        lost.forEach(partitions::remove);
+    }
+
+    private static class PartitionOffsets {
+        private final TreeSet<Long> pending = new TreeSet<>();
+        private long next = -1;
+        private long lastCommitted = -1;
+        private long lastCommitNanos;
+
+        synchronized void track(long offset) {
+            pending.add(offset);
+            next = Math.max(next, offset + 1);
+        }
+
+        synchronized void complete(long offset) {
+            pending.remove(offset);
+        }
+
+        synchronized long committable() {
+            return pending.isEmpty() ? next : pending.first();
+        }
+
+        synchronized long nextCommit(long now, long intervalNanos) {
+            var offset = committable();
+            if (offset <= lastCommitted || (lastCommitted >= 0 && now - lastCommitNanos < intervalNanos)) {
+                return -1;
+            }
+            lastCommitted = offset;
+            lastCommitNanos = now;
+            return offset;
+        }
+
+        synchronized void commitFailed(long offset) {
+            if (lastCommitted == offset) {
+                lastCommitted = -1;
+            }
+        }
+    }
+}
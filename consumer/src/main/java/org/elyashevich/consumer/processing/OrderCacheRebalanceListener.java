@@ -0,0 +1,70 @@
+package org.elyashevich.consumer.processing;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.elyashevich.consumer.config.OrderConsumerProperties;
+import org.elyashevich.consumer.repository.OrderRepository;
+import org.elyashevich.consumer.service.cache.OrderCache;
+import org.springframework.data.domain.Limit;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Keeps the {@link OrderCache} scoped to the partitions of the order listener. Revoked and lost
+ * partitions are dropped right away; newly assigned ones are warmed off the consumer thread from
+ * the most recently updated orders, of which the cache keeps those it now owns.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderCacheRebalanceListener implements ConsumerAwareRebalanceListener {
+
+    private final OrderCache orderCache;
+    private final OrderRepository orderRepository;
+    private final OrderConsumerProperties properties;
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (!orderCache.isEnabled() || partitions.isEmpty()) {
+            return;
+        }
+
+        var topic = partitions.iterator().next().topic();
+        orderCache.assign(partitionNumbers(partitions), consumer.partitionsFor(topic).size());
+        Thread.ofVirtual().name("order-cache-warm").start(this::warm);
+    }
+
+    @Override
+    public void onPartitionsRevokedAfterCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        orderCache.revoke(partitionNumbers(partitions));
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        orderCache.revoke(partitionNumbers(partitions));
+    }
+
+    private void warm() {
+        var cacheProperties = properties.getOrderCache();
+        try {
+            var since = LocalDateTime.now().minus(cacheProperties.getWarmWindow());
+            var recent = orderRepository.findByUpdatedAtAfterOrderByUpdatedAtDesc(
+                    since, Limit.of(cacheProperties.getWarmLimit())
+            );
+            recent.forEach(orderCache::put);
+            log.info("Warmed order cache from {} recent orders, {} cached", recent.size(), orderCache.size());
+        } catch (Exception e) {
+            log.warn("Failed to warm order cache", e);
+        }
+    }
+
+    private static List<Integer> partitionNumbers(Collection<TopicPartition> partitions) {
+        return partitions.stream().map(TopicPartition::partition).toList();
+    }
+}
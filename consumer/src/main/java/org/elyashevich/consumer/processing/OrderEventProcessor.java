@@ -0,0 +1,105 @@
+package org.elyashevich.consumer.processing;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.elyashevich.consumer.api.dto.order.EventType;
+import org.elyashevich.consumer.api.dto.order.OrderEvent;
+import org.elyashevich.consumer.api.mapper.OrderMapper;
+import org.elyashevich.consumer.domain.entity.Category;
+import org.elyashevich.consumer.domain.entity.Order;
+import org.elyashevich.consumer.domain.entity.OrderEventLogEntry;
+import org.elyashevich.consumer.metrics.GrafanaKafkaConsumerMetrics;
+import org.elyashevich.consumer.metrics.PipelineStage;
+import org.elyashevich.consumer.service.CategoryService;
+import org.elyashevich.consumer.service.OrderService;
+import org.elyashevich.consumer.service.ProcessedEventService;
+import org.elyashevich.consumer.service.eventlog.OrderEventLog;
+import org.springframework.stereotype.Component;
+
+/**
+ * Applies a single order event. Shared by the main listener lanes and the retry topic listeners,
+ * so both paths see the same de-duplication and the same failures.
+ * <p>
+ * Creates and updates resolve their category before the write so the lookup is timed as its own
+ * stage; the service's lookup by the same name is then a category cache hit. With the
+ * {@link OrderEventLog} enabled, updates and cancels are appended to the log instead.
+ * <p>
+ * Updates and cancels carry the event timestamp, so an update that comes back from the retry
+ * topics after a newer event of the same order was applied is dropped as stale.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderEventProcessor {
+    private static final OrderMapper orderMapper = OrderMapper.INSTANCE;
+
+    private final OrderService orderService;
+    private final CategoryService categoryService;
+    private final ProcessedEventService processedEventService;
+    private final OrderEventLog eventLog;
+    private final GrafanaKafkaConsumerMetrics metrics;
+
+    public void process(OrderEvent event) {
+        if (processedEventService.isProcessed(event.getEventId())) {
+            log.debug("Skipping already processed order event: {}", event.getEventId());
+            return;
+        }
+
+        var eventType = event.getEventType();
+        var order = orderMapper.toEntity(event.getOrder());
+        order.setCategory(eventType == EventType.ORDER_CANCELLED
+                ? Category.builder().name(event.getOrder().getCategoryName()).build()
+                : lookupCategory(eventType, event.getOrder().getCategoryName()));
+
+        write(eventType, event, order);
+
+        processedEventService.markProcessed(event.getEventId());
+        metrics.recordEventLatency(event.getEventId());
+        metrics.recordEventAge(eventType, event.getTimestamp());
+        log.debug("Processed order event: {}", event.getEventId());
+    }
+
+    private Category lookupCategory(EventType eventType, String categoryName) {
+        var startedAt = System.nanoTime();
+        var found = false;
+        try {
+            var category = categoryService.findByName(categoryName);
+            found = true;
+            return category;
+        } finally {
+            metrics.recordStage(PipelineStage.CATEGORY_LOOKUP, eventType, found, System.nanoTime() - startedAt);
+        }
+    }
+
+    private void write(EventType eventType, OrderEvent event, Order order) {
+        var startedAt = System.nanoTime();
+        var written = false;
+        try {
+            switch (eventType) {
+                case ORDER_CREATED -> orderService.create(order);
+                case ORDER_UPDATED -> {
+                    order.setId(event.getOrder().getOrderId());
+                    order.setLastEventAt(event.getTimestamp());
+                    if (eventLog.isEnabled()) {
+                        eventLog.append(OrderEventLogEntry.update(order, event.getTimestamp()));
+                    } else {
+                        orderService.update(order);
+                    }
+                }
+                case ORDER_CANCELLED -> {
+                    order.setId(event.getOrder().getOrderId());
+                    order.setLastEventAt(event.getTimestamp());
+                    if (eventLog.isEnabled()) {
+                        eventLog.append(OrderEventLogEntry.cancel(order.getId(), event.getTimestamp()));
+                    } else {
+                        orderService.cancel(order);
+                    }
+                }
+                default -> log.warn("Unknown event type: {}", eventType);
+            }
+            written = true;
+        } finally {
+            metrics.recordStage(PipelineStage.DB_WRITE, eventType, written, System.nanoTime() - startedAt);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.elyashevich.consumer.processing;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Single-consumer lane backed by a preallocated bounded ring buffer. Tasks are executed
+ * strictly in submission order by the lane's own worker thread.
+ * <p>
+ * Each task keeps the orderId it was submitted for, so the backlog can be broken down by order
+ * on demand without any bookkeeping on the submit path.
+ */
+@Slf4j
+public class OrderLane implements Runnable {
+
+    private static final long POLL_TIMEOUT_MS = 100;
+
+    @Getter
+    private final int index;
+    private final int capacity;
+    private final BlockingQueue<Task> buffer;
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder full = new LongAdder();
+
+    private volatile boolean running = true;
+
+    public OrderLane(int index, int capacity) {
+        this.index = index;
+        this.capacity = capacity;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * @param orderId the order the task belongs to, {@code null} for creates
+     */
+    public boolean put(Long orderId, Runnable body) throws InterruptedException {
+        if (!running) {
+            return false;
+        }
+        var task = new Task(orderId, body);
+        if (buffer.offer(task)) {
+            return true;
+        }
+
+        full.increment();
+        while (running) {
+            if (buffer.offer(task, POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void run() {
+        while (running || !buffer.isEmpty()) {
+            try {
+                var task = buffer.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (task != null) {
+                    execute(task);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    public int depth() {
+        return buffer.size();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public long processedCount() {
+        return processed.sum();
+    }
+
+    public long fullCount() {
+        return full.sum();
+    }
+
+    /**
+     * Adds the waiting tasks of every known order to {@code backlog}. The buffer is walked while
+     * the lane keeps running, so the counts are a close snapshot rather than an exact one.
+     */
+    public void countBacklog(Map<Long, Integer> backlog) {
+        for (var task : buffer) {
+            if (task.orderId() != null) {
+                backlog.merge(task.orderId(), 1, Integer::sum);
+            }
+        }
+    }
+
+    private void execute(Task task) {
+        try {
+            task.body().run();
+        } catch (Exception e) {
+            log.error("Unhandled error in order lane {}", index, e);
+        } finally {
+            processed.increment();
+        }
+    }
+
+    private record Task(Long orderId, Runnable body) {
+    }
+}
@@ -0,0 +1,242 @@
+package org.elyashevich.consumer.processing;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.elyashevich.consumer.api.dto.order.OrderEvent;
+import org.elyashevich.consumer.config.OrderConsumerProperties;
+import org.elyashevich.consumer.exception.BusinessException;
+import org.elyashevich.consumer.exception.ResourceNotFoundException;
+import org.elyashevich.consumer.metrics.GrafanaKafkaConsumerMetrics;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Moves a failed order event to the next retry stage topic, or to the dead-letter topic once
+ * all stages are used up. The event keeps its key, so retries of one order share a partition.
+ * Failures that another attempt cannot fix, such as a rejected transition or a missing order,
+ * skip the retry stages and go to the dead-letter topic right away.
+ * <p>
+ * Original topic, partition and offset are recorded on the first failure and carried along;
+ * the exception headers always describe the latest failure. Header names follow
+ * {@link KafkaHeaders} so the records read like those of spring-kafka's dead-letter recoverer.
+ * <p>
+ * Listeners that complete an offset once the failure is handed off use
+ * {@link #publishFailureUntilSent}, so an event whose send failed is never committed while it is
+ * on no topic. Payloads that cannot be decoded at all have no event to retry; they go straight to
+ * the dead-letter topic as the original bytes through {@link #deadLetterUntilSent}.
+ */
+@Slf4j
+@Component
+public class OrderRetryPublisher {
+    public static final String ATTEMPT_HEADER = "orders-retry-attempt";
+    public static final String DUE_AT_HEADER = "orders-retry-due-at";
+
+    private static final List<String> FAILURE_HEADERS = List.of(
+            ATTEMPT_HEADER,
+            DUE_AT_HEADER,
+            KafkaHeaders.DLT_EXCEPTION_FQCN,
+            KafkaHeaders.DLT_EXCEPTION_CAUSE_FQCN,
+            KafkaHeaders.DLT_EXCEPTION_MESSAGE,
+            KafkaHeaders.DLT_EXCEPTION_STACKTRACE
+    );
+
+    private static final List<Class<? extends Throwable>> NON_RETRYABLE = List.of(
+            BusinessException.class,
+            ResourceNotFoundException.class
+    );
+
+    private static final Duration REPUBLISH_BACKOFF = Duration.ofSeconds(1);
+
+    private final KafkaTemplate<String, OrderEvent> retryKafkaTemplate;
+    private final KafkaTemplate<String, byte[]> deadLetterKafkaTemplate;
+    private final OrderConsumerProperties.Retry retryProperties;
+    private final GrafanaKafkaConsumerMetrics metrics;
+
+    private volatile boolean running = true;
+
+    public OrderRetryPublisher(KafkaTemplate<String, OrderEvent> retryKafkaTemplate,
+                               KafkaTemplate<String, byte[]> deadLetterKafkaTemplate,
+                               OrderConsumerProperties properties,
+                               GrafanaKafkaConsumerMetrics metrics) {
+        this.retryKafkaTemplate = retryKafkaTemplate;
+        this.deadLetterKafkaTemplate = deadLetterKafkaTemplate;
+        this.retryProperties = properties.getRetry();
+        this.metrics = metrics;
+    }
+
+    public CompletableFuture<SendResult<String, OrderEvent>> publishFailure(ConsumerRecord<String, OrderEvent> failed,
+                                                                           Throwable cause) {
+        var attempt = attemptOf(failed);
+        var stages = retryProperties.getStages();
+        var headers = carriedHeaders(failed);
+        addExceptionHeaders(headers, cause);
+
+        var deadLetter = attempt >= stages.size() || isNonRetryable(cause);
+        String topic;
+        if (!deadLetter) {
+            topic = retryProperties.stageTopic(attempt);
+            var dueAt = System.currentTimeMillis() + stages.get(attempt).toMillis();
+            headers.add(ATTEMPT_HEADER, utf8(String.valueOf(attempt + 1)));
+            headers.add(DUE_AT_HEADER, utf8(String.valueOf(dueAt)));
+        } else {
+            topic = retryProperties.getDeadLetterTopic();
+            headers.add(ATTEMPT_HEADER, utf8(String.valueOf(attempt)));
+            headers.add(KafkaHeaders.DLT_EXCEPTION_STACKTRACE, utf8(stackTrace(cause)));
+        }
+
+        log.debug("Publishing event at {}-{}@{} to {} after attempt {}",
+                failed.topic(), failed.partition(), failed.offset(), topic, attempt);
+        var producerRecord = new ProducerRecord<>(topic, null, failed.key(), failed.value(), headers);
+        return send(retryKafkaTemplate, producerRecord).whenComplete((result, ex) -> {
+            if (ex != null) {
+                metrics.recordRetryPublishFailure(topic);
+                log.error("Failed to publish event at {}-{}@{} to {}",
+                        failed.topic(), failed.partition(), failed.offset(), topic, ex);
+            } else if (deadLetter) {
+                metrics.recordDeadLetter(cause.getClass().getSimpleName());
+            } else {
+                metrics.recordRetry(topic);
+            }
+        });
+    }
+
+    /**
+     * Sends a record whose payload or routing headers could not be read to the dead-letter topic,
+     * value and headers untouched apart from the failure headers.
+     */
+    public CompletableFuture<SendResult<String, byte[]>> publishUndecodable(ConsumerRecord<String, byte[]> undecodable,
+                                                                           Throwable cause) {
+        var topic = retryProperties.getDeadLetterTopic();
+        var headers = carriedHeaders(undecodable);
+        addExceptionHeaders(headers, cause);
+        headers.add(ATTEMPT_HEADER, utf8("0"));
+        headers.add(KafkaHeaders.DLT_EXCEPTION_STACKTRACE, utf8(stackTrace(cause)));
+
+        var producerRecord = new ProducerRecord<>(topic, null, undecodable.key(), undecodable.value(), headers);
+        return send(deadLetterKafkaTemplate, producerRecord).whenComplete((result, ex) -> {
+            if (ex != null) {
+                metrics.recordRetryPublishFailure(topic);
+                log.error("Failed to publish undecodable record at {}-{}@{} to {}",
+                        undecodable.topic(), undecodable.partition(), undecodable.offset(), topic, ex);
+            } else {
+                metrics.recordDeadLetter(cause.getClass().getSimpleName());
+            }
+        });
+    }
+
+    /**
+     * Publishes like {@link #publishFailure} and re-sends after a pause until a send succeeds.
+     * Once shut down it stops trying and leaves the future incomplete, so the caller's offset
+     * stays uncommitted and the record is redelivered.
+     */
+    public CompletableFuture<Void> publishFailureUntilSent(ConsumerRecord<String, OrderEvent> failed, Throwable cause) {
+        return untilSent(() -> publishFailure(failed, cause));
+    }
+
+    /**
+     * {@link #publishUndecodable} with the re-send behaviour of {@link #publishFailureUntilSent}.
+     */
+    public CompletableFuture<Void> deadLetterUntilSent(ConsumerRecord<String, byte[]> undecodable, Throwable cause) {
+        return untilSent(() -> publishUndecodable(undecodable, cause));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+    }
+
+    private CompletableFuture<Void> untilSent(Supplier<? extends CompletableFuture<?>> publish) {
+        var sent = new CompletableFuture<Void>();
+        publishUntilSent(publish, sent);
+        return sent;
+    }
+
+    private void publishUntilSent(Supplier<? extends CompletableFuture<?>> publish, CompletableFuture<Void> sent) {
+        publish.get().whenComplete((result, ex) -> {
+            if (ex == null) {
+                sent.complete(null);
+            } else if (running) {
+                CompletableFuture.delayedExecutor(REPUBLISH_BACKOFF.toMillis(), TimeUnit.MILLISECONDS)
+                        .execute(() -> publishUntilSent(publish, sent));
+            }
+        });
+    }
+
+    private static <V> CompletableFuture<SendResult<String, V>> send(KafkaTemplate<String, V> template,
+                                                                   ProducerRecord<String, V> producerRecord) {
+        try {
+            return template.send(producerRecord);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    public static int attemptOf(ConsumerRecord<?, ?> record) {
+        var header = record.headers().lastHeader(ATTEMPT_HEADER);
+        return header == null ? 0 : Integer.parseInt(new String(header.value(), StandardCharsets.UTF_8));
+    }
+
+    public static long dueAtOf(ConsumerRecord<?, ?> record) {
+        var header = record.headers().lastHeader(DUE_AT_HEADER);
+        return header == null ? 0 : Long.parseLong(new String(header.value(), StandardCharsets.UTF_8));
+    }
+
+    private static boolean isNonRetryable(Throwable cause) {
+        for (var current = cause; current != null; current = current.getCause()) {
+            var failure = current;
+            if (NON_RETRYABLE.stream().anyMatch(type -> type.isInstance(failure))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Headers carriedHeaders(ConsumerRecord<?, ?> failed) {
+        var headers = new RecordHeaders(failed.headers().toArray());
+        FAILURE_HEADERS.forEach(headers::remove);
+
+        if (headers.lastHeader(KafkaHeaders.DLT_ORIGINAL_TOPIC) == null) {
+            headers.add(KafkaHeaders.DLT_ORIGINAL_TOPIC, utf8(failed.topic()));
+            headers.add(KafkaHeaders.DLT_ORIGINAL_PARTITION, ByteBuffer.allocate(Integer.BYTES).putInt(failed.partition()).array());
+            headers.add(KafkaHeaders.DLT_ORIGINAL_OFFSET, ByteBuffer.allocate(Long.BYTES).putLong(failed.offset()).array());
+            headers.add(KafkaHeaders.DLT_ORIGINAL_TIMESTAMP, ByteBuffer.allocate(Long.BYTES).putLong(failed.timestamp()).array());
+        }
+        return headers;
+    }
+
+    private static void addExceptionHeaders(Headers headers, Throwable cause) {
+        headers.add(KafkaHeaders.DLT_EXCEPTION_FQCN, utf8(cause.getClass().getName()));
+        if (cause.getCause() != null) {
+            headers.add(KafkaHeaders.DLT_EXCEPTION_CAUSE_FQCN, utf8(cause.getCause().getClass().getName()));
+        }
+        if (cause.getMessage() != null) {
+            headers.add(KafkaHeaders.DLT_EXCEPTION_MESSAGE, utf8(cause.getMessage()));
+        }
+    }
+
+    private static String stackTrace(Throwable cause) {
+        var writer = new StringWriter();
+        cause.printStackTrace(new PrintWriter(writer));
+        return writer.toString();
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
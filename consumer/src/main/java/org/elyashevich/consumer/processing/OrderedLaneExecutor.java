@@ -0,0 +1,282 @@
+package org.elyashevich.consumer.processing;
+
+import jakarta.annotation.PreDestroy;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.elyashevich.consumer.config.OrderConsumerProperties;
+import org.elyashevich.consumer.config.OrderConsumerProperties.ThreadMode;
+import org.elyashevich.consumer.metrics.GrafanaKafkaConsumerMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Fixed set of ordered lanes. The orderId hash picks the lane, so all events of one order
+ * are executed sequentially while different orders run in parallel across lanes.
+ * <p>
+ * In virtual thread mode lanes are cheap, so many more of them are started and the number
+ * of events processed at once is capped by a semaphore sized to the connection pool.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "orders.consumer.batch", name = "enabled", havingValue = "false", matchIfMissing = true)
+public class OrderedLaneExecutor {
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+    private static final int VIRTUAL_LANES_PER_CORE = 16;
+    private static final double UTILIZATION_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final OrderLane[] lanes;
+    private final List<Thread> workers = new ArrayList<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final Semaphore permits;
+    private final int workerSlots;
+
+    private final Object utilizationLock = new Object();
+    private final Map<Thread, Long> runningSince = new HashMap<>();
+    private double decayedBusy;
+    private long decayedAt = System.nanoTime();
+
+    /**
+     * Waiting events of one order across the lanes.
+     */
+    public record OrderBacklog(long orderId, int lane, int pending) {
+    }
+
+    @Setter
+    private Consumer<OrderLane> completionListener = lane -> { };
+
+    public OrderedLaneExecutor(
+            OrderConsumerProperties properties,
+            GrafanaKafkaConsumerMetrics metrics,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize
+    ) {
+        var laneProperties = properties.getLanes();
+        var virtual = laneProperties.getThreadMode() == ThreadMode.VIRTUAL;
+        var cores = Runtime.getRuntime().availableProcessors();
+        var count = laneProperties.getCount() > 0
+                ? laneProperties.getCount()
+                : virtual ? cores * VIRTUAL_LANES_PER_CORE : cores;
+
+        if (virtual) {
+            var maxConcurrency = laneProperties.getMaxConcurrency() > 0
+                    ? laneProperties.getMaxConcurrency()
+                    : connectionPoolSize;
+            this.permits = new Semaphore(maxConcurrency);
+            this.workerSlots = Math.min(count, maxConcurrency);
+            metrics.registerLanePermits(permits);
+        } else {
+            this.permits = null;
+            this.workerSlots = count;
+        }
+
+        Thread.Builder threadBuilder = virtual
+                ? Thread.ofVirtual().name("order-lane-", 0)
+                : Thread.ofPlatform().name("order-lane-", 0);
+
+        this.lanes = new OrderLane[count];
+        for (var i = 0; i < count; i++) {
+            var lane = new OrderLane(i, laneProperties.getCapacity());
+            lanes[i] = lane;
+            metrics.registerLane(lane);
+            workers.add(threadBuilder.start(lane));
+        }
+
+        metrics.registerInFlight(this, OrderedLaneExecutor::inFlight);
+        metrics.registerLaneExecutor(this);
+        log.info("Started {} {} order lanes with capacity {}",
+                count, laneProperties.getThreadMode(), laneProperties.getCapacity());
+    }
+
+    public boolean submit(long key, Runnable task) throws InterruptedException {
+        return submit(laneFor(key), key, task);
+    }
+
+    public boolean submit(OrderLane lane, Runnable task) throws InterruptedException {
+        return submit(lane, null, task);
+    }
+
+    /**
+     * @param orderId the order the task belongs to, {@code null} for creates; only used to
+     *                report the {@linkplain #hottestOrders(int) hottest orders}
+     */
+    public boolean submit(OrderLane lane, Long orderId, Runnable task) throws InterruptedException {
+        inFlight.incrementAndGet();
+        var accepted = lane.put(orderId, () -> {
+            try {
+                runWithPermit(task);
+            } finally {
+                inFlight.decrementAndGet();
+                completionListener.accept(lane);
+            }
+        });
+
+        if (!accepted) {
+            inFlight.decrementAndGet();
+        }
+        return accepted;
+    }
+
+    public OrderLane laneFor(long key) {
+        var hash = Long.hashCode(key) * 0x9E3779B9;
+        return lanes[Math.floorMod(hash ^ (hash >>> 16), lanes.length)];
+    }
+
+    /**
+     * Creates carry no orderId yet and nothing can refer to the order before it exists, so they
+     * go to the lane of their record key, which the producer sets to the event id.
+     */
+    public OrderLane laneFor(Long orderId, String recordKey) {
+        if (orderId != null) {
+            return laneFor(orderId.longValue());
+        }
+        return laneFor(recordKey == null ? 0 : recordKey.hashCode());
+    }
+
+    public int laneCount() {
+        return lanes.length;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return events running on a worker right now
+     */
+    public int active() {
+        return running.get();
+    }
+
+    /**
+     * @return events handed to the lanes that have not started running, including those
+     * waiting for a permit in virtual thread mode
+     */
+    public int queued() {
+        return Math.max(0, inFlight.get() - running.get());
+    }
+
+    public int maxLaneDepth() {
+        var max = 0;
+        for (var lane : lanes) {
+            max = Math.max(max, lane.depth());
+        }
+        return max;
+    }
+
+    /**
+     * Share of the worker time spent running events, between 0 and 1, averaged with exponentially
+     * decaying weight over roughly the last ten seconds. A worker is a lane, or a permit in
+     * virtual thread mode when there are fewer permits than lanes. Finished events are folded
+     * in when they end and events still running count up to now, so a worker stuck on one long
+     * call reads as busy. Reading has no side effects, so any number of readers see the same value.
+     */
+    public double utilization() {
+        synchronized (utilizationLock) {
+            var now = System.nanoTime();
+            var busy = decayedBusy * decay(now - decayedAt);
+            for (var startedAt : runningSince.values()) {
+                busy += 1 - decay(now - startedAt);
+            }
+            return Math.min(1, busy / workerSlots);
+        }
+    }
+
+    /**
+     * @return the orders with the most events waiting in the lanes, deepest first
+     */
+    public List<OrderBacklog> hottestOrders(int limit) {
+        Map<Long, Integer> backlog = new HashMap<>();
+        for (var lane : lanes) {
+            lane.countBacklog(backlog);
+        }
+
+        return backlog.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue(Comparator.reverseOrder()))
+                .limit(limit)
+                .map(entry -> new OrderBacklog(entry.getKey(), laneFor(entry.getKey()).getIndex(), entry.getValue()))
+                .toList();
+    }
+
+    private void runWithPermit(Runnable task) {
+        if (permits == null) {
+            runTimed(task);
+            return;
+        }
+
+        permits.acquireUninterruptibly();
+        try {
+            runTimed(task);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void runTimed(Runnable task) {
+        running.incrementAndGet();
+        var startedAt = startBusy();
+        try {
+            task.run();
+        } finally {
+            finishBusy(startedAt);
+            running.decrementAndGet();
+        }
+    }
+
+    private long startBusy() {
+        synchronized (utilizationLock) {
+            var startedAt = System.nanoTime();
+            runningSince.put(Thread.currentThread(), startedAt);
+            return startedAt;
+        }
+    }
+
+    /**
+     * Moves the busy interval from the running events into the decayed total, weighted like
+     * {@link #utilization()}: a worker busy for the whole window converges to 1.
+     */
+    private void finishBusy(long startedAt) {
+        synchronized (utilizationLock) {
+            var finishedAt = System.nanoTime();
+            runningSince.remove(Thread.currentThread());
+            decayedBusy = decayedBusy * decay(finishedAt - decayedAt) + 1 - decay(finishedAt - startedAt);
+            decayedAt = Math.max(decayedAt, finishedAt);
+        }
+    }
+
+    private static double decay(long elapsedNanos) {
+        return elapsedNanos <= 0 ? 1 : Math.exp(-elapsedNanos / UTILIZATION_WINDOW_NANOS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (var lane : lanes) {
+            lane.stop();
+        }
+
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SHUTDOWN_TIMEOUT_SECONDS);
+        try {
+            for (var worker : workers) {
+                var remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0 || !worker.join(Duration.ofMillis(remaining))) {
+                    worker.interrupt();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            workers.forEach(Thread::interrupt);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package org.elyashevich.consumer.repository;
+
+import org.elyashevich.consumer.domain.entity.Order;
+
+import java.util.List;
+
+public interface OrderBulkRepository {
+
+    /**
+     * Inserts new orders without going through the persistence context. Ids, timestamps and the
+     * version are set on the given orders, which stay detached.
+     */
+    void insertAll(List<Order> orders);
+}
@@ -0,0 +1,182 @@
+package org.elyashevich.consumer.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.elyashevich.consumer.domain.entity.Order;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * On PostgreSQL new orders are streamed with {@code COPY ... FROM STDIN}, one round trip for the
+ * rows however many there are. Other databases get a batched {@code INSERT}.
+ * <p>
+ * Ids come from {@code orders_seq} in blocks of {@link Order#ID_ALLOCATION_SIZE}, the same way
+ * Hibernate's pooled optimizer uses the sequence: a call returning {@code n} owns the ids up to
+ * and including {@code n}. Ids reserved here therefore never collide with ids Hibernate hands
+ * out to single creates.
+ */
+public class OrderBulkRepositoryImpl implements OrderBulkRepository {
+
+    private static final String SEQUENCE = "orders_seq";
+    private static final String COLUMNS =
+            "id, category_id, product_name, price, quantity, status, created_at, updated_at, version";
+    private static final String COPY_SQL = "COPY orders (" + COLUMNS + ") FROM STDIN";
+    private static final String INSERT_SQL = "INSERT INTO orders (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String POSTGRES_ID_BLOCKS_SQL = "SELECT nextval('" + SEQUENCE + "') FROM generate_series(1, ?)";
+    private static final int COPY_CHUNK_CHARS = 64 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean postgres;
+    private final String nextIdBlockSql;
+
+    public OrderBulkRepositoryImpl(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        Dialect dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        this.postgres = dialect instanceof PostgreSQLDialect;
+        this.nextIdBlockSql = dialect.getSequenceSupport().getSequenceNextValString(SEQUENCE);
+    }
+
+    @Override
+    public void insertAll(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+
+        var now = LocalDateTime.now();
+        var ids = reserveIds(orders.size());
+        for (var i = 0; i < orders.size(); i++) {
+            var order = orders.get(i);
+            order.setId(ids.get(i));
+            order.setCreatedAt(now);
+            order.setUpdatedAt(now);
+            order.setVersion(0L);
+        }
+
+        if (postgres) {
+            copy(orders);
+        } else {
+            insert(orders);
+        }
+    }
+
+    /**
+     * Usually one block per {@link Order#ID_ALLOCATION_SIZE} ids; the first block of a fresh
+     * sequence holds only id 1, so the loop may go around once more.
+     */
+    private List<Long> reserveIds(int count) {
+        List<Long> ids = new ArrayList<>(count);
+        while (ids.size() < count) {
+            var missing = count - ids.size();
+            var blocks = (missing + Order.ID_ALLOCATION_SIZE - 1) / Order.ID_ALLOCATION_SIZE;
+            for (var upper : nextIdBlocks(blocks)) {
+                var lower = Math.max(1, upper - Order.ID_ALLOCATION_SIZE + 1);
+                for (var id = lower; id <= upper && ids.size() < count; id++) {
+                    ids.add(id);
+                }
+            }
+        }
+        return ids;
+    }
+
+    private List<Long> nextIdBlocks(int blocks) {
+        if (postgres) {
+            return jdbcTemplate.queryForList(POSTGRES_ID_BLOCKS_SQL, Long.class, blocks);
+        }
+        List<Long> uppers = new ArrayList<>(blocks);
+        for (var i = 0; i < blocks; i++) {
+            uppers.add(jdbcTemplate.queryForObject(nextIdBlockSql, Long.class));
+        }
+        return uppers;
+    }
+
+    private void copy(List<Order> orders) {
+        jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            var copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL);
+            try {
+                var rows = new StringBuilder(COPY_CHUNK_CHARS + 256);
+                for (var order : orders) {
+                    appendRow(rows, order);
+                    if (rows.length() >= COPY_CHUNK_CHARS) {
+                        write(copyIn, rows);
+                    }
+                }
+                write(copyIn, rows);
+                return copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+        });
+    }
+
+    private void insert(List<Order> orders) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, orders, orders.size(), (statement, order) -> {
+            statement.setLong(1, order.getId());
+            statement.setLong(2, order.getCategory().getId());
+            statement.setString(3, order.getProductName());
+            statement.setBigDecimal(4, order.getPrice());
+            statement.setInt(5, order.getQuantity());
+            statement.setString(6, order.getStatus() == null ? null : order.getStatus().name());
+            statement.setTimestamp(7, Timestamp.valueOf(order.getCreatedAt()));
+            statement.setTimestamp(8, Timestamp.valueOf(order.getUpdatedAt()));
+            statement.setLong(9, order.getVersion());
+        });
+    }
+
+    private static void write(CopyIn copyIn, StringBuilder rows) throws SQLException {
+        if (rows.isEmpty()) {
+            return;
+        }
+        var bytes = rows.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        rows.setLength(0);
+    }
+
+    /**
+     * One row in COPY text format: tab separated, {@code \N} for null, backslash escapes.
+     */
+    static void appendRow(StringBuilder rows, Order order) {
+        rows.append(order.getId()).append('\t')
+                .append(order.getCategory().getId()).append('\t');
+        appendText(rows, order.getProductName());
+        rows.append('\t');
+        appendText(rows, order.getPrice() == null ? null : order.getPrice().toPlainString());
+        rows.append('\t');
+        appendText(rows, order.getQuantity() == null ? null : order.getQuantity().toString());
+        rows.append('\t');
+        appendText(rows, order.getStatus() == null ? null : order.getStatus().name());
+        rows.append('\t')
+                .append(order.getCreatedAt()).append('\t')
+                .append(order.getUpdatedAt()).append('\t')
+                .append(order.getVersion()).append('\n');
+    }
+
+    private static void appendText(StringBuilder rows, String value) {
+        if (value == null) {
+            rows.append("\\N");
+            return;
+        }
+        for (var i = 0; i < value.length(); i++) {
+            var c = value.charAt(i);
+            switch (c) {
+                case '\\' -> rows.append("\\\\");
+                case '\t' -> rows.append("\\t");
+                case '\n' -> rows.append("\\n");
+                case '\r' -> rows.append("\\r");
+                default -> rows.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package org.elyashevich.consumer.repository;
+
+import org.elyashevich.consumer.domain.entity.OrderEventLogEntry;
+
+import java.util.List;
+
+public interface OrderEventLogRepository {
+
+    /**
+     * Creates the {@code order_events} table hash-partitioned by order id. The partition count
+     * only applies when the table does not exist yet.
+     */
+    void createIfMissing(int partitions);
+
+    void appendAll(List<OrderEventLogEntry> entries);
+
+    /**
+     * @return the entries of one order that were not compacted yet, oldest first
+     */
+    List<OrderEventLogEntry> findByOrderId(long orderId);
+
+    /**
+     * Folds the entries of the orders behind the oldest {@code limit} entries into their rows and
+     * deletes them. Orders locked by a concurrent compaction are left to it.
+     *
+     * @return the order id of every folded entry
+     */
+    List<Long> compactOldest(int limit);
+}
@@ -0,0 +1,182 @@
+package org.elyashevich.consumer.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.elyashevich.consumer.domain.entity.OrderEventLogEntry;
+import org.elyashevich.consumer.domain.entity.OrderStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * JDBC access to {@code order_events}. The table is PostgreSQL specific: it is partitioned by a
+ * hash of the order id, so one order's tail is read from a single partition and appends of
+ * different orders spread over the partitions' indexes.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderEventLogRepositoryImpl implements OrderEventLogRepository {
+
+    private static final String EXISTS_SQL = "SELECT to_regclass('order_events') IS NOT NULL";
+    private static final String CREATE_TABLE_SQL = """
+            CREATE TABLE order_events (
+                seq BIGSERIAL,
+                order_id BIGINT NOT NULL,
+                change VARCHAR(16) NOT NULL,
+                category_id BIGINT,
+                product_name VARCHAR(255),
+                price NUMERIC(19, 2),
+                quantity INTEGER,
+                status VARCHAR(32),
+                event_time TIMESTAMP,
+                appended_at TIMESTAMP NOT NULL DEFAULT now(),
+                PRIMARY KEY (order_id, seq)
+            ) PARTITION BY HASH (order_id)
+            """;
+    private static final String CREATE_PARTITION_SQL =
+            "CREATE TABLE order_events_%d PARTITION OF order_events FOR VALUES WITH (MODULUS %d, REMAINDER %d)";
+    private static final String CREATE_SEQ_INDEX_SQL = "CREATE INDEX order_events_seq_idx ON order_events (seq)";
+    private static final String INSERT_SQL = """
+            INSERT INTO order_events (order_id, change, category_id, product_name, price, quantity, status, event_time)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+    private static final String COLUMNS =
+            "seq, order_id, change, category_id, product_name, price, quantity, status, event_time";
+    private static final String SELECT_BY_ORDER_SQL = "SELECT " + COLUMNS + " FROM order_events WHERE order_id = ? ORDER BY seq";
+    /**
+     * Claims the orders behind the oldest entries, skipping orders another compaction holds, and
+     * deletes their entries. Per order the newest update wins if it is not stale and the row can
+     * reach its status; a cancel wins over updates logged after it. Deleting and folding in one
+     * statement means entries committed after its snapshot stay for the next batch.
+     */
+    private static final String COMPACT_SQL = """
+            WITH claimed AS (
+                SELECT id, status, last_event_at FROM orders
+                WHERE id IN (SELECT order_id FROM order_events ORDER BY seq LIMIT ?)
+                FOR UPDATE SKIP LOCKED
+            ), folded AS (
+                DELETE FROM order_events e USING claimed c
+                WHERE e.order_id = c.id
+                RETURNING e.seq, e.order_id, e.change, e.category_id, e.product_name, e.price, e.quantity, e.status, e.event_time
+            ), first_cancel AS (
+                SELECT DISTINCT ON (order_id) order_id, seq, event_time
+                FROM folded
+                WHERE change = 'CANCEL'
+                ORDER BY order_id, seq
+            ), latest_update AS (
+                SELECT DISTINCT ON (u.order_id) u.*
+                FROM (
+                    SELECT f.*, max(f.event_time) OVER (PARTITION BY f.order_id ORDER BY f.seq) AS seen_at
+                    FROM folded f
+                ) u
+                JOIN claimed c ON c.id = u.order_id
+                LEFT JOIN first_cancel fc ON fc.order_id = u.order_id
+                WHERE u.change = 'UPDATE'
+                  AND (fc.seq IS NULL OR u.seq < fc.seq)
+                  AND (u.event_time IS NULL OR u.event_time >= u.seen_at
+                       AND (c.last_event_at IS NULL OR u.event_time >= c.last_event_at))
+                  AND (c.status IS NULL OR u.status IS NULL OR (c.status, u.status) IN (%s))
+                ORDER BY u.order_id, u.seq DESC
+            ), compacted AS (
+                UPDATE orders o SET
+                    category_id = COALESCE(lu.category_id, o.category_id),
+                    product_name = COALESCE(lu.product_name, o.product_name),
+                    price = COALESCE(lu.price, o.price),
+                    quantity = COALESCE(lu.quantity, o.quantity),
+                    status = CASE WHEN fc.order_id IS NOT NULL THEN 'CANCELLED' ELSE COALESCE(lu.status, o.status) END,
+                    last_event_at = GREATEST(o.last_event_at, lu.event_time,
+                                             CASE WHEN c.status IS DISTINCT FROM 'CANCELLED' THEN fc.event_time END),
+                    updated_at = LOCALTIMESTAMP,
+                    version = o.version + 1
+                FROM claimed c
+                LEFT JOIN latest_update lu ON lu.order_id = c.id
+                LEFT JOIN first_cancel fc ON fc.order_id = c.id
+                WHERE o.id = c.id
+                  AND (lu.order_id IS NOT NULL OR fc.order_id IS NOT NULL AND c.status IS DISTINCT FROM 'CANCELLED')
+            )
+            SELECT order_id FROM folded
+            """.formatted(reachableMoves());
+
+    private static final RowMapper<OrderEventLogEntry> ENTRY_MAPPER = (resultSet, rowNum) -> {
+        var status = resultSet.getString("status");
+        var eventTime = resultSet.getTimestamp("event_time");
+        return new OrderEventLogEntry(
+                resultSet.getLong("seq"),
+                resultSet.getLong("order_id"),
+                OrderEventLogEntry.Change.valueOf(resultSet.getString("change")),
+                resultSet.getObject("category_id", Long.class),
+                resultSet.getString("product_name"),
+                resultSet.getBigDecimal("price"),
+                resultSet.getObject("quantity", Integer.class),
+                status == null ? null : OrderStatus.valueOf(status),
+                eventTime == null ? null : eventTime.toLocalDateTime()
+        );
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void createIfMissing(int partitions) {
+        if (Boolean.TRUE.equals(jdbcTemplate.queryForObject(EXISTS_SQL, Boolean.class))) {
+            return;
+        }
+
+        jdbcTemplate.execute(CREATE_TABLE_SQL);
+        for (var remainder = 0; remainder < partitions; remainder++) {
+            jdbcTemplate.execute(CREATE_PARTITION_SQL.formatted(remainder, partitions, remainder));
+        }
+        jdbcTemplate.execute(CREATE_SEQ_INDEX_SQL);
+    }
+
+    @Override
+    public void appendAll(List<OrderEventLogEntry> entries) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, entries, entries.size(), (statement, entry) -> {
+            statement.setLong(1, entry.orderId());
+            statement.setString(2, entry.change().name());
+            statement.setObject(3, entry.categoryId(), Types.BIGINT);
+            statement.setString(4, entry.productName());
+            statement.setBigDecimal(5, entry.price());
+            statement.setObject(6, entry.quantity(), Types.INTEGER);
+            statement.setString(7, entry.status() == null ? null : entry.status().name());
+            statement.setTimestamp(8, entry.eventTime() == null ? null : Timestamp.valueOf(entry.eventTime()));
+        });
+    }
+
+    @Override
+    public List<OrderEventLogEntry> findByOrderId(long orderId) {
+        return jdbcTemplate.query(SELECT_BY_ORDER_SQL, ENTRY_MAPPER, orderId);
+    }
+
+    @Override
+    public List<Long> compactOldest(int limit) {
+        return jdbcTemplate.queryForList(COMPACT_SQL, Long.class, limit);
+    }
+
+    /**
+     * Status pairs {@code (from, to)} where {@code to} is reachable from {@code from}, so an update
+     * folded over earlier moves of the same batch still passes. Built from {@link OrderStatus}
+     * only, never from input.
+     */
+    private static String reachableMoves() {
+        var moves = new StringJoiner(", ");
+        for (var from : OrderStatus.values()) {
+            var reached = EnumSet.of(from);
+            var grown = true;
+            while (grown) {
+                grown = false;
+                for (var to : OrderStatus.values()) {
+                    if (!reached.contains(to) && reached.stream().anyMatch(status -> status.canMoveTo(to))) {
+                        grown = reached.add(to);
+                    }
+                }
+            }
+            reached.forEach(to -> moves.add("('" + from.name() + "', '" + to.name() + "')"));
+        }
+        return moves.toString();
+    }
+}
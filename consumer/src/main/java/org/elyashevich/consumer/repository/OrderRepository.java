@@ -1,7 +1,78 @@
 package org.elyashevich.consumer.repository;
 
 import org.elyashevich.consumer.domain.entity.Order;
+import org.elyashevich.consumer.domain.entity.OrderStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface OrderRepository extends JpaRepository<Order, Long> {
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderBulkRepository {
+
+    /**
+     * Writes a detached order without loading it first. Matches nothing when the row has been
+     * changed since {@code order.version} was read.
+     */
+    @Modifying
+    @Query("""
+            update Order o
+            set o.category = :#{#order.category},
+                o.productName = :#{#order.productName},
+                o.price = :#{#order.price},
+                o.quantity = :#{#order.quantity},
+                o.status = :#{#order.status},
+                o.updatedAt = :#{#order.updatedAt},
+                o.lastEventAt = :#{#order.lastEventAt},
+                o.version = o.version + 1
+            where o.id = :#{#order.id} and o.version = :#{#order.version}
+            """)
+    int updateIfUnchanged(@Param("order") Order order);
+
+    /**
+     * Writes a detached order without loading it first. Matches nothing when the order is missing,
+     * its status is not one of {@code from}, or it has already seen an event newer than
+     * {@code order.lastEventAt}; an update without a timestamp only matches orders that have none.
+     */
+    @Modifying
+    @Query("""
+            update Order o
+            set o.category = :#{#order.category},
+                o.productName = :#{#order.productName},
+                o.price = :#{#order.price},
+                o.quantity = :#{#order.quantity},
+                o.status = :#{#order.status},
+                o.updatedAt = :#{#order.updatedAt},
+                o.lastEventAt = :#{#order.lastEventAt},
+                o.version = o.version + 1
+            where o.id = :#{#order.id} and o.status in :from
+              and (o.lastEventAt is null or o.lastEventAt <= :#{#order.lastEventAt})
+            """)
+    int updateIfStatusIn(@Param("order") Order order, @Param("from") Collection<OrderStatus> from);
+
+    /**
+     * Moves an order to {@code status} in one statement. Matches nothing when the order is
+     * missing or its status is not one of {@code from}. {@code lastEventAt} only moves forward.
+     */
+    @Modifying
+    @Query("""
+            update Order o
+            set o.status = :status,
+                o.updatedAt = :updatedAt,
+                o.lastEventAt = case when o.lastEventAt is null or o.lastEventAt < :eventAt
+                                     then :eventAt else o.lastEventAt end,
+                o.version = o.version + 1
+            where o.id = :id and o.status in :from
+            """)
+    int transitionStatus(@Param("id") Long id,
+                         @Param("status") OrderStatus status,
+                         @Param("from") Collection<OrderStatus> from,
+                         @Param("updatedAt") LocalDateTime updatedAt,
+                         @Param("eventAt") LocalDateTime eventAt);
+
+    List<Order> findByUpdatedAtAfterOrderByUpdatedAtDesc(LocalDateTime since, Limit limit);
 }
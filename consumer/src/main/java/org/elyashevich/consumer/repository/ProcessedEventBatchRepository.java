@@ -0,0 +1,14 @@
+package org.elyashevich.consumer.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+public interface ProcessedEventBatchRepository {
+
+    void insertAll(Collection<String> eventIds, LocalDateTime processedAt);
+
+    void forEachEventIdSince(LocalDateTime since, Consumer<String> action);
+
+    int deleteProcessedBefore(LocalDateTime cutoff);
+}
@@ -0,0 +1,55 @@
+package org.elyashevich.consumer.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+@RequiredArgsConstructor
+public class ProcessedEventBatchRepositoryImpl implements ProcessedEventBatchRepository {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO processed_events (event_id, processed_at)
+            VALUES (?, ?)
+            ON CONFLICT (event_id) DO NOTHING
+            """;
+    private static final String SELECT_SINCE_SQL = "SELECT event_id FROM processed_events WHERE processed_at >= ?";
+    private static final String DELETE_BEFORE_SQL = "DELETE FROM processed_events WHERE processed_at < ?";
+    private static final int FETCH_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertAll(Collection<String> eventIds, LocalDateTime processedAt) {
+        var timestamp = Timestamp.valueOf(processedAt);
+        jdbcTemplate.batchUpdate(INSERT_SQL, List.copyOf(eventIds), eventIds.size(), (statement, eventId) -> {
+            statement.setString(1, eventId);
+            statement.setTimestamp(2, timestamp);
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachEventIdSince(LocalDateTime since, Consumer<String> action) {
+        jdbcTemplate.query(
+                connection -> {
+                    var statement = connection.prepareStatement(SELECT_SINCE_SQL);
+                    statement.setFetchSize(FETCH_SIZE);
+                    statement.setTimestamp(1, Timestamp.valueOf(since));
+                    return statement;
+                },
+                (RowCallbackHandler) resultSet -> action.accept(resultSet.getString(1))
+        );
+    }
+
+    @Override
+    public int deleteProcessedBefore(LocalDateTime cutoff) {
+        return jdbcTemplate.update(DELETE_BEFORE_SQL, Timestamp.valueOf(cutoff));
+    }
+}
@@ -0,0 +1,7 @@
+package org.elyashevich.consumer.repository;
+
+import org.elyashevich.consumer.domain.entity.ProcessedEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ProcessedEventRepository extends JpaRepository<ProcessedEvent, String>, ProcessedEventBatchRepository {
+}
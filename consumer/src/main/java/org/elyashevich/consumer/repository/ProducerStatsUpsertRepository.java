@@ -0,0 +1,10 @@
+package org.elyashevich.consumer.repository;
+
+import org.elyashevich.consumer.domain.entity.ProducerStats;
+
+import java.util.List;
+
+public interface ProducerStatsUpsertRepository {
+
+    void upsertAll(List<ProducerStats> deltas);
+}
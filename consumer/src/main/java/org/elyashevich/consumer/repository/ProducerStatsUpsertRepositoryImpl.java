@@ -0,0 +1,32 @@
+package org.elyashevich.consumer.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.elyashevich.consumer.domain.entity.ProducerStats;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class ProducerStatsUpsertRepositoryImpl implements ProducerStatsUpsertRepository {
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO kafka_producer_stats (producer_id, topic_name, call_count, last_call_time)
+            VALUES (?, ?, ?, ?)
+            ON CONFLICT (producer_id, topic_name) DO UPDATE
+            SET call_count = kafka_producer_stats.call_count + EXCLUDED.call_count,
+                last_call_time = GREATEST(kafka_producer_stats.last_call_time, EXCLUDED.last_call_time)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void upsertAll(List<ProducerStats> deltas) {
+        jdbcTemplate.batchUpdate(UPSERT_SQL, deltas, deltas.size(), (statement, delta) -> {
+            statement.setString(1, delta.getProducerId());
+            statement.setString(2, delta.getTopicName());
+            statement.setInt(3, delta.getCallCount());
+            statement.setTimestamp(4, Timestamp.valueOf(delta.getLastCallTime()));
+        });
+    }
+}
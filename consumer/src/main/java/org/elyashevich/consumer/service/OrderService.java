@@ -2,6 +2,8 @@ package org.elyashevich.consumer.service;
 
 import org.elyashevich.consumer.domain.entity.Order;
 
+import java.util.List;
+
 public interface OrderService {
 
     Order create(Order order);
@@ -13,4 +15,10 @@ public interface OrderService {
     void cancel(Order order);
 
     Order complete(Order order);
+
+    List<Order> createAll(List<Order> orders);
+
+    List<Order> updateAll(List<Order> orders);
+
+    void cancelAll(List<Order> orders);
 }
@@ -0,0 +1,13 @@
+package org.elyashevich.consumer.service;
+
+public interface ProcessedEventService {
+
+    boolean isProcessed(String eventId);
+
+    void markProcessed(String eventId);
+
+    /**
+     * @return {@code false} when some processed ids could not be written and are still pending
+     */
+    boolean flush();
+}
@@ -9,4 +9,6 @@ public interface ProducerStatsService {
     void recordProducerCall(String producerId, String topicName);
 
     List<ProducerStats> findAll();
+
+    void flush();
 }
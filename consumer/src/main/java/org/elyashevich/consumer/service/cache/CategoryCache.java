@@ -0,0 +1,87 @@
+package org.elyashevich.consumer.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.elyashevich.consumer.config.OrderConsumerProperties;
+import org.elyashevich.consumer.domain.entity.Category;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Bounded category cache keyed by name and by id. Unknown names are cached as empty entries
+ * for the short negative TTL so a burst of events with a bad category does not hit the database.
+ */
+@Component
+public class CategoryCache {
+
+    private final Cache<String, Optional<Category>> byName;
+    private final Cache<Long, Category> byId;
+
+    public CategoryCache(OrderConsumerProperties properties, MeterRegistry registry) {
+        var cacheProperties = properties.getCategoryCache();
+        var ttl = cacheProperties.getTtl();
+        var negativeTtl = cacheProperties.getNegativeTtl();
+
+        this.byName = Caffeine.newBuilder()
+                .maximumSize(cacheProperties.getMaxSize())
+                .expireAfter(Expiry.<String, Optional<Category>>creating(
+                        (name, category) -> category.isPresent() ? ttl : negativeTtl
+                ))
+                .recordStats()
+                .build();
+
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(cacheProperties.getMaxSize())
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(registry, byName, "categories.by-name");
+        CaffeineCacheMetrics.monitor(registry, byId, "categories.by-id");
+    }
+
+    public Optional<Category> getByName(String name, Function<String, Optional<Category>> loader) {
+        return byName.get(name, loader);
+    }
+
+    public Optional<Category> getById(Long id, Function<Long, Optional<Category>> loader) {
+        var cached = byId.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        var loaded = loader.apply(id);
+        loaded.ifPresent(category -> byId.put(id, category));
+        return loaded;
+    }
+
+    public void evict(Long id, String... names) {
+        evictNow(id, names);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(id, names);
+                }
+            });
+        }
+    }
+
+    private void evictNow(Long id, String... names) {
+        if (id != null) {
+            byId.invalidate(id);
+        }
+        for (var name : names) {
+            if (name != null) {
+                byName.invalidate(name);
+            }
+        }
+    }
+}
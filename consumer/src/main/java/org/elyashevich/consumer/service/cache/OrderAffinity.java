@@ -0,0 +1,45 @@
+package org.elyashevich.consumer.service.cache;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Consumer copy of the producer's order affinity partitioner: the partition an order's events
+ * are keyed to, given the topic's partition count. Both copies must change together.
+ */
+public final class OrderAffinity {
+
+    private OrderAffinity() {
+    }
+
+    public static int partitionOf(long orderId, int partitions) {
+        return partitionFor(String.valueOf(orderId).getBytes(StandardCharsets.UTF_8), partitions);
+    }
+
+    /**
+     * Jump consistent hash over FNV-1a of the key bytes, finished with the MurmurHash3 mixer.
+     */
+    static int partitionFor(byte[] keyBytes, int partitions) {
+        var key = hash(keyBytes);
+        long bucket = -1;
+        long next = 0;
+        while (next < partitions) {
+            bucket = next;
+            key = key * 2862933555777941757L + 1;
+            next = (long) ((bucket + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) bucket;
+    }
+
+    private static long hash(byte[] keyBytes) {
+        var hash = 0xCBF29CE484222325L;
+        for (var b : keyBytes) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001B3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 33);
+    }
+}
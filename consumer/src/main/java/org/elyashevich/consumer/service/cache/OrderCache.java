@@ -0,0 +1,87 @@
+package org.elyashevich.consumer.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.elyashevich.consumer.config.OrderConsumerProperties;
+import org.elyashevich.consumer.domain.entity.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Recently touched orders of the partitions this instance currently owns. With order affinity
+ * partitioning only the owner of a partition sees events for its orders, so entries stay
+ * current; anything written elsewhere (retry listeners of other instances) is caught by the
+ * version check of {@code OrderRepository#updateIfUnchanged}.
+ * <p>
+ * Callers get and put copies, so an entry is never changed behind the cache's back.
+ */
+@Component
+public class OrderCache {
+
+    private final boolean enabled;
+    private final Cache<Long, CachedOrder> orders;
+    private final Set<Integer> ownedPartitions = ConcurrentHashMap.newKeySet();
+    private volatile int partitionCount;
+
+    public OrderCache(OrderConsumerProperties properties, MeterRegistry registry) {
+        var cacheProperties = properties.getOrderCache();
+        this.enabled = cacheProperties.isEnabled();
+        this.orders = Caffeine.newBuilder()
+                .maximumSize(cacheProperties.getMaxSize())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(registry, orders, "orders.owned");
+    }
+
+    public Order get(Long id) {
+        var cached = id == null ? null : orders.getIfPresent(id);
+        return cached == null ? null : cached.order().toBuilder().build();
+    }
+
+    public void put(Order order) {
+        if (!enabled || order.getId() == null || order.getVersion() == null || partitionCount == 0) {
+            return;
+        }
+
+        var partition = OrderAffinity.partitionOf(order.getId(), partitionCount);
+        if (ownedPartitions.contains(partition)) {
+            orders.put(order.getId(), new CachedOrder(partition, order.toBuilder().build()));
+        }
+    }
+
+    public void evict(Long id) {
+        if (id != null) {
+            orders.invalidate(id);
+        }
+    }
+
+    public void assign(Collection<Integer> partitions, int partitionCount) {
+        if (this.partitionCount != partitionCount) {
+            orders.invalidateAll();
+            this.partitionCount = partitionCount;
+        }
+        ownedPartitions.addAll(partitions);
+    }
+
+    public void revoke(Collection<Integer> partitions) {
+        ownedPartitions.removeAll(partitions);
+        orders.asMap().values().removeIf(cached -> partitions.contains(cached.partition()));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long size() {
+        return orders.estimatedSize();
+    }
+
+    private record CachedOrder(int partition, Order order) {
+    }
+}
@@ -0,0 +1,297 @@
+package org.elyashevich.consumer.service.eventlog;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.elyashevich.consumer.config.OrderConsumerProperties;
+import org.elyashevich.consumer.domain.entity.Category;
+import org.elyashevich.consumer.domain.entity.Order;
+import org.elyashevich.consumer.domain.entity.OrderEventLogEntry;
+import org.elyashevich.consumer.domain.entity.OrderStatus;
+import org.elyashevich.consumer.exception.BusinessException;
+import org.elyashevich.consumer.metrics.GrafanaKafkaConsumerMetrics;
+import org.elyashevich.consumer.repository.CategoryRepository;
+import org.elyashevich.consumer.repository.OrderEventLogRepository;
+import org.elyashevich.consumer.repository.OrderRepository;
+import org.elyashevich.consumer.service.cache.OrderCache;
+import org.elyashevich.consumer.service.impl.OrderServiceImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Write-optimized mode for changes to existing orders. Instead of updating the {@code orders}
+ * row, updates and cancels are appended to {@code order_events} and a scheduled compactor folds
+ * them into {@code orders} in batches. {@link #findCurrent(Long)} merges the row with the part
+ * of the log that was not compacted yet.
+ * <p>
+ * Appends are group-committed by one writer thread: callers wait until the batch holding their
+ * change is written, so a change is durable before its offset can be committed, and changes
+ * that arrive while a batch is written go out together in the next one.
+ * <p>
+ * Changes are checked before they are appended and rejected the way in-place writes reject
+ * them, so they reach the retry publisher and the dead-letter topic. The check runs against the
+ * order as this instance's last append left it, so the log is only read for an order not seen
+ * since its tail was evicted, or when the tail rejects a change: it may lag changes appended by
+ * another instance, and only the merged order can reject. Compaction applies the same rules
+ * again. Only the lane listeners and the retry listeners append; the batch listener keeps
+ * writing in place.
+ */
+@Slf4j
+@Component
+public class OrderEventLog {
+    private static final long POLL_TIMEOUT_MS = 100;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+    private static final Function<Long, Category> TAIL_CATEGORY = id -> Category.builder().id(id).build();
+
+    private final OrderEventLogRepository eventLogRepository;
+    private final OrderRepository orderRepository;
+    private final CategoryRepository categoryRepository;
+    private final OrderCache orderCache;
+    private final GrafanaKafkaConsumerMetrics metrics;
+    private final OrderConsumerProperties.EventLog properties;
+    private final TransactionTemplate writeTransaction;
+    private final TransactionTemplate readTransaction;
+    private final BlockingQueue<PendingAppend> pending = new LinkedBlockingQueue<>();
+    private final Cache<Long, Order> tails;
+
+    private volatile boolean running;
+    private Thread appender;
+
+    private record PendingAppend(OrderEventLogEntry entry, CompletableFuture<Void> written) {
+    }
+
+    public OrderEventLog(OrderEventLogRepository eventLogRepository,
+                         OrderRepository orderRepository,
+                         CategoryRepository categoryRepository,
+                         OrderCache orderCache,
+                         GrafanaKafkaConsumerMetrics metrics,
+                         OrderConsumerProperties properties,
+                         PlatformTransactionManager transactionManager) {
+        this.eventLogRepository = eventLogRepository;
+        this.orderRepository = orderRepository;
+        this.categoryRepository = categoryRepository;
+        this.orderCache = orderCache;
+        this.metrics = metrics;
+        this.properties = properties.getEventLog();
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setReadOnly(true);
+        readTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.tails = Caffeine.newBuilder().maximumSize(this.properties.getTailCacheSize()).build();
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        eventLogRepository.createIfMissing(properties.getPartitions());
+        running = true;
+        appender = Thread.ofPlatform().name("order-event-log-appender").daemon().start(this::drain);
+        log.info("Order changes go to the event log, compacted every {}", properties.getCompactionInterval());
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Blocks until the change is written. A stale update or a cancel of a cancelled order is
+     * dropped without writing it.
+     *
+     * @throws BusinessException when the order does not exist or cannot move to the change's status
+     */
+    public void append(OrderEventLogEntry entry) {
+        if (!running) {
+            throw new IllegalStateException("Order event log is not accepting changes");
+        }
+        var tail = this.nextTail(entry);
+        if (tail == null) {
+            return;
+        }
+
+        var append = new PendingAppend(entry, new CompletableFuture<>());
+        pending.add(append);
+        try {
+            append.written().get();
+        } catch (InterruptedException e) {
+            tails.invalidate(entry.orderId());
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while appending a change of order " + entry.orderId(), e);
+        } catch (ExecutionException e) {
+            tails.invalidate(entry.orderId());
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        }
+        tails.put(entry.orderId(), tail);
+    }
+
+    /**
+     * Reads the row and its uncompacted changes in one snapshot, so a compaction running at the
+     * same time is seen either entirely or not at all.
+     */
+    public Optional<Order> findCurrent(Long id) {
+        return readTransaction.execute(status -> orderRepository.findById(id).map(order -> {
+            var current = order.toBuilder().build();
+            eventLogRepository.findByOrderId(id).forEach(entry -> entry.applyTo(current, categoryReference()));
+            return current;
+        }));
+    }
+
+    @Scheduled(fixedDelayString = "${orders.consumer.event-log.compaction-interval:1s}")
+    public void compact() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        try {
+            int compacted;
+            do {
+                compacted = compactBatch();
+            } while (compacted == properties.getCompactionBatch());
+        } catch (Exception e) {
+            log.warn("Order event log compaction failed, retrying on the next run", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (appender == null) {
+            return;
+        }
+
+        running = false;
+        try {
+            appender.join(TimeUnit.SECONDS.toMillis(SHUTDOWN_TIMEOUT_SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        PendingAppend left;
+        while ((left = pending.poll()) != null) {
+            left.written().completeExceptionally(new IllegalStateException("Order event log was shut down"));
+        }
+        compact();
+    }
+
+    /**
+     * Folds the logged changes of the orders behind the oldest entries into their rows with one
+     * statement; see {@link OrderEventLogRepository#compactOldest(int)}.
+     */
+    private int compactBatch() {
+        var sample = metrics.startTimer();
+        var orderIds = writeTransaction.execute(status -> eventLogRepository.compactOldest(properties.getCompactionBatch()));
+        if (orderIds == null || orderIds.isEmpty()) {
+            return 0;
+        }
+
+        orderIds.stream().distinct().forEach(orderCache::evict);
+        metrics.recordEventLogCompaction(sample, orderIds.size());
+        log.debug("Compacted {} logged order changes", orderIds.size());
+        return orderIds.size();
+    }
+
+    /**
+     * Changes of one order are appended one after another by its lane, so the tail is the order
+     * the change will be applied to unless another instance appended in between. Skips decided
+     * on the tail hold then as well: it can only lag, and both cancelled and stale stay so.
+     *
+     * @return the order with the change applied, or {@code null} when the change is skipped
+     */
+    private Order nextTail(OrderEventLogEntry entry) {
+        var tail = tails.getIfPresent(entry.orderId());
+        if (tail != null) {
+            var current = tail.getStatus();
+            if (current == null || entry.status() == null || current.canMoveTo(entry.status())) {
+                return this.accepts(tail, entry) ? this.applied(tail, entry) : null;
+            }
+            log.debug("Order {} in {} as last appended cannot move to {}, checking the merged order",
+                    entry.orderId(), current, entry.status());
+            tails.invalidate(entry.orderId());
+        }
+
+        var order = this.findCurrent(entry.orderId()).orElseThrow(() -> {
+            var message = OrderServiceImpl.ORDER_WITH_ID_NOT_FOUND_TEMPLATE.formatted(entry.orderId());
+            log.info(message);
+            return new BusinessException(message);
+        });
+        return this.accepts(order, entry) ? this.applied(order, entry) : null;
+    }
+
+    private boolean accepts(Order order, OrderEventLogEntry entry) {
+        var current = order.getStatus();
+        if (entry.change() == OrderEventLogEntry.Change.CANCEL && current == OrderStatus.CANCELLED) {
+            log.warn("Order {} is already cancelled", order.getId());
+            return false;
+        }
+        if (entry.change() == OrderEventLogEntry.Change.UPDATE && order.isStale(entry.eventTime())) {
+            log.info("Skipping update of order {} stamped {}, it has already seen an event at {}",
+                    order.getId(), entry.eventTime(), order.getLastEventAt());
+            return false;
+        }
+        if (current != null && entry.status() != null && !current.canMoveTo(entry.status())) {
+            var message = OrderServiceImpl.ORDER_TRANSITION_NOT_ALLOWED_TEMPLATE.formatted(order.getId(), current, entry.status());
+            log.info(message);
+            throw new BusinessException(message);
+        }
+        return true;
+    }
+
+    private Order applied(Order order, OrderEventLogEntry entry) {
+        var next = order.toBuilder().build();
+        entry.applyTo(next, TAIL_CATEGORY);
+        return next;
+    }
+
+    private void drain() {
+        List<PendingAppend> batch = new ArrayList<>(properties.getMaxAppendBatch());
+        while (running || !pending.isEmpty()) {
+            PendingAppend first;
+            try {
+                first = pending.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (first == null) {
+                continue;
+            }
+
+            batch.add(first);
+            pending.drainTo(batch, properties.getMaxAppendBatch() - 1);
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<PendingAppend> batch) {
+        var sample = metrics.startTimer();
+        try {
+            eventLogRepository.appendAll(batch.stream().map(PendingAppend::entry).toList());
+        } catch (Exception e) {
+            log.warn("Failed to append {} order changes to the event log", batch.size(), e);
+            batch.forEach(append -> append.written().completeExceptionally(e));
+            return;
+        }
+        metrics.recordEventLogAppend(sample, batch.size());
+        batch.forEach(append -> append.written().complete(null));
+    }
+
+    private Function<Long, Category> categoryReference() {
+        return categoryRepository::getReferenceById;
+    }
+}
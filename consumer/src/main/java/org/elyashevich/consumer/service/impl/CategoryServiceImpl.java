@@ -7,6 +7,7 @@ import org.elyashevich.consumer.exception.ResourceAlreadyExistException;
 import org.elyashevich.consumer.exception.ResourceNotFoundException;
 import org.elyashevich.consumer.repository.CategoryRepository;
 import org.elyashevich.consumer.service.CategoryService;
+import org.elyashevich.consumer.service.cache.CategoryCache;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,6 +22,7 @@ public class CategoryServiceImpl implements CategoryService {
     public static final String CATEGORY_WITH_NAME_ALREADY_EXISTS_TEMPLATE = "Category with name: '%s' already exists";
     public static final String CATEGORY_WITH_ID_WAS_NOT_FOUND_TEMPLATE = "Category with id: '%d' was not found";
     private final CategoryRepository categoryRepository;
+    private final CategoryCache categoryCache;
 
     @Override
     public List<Category> findAll() {
@@ -36,15 +38,19 @@ public class CategoryServiceImpl implements CategoryService {
     public Category findByName(String name) {
         log.debug("Attempting to find category with name {}", name);
 
-        var category = this.categoryRepository.findByName(name).orElseThrow(
+        var cached = name == null
+                ? this.categoryRepository.findByName(null)
+                : this.categoryCache.getByName(name, this.categoryRepository::findByName);
+
+        var category = cached.orElseThrow(
                 () -> {
                     var message = CATEGORY_WITH_NAME_NOT_FOUND_TEMPLATE.formatted(name);
-                    log.info(message);
+                    log.debug(message);
                     return new ResourceNotFoundException(message);
                 }
         );
 
-        log.info("Found category with name {}", name);
+        log.debug("Found category with name {}", name);
         return category;
     }
 
@@ -56,6 +62,7 @@ public class CategoryServiceImpl implements CategoryService {
         this.checkIfCategoryExistsByName(category.getName());
 
         var newCategory = this.categoryRepository.save(category);
+        this.categoryCache.evict(newCategory.getId(), newCategory.getName());
 
         log.info("Saved category with name {}", newCategory.getName());
         return newCategory;
@@ -68,7 +75,8 @@ public class CategoryServiceImpl implements CategoryService {
 
         this.checkIfCategoryExistsByName(category.getName());
 
-        var oldCategory = this.findById(id);
+        var oldCategory = this.loadById(id);
+        this.categoryCache.evict(id, oldCategory.getName(), category.getName());
 
         oldCategory.setDescription(category.getDescription());
         oldCategory.setName(category.getName());
@@ -83,12 +91,8 @@ public class CategoryServiceImpl implements CategoryService {
     public Category findById(Long id) {
         log.debug("Attempting find category with id: {}", id);
 
-        var category = this.categoryRepository.findById(id).orElseThrow(
-                () -> {
-                    var message = CATEGORY_WITH_ID_WAS_NOT_FOUND_TEMPLATE.formatted(id);
-                    log.info(message);
-                    return new ResourceNotFoundException(message);
-                }
+        var category = this.categoryCache.getById(id, this.categoryRepository::findById).orElseThrow(
+                () -> this.categoryNotFound(id)
         );
 
         log.info("Category found: {}", category);
@@ -100,13 +104,24 @@ public class CategoryServiceImpl implements CategoryService {
     public void delete(Long id) {
         log.debug("Attempting delete category with id: {}", id);
 
-        var category = this.findById(id);
+        var category = this.loadById(id);
 
         this.categoryRepository.delete(category);
+        this.categoryCache.evict(id, category.getName());
 
         log.info("Category with id: {} deleted", id);
     }
 
+    private Category loadById(Long id) {
+        return this.categoryRepository.findById(id).orElseThrow(() -> this.categoryNotFound(id));
+    }
+
+    private ResourceNotFoundException categoryNotFound(Long id) {
+        var message = CATEGORY_WITH_ID_WAS_NOT_FOUND_TEMPLATE.formatted(id);
+        log.info(message);
+        return new ResourceNotFoundException(message);
+    }
+
     private void checkIfCategoryExistsByName(String name) {
         if (this.categoryRepository.existsByName(name)) {
             var message = CATEGORY_WITH_NAME_ALREADY_EXISTS_TEMPLATE.formatted(name);
@@ -2,23 +2,44 @@ package org.elyashevich.consumer.service.impl;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.elyashevich.consumer.domain.entity.Category;
 import org.elyashevich.consumer.domain.entity.Order;
 import org.elyashevich.consumer.domain.entity.OrderStatus;
 import org.elyashevich.consumer.exception.BusinessException;
 import org.elyashevich.consumer.repository.OrderRepository;
 import org.elyashevich.consumer.service.CategoryService;
 import org.elyashevich.consumer.service.OrderService;
+import org.elyashevich.consumer.service.cache.OrderCache;
+import org.elyashevich.consumer.service.eventlog.OrderEventLog;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class OrderServiceImpl implements OrderService {
 
     public static final String ORDER_WITH_ID_NOT_FOUND_TEMPLATE = "Order with id: '%d' not found";
+    public static final String ORDER_TRANSITION_NOT_ALLOWED_TEMPLATE = "Order with id: '%d' cannot move from %s to %s";
+
+    /**
+     * Completing finishes processing; a shipped order reaches DELIVERED through an update.
+     */
+    private static final Set<OrderStatus> COMPLETABLE = EnumSet.of(OrderStatus.PROCESSING);
+
     private final OrderRepository orderRepository;
     private final CategoryService categoryService;
+    private final OrderCache orderCache;
+    private final OrderEventLog orderEventLog;
 
     @Override
     @Transactional
@@ -32,6 +53,7 @@ public class OrderServiceImpl implements OrderService {
         order.setStatus(OrderStatus.PENDING);
 
         var createdOrder = orderRepository.save(order);
+        orderCache.put(createdOrder);
 
         log.info("Successfully created order {}", createdOrder.getId());
         return createdOrder;
@@ -42,19 +64,39 @@ public class OrderServiceImpl implements OrderService {
     public Order update(Order orderUpdate) {
         log.debug("Attempting to update order {}", orderUpdate.getId());
 
-        Order existingOrder = this.findById(orderUpdate.getId());
+        var cachedOrder = orderCache.get(orderUpdate.getId());
+        if (cachedOrder != null) {
+            if (this.isStale(cachedOrder, orderUpdate)) {
+                return cachedOrder;
+            }
+            if (this.canMove(cachedOrder, orderUpdate.getStatus())) {
+                this.applyUpdate(cachedOrder, orderUpdate, categoryService::findByName);
+                if (this.writeCached(cachedOrder)) {
+                    log.info("Successfully updated cached order {}", cachedOrder.getId());
+                    return cachedOrder;
+                }
+            } else {
+                // the copy may lag the row; only the stored status can reject the move
+                log.debug("Cached order {} in {} cannot move to {}, checking the stored order",
+                        cachedOrder.getId(), cachedOrder.getStatus(), orderUpdate.getStatus());
+                orderCache.evict(cachedOrder.getId());
+            }
+        }
 
-        existingOrder.setProductName(orderUpdate.getProductName());
-        existingOrder.setPrice(orderUpdate.getPrice());
-        existingOrder.setQuantity(orderUpdate.getQuantity());
-        existingOrder.setStatus(orderUpdate.getStatus());
+        if (this.writeGuarded(orderUpdate)) {
+            log.info("Successfully updated order {}", orderUpdate.getId());
+            return orderUpdate;
+        }
 
-        if (orderUpdate.getCategory() != null) {
-            var category = categoryService.findByName(orderUpdate.getCategory().getName());
-            existingOrder.setCategory(category);
+        Order existingOrder = this.findById(orderUpdate.getId());
+        if (this.isStale(existingOrder, orderUpdate)) {
+            return existingOrder;
         }
 
+        this.applyUpdate(existingOrder, orderUpdate, categoryService::findByName);
+
         Order updatedOrder = orderRepository.save(existingOrder);
+        orderCache.put(updatedOrder);
 
         log.info("Successfully updated order {}", updatedOrder.getId());
         return updatedOrder;
@@ -64,7 +106,8 @@ public class OrderServiceImpl implements OrderService {
     public Order findById(Long id) {
         log.debug("Attempting to find order with id {}", id);
 
-        var order = orderRepository.findById(id).orElseThrow(
+        var found = orderEventLog.isEnabled() ? orderEventLog.findCurrent(id) : orderRepository.findById(id);
+        var order = found.orElseThrow(
                 () -> {
                     var message = ORDER_WITH_ID_NOT_FOUND_TEMPLATE.formatted(id);
                     log.info(message);
@@ -81,6 +124,25 @@ public class OrderServiceImpl implements OrderService {
     public void cancel(Order candidate) {
         log.debug("Attempting to cancel order {}", candidate.getId());
 
+        var cachedOrder = orderCache.get(candidate.getId());
+        if (cachedOrder != null) {
+            if (cachedOrder.getStatus() == OrderStatus.CANCELLED) {
+                log.warn("Order {} is already cancelled", cachedOrder.getId());
+                return;
+            }
+            cachedOrder.setStatus(OrderStatus.CANCELLED);
+            cachedOrder.advanceLastEventAt(candidate.getLastEventAt());
+            if (this.writeCached(cachedOrder)) {
+                log.info("Successfully cancelled cached order {}", cachedOrder.getId());
+                return;
+            }
+        }
+
+        if (this.transition(candidate.getId(), OrderStatus.CANCELLED, OrderStatus.CANCELLED.sources(), candidate.getLastEventAt())) {
+            log.info("Successfully cancelled order {}", candidate.getId());
+            return;
+        }
+
         Order order = this.findById(candidate.getId());
 
         if (order.getStatus() == OrderStatus.CANCELLED) {
@@ -88,8 +150,10 @@ public class OrderServiceImpl implements OrderService {
             return;
         }
 
+        this.checkTransition(order, OrderStatus.CANCELLED);
         order.setStatus(OrderStatus.CANCELLED);
-        orderRepository.save(order);
+        order.advanceLastEventAt(candidate.getLastEventAt());
+        orderCache.put(orderRepository.save(order));
 
         log.info("Successfully cancelled order {}", order.getId());
     }
@@ -99,6 +163,12 @@ public class OrderServiceImpl implements OrderService {
     public Order complete(Order candidate) {
         log.debug("Attempting to complete order {}", candidate);
 
+        if (this.transition(candidate.getId(), OrderStatus.DELIVERED, COMPLETABLE, null)) {
+            candidate.setStatus(OrderStatus.DELIVERED);
+            log.info("Successfully completed order {}", candidate.getId());
+            return candidate;
+        }
+
         Order order = this.findById(candidate.getId());
 
         if (order.getStatus() != OrderStatus.PROCESSING) {
@@ -108,8 +178,181 @@ public class OrderServiceImpl implements OrderService {
 
         order.setStatus(OrderStatus.DELIVERED);
         Order completedOrder = orderRepository.save(order);
+        orderCache.put(completedOrder);
 
         log.info("Successfully completed order {}", completedOrder.getId());
         return completedOrder;
     }
-}
\ No newline at end of file
+
+    @Override
+    @Transactional
+    public List<Order> createAll(List<Order> orders) {
+        log.debug("Attempting to create {} orders", orders.size());
+
+        Map<String, Category> categories = new HashMap<>();
+        orders.forEach(order -> {
+            order.setId(null);
+            order.setCategory(categories.computeIfAbsent(order.getCategory().getName(), categoryService::findByName));
+            order.setStatus(OrderStatus.PENDING);
+        });
+
+        orderRepository.insertAll(orders);
+        orders.forEach(orderCache::put);
+
+        log.info("Successfully created {} orders", orders.size());
+        return orders;
+    }
+
+    @Override
+    @Transactional
+    public List<Order> updateAll(List<Order> orderUpdates) {
+        log.debug("Attempting to update {} orders", orderUpdates.size());
+
+        var existingOrders = this.findAllByIdOrThrow(orderUpdates);
+        Map<String, Category> categories = new HashMap<>();
+
+        orderUpdates.stream()
+                .filter(orderUpdate -> !this.isStale(existingOrders.get(orderUpdate.getId()), orderUpdate))
+                .forEach(orderUpdate -> this.applyUpdate(
+                        existingOrders.get(orderUpdate.getId()),
+                        orderUpdate,
+                        name -> categories.computeIfAbsent(name, categoryService::findByName)
+                ));
+
+        var updatedOrders = orderRepository.saveAll(existingOrders.values());
+
+        log.info("Successfully updated {} orders", updatedOrders.size());
+        return updatedOrders;
+    }
+
+    @Override
+    @Transactional
+    public void cancelAll(List<Order> candidates) {
+        log.debug("Attempting to cancel {} orders", candidates.size());
+
+        Map<Long, LocalDateTime> eventTimes = new HashMap<>();
+        candidates.forEach(candidate -> eventTimes.put(candidate.getId(), candidate.getLastEventAt()));
+        var orders = this.findAllByIdOrThrow(candidates).values().stream()
+                .filter(order -> order.getStatus() != OrderStatus.CANCELLED)
+                .toList();
+
+        orders.forEach(order -> {
+            order.setStatus(OrderStatus.CANCELLED);
+            order.advanceLastEventAt(eventTimes.get(order.getId()));
+        });
+        orderRepository.saveAll(orders);
+
+        log.info("Successfully cancelled {} orders", orders.size());
+    }
+
+    /**
+     * Writes a changed copy from the order cache without the SELECT. When the row has moved on
+     * since the copy was cached, the entry is dropped and the caller takes the loading path.
+     */
+    private boolean writeCached(Order cachedOrder) {
+        cachedOrder.setUpdatedAt(LocalDateTime.now());
+        if (orderRepository.updateIfUnchanged(cachedOrder) == 0) {
+            log.debug("Cached order {} is stale, reloading it", cachedOrder.getId());
+            orderCache.evict(cachedOrder.getId());
+            return false;
+        }
+
+        cachedOrder.setVersion(cachedOrder.getVersion() + 1);
+        orderCache.put(cachedOrder);
+        return true;
+    }
+
+    /**
+     * Writes an update in one statement that only matches while the order is in a status the
+     * update may move it from. When nothing matches the caller loads the order to find out why.
+     * Updates without a status or category are left to the loading path.
+     */
+    private boolean writeGuarded(Order orderUpdate) {
+        var status = orderUpdate.getStatus();
+        if (status == null || orderUpdate.getCategory() == null) {
+            return false;
+        }
+
+        orderUpdate.setCategory(categoryService.findByName(orderUpdate.getCategory().getName()));
+        orderUpdate.setUpdatedAt(LocalDateTime.now());
+        if (orderRepository.updateIfStatusIn(orderUpdate, status.sourcesOrSelf()) == 0) {
+            return false;
+        }
+
+        orderCache.evict(orderUpdate.getId());
+        return true;
+    }
+
+    /**
+     * Moves the order to {@code status} with one conditional UPDATE, without loading it.
+     */
+    private boolean transition(Long id, OrderStatus status, Set<OrderStatus> from, LocalDateTime eventAt) {
+        if (orderRepository.transitionStatus(id, status, from, LocalDateTime.now(), eventAt) == 0) {
+            return false;
+        }
+
+        orderCache.evict(id);
+        return true;
+    }
+
+    private boolean canMove(Order order, OrderStatus target) {
+        var current = order.getStatus();
+        return current == null || target == null || current.canMoveTo(target);
+    }
+
+    private void checkTransition(Order order, OrderStatus target) {
+        if (!this.canMove(order, target)) {
+            var current = order.getStatus();
+            var message = ORDER_TRANSITION_NOT_ALLOWED_TEMPLATE.formatted(order.getId(), current, target);
+            log.info(message);
+            throw new BusinessException(message);
+        }
+    }
+
+    /**
+     * Updates can arrive out of order when an earlier one went through the retry topics; one
+     * older than the newest event applied to the order is dropped. Cancels are never stale,
+     * a cancelled order stays cancelled whatever order the events arrive in.
+     */
+    private boolean isStale(Order existingOrder, Order orderUpdate) {
+        if (!existingOrder.isStale(orderUpdate.getLastEventAt())) {
+            return false;
+        }
+        log.info("Skipping update of order {} stamped {}, it has already seen an event at {}",
+                existingOrder.getId(), orderUpdate.getLastEventAt(), existingOrder.getLastEventAt());
+        return true;
+    }
+
+    private void applyUpdate(Order existingOrder, Order orderUpdate, Function<String, Category> categoryResolver) {
+        this.checkTransition(existingOrder, orderUpdate.getStatus());
+
+        existingOrder.setProductName(orderUpdate.getProductName());
+        existingOrder.setPrice(orderUpdate.getPrice());
+        existingOrder.setQuantity(orderUpdate.getQuantity());
+        if (orderUpdate.getStatus() != null) {
+            existingOrder.setStatus(orderUpdate.getStatus());
+        }
+
+        if (orderUpdate.getCategory() != null) {
+            existingOrder.setCategory(categoryResolver.apply(orderUpdate.getCategory().getName()));
+        }
+        existingOrder.advanceLastEventAt(orderUpdate.getLastEventAt());
+    }
+
+    private Map<Long, Order> findAllByIdOrThrow(List<Order> candidates) {
+        var ids = candidates.stream().map(Order::getId).toList();
+        var orders = orderRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+
+        ids.stream()
+                .filter(id -> !orders.containsKey(id))
+                .findFirst()
+                .ifPresent(id -> {
+                    var message = ORDER_WITH_ID_NOT_FOUND_TEMPLATE.formatted(id);
+                    log.info(message);
+                    throw new BusinessException(message);
+                });
+
+        return orders;
+    }
+}
@@ -0,0 +1,181 @@
+package org.elyashevich.consumer.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.elyashevich.consumer.config.OrderConsumerProperties;
+import org.elyashevich.consumer.metrics.GrafanaKafkaConsumerMetrics;
+import org.elyashevich.consumer.repository.ProcessedEventRepository;
+import org.elyashevich.consumer.service.ProcessedEventService;
+import org.elyashevich.consumer.service.dedup.EventIdBloomFilter;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Checks event ids against a recent-id cache, then a Bloom filter, and only asks the
+ * {@code processed_events} table when the filter reports a possible match.
+ * <p>
+ * Processed ids are written behind in batches. Every offset commit flushes them first, so an
+ * event whose offset is committed always has its id stored; ids marked shortly before a crash
+ * are lost only together with the uncommitted offsets of the same events.
+ */
+@Slf4j
+@Service
+public class ProcessedEventServiceImpl implements ProcessedEventService {
+    private final ProcessedEventRepository processedEventRepository;
+    private final OrderConsumerProperties.Dedup dedupProperties;
+    private final GrafanaKafkaConsumerMetrics metrics;
+
+    private final Cache<String, Boolean> recentIds;
+    private final Set<String> pendingIds = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private volatile EventIdBloomFilter filter;
+
+    public ProcessedEventServiceImpl(ProcessedEventRepository processedEventRepository,
+                                     OrderConsumerProperties properties,
+                                     GrafanaKafkaConsumerMetrics metrics,
+                                     MeterRegistry registry) {
+        this.processedEventRepository = processedEventRepository;
+        this.dedupProperties = properties.getDedup();
+        this.metrics = metrics;
+        this.recentIds = Caffeine.newBuilder()
+                .maximumSize(dedupProperties.getRecentCacheSize())
+                .recordStats()
+                .build();
+        this.filter = newFilter();
+
+        CaffeineCacheMetrics.monitor(registry, recentIds, "processed-events.recent");
+        metrics.registerDedupStore(this,
+                service -> service.filter.sizeInBytes(),
+                service -> service.filter.insertions(),
+                service -> service.pendingIds.size());
+    }
+
+    @PostConstruct
+    public void init() {
+        if (dedupProperties.isEnabled()) {
+            rebuildFilter();
+        }
+    }
+
+    @Override
+    public boolean isProcessed(String eventId) {
+        if (!dedupProperties.isEnabled() || eventId == null) {
+            return false;
+        }
+
+        if (recentIds.getIfPresent(eventId) != null) {
+            metrics.recordDedupCheck("recent");
+            return true;
+        }
+        if (!filter.mightContain(eventId)) {
+            metrics.recordDedupCheck("filter-negative");
+            return false;
+        }
+        if (pendingIds.contains(eventId) || processedEventRepository.existsById(eventId)) {
+            metrics.recordDedupCheck("store");
+            recentIds.put(eventId, Boolean.TRUE);
+            return true;
+        }
+
+        metrics.recordDedupCheck("false-positive");
+        return false;
+    }
+
+    @Override
+    public void markProcessed(String eventId) {
+        if (!dedupProperties.isEnabled() || eventId == null) {
+            return;
+        }
+
+        recentIds.put(eventId, Boolean.TRUE);
+        filter.put(eventId);
+        pendingIds.add(eventId);
+    }
+
+    @Override
+    public boolean flush() {
+        flushLock.lock();
+        try {
+            if (pendingIds.isEmpty()) {
+                return true;
+            }
+
+            var eventIds = new ArrayList<>(pendingIds);
+            var sample = metrics.startTimer();
+            try {
+                processedEventRepository.insertAll(eventIds, LocalDateTime.now());
+                eventIds.forEach(pendingIds::remove);
+                metrics.recordDedupFlush(sample, eventIds.size());
+                log.debug("Flushed {} processed event ids", eventIds.size());
+                return true;
+            } catch (Exception e) {
+                log.warn("Failed to flush {} processed event ids, keeping them for the next flush", eventIds.size(), e);
+                return false;
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Bounds how long ids of listeners that commit rarely stay in memory.
+     */
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${orders.consumer.dedup.flush-interval:1s}")
+    public void flushPending() {
+        flush();
+    }
+
+    @Scheduled(
+            fixedDelayString = "${orders.consumer.dedup.purge-interval:1h}",
+            initialDelayString = "${orders.consumer.dedup.purge-interval:1h}"
+    )
+    public void purgeExpired() {
+        if (!dedupProperties.isEnabled()) {
+            return;
+        }
+
+        var deleted = processedEventRepository.deleteProcessedBefore(retentionCutoff());
+        log.info("Purged {} processed event ids older than {}", deleted, dedupProperties.getRetention());
+        rebuildFilter();
+    }
+
+    /**
+     * Bloom filters cannot forget ids, so the filter is rebuilt from the retained rows. Ids
+     * marked while the table is scanned are still in the recent cache and are copied over
+     * after the swap.
+     */
+    private void rebuildFilter() {
+        var rebuilt = newFilter();
+        processedEventRepository.forEachEventIdSince(retentionCutoff(), rebuilt::put);
+        pendingIds.forEach(rebuilt::put);
+
+        filter = rebuilt;
+        recentIds.asMap().keySet().forEach(rebuilt::put);
+        log.info("Rebuilt processed event filter with {} ids ({} bytes)", rebuilt.insertions(), rebuilt.sizeInBytes());
+        if (rebuilt.insertions() > dedupProperties.filterCapacity()) {
+            log.warn("Processed event filter holds {} ids but is sized for {}, its false positive rate is above {}; "
+                            + "raise orders.consumer.dedup.expected-events-per-second",
+                    rebuilt.insertions(), dedupProperties.filterCapacity(), dedupProperties.getFalsePositiveRate());
+        }
+    }
+
+    private EventIdBloomFilter newFilter() {
+        return new EventIdBloomFilter(dedupProperties.filterCapacity(), dedupProperties.getFalsePositiveRate());
+    }
+
+    private LocalDateTime retentionCutoff() {
+        return LocalDateTime.now().minus(dedupProperties.getRetention());
+    }
+}
@@ -1,19 +1,27 @@
 package org.elyashevich.consumer.service.impl;
 
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.elyashevich.consumer.config.OrderConsumerProperties;
 import org.elyashevich.consumer.domain.entity.ProducerStats;
+import org.elyashevich.consumer.metrics.GrafanaKafkaConsumerMetrics;
 import org.elyashevich.consumer.repository.ProducerStatsRepository;
 import org.elyashevich.consumer.service.ProducerStatsService;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.ThreadLocalRandom;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantLock;
 
 @Slf4j
@@ -21,67 +29,102 @@ import java.util.concurrent.locks.ReentrantLock;
 @RequiredArgsConstructor
 public class ProducerStatsServiceImpl implements ProducerStatsService {
     private final ProducerStatsRepository statsRepository;
+    private final OrderConsumerProperties properties;
+    private final GrafanaKafkaConsumerMetrics metrics;
 
-    private final ConcurrentMap<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+    private final ConcurrentMap<StatsKey, PendingCalls> pendingCalls = new ConcurrentHashMap<>();
+    private final LongAdder pendingTotal = new LongAdder();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private volatile long lastFlushNanos = System.nanoTime();
 
     @Override
-    @Transactional
     public void recordProducerCall(String producerId, String topicName) {
-        var lockKey = producerId + "|" + topicName;
-
-        var lock = locks.computeIfAbsent(lockKey, k -> new ReentrantLock());
-
-        try {
-            if (lock.tryLock(100, TimeUnit.MILLISECONDS)) {
-                try {
-                    processStatsUpdate(producerId, topicName);
-                } finally {
-                    lock.unlock();
-                }
-            } else {
-                handleLockTimeout(producerId, topicName);
-            }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+        if (producerId == null || topicName == null) {
+            log.debug("Skipping producer call without producer id or topic");
+            return;
         }
-    }
 
+        pendingCalls.computeIfAbsent(new StatsKey(producerId, topicName), k -> new PendingCalls())
+                .record(System.currentTimeMillis());
+        pendingTotal.increment();
+    }
 
     @Override
     public List<ProducerStats> findAll() {
         return statsRepository.findAll();
     }
 
-    private void processStatsUpdate(String producerId, String topicName) {
-        var now = LocalDateTime.now();
-        statsRepository.findByProducerIdAndTopicName(producerId, topicName)
-                .ifPresentOrElse(
-                        stats -> statsRepository.incrementCallCount(producerId, topicName, now),
-                        () -> createNewStats(producerId, topicName, now)
-                );
+    @Scheduled(fixedDelayString = "${orders.consumer.stats.flush-interval:1s}")
+    public void flushIfDue() {
+        var stats = properties.getStats();
+        var stale = System.nanoTime() - lastFlushNanos >= stats.getMaxStaleness().toNanos();
+        if (stale || pendingTotal.sum() >= stats.getMaxPending()) {
+            flush();
+        }
+    }
 
-        cleanUpOldLocks();
+    @Override
+    @PreDestroy
+    public void flush() {
+        flushLock.lock();
+        try {
+            lastFlushNanos = System.nanoTime();
+            var deltas = drainPendingCalls();
+            if (deltas.isEmpty()) {
+                return;
+            }
+
+            var sample = metrics.startTimer();
+            try {
+                statsRepository.upsertAll(new ArrayList<>(deltas.values()));
+                metrics.recordStatsFlush(sample, deltas.size());
+                log.debug("Flushed {} producer stats rows", deltas.size());
+            } catch (Exception e) {
+                log.warn("Failed to flush {} producer stats rows, keeping them for the next flush", deltas.size(), e);
+                deltas.forEach(this::restore);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private Map<StatsKey, ProducerStats> drainPendingCalls() {
+        Map<StatsKey, ProducerStats> deltas = new HashMap<>();
+        pendingCalls.forEach((key, calls) -> {
+            var count = calls.count.sum();
+            if (count == 0) {
+                return;
+            }
+
+            calls.count.add(-count);
+            pendingTotal.add(-count);
+            deltas.put(key, ProducerStats.builder()
+                    .producerId(key.producerId())
+                    .topicName(key.topicName())
+                    .callCount((int) count)
+                    .lastCallTime(LocalDateTime.ofInstant(
+                            Instant.ofEpochMilli(calls.lastCallMillis.get()), ZoneId.systemDefault()))
+                    .build());
+        });
+        return deltas;
     }
 
-    private void handleLockTimeout(String producerId, String topicName) {
-        log.warn("Could not acquire lock for producerId: {}, topic: {}", producerId, topicName);
+    private void restore(StatsKey key, ProducerStats delta) {
+        var calls = pendingCalls.computeIfAbsent(key, k -> new PendingCalls());
+        calls.count.add(delta.getCallCount());
+        pendingTotal.add(delta.getCallCount());
     }
 
-    private void cleanUpOldLocks() {
-        if (ThreadLocalRandom.current().nextInt(100) == 0) {
-            locks.entrySet().removeIf(entry ->
-                    ThreadLocalRandom.current().nextInt(10) == 0 &&
-                            !entry.getValue().isLocked()
-            );
-        }
+    private record StatsKey(String producerId, String topicName) {
     }
 
-    private void createNewStats(String producerId, String topicName, LocalDateTime now) {
-        var stats = new ProducerStats();
-        stats.setProducerId(producerId);
-        stats.setTopicName(topicName);
-        stats.setCallCount(1);
-        stats.setLastCallTime(now);
-        statsRepository.save(stats);
+    private static class PendingCalls {
+        private final LongAdder count = new LongAdder();
+        private final LongAccumulator lastCallMillis = new LongAccumulator(Math::max, 0);
+
+        void record(long nowMillis) {
+            count.increment();
+            lastCallMillis.accumulate(nowMillis);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,208 @@
+package org.elyashevich.consumer.api.kafka.consumer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.elyashevich.codec.OrderEventBinaryCodec;
+import org.elyashevich.consumer.api.dto.order.EventType;
+import org.elyashevich.consumer.api.dto.order.OrderData;
+import org.elyashevich.consumer.api.dto.order.OrderEvent;
+import org.elyashevich.consumer.api.kafka.serialization.OrderEventHeaders;
+import org.elyashevich.consumer.api.mapper.OrderEventWireMapper;
+import org.elyashevich.consumer.config.OrderConsumerProperties;
+import org.elyashevich.consumer.metrics.GrafanaKafkaConsumerMetrics;
+import org.elyashevich.consumer.processing.BackpressureController;
+import org.elyashevich.consumer.processing.OffsetCommitTracker;
+import org.elyashevich.consumer.processing.OrderEventProcessor;
+import org.elyashevich.consumer.processing.OrderRetryPublisher;
+import org.elyashevich.consumer.processing.OrderedLaneExecutor;
+import org.elyashevich.consumer.service.ProducerStatsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OrderLazyKafkaConsumerTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("orders", 0);
+
+    @Mock
+    private ProducerStatsService producerStatsService;
+
+    @Mock
+    private OrderEventProcessor orderEventProcessor;
+
+    @Mock
+    private OrderRetryPublisher retryPublisher;
+
+    @Mock
+    private OffsetCommitTracker offsetCommitTracker;
+
+    @Mock
+    private BackpressureController backpressureController;
+
+    @Mock
+    private Consumer<?, ?> consumer;
+
+    private final List<String> deserializingThreads = new CopyOnWriteArrayList<>();
+    private SimpleMeterRegistry registry;
+    private OrderedLaneExecutor laneExecutor;
+    private OrderLazyKafkaConsumer lazyConsumer;
+
+    @BeforeEach
+    void setUp() {
+        var properties = new OrderConsumerProperties();
+        properties.getLanes().setCount(2);
+        registry = new SimpleMeterRegistry();
+        var metrics = new GrafanaKafkaConsumerMetrics(registry);
+        laneExecutor = new OrderedLaneExecutor(properties, metrics, 10);
+
+        Deserializer<OrderEvent> deserializer = (topic, data) -> {
+            deserializingThreads.add(Thread.currentThread().getName());
+            return OrderEventWireMapper.INSTANCE.fromWire(OrderEventBinaryCodec.decode(data));
+        };
+        lazyConsumer = new OrderLazyKafkaConsumer(metrics, producerStatsService, orderEventProcessor,
+                retryPublisher, laneExecutor, offsetCommitTracker, backpressureController, deserializer);
+    }
+
+    @AfterEach
+    void tearDown() {
+        laneExecutor.shutdown();
+    }
+
+    @Test
+    void consumeOrder_WithRoutingHeaders_DeserializesOnLaneWorker() {
+        var event = event(42L);
+
+        lazyConsumer.consumeOrder(record(encode(event), 42L), consumer);
+
+        verify(orderEventProcessor, timeout(2000)).process(event);
+        verify(offsetCommitTracker, timeout(2000)).complete(PARTITION, 7L);
+        assertEquals(1, deserializingThreads.size());
+        assertTrue(deserializingThreads.get(0).startsWith("order-lane-"), deserializingThreads.get(0));
+    }
+
+    @Test
+    void consumeOrder_WithoutRoutingHeaders_DeserializesOnKeyLane() {
+        var event = event(42L);
+
+        lazyConsumer.consumeOrder(record(encode(event), null), consumer);
+
+        verify(orderEventProcessor, timeout(2000)).process(event);
+        verify(offsetCommitTracker, timeout(2000)).complete(PARTITION, 7L);
+        assertEquals(1, deserializingThreads.size());
+        assertTrue(deserializingThreads.get(0).startsWith("order-lane-"), deserializingThreads.get(0));
+    }
+
+    @Test
+    void consumeOrder_UndecodablePayload_SendsRawRecordToDeadLetterTopic() {
+        var undecodable = record(new byte[]{(byte) 0xFF}, 42L);
+        when(retryPublisher.deadLetterUntilSent(eq(undecodable), any()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        lazyConsumer.consumeOrder(undecodable, consumer);
+
+        verify(offsetCommitTracker, timeout(2000)).complete(PARTITION, 7L);
+        verify(orderEventProcessor, never()).process(any());
+        verify(retryPublisher, never()).publishFailureUntilSent(any(), any());
+        assertEquals(1, registry.get("kafka.consumer.deserialization.failures").counter().count());
+    }
+
+    @Test
+    void consumeOrder_MalformedOrderIdHeader_SendsRawRecordToDeadLetterTopic() {
+        var malformed = record(encode(event(42L)), null);
+        malformed.headers().add(OrderEventHeaders.ORDER_ID, "forty-two".getBytes(StandardCharsets.UTF_8));
+        when(retryPublisher.deadLetterUntilSent(eq(malformed), any(SerializationException.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        lazyConsumer.consumeOrder(malformed, consumer);
+
+        verify(offsetCommitTracker).complete(PARTITION, 7L);
+        verify(orderEventProcessor, never()).process(any());
+        assertTrue(deserializingThreads.isEmpty());
+    }
+
+    @Test
+    void consumeOrder_DeadLetterSendPending_LeavesOffsetIncomplete() {
+        when(retryPublisher.deadLetterUntilSent(any(), any())).thenReturn(new CompletableFuture<>());
+
+        lazyConsumer.consumeOrder(record(new byte[]{(byte) 0xFF}, 42L), consumer);
+
+        verify(retryPublisher, timeout(2000)).deadLetterUntilSent(any(), any());
+        verify(offsetCommitTracker, never()).complete(any(), anyLong());
+    }
+
+    @Test
+    void consumeOrder_ProcessingFails_PublishesDecodedEventForRetry() {
+        var event = event(42L);
+        var failure = new IllegalStateException("boom");
+        doThrow(failure).when(orderEventProcessor).process(event);
+        when(retryPublisher.publishFailureUntilSent(any(), eq(failure)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        lazyConsumer.consumeOrder(record(encode(event), 42L), consumer);
+
+        verify(retryPublisher, timeout(2000)).publishFailureUntilSent(
+                argThat(failed -> event.equals(failed.value()) && failed.offset() == 7L),
+                eq(failure));
+        verify(offsetCommitTracker, timeout(2000)).complete(PARTITION, 7L);
+    }
+
+    @Test
+    void consumeOrder_RegistersListenerCpuTime() {
+        lazyConsumer.consumeOrder(record(encode(event(42L)), 42L), consumer);
+
+        var cpuTime = registry.get("kafka.consumer.listener.cpu.time").tag("mode", "lazy").functionCounter();
+        assertTrue(cpuTime.count() > 0);
+    }
+
+    private static ConsumerRecord<String, byte[]> record(byte[] payload, Long orderIdHeader) {
+        var headers = new RecordHeaders();
+        if (orderIdHeader != null) {
+            headers.add(OrderEventHeaders.ORDER_ID, String.valueOf(orderIdHeader).getBytes(StandardCharsets.UTF_8));
+            headers.add(OrderEventHeaders.EVENT_TYPE, "ORDER_UPDATED".getBytes(StandardCharsets.UTF_8));
+        }
+        return new ConsumerRecord<>("orders", 0, 7L, 0L, TimestampType.CREATE_TIME, 0, payload.length,
+                "producer-1", payload, headers, Optional.empty());
+    }
+
+    private static byte[] encode(OrderEvent event) {
+        return OrderEventBinaryCodec.encode(OrderEventWireMapper.INSTANCE.toWire(event));
+    }
+
+    private static OrderEvent event(long orderId) {
+        var order = new OrderData();
+        order.setOrderId(orderId);
+        var event = new OrderEvent();
+        event.setEventId("event-" + orderId);
+        event.setEventType(EventType.ORDER_UPDATED);
+        event.setOrder(order);
+        return event;
+    }
+}
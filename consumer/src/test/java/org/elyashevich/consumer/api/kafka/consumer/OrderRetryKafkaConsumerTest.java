@@ -0,0 +1,166 @@
+package org.elyashevich.consumer.api.kafka.consumer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.elyashevich.consumer.api.dto.order.EventType;
+import org.elyashevich.consumer.api.dto.order.OrderData;
+import org.elyashevich.consumer.api.dto.order.OrderEvent;
+import org.elyashevich.consumer.config.KafkaConsumerConfig;
+import org.elyashevich.consumer.config.KafkaRetryConfig;
+import org.elyashevich.consumer.config.OrderConsumerProperties;
+import org.elyashevich.consumer.metrics.GrafanaKafkaConsumerMetrics;
+import org.elyashevich.consumer.processing.OffsetCommitTracker;
+import org.elyashevich.consumer.processing.OrderEventProcessor;
+import org.elyashevich.consumer.processing.OrderRetryPublisher;
+import org.elyashevich.consumer.processing.OrderedLaneExecutor;
+import org.elyashevich.consumer.service.ProcessedEventService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@EmbeddedKafka(partitions = 1, topics = {"orders-retry-100ms", "orders-retry-200ms", "orders-dlt"})
+class OrderRetryKafkaConsumerTest {
+
+    private OrderConsumerProperties properties;
+    private SimpleMeterRegistry registry;
+    private OrderEventProcessor orderEventProcessor;
+    private OrderRetryPublisher retryPublisher;
+    private OrderedLaneExecutor laneExecutor;
+    private final List<ConcurrentMessageListenerContainer<String, OrderEvent>> containers = new ArrayList<>();
+
+    @BeforeEach
+    void setUp(EmbeddedKafkaBroker broker) {
+        properties = new OrderConsumerProperties();
+        properties.getRetry().setStages(List.of(Duration.ofMillis(100), Duration.ofMillis(200)));
+        var kafkaProperties = new KafkaProperties();
+        kafkaProperties.setBootstrapServers(List.of(broker.getBrokersAsString()));
+        registry = new SimpleMeterRegistry();
+        var metrics = new GrafanaKafkaConsumerMetrics(registry);
+
+        var retryConfig = new KafkaRetryConfig(properties, kafkaProperties);
+        var retryTemplate = retryConfig.retryKafkaTemplate(retryConfig.retryProducerFactory());
+        var deadLetterTemplate = retryConfig.deadLetterKafkaTemplate(retryConfig.deadLetterProducerFactory());
+        retryPublisher = new OrderRetryPublisher(retryTemplate, deadLetterTemplate, properties, metrics);
+        orderEventProcessor = mock(OrderEventProcessor.class);
+        var processedEventService = mock(ProcessedEventService.class);
+        when(processedEventService.flush()).thenReturn(true);
+
+        var consumerConfig = new KafkaConsumerConfig(properties, kafkaProperties, List.of(new OffsetCommitTracker(properties, metrics, processedEventService)), metrics);
+        var factory = retryConfig.retryKafkaListenerContainerFactory(consumerConfig.orderEventConsumerFactory());
+        properties.getLanes().setCount(2);
+        laneExecutor = new OrderedLaneExecutor(properties, metrics, 10);
+        @SuppressWarnings("unchecked")
+        ObjectProvider<OrderedLaneExecutor> lanes = mock(ObjectProvider.class);
+        when(lanes.getIfAvailable()).thenReturn(laneExecutor);
+        var retryConsumer = new OrderRetryKafkaConsumer(properties, orderEventProcessor, retryPublisher, processedEventService, factory, metrics, lanes);
+
+        for (var endpoint : retryConsumer.stageEndpoints()) {
+            var container = factory.createListenerContainer(endpoint);
+            container.start();
+            ContainerTestUtils.waitForAssignment(container, 1);
+            containers.add(container);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        containers.forEach(ConcurrentMessageListenerContainer::stop);
+        laneExecutor.shutdown();
+    }
+
+    @Test
+    void consumeRetry_AlwaysFailing_EndsInDeadLetterTopicWithFailureHeaders(EmbeddedKafkaBroker broker) {
+        doThrow(new IllegalStateException("category missing")).when(orderEventProcessor).process(any());
+
+        retryPublisher.publishFailure(failedRecord("event-1"), new IllegalStateException("category missing")).join();
+
+        try (var deadLetters = new DefaultKafkaConsumerFactory<>(
+                KafkaTestUtils.consumerProps("dlt-reader", "false", broker),
+                new StringDeserializer(),
+                new StringDeserializer()
+        ).createConsumer()) {
+            broker.consumeFromAnEmbeddedTopic(deadLetters, "orders-dlt");
+            var deadLetter = KafkaTestUtils.getSingleRecord(deadLetters, "orders-dlt", Duration.ofSeconds(10));
+
+            verify(orderEventProcessor, timeout(5000).times(2)).process(any());
+            assertAll(
+                () -> assertEquals("42", deadLetter.key()),
+                () -> assertEquals("2", header(deadLetter, OrderRetryPublisher.ATTEMPT_HEADER)),
+                () -> assertEquals("orders", header(deadLetter, KafkaHeaders.DLT_ORIGINAL_TOPIC)),
+                () -> assertEquals(IllegalStateException.class.getName(), header(deadLetter, KafkaHeaders.DLT_EXCEPTION_FQCN)),
+                () -> assertEquals("category missing", header(deadLetter, KafkaHeaders.DLT_EXCEPTION_MESSAGE)),
+                () -> assertEquals(1, registry.get("kafka.consumer.retry.attempts").tag("topic", "orders-retry-200ms").counter().count()),
+                () -> assertEquals(1, registry.get("kafka.consumer.dlt.messages").counter().count())
+            );
+        }
+    }
+
+    @Test
+    void consumeRetry_SucceedsOnSecondStage_DoesNotReachDeadLetterTopic() {
+        doThrow(new ObjectOptimisticLockingFailureException("Order", 42L))
+                .doNothing()
+                .when(orderEventProcessor).process(any());
+
+        retryPublisher.publishFailure(failedRecord("event-2"), new IllegalStateException("stale order")).join();
+
+        verify(orderEventProcessor, timeout(5000).times(2)).process(any());
+        assertAll(
+            () -> assertEquals(1, registry.get("kafka.consumer.retry.attempts").tag("topic", "orders-retry-100ms").counter().count()),
+            () -> assertEquals(1, registry.get("kafka.consumer.retry.attempts").tag("topic", "orders-retry-200ms").counter().count()),
+            () -> assertEquals(0, registry.find("kafka.consumer.dlt.messages").counters().size())
+        );
+    }
+
+    @Test
+    void consumeRetry_LanesInUse_ProcessesOnTheOrdersLane() {
+        List<String> threads = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> threads.add(Thread.currentThread().getName())).when(orderEventProcessor).process(any());
+
+        retryPublisher.publishFailure(failedRecord("event-3"), new IllegalStateException("stale order")).join();
+
+        verify(orderEventProcessor, timeout(5000)).process(any());
+        assertTrue(threads.getFirst().startsWith("order-lane-"), "processed on " + threads);
+    }
+
+    private static ConsumerRecord<String, OrderEvent> failedRecord(String eventId) {
+        var order = new OrderData();
+        order.setOrderId(42L);
+        var event = new OrderEvent();
+        event.setEventId(eventId);
+        event.setEventType(EventType.ORDER_UPDATED);
+        event.setOrder(order);
+        return new ConsumerRecord<>("orders", 0, 5L, "42", event);
+    }
+
+    private static String header(ConsumerRecord<?, ?> record, String name) {
+        return new String(record.headers().lastHeader(name).value(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,37 @@
+package org.elyashevich.consumer.api.kafka.serialization;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EventIdTimestampsTest {
+
+    private static final long MILLIS = 1_760_000_000_123L;
+
+    @Test
+    void epochMillisOf_UuidV7_ReadsFirst48Bits() {
+        var id = new UUID(MILLIS << 16 | 0x7000L | 0x2A, 0x8000000000000000L | 12345L).toString();
+
+        assertEquals(MILLIS, EventIdTimestamps.epochMillisOf(id));
+    }
+
+    @Test
+    void epochMillisOf_Snowflake_ReadsBitsAboveNodeAndSequence() {
+        var id = (MILLIS - EventIdTimestamps.SNOWFLAKE_EPOCH_MILLIS) << 22 | 37L << 12 | 5L;
+
+        assertEquals(MILLIS, EventIdTimestamps.epochMillisOf(Long.toString(id)));
+    }
+
+    @Test
+    void epochMillisOf_IdsWithoutTimestamp_ReturnsUnknown() {
+        assertAll(
+            () -> assertEquals(EventIdTimestamps.UNKNOWN, EventIdTimestamps.epochMillisOf(UUID.randomUUID().toString())),
+            () -> assertEquals(EventIdTimestamps.UNKNOWN, EventIdTimestamps.epochMillisOf("event-1")),
+            () -> assertEquals(EventIdTimestamps.UNKNOWN, EventIdTimestamps.epochMillisOf("99999999999999999999")),
+            () -> assertEquals(EventIdTimestamps.UNKNOWN, EventIdTimestamps.epochMillisOf(null))
+        );
+    }
+}
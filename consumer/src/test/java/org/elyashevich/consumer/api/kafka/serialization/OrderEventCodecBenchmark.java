@@ -0,0 +1,77 @@
+package org.elyashevich.consumer.api.kafka.serialization;
+
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.elyashevich.codec.OrderEventBinaryCodec;
+import org.elyashevich.consumer.api.dto.order.OrderEvent;
+import org.elyashevich.consumer.api.mapper.OrderEventWireMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode cost per event of the binary codec against the Spring JSON serializers the
+ * listener used before. Driven by {@link OrderEventCodecBenchmarkTest}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OrderEventCodecBenchmark {
+
+    private static final OrderEventWireMapper MAPPER = OrderEventWireMapper.INSTANCE;
+
+    private OrderEvent event;
+    private JsonSerializer<OrderEvent> jsonSerializer;
+    private JsonDeserializer<OrderEvent> jsonDeserializer;
+    private byte[] binary;
+    private byte[] json;
+
+    @Setup
+    public void setUp() {
+        event = OrderEventSerializerTest.sampleEvent();
+        jsonSerializer = new JsonSerializer<>();
+        jsonSerializer.setAddTypeInfo(false);
+        jsonDeserializer = new JsonDeserializer<>();
+        jsonDeserializer.configure(Map.of(
+                JsonDeserializer.VALUE_DEFAULT_TYPE, OrderEvent.class.getName(),
+                JsonDeserializer.TRUSTED_PACKAGES, "*"
+        ), false);
+        binary = OrderEventBinaryCodec.encode(MAPPER.toWire(event));
+        json = jsonSerializer.serialize("orders", event);
+    }
+
+    @TearDown
+    public void tearDown() {
+        jsonSerializer.close();
+        jsonDeserializer.close();
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return OrderEventBinaryCodec.encode(MAPPER.toWire(event));
+    }
+
+    @Benchmark
+    public OrderEvent decodeBinary() {
+        return MAPPER.fromWire(OrderEventBinaryCodec.decode(binary));
+    }
+
+    @Benchmark
+    public byte[] encodeJson() {
+        return jsonSerializer.serialize("orders", event);
+    }
+
+    @Benchmark
+    public OrderEvent decodeJson() {
+        return jsonDeserializer.deserialize("orders", new RecordHeaders(), json);
+    }
+}
@@ -0,0 +1,47 @@
+package org.elyashevich.consumer.api.kafka.serialization;
+
+import org.elyashevich.codec.OrderEventBinaryCodec;
+import org.elyashevich.consumer.api.dto.order.OrderEvent;
+import org.elyashevich.consumer.api.mapper.OrderEventWireMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Prints bytes per event for both wire formats and runs {@link OrderEventCodecBenchmark} for
+ * ns per event. Excluded from the default build; run with
+ * {@code mvn test -Dgroups=benchmark -Dsurefire.excludedGroups=}.
+ */
+@Tag("benchmark")
+class OrderEventCodecBenchmarkTest {
+
+    private static final int FORKS = Integer.getInteger("bench.forks", 1);
+    private static final int ITERATIONS = Integer.getInteger("bench.iterations", 5);
+
+    @Test
+    void bytesAndNanosPerEvent() throws RunnerException {
+        var event = OrderEventSerializerTest.sampleEvent();
+        try (var json = new JsonSerializer<OrderEvent>()) {
+            json.setAddTypeInfo(false);
+            System.out.printf("bytes/event binary=%d json=%d%n",
+                    OrderEventBinaryCodec.encode(OrderEventWireMapper.INSTANCE.toWire(event)).length, json.serialize("orders", event).length);
+        }
+
+        var options = new OptionsBuilder()
+                .include(OrderEventCodecBenchmark.class.getName())
+                .forks(FORKS)
+                .warmupIterations(ITERATIONS)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(ITERATIONS)
+                .measurementTime(TimeValue.seconds(1))
+                .build();
+
+        assertEquals(4, new Runner(options).run().size());
+    }
+}
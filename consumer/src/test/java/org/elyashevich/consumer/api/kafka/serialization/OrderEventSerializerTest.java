@@ -0,0 +1,112 @@
+package org.elyashevich.consumer.api.kafka.serialization;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.elyashevich.codec.OrderEventBinaryCodec;
+import org.elyashevich.consumer.api.dto.order.EventType;
+import org.elyashevich.consumer.api.dto.order.OrderData;
+import org.elyashevich.consumer.api.dto.order.OrderEvent;
+import org.elyashevich.consumer.api.mapper.OrderEventWireMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderEventSerializerTest {
+
+    @Test
+    void serialize_SampleEvent_IsSmallerThanJson() {
+        var event = sampleEvent();
+        try (var json = new JsonSerializer<OrderEvent>(); var serializer = new OrderEventSerializer()) {
+            var jsonSize = json.serialize("orders", event).length;
+            var binarySize = serializer.serialize("orders", new RecordHeaders(), event).length;
+
+            assertTrue(binarySize * 3 < jsonSize, "binary " + binarySize + " bytes vs json " + jsonSize);
+        }
+    }
+
+    @Test
+    void deserialize_WithoutSchemaHeader_FallsBackToJson() {
+        var event = sampleEvent();
+        try (var json = new JsonSerializer<OrderEvent>(); var deserializer = new OrderEventDeserializer()) {
+            json.setAddTypeInfo(false);
+            deserializer.configure(Map.of(
+                    JsonDeserializer.VALUE_DEFAULT_TYPE, OrderEvent.class.getName(),
+                    JsonDeserializer.TRUSTED_PACKAGES, "*"
+            ), false);
+
+            var headers = new RecordHeaders();
+            var decoded = deserializer.deserialize("orders", headers, json.serialize("orders", headers, event));
+
+            assertEquals(event, decoded);
+        }
+    }
+
+    @Test
+    void deserialize_SerializedWithHeader_DecodesBinary() {
+        var event = sampleEvent();
+        try (var serializer = new OrderEventSerializer(); var deserializer = new OrderEventDeserializer()) {
+            var headers = new RecordHeaders();
+            var bytes = serializer.serialize("orders", headers, event);
+
+            assertAll(
+                () -> assertEquals("1", new String(headers.lastHeader(OrderEventSerializer.SCHEMA_VERSION_HEADER).value(), StandardCharsets.UTF_8)),
+                () -> assertEquals(event, deserializer.deserialize("orders", headers, bytes))
+            );
+        }
+    }
+
+    @Test
+    void serialize_WithoutHeaders_WritesJsonTheDeserializerReads() {
+        var event = sampleEvent();
+        try (var serializer = new OrderEventSerializer(); var deserializer = new OrderEventDeserializer()) {
+            deserializer.configure(Map.of(
+                    JsonDeserializer.VALUE_DEFAULT_TYPE, OrderEvent.class.getName(),
+                    JsonDeserializer.TRUSTED_PACKAGES, "*"
+            ), false);
+
+            var bytes = serializer.serialize("orders", event);
+
+            assertEquals(event, deserializer.deserialize("orders", new RecordHeaders(), bytes));
+        }
+    }
+
+    @Test
+    void deserialize_UnknownSchemaVersion_ThrowsSerializationException() {
+        try (var deserializer = new OrderEventDeserializer()) {
+            var headers = new RecordHeaders();
+            headers.add(OrderEventSerializer.SCHEMA_VERSION_HEADER, "2".getBytes(StandardCharsets.UTF_8));
+            var bytes = OrderEventBinaryCodec.encode(OrderEventWireMapper.INSTANCE.toWire(sampleEvent()));
+
+            assertThrows(SerializationException.class, () -> deserializer.deserialize("orders", headers, bytes));
+        }
+    }
+
+    static OrderEvent sampleEvent() {
+        var order = new OrderData();
+        order.setOrderId(1_234_567L);
+        order.setProductName("Wireless Mouse");
+        order.setCategoryId(12L);
+        order.setCategoryName("Electronics");
+        order.setPrice(new BigDecimal("149.99"));
+        order.setQuantity(3);
+        order.setStatus("PROCESSING");
+        order.setCustomerId(98_765L);
+
+        var event = new OrderEvent();
+        event.setEventId("3f2b8c1e-6a4d-4c1b-9f0e-2d7a5b8c9e01");
+        event.setEventType(EventType.ORDER_UPDATED);
+        event.setOrder(order);
+        event.setTimestamp(LocalDateTime.of(2025, 6, 1, 12, 30, 45, 123_456_789));
+        return event;
+    }
+}
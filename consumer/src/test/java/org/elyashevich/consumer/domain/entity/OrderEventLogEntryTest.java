@@ -0,0 +1,107 @@
+package org.elyashevich.consumer.domain.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderEventLogEntryTest {
+
+    private static final LocalDateTime EVENT_TIME = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    private final Category electronics = Category.builder().id(1L).name("Electronics").build();
+    private final Category books = Category.builder().id(2L).name("Books").build();
+
+    @Test
+    void applyTo_Update_CopiesFieldsAndSwitchesCategory() {
+        var order = order(OrderStatus.PENDING, electronics);
+        var change = order(OrderStatus.PROCESSING, books).toBuilder()
+                .productName("Kindle")
+                .price(new BigDecimal("149.99"))
+                .quantity(2)
+                .build();
+
+        var applied = OrderEventLogEntry.update(change, EVENT_TIME).applyTo(order, id -> books);
+
+        assertAll(
+            () -> assertTrue(applied),
+            () -> assertEquals("Kindle", order.getProductName()),
+            () -> assertEquals(new BigDecimal("149.99"), order.getPrice()),
+            () -> assertEquals(2, order.getQuantity()),
+            () -> assertEquals(OrderStatus.PROCESSING, order.getStatus()),
+            () -> assertSame(books, order.getCategory())
+        );
+    }
+
+    @Test
+    void applyTo_UpdateWithDisallowedMove_LeavesOrderUnchanged() {
+        var order = order(OrderStatus.DELIVERED, electronics);
+        var change = order(OrderStatus.PENDING, electronics).toBuilder().productName("Kindle").build();
+
+        var applied = OrderEventLogEntry.update(change, EVENT_TIME).applyTo(order, id -> electronics);
+
+        assertAll(
+            () -> assertFalse(applied),
+            () -> assertEquals("Laptop", order.getProductName()),
+            () -> assertEquals(OrderStatus.DELIVERED, order.getStatus())
+        );
+    }
+
+    @Test
+    void applyTo_StaleUpdate_LeavesOrderUnchanged() {
+        var order = order(OrderStatus.PENDING, electronics);
+        order.setLastEventAt(EVENT_TIME);
+        var change = order(OrderStatus.PROCESSING, electronics).toBuilder().productName("Kindle").build();
+
+        var applied = OrderEventLogEntry.update(change, EVENT_TIME.minusSeconds(1)).applyTo(order, id -> electronics);
+
+        assertAll(
+            () -> assertFalse(applied),
+            () -> assertEquals("Laptop", order.getProductName()),
+            () -> assertEquals(OrderStatus.PENDING, order.getStatus()),
+            () -> assertEquals(EVENT_TIME, order.getLastEventAt())
+        );
+    }
+
+    @Test
+    void applyTo_CancelThenOlderUpdate_UpdateIsStale() {
+        var order = order(OrderStatus.PENDING, electronics);
+        var change = order(OrderStatus.PENDING, electronics).toBuilder().productName("Kindle").build();
+
+        assertAll(
+            () -> assertTrue(OrderEventLogEntry.cancel(1L, EVENT_TIME).applyTo(order, id -> electronics)),
+            () -> assertEquals(EVENT_TIME, order.getLastEventAt()),
+            () -> assertFalse(OrderEventLogEntry.update(change, EVENT_TIME.minusSeconds(1)).applyTo(order, id -> electronics)),
+            () -> assertEquals("Laptop", order.getProductName())
+        );
+    }
+
+    @Test
+    void applyTo_CancelTwice_SecondIsSkipped() {
+        var order = order(OrderStatus.SHIPPED, electronics);
+        var cancel = OrderEventLogEntry.cancel(1L, EVENT_TIME);
+
+        assertAll(
+            () -> assertTrue(cancel.applyTo(order, id -> electronics)),
+            () -> assertEquals(OrderStatus.CANCELLED, order.getStatus()),
+            () -> assertFalse(cancel.applyTo(order, id -> electronics))
+        );
+    }
+
+    private static Order order(OrderStatus status, Category category) {
+        return Order.builder()
+                .id(1L)
+                .productName("Laptop")
+                .price(new BigDecimal("999.99"))
+                .quantity(1)
+                .status(status)
+                .category(category)
+                .build();
+    }
+}
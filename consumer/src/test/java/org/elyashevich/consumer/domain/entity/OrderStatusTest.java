@@ -0,0 +1,36 @@
+package org.elyashevich.consumer.domain.entity;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderStatusTest {
+
+    @ParameterizedTest
+    @EnumSource(OrderStatus.class)
+    void sources_MatchesAllowedMoves(OrderStatus target) {
+        for (var from : OrderStatus.values()) {
+            assertEquals(from != target && from.canMoveTo(target), target.sources().contains(from),
+                    from + " -> " + target);
+        }
+        assertTrue(target.sourcesOrSelf().contains(target));
+    }
+
+    @Test
+    void canMoveTo_TerminalAndBackwardMoves_AreRejected() {
+        assertAll(
+            () -> assertEquals(EnumSet.of(OrderStatus.PENDING, OrderStatus.PROCESSING, OrderStatus.SHIPPED, OrderStatus.DELIVERED),
+                    OrderStatus.CANCELLED.sources()),
+            () -> assertFalse(OrderStatus.CANCELLED.canMoveTo(OrderStatus.PENDING)),
+            () -> assertFalse(OrderStatus.PROCESSING.canMoveTo(OrderStatus.PENDING)),
+            () -> assertTrue(OrderStatus.PENDING.canMoveTo(OrderStatus.PENDING))
+        );
+    }
+}
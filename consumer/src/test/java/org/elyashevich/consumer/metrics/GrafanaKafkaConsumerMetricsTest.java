@@ -0,0 +1,60 @@
+package org.elyashevich.consumer.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.elyashevich.consumer.api.dto.order.EventType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GrafanaKafkaConsumerMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private GrafanaKafkaConsumerMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics = new GrafanaKafkaConsumerMetrics(registry);
+    }
+
+    @Test
+    void recordStage_RecordsUnderStageEventTypeAndOutcome() {
+        metrics.recordStage(PipelineStage.DB_WRITE, EventType.ORDER_UPDATED, true, TimeUnit.MILLISECONDS.toNanos(3));
+        metrics.recordStage(PipelineStage.DB_WRITE, EventType.ORDER_UPDATED, false, TimeUnit.MILLISECONDS.toNanos(5));
+        metrics.recordStage(PipelineStage.DESERIALIZE, null, false, 1_000);
+
+        assertAll(
+            () -> assertEquals(1, stageTimer("db_write", "ORDER_UPDATED", "success").count()),
+            () -> assertEquals(5, stageTimer("db_write", "ORDER_UPDATED", "failure").totalTime(TimeUnit.MILLISECONDS)),
+            () -> assertEquals(0, stageTimer("db_write", "ORDER_CREATED", "success").count()),
+            () -> assertEquals(1, stageTimer("deserialize", "unknown", "failure").count())
+        );
+    }
+
+    @Test
+    void recordEventAge_SkipsMissingAndFutureTimestamps() {
+        metrics.recordEventAge(EventType.ORDER_CREATED, LocalDateTime.now().minusSeconds(2));
+        metrics.recordEventAge(EventType.ORDER_CREATED, null);
+        metrics.recordEventAge(EventType.ORDER_CREATED, LocalDateTime.now().plusMinutes(1));
+
+        var age = registry.get("kafka.consumer.event.age").tag("event.type", "ORDER_CREATED").timer();
+        assertAll(
+            () -> assertEquals(1, age.count()),
+            () -> assertEquals(2, age.totalTime(TimeUnit.SECONDS), 0.5)
+        );
+    }
+
+    private Timer stageTimer(String stage, String eventType, String outcome) {
+        return registry.get("kafka.consumer.stage.time")
+                .tag("stage", stage)
+                .tag("event.type", eventType)
+                .tag("outcome", outcome)
+                .timer();
+    }
+}
@@ -0,0 +1,113 @@
+package org.elyashevich.consumer.processing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.TopicPartition;
+import org.elyashevich.consumer.config.OrderConsumerProperties;
+import org.elyashevich.consumer.metrics.GrafanaKafkaConsumerMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BackpressureControllerTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("orders", 0);
+
+    @Mock
+    private KafkaListenerEndpointRegistry listenerRegistry;
+
+    @Mock
+    private MessageListenerContainer container;
+
+    private OrderedLaneExecutor laneExecutor;
+    private BackpressureController controller;
+
+    @BeforeEach
+    void setUp() {
+        var properties = new OrderConsumerProperties();
+        properties.getLanes().setCount(1);
+        properties.getLanes().setCapacity(4);
+        properties.getBackpressure().setLaneHighWaterRatio(0.5);
+        properties.getBackpressure().setLaneLowWaterRatio(0.0);
+
+        var metrics = new GrafanaKafkaConsumerMetrics(new SimpleMeterRegistry());
+        laneExecutor = new OrderedLaneExecutor(properties, metrics, 10);
+        controller = new BackpressureController(properties, laneExecutor, listenerRegistry, metrics);
+        controller.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        laneExecutor.shutdown();
+    }
+
+    @Test
+    void onSubmitted_LaneBelowHighWater_DoesNotPause() throws InterruptedException {
+        var lane = laneExecutor.laneFor(1L);
+        laneExecutor.submit(lane, () -> { });
+
+        controller.onSubmitted(PARTITION, lane);
+
+        verify(container, never()).pausePartition(PARTITION);
+    }
+
+    @Test
+    void onSubmitted_LaneAboveHighWater_PausesAndResumesAfterDrain() throws InterruptedException {
+        when(listenerRegistry.getListenerContainer(BackpressureController.ORDER_LISTENER_ID)).thenReturn(container);
+        var blocker = new CountDownLatch(1);
+        var lane = laneExecutor.laneFor(1L);
+
+        laneExecutor.submit(lane, () -> await(blocker));
+        laneExecutor.submit(lane, () -> { });
+        laneExecutor.submit(lane, () -> { });
+        laneExecutor.submit(lane, () -> { });
+
+        controller.onSubmitted(PARTITION, lane);
+        verify(container).pausePartition(PARTITION);
+
+        blocker.countDown();
+        verify(container, timeout(5000)).resumePartition(PARTITION);
+    }
+
+    @Test
+    void onPartitionsRevokedAfterCommit_PausedPartition_ClearsPauseSoReassignmentCanPauseAgain() throws InterruptedException {
+        when(listenerRegistry.getListenerContainer(BackpressureController.ORDER_LISTENER_ID)).thenReturn(container);
+        var blocker = new CountDownLatch(1);
+        var lane = laneExecutor.laneFor(1L);
+
+        laneExecutor.submit(lane, () -> await(blocker));
+        laneExecutor.submit(lane, () -> { });
+        laneExecutor.submit(lane, () -> { });
+        controller.onSubmitted(PARTITION, lane);
+
+        controller.onPartitionsRevokedAfterCommit(null, List.of(PARTITION));
+        verify(container).resumePartition(PARTITION);
+
+        controller.onSubmitted(PARTITION, lane);
+        verify(container, times(2)).pausePartition(PARTITION);
+        blocker.countDown();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
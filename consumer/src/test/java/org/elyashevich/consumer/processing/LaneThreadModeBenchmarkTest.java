@@ -0,0 +1,84 @@
+package org.elyashevich.consumer.processing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.elyashevich.consumer.config.OrderConsumerProperties;
+import org.elyashevich.consumer.config.OrderConsumerProperties.ThreadMode;
+import org.elyashevich.consumer.metrics.GrafanaKafkaConsumerMetrics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares throughput and p99 latency of the platform and virtual lane modes against a
+ * simulated connection pool with blocking round-trips. Excluded from the default build; run with
+ * {@code mvn test -Dgroups=benchmark -Dsurefire.excludedGroups=}.
+ */
+@Tag("benchmark")
+class LaneThreadModeBenchmarkTest {
+
+    private static final int EVENTS = Integer.getInteger("bench.events", 20_000);
+    private static final int ORDERS = Integer.getInteger("bench.orders", 1_000);
+    private static final int POOL_SIZE = Integer.getInteger("bench.pool-size", 10);
+    private static final long ROUND_TRIP_MICROS = Long.getLong("bench.round-trip-micros", 1_000);
+
+    @ParameterizedTest
+    @EnumSource(ThreadMode.class)
+    void throughputAndLatency(ThreadMode threadMode) throws InterruptedException {
+        var properties = new OrderConsumerProperties();
+        properties.getLanes().setThreadMode(threadMode);
+        properties.getLanes().setCapacity(EVENTS);
+        var executor = new OrderedLaneExecutor(
+                properties, new GrafanaKafkaConsumerMetrics(new SimpleMeterRegistry()), POOL_SIZE
+        );
+
+        var connections = new Semaphore(POOL_SIZE);
+        var lastSequence = new AtomicLongArray(ORDERS);
+        var latencies = new long[EVENTS];
+        var done = new CountDownLatch(EVENTS);
+        var outOfOrder = new CountDownLatch(1);
+
+        var start = System.nanoTime();
+        for (var i = 0; i < EVENTS; i++) {
+            var orderId = i % ORDERS;
+            var sequence = i;
+            var submittedAt = System.nanoTime();
+            executor.submit(orderId, () -> {
+                connections.acquireUninterruptibly();
+                try {
+                    TimeUnit.MICROSECONDS.sleep(ROUND_TRIP_MICROS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    connections.release();
+                }
+                if (lastSequence.getAndSet(orderId, sequence) > sequence) {
+                    outOfOrder.countDown();
+                }
+                latencies[sequence] = System.nanoTime() - submittedAt;
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.MINUTES));
+        var elapsedNanos = System.nanoTime() - start;
+        executor.shutdown();
+
+        Arrays.sort(latencies);
+        System.out.printf("%-8s lanes=%-4d events/s=%-10.0f p50=%.2fms p99=%.2fms%n",
+                threadMode,
+                executor.laneCount(),
+                EVENTS / (elapsedNanos / 1e9),
+                latencies[EVENTS / 2] / 1e6,
+                latencies[(int) (EVENTS * 0.99)] / 1e6);
+        assertEquals(1, outOfOrder.getCount());
+    }
+}
@@ -0,0 +1,118 @@
+package org.elyashevich.consumer.processing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.elyashevich.consumer.config.OrderConsumerProperties;
+import org.elyashevich.consumer.metrics.GrafanaKafkaConsumerMetrics;
+import org.elyashevich.consumer.service.ProcessedEventService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OffsetCommitTrackerTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("orders", 0);
+
+    private MockConsumer<String, String> consumer;
+    private ProcessedEventService processedEventService;
+    private OffsetCommitTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        var properties = new OrderConsumerProperties();
+        properties.getCommit().setInterval(Duration.ZERO);
+
+        consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.assign(List.of(PARTITION));
+        processedEventService = mock(ProcessedEventService.class);
+        lenient().when(processedEventService.flush()).thenReturn(true);
+        tracker = new OffsetCommitTracker(properties, new GrafanaKafkaConsumerMetrics(new SimpleMeterRegistry()), processedEventService);
+    }
+
+    @Test
+    void commit_GapInCompletedOffsets_CommitsLowestPendingOffset() {
+        track(0, 1, 2);
+        tracker.complete(PARTITION, 0);
+        tracker.complete(PARTITION, 2);
+
+        tracker.commit(consumer);
+
+        assertEquals(1, committedOffset());
+    }
+
+    @Test
+    void commit_AllOffsetsCompleted_CommitsNextOffset() {
+        track(5, 6);
+        tracker.complete(PARTITION, 6);
+        tracker.complete(PARTITION, 5);
+
+        tracker.commit(consumer);
+
+        assertEquals(7, committedOffset());
+    }
+
+    @Test
+    void commit_NothingTracked_DoesNotCommit() {
+        tracker.commit(consumer);
+
+        assertNull(consumer.committed(Set.of(PARTITION)).get(PARTITION));
+    }
+
+    @Test
+    void commit_ProcessedIdsNotStored_HoldsBackCommitUntilFlushSucceeds() {
+        track(0);
+        tracker.complete(PARTITION, 0);
+        when(processedEventService.flush()).thenReturn(false).thenReturn(true);
+
+        tracker.commit(consumer);
+        assertNull(consumer.committed(Set.of(PARTITION)).get(PARTITION));
+
+        tracker.commit(consumer);
+        assertEquals(1, committedOffset());
+    }
+
+    @Test
+    void commit_CompletedOffsets_FlushesProcessedIdsFirst() {
+        track(0);
+        tracker.complete(PARTITION, 0);
+
+        tracker.commit(consumer);
+
+        verify(processedEventService).flush();
+    }
+
+    @Test
+    void onPartitionsRevokedBeforeCommit_PendingOffsets_CommitsContiguousOffset() {
+        track(0, 1);
+        tracker.complete(PARTITION, 0);
+
+        tracker.onPartitionsRevokedBeforeCommit(consumer, List.of(PARTITION));
+        tracker.complete(PARTITION, 1);
+        tracker.commit(consumer);
+
+        assertEquals(1, committedOffset());
+    }
+
+    private void track(long... offsets) {
+        for (var offset : offsets) {
+            tracker.track(new ConsumerRecord<>(PARTITION.topic(), PARTITION.partition(), offset, "key", "value"));
+        }
+    }
+
+    private long committedOffset() {
+        return consumer.committed(Set.of(PARTITION)).get(PARTITION).offset();
+    }
+}
@@ -0,0 +1,137 @@
+package org.elyashevich.consumer.processing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.SerializationException;
+import org.elyashevich.consumer.api.dto.order.OrderEvent;
+import org.elyashevich.consumer.config.OrderConsumerProperties;
+import org.elyashevich.consumer.exception.BusinessException;
+import org.elyashevich.consumer.exception.ResourceNotFoundException;
+import org.elyashevich.consumer.metrics.GrafanaKafkaConsumerMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.SendResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OrderRetryPublisherTest {
+
+    @Mock
+    private KafkaTemplate<String, OrderEvent> retryKafkaTemplate;
+
+    @Mock
+    private KafkaTemplate<String, byte[]> deadLetterKafkaTemplate;
+
+    private SimpleMeterRegistry registry;
+    private OrderRetryPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        publisher = new OrderRetryPublisher(retryKafkaTemplate, deadLetterKafkaTemplate, new OrderConsumerProperties(), new GrafanaKafkaConsumerMetrics(registry));
+    }
+
+    @Test
+    void publishFailureUntilSent_FirstSendFails_CompletesAfterResend() throws Exception {
+        when(retryKafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")))
+                .thenReturn(CompletableFuture.completedFuture(sendResult()));
+
+        publisher.publishFailureUntilSent(failedRecord(), new IllegalStateException("category missing"))
+                .get(5, TimeUnit.SECONDS);
+
+        verify(retryKafkaTemplate, times(2)).send(any(ProducerRecord.class));
+        assertAll(
+            () -> assertEquals(1, registry.get("kafka.consumer.retry.attempts").counter().count()),
+            () -> assertEquals(1, registry.get("kafka.consumer.retry.publish.failures").counter().count())
+        );
+    }
+
+    @Test
+    void publishFailureUntilSent_AfterShutdown_LeavesFutureIncomplete() {
+        when(retryKafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+        publisher.shutdown();
+
+        var sent = publisher.publishFailureUntilSent(failedRecord(), new IllegalStateException("category missing"));
+
+        verify(retryKafkaTemplate, timeout(2000).times(1)).send(any(ProducerRecord.class));
+        assertFalse(sent.isDone());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void publishFailure_NonRetryableCause_SkipsRetryStages() {
+        var captor = ArgumentCaptor.forClass(ProducerRecord.class);
+        when(retryKafkaTemplate.send(captor.capture()))
+                .thenReturn(CompletableFuture.completedFuture(sendResult()));
+
+        publisher.publishFailure(failedRecord(), new BusinessException("Cannot cancel a completed order")).join();
+        publisher.publishFailure(failedRecord(),
+                new CompletionException(new ResourceNotFoundException("Order with id 42 not found"))).join();
+
+        assertAll(
+            () -> assertEquals(List.of("orders-dlt", "orders-dlt"),
+                    captor.getAllValues().stream().map(ProducerRecord::topic).toList()),
+            () -> assertEquals("0", new String(captor.getValue().headers().lastHeader(OrderRetryPublisher.ATTEMPT_HEADER).value(),
+                    StandardCharsets.UTF_8)),
+            () -> assertEquals(1, registry.get("kafka.consumer.dlt.messages").tag("exception", "BusinessException").counter().count()),
+            () -> assertEquals(1, registry.get("kafka.consumer.dlt.messages").tag("exception", "CompletionException").counter().count())
+        );
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void deadLetterUntilSent_UndecodableRecord_SendsOriginalBytesToDeadLetterTopic() throws Exception {
+        var payload = new byte[]{(byte) 0xFF};
+        var undecodable = new ConsumerRecord<>("orders", 0, 5L, "42", payload);
+        undecodable.headers().add("order-id", "forty-two".getBytes(StandardCharsets.UTF_8));
+        var captor = ArgumentCaptor.forClass(ProducerRecord.class);
+        when(deadLetterKafkaTemplate.send(captor.capture()))
+                .thenReturn(CompletableFuture.completedFuture(new SendResult<>(null, null)));
+
+        publisher.deadLetterUntilSent(undecodable, new SerializationException("bad header"))
+                .get(5, TimeUnit.SECONDS);
+
+        ProducerRecord<String, byte[]> sent = captor.getValue();
+        assertAll(
+            () -> assertEquals("orders-dlt", sent.topic()),
+            () -> assertEquals("42", sent.key()),
+            () -> assertSame(payload, sent.value()),
+            () -> assertEquals("forty-two", new String(sent.headers().lastHeader("order-id").value(), StandardCharsets.UTF_8)),
+            () -> assertEquals(SerializationException.class.getName(),
+                    new String(sent.headers().lastHeader(KafkaHeaders.DLT_EXCEPTION_FQCN).value(), StandardCharsets.UTF_8)),
+            () -> assertEquals(1, registry.get("kafka.consumer.dlt.messages").counter().count())
+        );
+    }
+
+    private static ConsumerRecord<String, OrderEvent> failedRecord() {
+        return new ConsumerRecord<>("orders", 0, 5L, "42", new OrderEvent());
+    }
+
+    private static SendResult<String, OrderEvent> sendResult() {
+        return new SendResult<>(null, null);
+    }
+}
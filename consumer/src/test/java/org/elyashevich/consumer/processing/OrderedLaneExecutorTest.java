@@ -0,0 +1,259 @@
+package org.elyashevich.consumer.processing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.elyashevich.consumer.config.OrderConsumerProperties;
+import org.elyashevich.consumer.config.OrderConsumerProperties.ThreadMode;
+import org.elyashevich.consumer.metrics.GrafanaKafkaConsumerMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderedLaneExecutorTest {
+
+    private OrderedLaneExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void submit_SameKey_ExecutesInSubmissionOrder() throws InterruptedException {
+        executor = createExecutor(4, 1024);
+        Map<Long, List<Integer>> executed = new ConcurrentHashMap<>();
+        var done = new CountDownLatch(1000);
+
+        for (var i = 0; i < 1000; i++) {
+            var key = (long) (i % 10);
+            var sequence = i;
+            assertTrue(executor.submit(key, () -> {
+                executed.computeIfAbsent(key, k -> Collections.synchronizedList(new ArrayList<>())).add(sequence);
+                done.countDown();
+            }));
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        executed.values().forEach(sequences -> {
+            var sorted = new ArrayList<>(sequences);
+            Collections.sort(sorted);
+            assertEquals(sorted, sequences);
+        });
+    }
+
+    @Test
+    void laneFor_SameKey_ReturnsSameLane() {
+        executor = createExecutor(8, 16);
+
+        assertSame(executor.laneFor(42L), executor.laneFor(42L));
+        assertEquals(8, executor.laneCount());
+    }
+
+    @Test
+    void laneFor_WithoutOrderId_UsesRecordKeyLane() {
+        executor = createExecutor(8, 16);
+
+        assertSame(executor.laneFor(42L), executor.laneFor(42L, "event-1"));
+        assertSame(executor.laneFor("event-1".hashCode()), executor.laneFor(null, "event-1"));
+    }
+
+    @Test
+    void submit_FullLane_BlocksUntilSpaceIsAvailable() throws Exception {
+        executor = createExecutor(1, 1);
+        var blocker = new CountDownLatch(1);
+        var started = new CountDownLatch(1);
+
+        executor.submit(1L, () -> {
+            started.countDown();
+            await(blocker);
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertTrue(executor.submit(1L, () -> { }));
+
+        var blockedSubmit = CompletableFuture.supplyAsync(() -> submitQuietly(1L));
+        assertThrows(TimeoutException.class, () -> blockedSubmit.get(300, TimeUnit.MILLISECONDS));
+        assertEquals(3, executor.inFlight());
+
+        blocker.countDown();
+
+        assertTrue(blockedSubmit.get(5, TimeUnit.SECONDS));
+        assertEquals(1, executor.laneFor(1L).fullCount());
+    }
+
+    @Test
+    void hottestOrders_BlockedLanes_RanksOrdersByWaitingEvents() throws InterruptedException {
+        executor = createExecutor(2, 16);
+        var other = findKeyOnOtherLane(1L);
+        var blocker = new CountDownLatch(1);
+        var started = new CountDownLatch(2);
+        for (var key : List.of(1L, other)) {
+            executor.submit(executor.laneFor(key), () -> {
+                started.countDown();
+                await(blocker);
+            });
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        for (var i = 0; i < 3; i++) {
+            executor.submit(1L, () -> { });
+        }
+        executor.submit(other, () -> { });
+        executor.submit(executor.laneFor(other), null, () -> { });
+
+        var hottest = executor.hottestOrders(5);
+        assertAll(
+            () -> assertEquals(List.of(
+                    new OrderedLaneExecutor.OrderBacklog(1L, executor.laneFor(1L).getIndex(), 3),
+                    new OrderedLaneExecutor.OrderBacklog(other, executor.laneFor(other).getIndex(), 1)
+            ), hottest),
+            () -> assertEquals(1, executor.hottestOrders(1).size()),
+            () -> assertEquals(2, executor.active()),
+            () -> assertEquals(5, executor.queued()),
+            () -> assertEquals(3, executor.maxLaneDepth())
+        );
+        blocker.countDown();
+    }
+
+    @Test
+    void utilization_BusyWorker_DecaysWithoutResettingOnRead() throws InterruptedException {
+        executor = createExecutor(2, 16);
+        var idle = executor.utilization();
+        var done = new CountDownLatch(1);
+
+        executor.submit(1L, () -> {
+            sleep(200);
+            done.countDown();
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        sleep(50);
+
+        var first = executor.utilization();
+        var second = executor.utilization();
+        sleep(200);
+        var later = executor.utilization();
+
+        // 200ms busy on one of two workers in a 10s window: (1 - e^-0.02) / 2
+        assertAll(
+            () -> assertEquals(0, idle),
+            () -> assertEquals(0.0099, first, 0.002),
+            () -> assertEquals(first, second, 1e-4),
+            () -> assertTrue(later < second, "later " + later + " second " + second)
+        );
+    }
+
+    @Test
+    void utilization_EventStillRunning_CountsItsBusyTimeSoFar() throws InterruptedException {
+        executor = createExecutor(2, 16);
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+
+        executor.submit(1L, () -> {
+            started.countDown();
+            await(release);
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        sleep(200);
+        var early = executor.utilization();
+        sleep(200);
+        var later = executor.utilization();
+        release.countDown();
+
+        // at least 200ms and then 400ms busy on one of two workers in a 10s window
+        assertAll(
+            () -> assertTrue(early >= 0.0098, "early " + early),
+            () -> assertTrue(later > early, "later " + later + " early " + early)
+        );
+    }
+
+    @Test
+    void submit_AfterShutdown_ReturnsFalse() throws InterruptedException {
+        executor = createExecutor(1, 1);
+        executor.shutdown();
+
+        assertFalse(executor.submit(1L, () -> { }));
+        assertEquals(0, executor.inFlight());
+    }
+
+    @Test
+    void submit_VirtualThreadMode_CapsConcurrencyAtPermits() throws InterruptedException {
+        executor = createExecutor(32, 16, ThreadMode.VIRTUAL, 3);
+        var running = new AtomicInteger();
+        var maxRunning = new AtomicInteger();
+        var done = new CountDownLatch(200);
+
+        for (var i = 0; i < 200; i++) {
+            executor.submit(i, () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep(2);
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertTrue(maxRunning.get() <= 3);
+        assertEquals(32, executor.laneCount());
+    }
+
+    private static OrderedLaneExecutor createExecutor(int lanes, int capacity) {
+        return createExecutor(lanes, capacity, ThreadMode.PLATFORM, 0);
+    }
+
+    private static OrderedLaneExecutor createExecutor(int lanes, int capacity, ThreadMode threadMode, int maxConcurrency) {
+        var properties = new OrderConsumerProperties();
+        properties.getLanes().setCount(lanes);
+        properties.getLanes().setCapacity(capacity);
+        properties.getLanes().setThreadMode(threadMode);
+        properties.getLanes().setMaxConcurrency(maxConcurrency);
+        return new OrderedLaneExecutor(properties, new GrafanaKafkaConsumerMetrics(new SimpleMeterRegistry()), 10);
+    }
+
+    private long findKeyOnOtherLane(long key) {
+        var candidate = key + 1;
+        while (executor.laneFor(candidate) == executor.laneFor(key)) {
+            candidate++;
+        }
+        return candidate;
+    }
+
+    private boolean submitQuietly(long key) {
+        try {
+            return executor.submit(key, () -> { });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package org.elyashevich.consumer.repository;
+
+import org.elyashevich.consumer.domain.entity.Category;
+import org.elyashevich.consumer.domain.entity.Order;
+import org.elyashevich.consumer.domain.entity.OrderStatus;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OrderBulkRepositoryImplTest {
+
+    @Test
+    void appendRow_SpecialCharacters_AreEscapedForCopyText() {
+        var createdAt = LocalDateTime.of(2025, 6, 1, 12, 30, 15);
+        var order = Order.builder()
+                .id(51L)
+                .category(Category.builder().id(3L).build())
+                .productName("Desk\t\"Pro\"\\2\nlamp")
+                .price(new BigDecimal("1E+2"))
+                .quantity(2)
+                .status(OrderStatus.PENDING)
+                .createdAt(createdAt)
+                .updatedAt(createdAt)
+                .version(0L)
+                .build();
+        var rows = new StringBuilder();
+
+        OrderBulkRepositoryImpl.appendRow(rows, order);
+
+        assertEquals("51\t3\tDesk\\t\"Pro\"\\\\2\\nlamp\t100\t2\tPENDING\t2025-06-01T12:30:15\t2025-06-01T12:30:15\t0\n",
+                rows.toString());
+    }
+
+    @Test
+    void appendRow_MissingValues_AreWrittenAsNull() {
+        var order = Order.builder()
+                .id(1L)
+                .category(Category.builder().id(1L).build())
+                .createdAt(LocalDateTime.of(2025, 1, 1, 0, 0))
+                .updatedAt(LocalDateTime.of(2025, 1, 1, 0, 0))
+                .version(0L)
+                .build();
+        var rows = new StringBuilder();
+
+        OrderBulkRepositoryImpl.appendRow(rows, order);
+
+        assertEquals("1\t1\t\\N\t\\N\t\\N\t\\N\t2025-01-01T00:00\t2025-01-01T00:00\t0\n", rows.toString());
+    }
+}
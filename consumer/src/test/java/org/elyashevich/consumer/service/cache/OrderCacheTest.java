@@ -0,0 +1,111 @@
+package org.elyashevich.consumer.service.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.elyashevich.consumer.config.OrderConsumerProperties;
+import org.elyashevich.consumer.domain.entity.Order;
+import org.elyashevich.consumer.domain.entity.OrderStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderCacheTest {
+
+    private static final int PARTITIONS = 12;
+
+    private OrderCache orderCache;
+
+    @BeforeEach
+    void setUp() {
+        orderCache = new OrderCache(new OrderConsumerProperties(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void put_OrderOfOwnedPartition_IsCachedAsCopy() {
+        var order = order(1L);
+        orderCache.assign(List.of(OrderAffinity.partitionOf(1L, PARTITIONS)), PARTITIONS);
+
+        orderCache.put(order);
+        order.setStatus(OrderStatus.CANCELLED);
+        var cached = orderCache.get(1L);
+
+        assertNotNull(cached);
+        assertNotSame(order, cached);
+        assertEquals(OrderStatus.PENDING, cached.getStatus());
+    }
+
+    @Test
+    void put_OrderOfForeignPartition_IsIgnored() {
+        var owned = OrderAffinity.partitionOf(1L, PARTITIONS);
+        var foreignId = LongStream.range(2, 1_000)
+                .filter(id -> OrderAffinity.partitionOf(id, PARTITIONS) != owned)
+                .findFirst()
+                .orElseThrow();
+        orderCache.assign(List.of(owned), PARTITIONS);
+
+        orderCache.put(order(foreignId));
+
+        assertNull(orderCache.get(foreignId));
+    }
+
+    @Test
+    void revoke_OwnedPartition_DropsItsOrders() {
+        var partition = OrderAffinity.partitionOf(1L, PARTITIONS);
+        orderCache.assign(List.of(partition), PARTITIONS);
+        orderCache.put(order(1L));
+
+        orderCache.revoke(List.of(partition));
+        orderCache.put(order(1L));
+
+        assertNull(orderCache.get(1L));
+    }
+
+    @Test
+    void assign_ChangedPartitionCount_ClearsCache() {
+        orderCache.assign(List.of(OrderAffinity.partitionOf(1L, PARTITIONS)), PARTITIONS);
+        orderCache.put(order(1L));
+
+        orderCache.assign(List.of(), PARTITIONS + 1);
+
+        assertNull(orderCache.get(1L));
+    }
+
+    @Test
+    void partitionOf_GrowingPartitions_MovesOnlyKeysOfNewPartition() {
+        var ids = LongStream.range(1, 100_001).boxed().toList();
+        var counts = new int[PARTITIONS];
+        var moved = 0;
+        for (var id : ids) {
+            var before = OrderAffinity.partitionOf(id, PARTITIONS);
+            var after = OrderAffinity.partitionOf(id, PARTITIONS + 1);
+            counts[before]++;
+            if (before != after) {
+                assertEquals(PARTITIONS, after);
+                moved++;
+            }
+        }
+
+        for (var count : counts) {
+            assertTrue(Math.abs(count - ids.size() / PARTITIONS) < ids.size() / PARTITIONS / 10, "count: " + count);
+        }
+        assertTrue(Math.abs(moved - ids.size() / (PARTITIONS + 1)) < ids.size() / 100, "moved: " + moved);
+    }
+
+    @Test
+    void partitionOf_MatchesProducerPartitioner() {
+        assertEquals(List.of(8, 11, 1, 6, 8), LongStream.rangeClosed(1, 5)
+                .mapToObj(id -> OrderAffinity.partitionOf(id, PARTITIONS))
+                .toList());
+    }
+
+    private static Order order(Long id) {
+        return Order.builder().id(id).status(OrderStatus.PENDING).version(0L).build();
+    }
+}
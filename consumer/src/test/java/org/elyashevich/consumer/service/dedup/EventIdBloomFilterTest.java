@@ -0,0 +1,49 @@
+package org.elyashevich.consumer.service.dedup;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventIdBloomFilterTest {
+
+    @Test
+    void mightContain_InsertedIds_NeverReportsFalseNegative() {
+        var filter = new EventIdBloomFilter(10_000, 0.01);
+        var ids = IntStream.range(0, 10_000).mapToObj(i -> UUID.randomUUID().toString()).toList();
+
+        ids.forEach(filter::put);
+
+        assertTrue(ids.stream().allMatch(filter::mightContain));
+        assertEquals(10_000, filter.insertions());
+    }
+
+    @Test
+    void mightContain_UnknownIds_StaysNearConfiguredFalsePositiveRate() {
+        var filter = new EventIdBloomFilter(10_000, 0.01);
+        IntStream.range(0, 10_000).forEach(i -> filter.put(UUID.randomUUID().toString()));
+
+        var falsePositives = IntStream.range(0, 100_000)
+                .filter(i -> filter.mightContain(UUID.randomUUID().toString()))
+                .count();
+
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void mightContain_EmptyFilter_ReturnsFalse() {
+        var filter = new EventIdBloomFilter(100, 0.01);
+
+        assertFalse(filter.mightContain("event-1"));
+    }
+
+    @Test
+    void constructor_InvalidFalsePositiveRate_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> new EventIdBloomFilter(100, 1.0));
+    }
+}
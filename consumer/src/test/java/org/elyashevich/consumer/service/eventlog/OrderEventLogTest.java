@@ -0,0 +1,210 @@
+package org.elyashevich.consumer.service.eventlog;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.elyashevich.consumer.domain.entity.Category;
+import org.elyashevich.consumer.domain.entity.Order;
+import org.elyashevich.consumer.domain.entity.OrderEventLogEntry;
+import org.elyashevich.consumer.domain.entity.OrderStatus;
+import org.elyashevich.consumer.exception.BusinessException;
+import org.elyashevich.consumer.repository.CategoryRepository;
+import org.elyashevich.consumer.repository.OrderRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the event log against an embedded Postgres, since the {@code order_events} table is
+ * hash-partitioned. Compaction is triggered by the tests; the scheduled run only fires at start.
+ */
+@SpringBootTest(properties = {
+        "orders.consumer.event-log.enabled=true",
+        "orders.consumer.event-log.partitions=4",
+        "orders.consumer.event-log.compaction-batch=50",
+        "orders.consumer.event-log.compaction-interval=1h"
+})
+class OrderEventLogTest {
+
+    private static final LocalDateTime EVENT_TIME = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    private static final EmbeddedPostgres postgres = start();
+
+    @Autowired
+    private OrderEventLog eventLog;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Category category;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true");
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        category = categoryRepository.save(Category.builder().name("Electronics " + UUID.randomUUID()).description("Event log").build());
+    }
+
+    @Test
+    void append_UpdateThenCancel_MergedOnReadAndFoldedByCompaction() {
+        var order = this.createOrder();
+
+        eventLog.append(OrderEventLogEntry.update(this.change(order, "Kindle", OrderStatus.PROCESSING), EVENT_TIME));
+        var merged = eventLog.findCurrent(order.getId()).orElseThrow();
+        var row = orderRepository.findById(order.getId()).orElseThrow();
+        eventLog.append(OrderEventLogEntry.cancel(order.getId(), EVENT_TIME.plusSeconds(1)));
+
+        eventLog.compact();
+
+        var compacted = orderRepository.findById(order.getId()).orElseThrow();
+        assertAll(
+            () -> assertEquals("Kindle", merged.getProductName()),
+            () -> assertEquals(OrderStatus.PROCESSING, merged.getStatus()),
+            () -> assertEquals("Laptop", row.getProductName()),
+            () -> assertEquals(OrderStatus.CANCELLED, compacted.getStatus()),
+            () -> assertEquals("Kindle", compacted.getProductName()),
+            () -> assertEquals(EVENT_TIME.plusSeconds(1), compacted.getLastEventAt()),
+            () -> assertEquals(0, this.uncompacted(order.getId()))
+        );
+    }
+
+    @Test
+    void compact_WhileAppending_ReadsNeverGoBackAndNothingIsLost() throws Exception {
+        var order = this.createOrder();
+        var updates = 500;
+        var appended = new AtomicInteger();
+
+        var appender = CompletableFuture.runAsync(() -> {
+            for (var i = 1; i <= updates; i++) {
+                eventLog.append(OrderEventLogEntry.update(this.change(order, "Product " + i, OrderStatus.PENDING), EVENT_TIME.plusSeconds(i)));
+                appended.set(i);
+            }
+        });
+
+        var lastSeen = 0;
+        while (!appender.isDone()) {
+            eventLog.compact();
+            var seen = this.productNumber(eventLog.findCurrent(order.getId()).orElseThrow());
+            assertTrue(seen >= lastSeen, "read product " + seen + " after " + lastSeen);
+            // the append in flight may be written before its loop step is counted
+            assertTrue(seen <= appended.get() + 1, "read product " + seen + " before it was appended");
+            lastSeen = seen;
+        }
+        appender.get(30, TimeUnit.SECONDS);
+        eventLog.compact();
+
+        var compacted = orderRepository.findById(order.getId()).orElseThrow();
+        assertAll(
+            () -> assertEquals("Product " + updates, compacted.getProductName()),
+            () -> assertEquals(EVENT_TIME.plusSeconds(updates), compacted.getLastEventAt()),
+            () -> assertEquals(0, this.uncompacted(order.getId()))
+        );
+    }
+
+    @Test
+    void append_MissingOrder_RejectedWithoutWriting() {
+        var missing = Order.builder().id(Long.MAX_VALUE).category(category).productName("Kindle").price(BigDecimal.ONE)
+                .quantity(1).status(OrderStatus.PROCESSING).build();
+
+        assertAll(
+            () -> assertThrows(BusinessException.class, () -> eventLog.append(OrderEventLogEntry.update(missing, EVENT_TIME))),
+            () -> assertThrows(BusinessException.class, () -> eventLog.append(OrderEventLogEntry.cancel(Long.MAX_VALUE, EVENT_TIME))),
+            () -> assertEquals(0, this.uncompacted(Long.MAX_VALUE))
+        );
+    }
+
+    @Test
+    void append_DisallowedMoveOrStaleUpdate_NotWritten() {
+        var order = this.createOrder();
+        eventLog.append(OrderEventLogEntry.update(this.change(order, "Kindle", OrderStatus.PROCESSING), EVENT_TIME));
+
+        assertAll(
+            () -> assertThrows(BusinessException.class,
+                    () -> eventLog.append(OrderEventLogEntry.update(this.change(order, "Tablet", OrderStatus.PENDING), EVENT_TIME.plusSeconds(1)))),
+            () -> eventLog.append(OrderEventLogEntry.update(this.change(order, "Tablet", OrderStatus.SHIPPED), EVENT_TIME.minusSeconds(1))),
+            () -> assertEquals(1, this.uncompacted(order.getId())),
+            () -> assertEquals("Kindle", eventLog.findCurrent(order.getId()).orElseThrow().getProductName())
+        );
+    }
+
+    @Test
+    void append_AfterAnotherInstanceMovedTheOrder_ChecksTheMergedOrder() {
+        var order = this.createOrder();
+        eventLog.append(OrderEventLogEntry.update(this.change(order, "Kindle", OrderStatus.PENDING), EVENT_TIME));
+        jdbcTemplate.update("INSERT INTO order_events (order_id, change, product_name, price, quantity, status, event_time) VALUES (?, 'UPDATE', 'Tablet', 1, 1, 'PROCESSING', ?)",
+                order.getId(), EVENT_TIME.plusSeconds(1));
+
+        eventLog.append(OrderEventLogEntry.update(this.change(order, "Phone", OrderStatus.SHIPPED), EVENT_TIME.plusSeconds(2)));
+        eventLog.compact();
+
+        var compacted = orderRepository.findById(order.getId()).orElseThrow();
+        assertAll(
+            () -> assertEquals(OrderStatus.SHIPPED, compacted.getStatus()),
+            () -> assertEquals("Phone", compacted.getProductName()),
+            () -> assertEquals(EVENT_TIME.plusSeconds(2), compacted.getLastEventAt()),
+            () -> assertEquals(0, this.uncompacted(order.getId()))
+        );
+    }
+
+    private Order createOrder() {
+        return orderRepository.save(Order.builder()
+                .category(category)
+                .productName("Laptop")
+                .price(new BigDecimal("999.99"))
+                .quantity(1)
+                .status(OrderStatus.PENDING)
+                .build());
+    }
+
+    private Order change(Order order, String productName, OrderStatus status) {
+        return order.toBuilder().productName(productName).status(status).build();
+    }
+
+    private int productNumber(Order order) {
+        var name = order.getProductName();
+        return name.startsWith("Product ") ? Integer.parseInt(name.substring("Product ".length())) : 0;
+    }
+
+    private int uncompacted(long orderId) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM order_events WHERE order_id = ?", Integer.class, orderId);
+    }
+
+    private static EmbeddedPostgres start() {
+        try {
+            return EmbeddedPostgres.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
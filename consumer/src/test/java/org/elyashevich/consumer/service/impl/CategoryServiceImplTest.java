@@ -1,9 +1,12 @@
 package org.elyashevich.consumer.service.impl;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.elyashevich.consumer.config.OrderConsumerProperties;
 import org.elyashevich.consumer.domain.entity.Category;
 import org.elyashevich.consumer.exception.ResourceAlreadyExistException;
 import org.elyashevich.consumer.exception.ResourceNotFoundException;
 import org.elyashevich.consumer.repository.CategoryRepository;
+import org.elyashevich.consumer.service.cache.CategoryCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -12,6 +15,7 @@ import org.junit.jupiter.params.provider.NullAndEmptySource;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.List;
@@ -23,6 +27,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -33,6 +38,9 @@ class CategoryServiceImplTest {
     @Mock
     private CategoryRepository categoryRepository;
 
+    @Spy
+    private CategoryCache categoryCache = new CategoryCache(new OrderConsumerProperties(), new SimpleMeterRegistry());
+
     @InjectMocks
     private CategoryServiceImpl categoryService;
 
@@ -101,6 +109,27 @@ class CategoryServiceImplTest {
         verify(categoryRepository).findByName(name);
     }
 
+    @Test
+    void findByName_RepeatedLookup_HitsRepositoryOnce() {
+        when(categoryRepository.findByName("Books")).thenReturn(Optional.of(testCategory));
+
+        categoryService.findByName("Books");
+        var result = categoryService.findByName("Books");
+
+        assertEquals(testCategory, result);
+        verify(categoryRepository, times(1)).findByName("Books");
+    }
+
+    @Test
+    void findByName_RepeatedUnknownName_CachesMiss() {
+        when(categoryRepository.findByName("Unknown")).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> categoryService.findByName("Unknown"));
+        assertThrows(ResourceNotFoundException.class, () -> categoryService.findByName("Unknown"));
+
+        verify(categoryRepository, times(1)).findByName("Unknown");
+    }
+
     @Test
     void save_ValidCategory_ReturnsSavedCategory() {
         when(categoryRepository.existsByName(testCategory.getName())).thenReturn(false);
@@ -6,6 +6,8 @@ import org.elyashevich.consumer.domain.entity.OrderStatus;
 import org.elyashevich.consumer.exception.BusinessException;
 import org.elyashevich.consumer.repository.OrderRepository;
 import org.elyashevich.consumer.service.CategoryService;
+import org.elyashevich.consumer.service.cache.OrderCache;
+import org.elyashevich.consumer.service.eventlog.OrderEventLog;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -17,12 +19,20 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,6 +44,12 @@ class OrderServiceImplTest {
     @Mock
     private CategoryService categoryService;
 
+    @Mock
+    private OrderCache orderCache;
+
+    @Mock
+    private OrderEventLog orderEventLog;
+
     @InjectMocks
     private OrderServiceImpl orderService;
 
@@ -151,6 +167,18 @@ class OrderServiceImplTest {
         verify(orderRepository).findById(id);
     }
 
+    @Test
+    void findById_EventLogEnabled_ReadsMergedOrderFromLog() {
+        var merged = testOrder.toBuilder().status(OrderStatus.CANCELLED).build();
+        when(orderEventLog.isEnabled()).thenReturn(true);
+        when(orderEventLog.findCurrent(1L)).thenReturn(Optional.of(merged));
+
+        var result = orderService.findById(1L);
+
+        assertSame(merged, result);
+        verify(orderRepository, never()).findById(anyLong());
+    }
+
     @ParameterizedTest
     @ValueSource(longs = {-1L, 0L, 999L})
     void findById_NonExistentOrder_ThrowsException(Long id) {
@@ -224,4 +252,253 @@ class OrderServiceImplTest {
     void complete_NullOrder_ThrowsException() {
         assertThrows(NullPointerException.class, () -> orderService.complete(null));
     }
-}
\ No newline at end of file
+
+    @Test
+    void createAll_ValidOrders_ResolvesEachCategoryOnce() {
+        var secondOrder = Order.builder()
+                .id(2L)
+                .productName("Laptop")
+                .category(Category.builder().name("Electronics").build())
+                .build();
+        when(categoryService.findByName("Electronics")).thenReturn(testCategory);
+
+        var result = orderService.createAll(List.of(testOrder, secondOrder));
+
+        assertEquals(2, result.size());
+        assertAll(result.stream().map(order -> () -> {
+            assertNull(order.getId());
+            assertEquals(OrderStatus.PENDING, order.getStatus());
+            assertEquals(testCategory, order.getCategory());
+        }));
+        verify(categoryService, times(1)).findByName("Electronics");
+        verify(orderRepository).insertAll(result);
+        verify(orderRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void createAll_InsertedOrders_OfferedToCache() {
+        when(categoryService.findByName("Electronics")).thenReturn(testCategory);
+        doAnswer(invocation -> {
+            invocation.<List<Order>>getArgument(0).forEach(order -> {
+                order.setId(7L);
+                order.setVersion(0L);
+            });
+            return null;
+        }).when(orderRepository).insertAll(anyList());
+
+        var result = orderService.createAll(List.of(testOrder));
+
+        verify(orderCache).put(result.get(0));
+        assertEquals(7L, result.get(0).getId());
+    }
+
+    @Test
+    void updateAll_ExistingOrders_AppliesUpdates() {
+        var update = Order.builder()
+                .id(1L)
+                .productName("Updated Smartphone")
+                .price(BigDecimal.valueOf(899.99))
+                .quantity(2)
+                .status(OrderStatus.PROCESSING)
+                .category(testCategory)
+                .build();
+        when(orderRepository.findAllById(List.of(1L))).thenReturn(List.of(testOrder));
+        when(categoryService.findByName(anyString())).thenReturn(testCategory);
+        when(orderRepository.saveAll(any())).thenAnswer(invocation -> List.copyOf(invocation.<Collection<Order>>getArgument(0)));
+
+        var result = orderService.updateAll(List.of(update));
+
+        assertAll(
+            () -> assertEquals(1, result.size()),
+            () -> assertEquals("Updated Smartphone", testOrder.getProductName()),
+            () -> assertEquals(2, testOrder.getQuantity()),
+            () -> assertEquals(OrderStatus.PROCESSING, testOrder.getStatus())
+        );
+    }
+
+    @Test
+    void updateAll_MissingOrder_ThrowsException() {
+        var update = Order.builder().id(42L).build();
+        when(orderRepository.findAllById(List.of(42L))).thenReturn(List.of());
+
+        var exception = assertThrows(BusinessException.class,
+            () -> orderService.updateAll(List.of(update)));
+
+        assertEquals("Order with id: '42' not found", exception.getMessage());
+        verify(orderRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void cancelAll_MixedStatuses_CancelsOnlyActiveOrders() {
+        var cancelledOrder = Order.builder().id(2L).status(OrderStatus.CANCELLED).build();
+        when(orderRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(testOrder, cancelledOrder));
+
+        orderService.cancelAll(List.of(testOrder, cancelledOrder));
+
+        assertEquals(OrderStatus.CANCELLED, testOrder.getStatus());
+        verify(orderRepository).saveAll(List.of(testOrder));
+    }
+
+    @Test
+    void update_CachedOrder_WritesWithoutLoading() {
+        var cachedOrder = testOrder.toBuilder().version(3L).build();
+        var updatedOrder = Order.builder().id(1L).productName("Updated Smartphone").category(testCategory).build();
+        when(orderCache.get(1L)).thenReturn(cachedOrder);
+        when(categoryService.findByName(anyString())).thenReturn(testCategory);
+        when(orderRepository.updateIfUnchanged(cachedOrder)).thenReturn(1);
+
+        var result = orderService.update(updatedOrder);
+
+        assertAll(
+            () -> assertEquals("Updated Smartphone", result.getProductName()),
+            () -> assertEquals(4L, result.getVersion())
+        );
+        verify(orderRepository, never()).findById(anyLong());
+        verify(orderCache).put(cachedOrder);
+    }
+
+    @Test
+    void update_StaleCachedOrder_EvictsAndLoads() {
+        var cachedOrder = testOrder.toBuilder().version(3L).build();
+        var updatedOrder = Order.builder().id(1L).productName("Updated Smartphone").category(testCategory).build();
+        when(orderCache.get(1L)).thenReturn(cachedOrder);
+        when(categoryService.findByName(anyString())).thenReturn(testCategory);
+        when(orderRepository.updateIfUnchanged(cachedOrder)).thenReturn(0);
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(testOrder));
+        when(orderRepository.save(testOrder)).thenReturn(testOrder);
+
+        orderService.update(updatedOrder);
+
+        verify(orderCache).evict(1L);
+        verify(orderRepository).save(testOrder);
+        verify(orderCache).put(testOrder);
+    }
+
+    @Test
+    void update_CachedCopyBehindRow_UsesStoredStatusInsteadOfRejecting() {
+        var cachedOrder = testOrder.toBuilder().status(OrderStatus.PENDING).version(3L).build();
+        var storedOrder = testOrder.toBuilder().status(OrderStatus.PROCESSING).version(4L).build();
+        var updatedOrder = testOrder.toBuilder().productName("Updated Smartphone").status(OrderStatus.SHIPPED).build();
+        when(orderCache.get(1L)).thenReturn(cachedOrder);
+        when(categoryService.findByName(anyString())).thenReturn(testCategory);
+        when(orderRepository.updateIfStatusIn(updatedOrder, EnumSet.of(OrderStatus.PROCESSING, OrderStatus.SHIPPED))).thenReturn(0);
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(storedOrder));
+        when(orderRepository.save(storedOrder)).thenReturn(storedOrder);
+
+        var result = assertDoesNotThrow(() -> orderService.update(updatedOrder));
+
+        assertAll(
+            () -> assertEquals(OrderStatus.SHIPPED, result.getStatus()),
+            () -> assertEquals("Updated Smartphone", result.getProductName()),
+            () -> assertEquals(OrderStatus.PENDING, cachedOrder.getStatus())
+        );
+        verify(orderCache).evict(1L);
+        verify(orderRepository, never()).updateIfUnchanged(any());
+    }
+
+    @Test
+    void cancel_CachedCancelledOrder_SkipsDatabase() {
+        when(orderCache.get(1L)).thenReturn(testOrder.toBuilder().status(OrderStatus.CANCELLED).version(0L).build());
+
+        orderService.cancel(testOrder);
+
+        verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    void cancel_CachedActiveOrder_WritesWithoutLoading() {
+        var cachedOrder = testOrder.toBuilder().version(0L).build();
+        when(orderCache.get(1L)).thenReturn(cachedOrder);
+        when(orderRepository.updateIfUnchanged(cachedOrder)).thenReturn(1);
+
+        orderService.cancel(testOrder);
+
+        assertEquals(OrderStatus.CANCELLED, cachedOrder.getStatus());
+        verify(orderRepository, never()).findById(anyLong());
+        verify(orderRepository, never()).save(any());
+    }
+
+    @Test
+    void update_GuardedWriteMatches_SkipsLoading() {
+        var updatedOrder = testOrder.toBuilder().productName("Updated Smartphone").status(OrderStatus.PROCESSING).build();
+        when(categoryService.findByName(anyString())).thenReturn(testCategory);
+        when(orderRepository.updateIfStatusIn(updatedOrder, EnumSet.of(OrderStatus.PENDING, OrderStatus.PROCESSING))).thenReturn(1);
+
+        var result = orderService.update(updatedOrder);
+
+        assertEquals("Updated Smartphone", result.getProductName());
+        verify(orderRepository, never()).findById(anyLong());
+        verify(orderRepository, never()).save(any());
+        verify(orderCache).evict(1L);
+    }
+
+    @Test
+    void update_NotAllowedTransition_ThrowsException() {
+        testOrder.setStatus(OrderStatus.CANCELLED);
+        var updatedOrder = testOrder.toBuilder().status(OrderStatus.PROCESSING).build();
+        when(categoryService.findByName(anyString())).thenReturn(testCategory);
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(testOrder));
+
+        var exception = assertThrows(BusinessException.class,
+            () -> orderService.update(updatedOrder));
+
+        assertEquals("Order with id: '1' cannot move from CANCELLED to PROCESSING", exception.getMessage());
+        verify(orderRepository, never()).save(any());
+    }
+
+    @Test
+    void update_OlderThanLastAppliedEvent_IsSkipped() {
+        var lastEventAt = LocalDateTime.of(2025, 1, 1, 12, 0);
+        testOrder.setLastEventAt(lastEventAt);
+        var staleUpdate = testOrder.toBuilder()
+                .productName("Stale Smartphone")
+                .status(OrderStatus.PROCESSING)
+                .lastEventAt(lastEventAt.minusSeconds(1))
+                .build();
+        when(categoryService.findByName(anyString())).thenReturn(testCategory);
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(testOrder));
+
+        var result = orderService.update(staleUpdate);
+
+        assertAll(
+            () -> assertEquals("Smartphone", result.getProductName()),
+            () -> assertEquals(OrderStatus.PENDING, result.getStatus())
+        );
+        verify(orderRepository, never()).save(any());
+    }
+
+    @Test
+    void cancel_OlderThanLastAppliedEvent_StillCancelsAndKeepsNewerTimestamp() {
+        var lastEventAt = LocalDateTime.of(2025, 1, 1, 12, 0);
+        testOrder.setLastEventAt(lastEventAt);
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(testOrder));
+
+        orderService.cancel(Order.builder().id(1L).lastEventAt(lastEventAt.minusSeconds(1)).build());
+
+        verify(orderRepository).save(argThat(order ->
+                order.getStatus() == OrderStatus.CANCELLED && lastEventAt.equals(order.getLastEventAt())));
+    }
+
+    @Test
+    void cancel_GuardedTransitionMatches_SkipsLoading() {
+        when(orderRepository.transitionStatus(eq(1L), eq(OrderStatus.CANCELLED), eq(OrderStatus.CANCELLED.sources()), any(), any()))
+                .thenReturn(1);
+
+        orderService.cancel(testOrder);
+
+        verify(orderRepository, never()).findById(anyLong());
+        verify(orderRepository, never()).save(any());
+        verify(orderCache).evict(1L);
+    }
+
+    @Test
+    void complete_GuardedTransitionMatches_ReturnsDeliveredOrder() {
+        when(orderRepository.transitionStatus(eq(1L), eq(OrderStatus.DELIVERED), eq(EnumSet.of(OrderStatus.PROCESSING)), any(), isNull()))
+                .thenReturn(1);
+
+        var result = orderService.complete(Order.builder().id(1L).build());
+
+        assertEquals(OrderStatus.DELIVERED, result.getStatus());
+        verify(orderRepository, never()).findById(anyLong());
+    }
+}
@@ -0,0 +1,154 @@
+package org.elyashevich.consumer.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.elyashevich.consumer.config.OrderConsumerProperties;
+import org.elyashevich.consumer.metrics.GrafanaKafkaConsumerMetrics;
+import org.elyashevich.consumer.repository.ProcessedEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProcessedEventServiceImplTest {
+
+    @Mock
+    private ProcessedEventRepository processedEventRepository;
+
+    private OrderConsumerProperties properties;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new OrderConsumerProperties();
+        properties.getDedup().setExpectedInsertions(1_000);
+        registry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void isProcessed_UnknownEvent_SkipsDatabase() {
+        var service = createService();
+
+        assertFalse(service.isProcessed("event-1"));
+
+        verify(processedEventRepository, never()).existsById(any());
+        assertEquals(1, checks("filter-negative"));
+    }
+
+    @Test
+    void isProcessed_MarkedEvent_HitsRecentCache() {
+        var service = createService();
+        service.markProcessed("event-1");
+
+        assertTrue(service.isProcessed("event-1"));
+
+        verify(processedEventRepository, never()).existsById(any());
+        assertEquals(1, checks("recent"));
+    }
+
+    @Test
+    void isProcessed_EventOnlyInTable_FallsBackToDatabase() {
+        doAnswer(invocation -> {
+            invocation.<Consumer<String>>getArgument(1).accept("event-1");
+            return null;
+        }).when(processedEventRepository).forEachEventIdSince(any(), any());
+        when(processedEventRepository.existsById("event-1")).thenReturn(true);
+        var service = createService();
+
+        assertTrue(service.isProcessed("event-1"));
+        assertTrue(service.isProcessed("event-1"));
+
+        verify(processedEventRepository, times(1)).existsById("event-1");
+        assertEquals(1, checks("store"));
+    }
+
+    @Test
+    void flush_MarkedEvents_InsertsThemInOneBatch() {
+        var service = createService();
+        service.markProcessed("event-1");
+        service.markProcessed("event-2");
+
+        service.flush();
+        service.flush();
+
+        verify(processedEventRepository, times(1)).insertAll(
+                argThat(ids -> Set.copyOf(ids).equals(Set.of("event-1", "event-2"))), any());
+    }
+
+    @Test
+    void flush_InsertFails_RetriesOnNextFlush() {
+        var service = createService();
+        service.markProcessed("event-1");
+        doThrow(new IllegalStateException("database down")).doNothing()
+                .when(processedEventRepository).insertAll(anyCollection(), any());
+
+        service.flush();
+        service.flush();
+
+        verify(processedEventRepository, times(2)).insertAll(eq(List.of("event-1")), any());
+    }
+
+    @Test
+    void flush_InsertFails_ReportsPendingIds() {
+        var service = createService();
+        service.markProcessed("event-1");
+        doThrow(new IllegalStateException("database down")).when(processedEventRepository).insertAll(anyCollection(), any());
+
+        assertFalse(service.flush());
+    }
+
+    @Test
+    void filterCapacity_NoExplicitSize_CoversRetentionOfTraffic() {
+        var dedup = new OrderConsumerProperties().getDedup();
+        dedup.setExpectedEventsPerSecond(10);
+        dedup.setRetention(Duration.ofDays(7));
+        dedup.setPurgeInterval(Duration.ofHours(1));
+
+        assertEquals(10L * (7 * 24 + 1) * 3600, dedup.filterCapacity());
+    }
+
+    @Test
+    void isProcessed_Disabled_AlwaysFalse() {
+        properties.getDedup().setEnabled(false);
+        var service = createService();
+        service.markProcessed("event-1");
+
+        assertFalse(service.isProcessed("event-1"));
+        service.flush();
+
+        verify(processedEventRepository, never()).insertAll(any(Collection.class), any());
+    }
+
+    private ProcessedEventServiceImpl createService() {
+        var service = new ProcessedEventServiceImpl(
+                processedEventRepository, properties, new GrafanaKafkaConsumerMetrics(registry), registry
+        );
+        service.init();
+        return service;
+    }
+
+    private double checks(String result) {
+        return registry.get("kafka.consumer.dedup.checks").tag("result", result).counter().count();
+    }
+}
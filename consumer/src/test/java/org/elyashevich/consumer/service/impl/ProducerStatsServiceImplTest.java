@@ -0,0 +1,114 @@
+package org.elyashevich.consumer.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.elyashevich.consumer.config.OrderConsumerProperties;
+import org.elyashevich.consumer.domain.entity.ProducerStats;
+import org.elyashevich.consumer.metrics.GrafanaKafkaConsumerMetrics;
+import org.elyashevich.consumer.repository.ProducerStatsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class ProducerStatsServiceImplTest {
+
+    @Mock
+    private ProducerStatsRepository statsRepository;
+
+    @Captor
+    private ArgumentCaptor<List<ProducerStats>> deltasCaptor;
+
+    private OrderConsumerProperties properties;
+    private ProducerStatsServiceImpl statsService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new OrderConsumerProperties();
+        statsService = new ProducerStatsServiceImpl(
+                statsRepository, properties, new GrafanaKafkaConsumerMetrics(new SimpleMeterRegistry())
+        );
+    }
+
+    @Test
+    void recordProducerCall_DoesNotTouchDatabase() {
+        statsService.recordProducerCall("1", "orders");
+
+        verifyNoInteractions(statsRepository);
+    }
+
+    @Test
+    void flush_PendingCalls_UpsertsAggregatedDeltas() {
+        statsService.recordProducerCall("1", "orders");
+        statsService.recordProducerCall("1", "orders");
+        statsService.recordProducerCall("2", "orders");
+
+        statsService.flush();
+
+        verify(statsRepository).upsertAll(deltasCaptor.capture());
+        var deltas = deltasCaptor.getValue().stream()
+                .sorted(Comparator.comparing(ProducerStats::getProducerId))
+                .toList();
+        assertAll(
+            () -> assertEquals(2, deltas.size()),
+            () -> assertEquals(2, deltas.get(0).getCallCount()),
+            () -> assertEquals(1, deltas.get(1).getCallCount())
+        );
+    }
+
+    @Test
+    void flush_NothingPending_SkipsDatabase() {
+        statsService.flush();
+
+        verify(statsRepository, never()).upsertAll(anyList());
+    }
+
+    @Test
+    void flush_UpsertFails_KeepsDeltasForNextFlush() {
+        statsService.recordProducerCall("1", "orders");
+        doThrow(new IllegalStateException("database down")).doNothing().when(statsRepository).upsertAll(anyList());
+
+        statsService.flush();
+        statsService.recordProducerCall("1", "orders");
+        statsService.flush();
+
+        verify(statsRepository, times(2)).upsertAll(deltasCaptor.capture());
+        assertEquals(2, deltasCaptor.getValue().get(0).getCallCount());
+    }
+
+    @Test
+    void flushIfDue_PendingBelowThresholdAndFresh_DoesNotFlush() {
+        properties.getStats().setMaxPending(10);
+        statsService.recordProducerCall("1", "orders");
+
+        statsService.flushIfDue();
+
+        verifyNoInteractions(statsRepository);
+    }
+
+    @Test
+    void flushIfDue_PendingReachesThreshold_Flushes() {
+        properties.getStats().setMaxPending(2);
+        statsService.recordProducerCall("1", "orders");
+        statsService.recordProducerCall("1", "orders");
+
+        statsService.flushIfDue();
+
+        verify(statsRepository).upsertAll(anyList());
+    }
+}
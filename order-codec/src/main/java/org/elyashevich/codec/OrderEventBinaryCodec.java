@@ -0,0 +1,332 @@
+package org.elyashevich.codec;
+
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact binary encoding of {@link WireOrderEvent}, version {@value #SCHEMA_VERSION}, shared by
+ * the producer and the consumer. Any change to the layout bumps the version. Records carry the
+ * version in the {@value #SCHEMA_VERSION_HEADER} header.
+ * <p>
+ * Every message starts with a varint bit mask of the fields that are present, followed by the
+ * present fields in declaration order. Integers are zig-zag varints, strings are length-prefixed
+ * UTF-8, event type and known statuses are small varint codes, prices are a scale plus an
+ * unscaled long (with a length-prefixed two's-complement fallback beyond 64 bits) and the
+ * timestamp is epoch seconds plus nanos, read as UTC like the wall-clock value it was written from.
+ */
+public final class OrderEventBinaryCodec {
+    public static final int SCHEMA_VERSION = 1;
+    public static final String SCHEMA_VERSION_HEADER = "order-event-schema-version";
+
+    private static final int EVENT_ID = 1;
+    private static final int EVENT_TYPE = 1 << 1;
+    private static final int EVENT_ORDER = 1 << 2;
+    private static final int EVENT_TIMESTAMP = 1 << 3;
+
+    private static final int ORDER_ID = 1;
+    private static final int ORDER_PRODUCT_NAME = 1 << 1;
+    private static final int ORDER_CATEGORY_ID = 1 << 2;
+    private static final int ORDER_CATEGORY_NAME = 1 << 3;
+    private static final int ORDER_PRICE = 1 << 4;
+    private static final int ORDER_QUANTITY = 1 << 5;
+    private static final int ORDER_STATUS = 1 << 6;
+    private static final int ORDER_CUSTOMER_ID = 1 << 7;
+
+    // Wire codes are positions in these lists and must never be reordered.
+    public static final List<String> EVENT_TYPES = List.of(
+            "ORDER_CREATED", "ORDER_UPDATED", "ORDER_CANCELLED"
+    );
+    private static final List<String> STATUSES = List.of(
+            "PENDING", "PROCESSING", "SHIPPED", "DELIVERED", "CANCELLED"
+    );
+
+    private OrderEventBinaryCodec() {
+    }
+
+    public static byte[] encode(WireOrderEvent event) {
+        var out = new Output();
+        var mask = (event.eventId() != null ? EVENT_ID : 0)
+                | (event.eventType() != null ? EVENT_TYPE : 0)
+                | (event.order() != null ? EVENT_ORDER : 0)
+                | (event.timestamp() != null ? EVENT_TIMESTAMP : 0);
+        out.writeVarInt(mask);
+
+        if (event.eventId() != null) {
+            out.writeString(event.eventId());
+        }
+        if (event.eventType() != null) {
+            var code = EVENT_TYPES.indexOf(event.eventType());
+            if (code < 0) {
+                throw new SerializationException("Unknown event type " + event.eventType());
+            }
+            out.writeVarInt(code);
+        }
+        if (event.order() != null) {
+            writeOrder(out, event.order());
+        }
+        if (event.timestamp() != null) {
+            out.writeVarLong(zigZag(event.timestamp().toEpochSecond(ZoneOffset.UTC)));
+            out.writeVarInt(event.timestamp().getNano());
+        }
+        return out.toByteArray();
+    }
+
+    public static WireOrderEvent decode(byte[] data) {
+        var in = new Input(data);
+        var mask = in.readVarInt();
+
+        String eventId = null;
+        String eventType = null;
+        WireOrderData order = null;
+        LocalDateTime timestamp = null;
+        if ((mask & EVENT_ID) != 0) {
+            eventId = in.readString();
+        }
+        if ((mask & EVENT_TYPE) != 0) {
+            eventType = EVENT_TYPES.get(checkCode(in.readVarInt(), EVENT_TYPES.size(), "event type"));
+        }
+        if ((mask & EVENT_ORDER) != 0) {
+            order = readOrder(in);
+        }
+        if ((mask & EVENT_TIMESTAMP) != 0) {
+            var seconds = unZigZag(in.readVarLong());
+            timestamp = LocalDateTime.ofEpochSecond(seconds, in.readVarInt(), ZoneOffset.UTC);
+        }
+        return new WireOrderEvent(eventId, eventType, order, timestamp);
+    }
+
+    private static void writeOrder(Output out, WireOrderData order) {
+        var mask = (order.orderId() != null ? ORDER_ID : 0)
+                | (order.productName() != null ? ORDER_PRODUCT_NAME : 0)
+                | (order.categoryId() != null ? ORDER_CATEGORY_ID : 0)
+                | (order.categoryName() != null ? ORDER_CATEGORY_NAME : 0)
+                | (order.price() != null ? ORDER_PRICE : 0)
+                | (order.quantity() != null ? ORDER_QUANTITY : 0)
+                | (order.status() != null ? ORDER_STATUS : 0)
+                | (order.customerId() != null ? ORDER_CUSTOMER_ID : 0);
+        out.writeVarInt(mask);
+
+        if (order.orderId() != null) {
+            out.writeVarLong(zigZag(order.orderId()));
+        }
+        if (order.productName() != null) {
+            out.writeString(order.productName());
+        }
+        if (order.categoryId() != null) {
+            out.writeVarLong(zigZag(order.categoryId()));
+        }
+        if (order.categoryName() != null) {
+            out.writeString(order.categoryName());
+        }
+        if (order.price() != null) {
+            writeDecimal(out, order.price());
+        }
+        if (order.quantity() != null) {
+            out.writeVarLong(zigZag(order.quantity()));
+        }
+        if (order.status() != null) {
+            writeStatus(out, order.status());
+        }
+        if (order.customerId() != null) {
+            out.writeVarLong(zigZag(order.customerId()));
+        }
+    }
+
+    private static WireOrderData readOrder(Input in) {
+        var mask = in.readVarInt();
+
+        Long orderId = null;
+        String productName = null;
+        Long categoryId = null;
+        String categoryName = null;
+        BigDecimal price = null;
+        Integer quantity = null;
+        String status = null;
+        Long customerId = null;
+        if ((mask & ORDER_ID) != 0) {
+            orderId = unZigZag(in.readVarLong());
+        }
+        if ((mask & ORDER_PRODUCT_NAME) != 0) {
+            productName = in.readString();
+        }
+        if ((mask & ORDER_CATEGORY_ID) != 0) {
+            categoryId = unZigZag(in.readVarLong());
+        }
+        if ((mask & ORDER_CATEGORY_NAME) != 0) {
+            categoryName = in.readString();
+        }
+        if ((mask & ORDER_PRICE) != 0) {
+            price = readDecimal(in);
+        }
+        if ((mask & ORDER_QUANTITY) != 0) {
+            quantity = Math.toIntExact(unZigZag(in.readVarLong()));
+        }
+        if ((mask & ORDER_STATUS) != 0) {
+            status = readStatus(in);
+        }
+        if ((mask & ORDER_CUSTOMER_ID) != 0) {
+            customerId = unZigZag(in.readVarLong());
+        }
+        return new WireOrderData(orderId, productName, categoryId, categoryName, price, quantity, status, customerId);
+    }
+
+    /**
+     * A varint of {@code zigzag(scale) << 1 | wide}, then either a zig-zag unscaled long or,
+     * when {@code wide} is set, the length-prefixed bytes of the unscaled {@link BigInteger}.
+     */
+    private static void writeDecimal(Output out, BigDecimal value) {
+        var unscaled = value.unscaledValue();
+        var wide = unscaled.bitLength() > 63;
+        out.writeVarLong(zigZag(value.scale()) << 1 | (wide ? 1 : 0));
+        if (wide) {
+            out.writeBytes(unscaled.toByteArray());
+        } else {
+            out.writeVarLong(zigZag(unscaled.longValue()));
+        }
+    }
+
+    private static BigDecimal readDecimal(Input in) {
+        var header = in.readVarLong();
+        var scale = Math.toIntExact(unZigZag(header >>> 1));
+        if ((header & 1) != 0) {
+            return new BigDecimal(new BigInteger(in.readBytes()), scale);
+        }
+        return BigDecimal.valueOf(unZigZag(in.readVarLong()), scale);
+    }
+
+    /**
+     * Known statuses are written as {@code index + 1}; {@code 0} is followed by the status text.
+     */
+    private static void writeStatus(Output out, String status) {
+        var code = STATUSES.indexOf(status);
+        out.writeVarInt(code + 1);
+        if (code < 0) {
+            out.writeString(status);
+        }
+    }
+
+    private static String readStatus(Input in) {
+        var code = in.readVarInt();
+        if (code == 0) {
+            return in.readString();
+        }
+        return STATUSES.get(checkCode(code - 1, STATUSES.size(), "status"));
+    }
+
+    private static int checkCode(int code, int size, String field) {
+        if (code < 0 || code >= size) {
+            throw new SerializationException("Unknown " + field + " code " + code);
+        }
+        return code;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static final class Output {
+        private byte[] buffer = new byte[128];
+        private int position;
+
+        void writeVarInt(int value) {
+            writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeString(String value) {
+            writeBytes(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        void writeBytes(byte[] bytes) {
+            writeVarInt(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+            }
+        }
+    }
+
+    private static final class Input {
+        private final byte[] data;
+        private int position;
+
+        Input(byte[] data) {
+            this.data = data;
+        }
+
+        int readVarInt() {
+            var value = readVarLong();
+            if (value >>> 32 != 0) {
+                throw new SerializationException("Varint does not fit in 32 bits");
+            }
+            return (int) value;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (var shift = 0; shift < 64; shift += 7) {
+                var b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new SerializationException("Malformed varint");
+        }
+
+        String readString() {
+            var length = readVarInt();
+            checkAvailable(length);
+            var value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        byte[] readBytes() {
+            var length = readVarInt();
+            checkAvailable(length);
+            var bytes = Arrays.copyOfRange(data, position, position + length);
+            position += length;
+            return bytes;
+        }
+
+        private byte readByte() {
+            checkAvailable(1);
+            return data[position++];
+        }
+
+        private void checkAvailable(int length) {
+            if (length < 0 || position + length > data.length) {
+                throw new SerializationException("Truncated order event: needs " + length + " bytes at " + position);
+            }
+        }
+    }
+}
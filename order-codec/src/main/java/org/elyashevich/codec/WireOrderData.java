@@ -0,0 +1,17 @@
+package org.elyashevich.codec;
+
+import java.math.BigDecimal;
+
+/**
+ * The order part of a {@link WireOrderEvent}. Statuses travel as text so both sides can add
+ * statuses without a schema change.
+ */
+public record WireOrderData(Long orderId,
+                            String productName,
+                            Long categoryId,
+                            String categoryName,
+                            BigDecimal price,
+                            Integer quantity,
+                            String status,
+                            Long customerId) {
+}
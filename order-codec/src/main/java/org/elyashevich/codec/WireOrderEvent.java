@@ -0,0 +1,15 @@
+package org.elyashevich.codec;
+
+import java.time.LocalDateTime;
+
+/**
+ * The fields of an order event as {@link OrderEventBinaryCodec} writes them. The producer and the
+ * consumer each map their own event classes to and from it.
+ *
+ * @param eventType name of the event type, one of {@link OrderEventBinaryCodec#EVENT_TYPES}
+ */
+public record WireOrderEvent(String eventId,
+                             String eventType,
+                             WireOrderData order,
+                             LocalDateTime timestamp) {
+}
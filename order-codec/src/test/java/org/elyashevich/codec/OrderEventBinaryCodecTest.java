@@ -0,0 +1,95 @@
+package org.elyashevich.codec;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OrderEventBinaryCodecTest {
+
+    @Test
+    void decode_EncodedEvent_RoundTripsAllFields() {
+        var event = sampleEvent();
+
+        var decoded = OrderEventBinaryCodec.decode(OrderEventBinaryCodec.encode(event));
+
+        assertEquals(event, decoded);
+    }
+
+    @Test
+    void decode_MissingFields_KeepsThemNull() {
+        var order = new WireOrderData(7L, null, null, null, null, null, null, null);
+        var event = new WireOrderEvent(null, "ORDER_CANCELLED", order, null);
+
+        var decoded = OrderEventBinaryCodec.decode(OrderEventBinaryCodec.encode(event));
+
+        assertAll(
+            () -> assertNull(decoded.eventId()),
+            () -> assertNull(decoded.timestamp()),
+            () -> assertNull(decoded.order().price()),
+            () -> assertEquals("ORDER_CANCELLED", decoded.eventType()),
+            () -> assertEquals(7L, decoded.order().orderId())
+        );
+    }
+
+    @Test
+    void decode_WideAndNegativeScaleDecimals_RoundTripExactly() {
+        var wide = new BigDecimal("123456789012345678901234567890.123456789");
+        var negativeScale = new BigDecimal("-4E+5");
+
+        assertAll(
+            () -> assertEquals(wide, roundTripPrice(wide)),
+            () -> assertEquals(negativeScale, roundTripPrice(negativeScale))
+        );
+    }
+
+    @Test
+    void decode_UnknownStatus_KeepsStatusText() {
+        var event = withOrder(sampleEvent(), order -> new WireOrderData(order.orderId(), order.productName(),
+                order.categoryId(), order.categoryName(), order.price(), order.quantity(), "ON_HOLD", order.customerId()));
+
+        var decoded = OrderEventBinaryCodec.decode(OrderEventBinaryCodec.encode(event));
+
+        assertEquals("ON_HOLD", decoded.order().status());
+    }
+
+    @Test
+    void encode_UnknownEventType_ThrowsSerializationException() {
+        var event = new WireOrderEvent("event-1", "ORDER_ARCHIVED", null, null);
+
+        assertThrows(SerializationException.class, () -> OrderEventBinaryCodec.encode(event));
+    }
+
+    @Test
+    void decode_TruncatedPayload_ThrowsSerializationException() {
+        var bytes = OrderEventBinaryCodec.encode(sampleEvent());
+
+        assertThrows(SerializationException.class,
+                () -> OrderEventBinaryCodec.decode(Arrays.copyOf(bytes, bytes.length - 3)));
+    }
+
+    private static BigDecimal roundTripPrice(BigDecimal price) {
+        var event = withOrder(sampleEvent(), order -> new WireOrderData(order.orderId(), order.productName(),
+                order.categoryId(), order.categoryName(), price, order.quantity(), order.status(), order.customerId()));
+        return OrderEventBinaryCodec.decode(OrderEventBinaryCodec.encode(event)).order().price();
+    }
+
+    private static WireOrderEvent withOrder(WireOrderEvent event, UnaryOperator<WireOrderData> change) {
+        return new WireOrderEvent(event.eventId(), event.eventType(), change.apply(event.order()), event.timestamp());
+    }
+
+    private static WireOrderEvent sampleEvent() {
+        var order = new WireOrderData(1_234_567L, "Wireless Mouse", 12L, "Electronics",
+                new BigDecimal("149.99"), 3, "PROCESSING", 98_765L);
+        return new WireOrderEvent("3f2b8c1e-6a4d-4c1b-9f0e-2d7a5b8c9e01", "ORDER_UPDATED", order,
+                LocalDateTime.of(2025, 6, 1, 12, 30, 45, 123_456_789));
+    }
+}
@@ -0,0 +1,40 @@
+package org.elyashevich.producer.api.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.elyashevich.producer.api.dto.exception.ExceptionBodyDto;
+import org.elyashevich.producer.exception.SendCapacityExceededException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.kafka.KafkaException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+@Slf4j
+@RestControllerAdvice
+public class GlobalExceptionControllerAdvice {
+
+    private static final String SEND_CAPACITY_EXCEEDED_MESSAGE = "Too many orders in flight, retry later.";
+    private static final String DELIVERY_FAILED_MESSAGE = "Order event was not delivered.";
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    @ExceptionHandler(SendCapacityExceededException.class)
+    public ResponseEntity<ExceptionBodyDto> handleSendCapacityExceededException(
+            final SendCapacityExceededException exception
+    ) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .body(this.handleException(exception, SEND_CAPACITY_EXCEEDED_MESSAGE));
+    }
+
+    @ExceptionHandler(KafkaException.class)
+    public ResponseEntity<ExceptionBodyDto> handleKafkaException(final KafkaException exception) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(this.handleException(exception, DELIVERY_FAILED_MESSAGE));
+    }
+
+    private ExceptionBodyDto handleException(final Exception exception, final String defaultMessage) {
+        log.warn("{} '{}'.", defaultMessage, exception.getMessage());
+        return new ExceptionBodyDto(defaultMessage);
+    }
+}
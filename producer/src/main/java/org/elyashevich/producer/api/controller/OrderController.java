@@ -1,24 +1,62 @@
 package org.elyashevich.producer.api.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.elyashevich.producer.api.dto.order.OrderAcceptedResponse;
+import org.elyashevich.producer.api.dto.order.OrderBatchResponse;
 import org.elyashevich.producer.api.dto.order.OrderCreateRequest;
 import org.elyashevich.producer.api.mapper.OrderEventMapper;
+import org.elyashevich.producer.ingest.OrderBatchIngestService;
+import org.elyashevich.producer.model.OrderEvent;
 import org.elyashevich.producer.producer.KafkaOrderProducer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/api/v1/orders")
 @RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class OrderController {
 
     private final KafkaOrderProducer producer;
+    private final OrderBatchIngestService batchIngestService;
     private static final OrderEventMapper orderEventMapper = OrderEventMapper.INSTANCE;
 
+    /**
+     * Answers 202 once the broker has acknowledged the event or it was journaled. The request
+     * thread is released while the send is in flight; a failed delivery surfaces as 503.
+     */
     @PostMapping
-    public void handleOrder(@RequestBody OrderCreateRequest event) {
-        producer.sendOrderToKafka(orderEventMapper.toOrderEvent(event));
+    public CompletableFuture<ResponseEntity<OrderAcceptedResponse>> handleOrder(@RequestBody OrderCreateRequest event) {
+        var orderEvent = orderEventMapper.toOrderEvent(event);
+        return producer.send(orderEvent)
+                .thenApply(result -> ResponseEntity.accepted().body(toResponse(orderEvent, result)));
+    }
+
+    @PostMapping(path = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public OrderBatchResponse handleNdjsonBatch(InputStream body) throws IOException {
+        return batchIngestService.ingestNdjson(body);
+    }
+
+    @PostMapping(path = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public OrderBatchResponse handleJsonBatch(InputStream body) throws IOException {
+        return batchIngestService.ingestJsonArray(body);
+    }
+
+    private static OrderAcceptedResponse toResponse(OrderEvent event, SendResult<String, OrderEvent> result) {
+        var metadata = result.getRecordMetadata();
+        if (metadata == null) {
+            return new OrderAcceptedResponse(event.getEventId(), null, null, true);
+        }
+        return new OrderAcceptedResponse(event.getEventId(), metadata.partition(), metadata.offset(), false);
     }
 }
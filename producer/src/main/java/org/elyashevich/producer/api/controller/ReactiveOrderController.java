@@ -0,0 +1,38 @@
+package org.elyashevich.producer.api.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.elyashevich.producer.api.dto.order.OrderAcceptedResponse;
+import org.elyashevich.producer.api.dto.order.OrderBatchResponse;
+import org.elyashevich.producer.api.dto.order.OrderCreateRequest;
+import org.elyashevich.producer.ingest.ReactiveOrderIngestService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Same endpoints as {@link OrderController}, served by WebFlux under the {@code reactive} profile.
+ */
+@RestController
+@RequestMapping("/api/v1/orders")
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveOrderController {
+
+    private final ReactiveOrderIngestService ingestService;
+
+    @PostMapping
+    public Mono<ResponseEntity<OrderAcceptedResponse>> handleOrder(@RequestBody OrderCreateRequest event) {
+        return ingestService.ingest(event).map(response -> ResponseEntity.accepted().body(response));
+    }
+
+    @PostMapping(path = "/batch", consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Mono<OrderBatchResponse> handleBatch(@RequestBody Flux<OrderCreateRequest> body) {
+        return ingestService.ingestBatch(body);
+    }
+}
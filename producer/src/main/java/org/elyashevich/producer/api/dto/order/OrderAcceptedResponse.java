@@ -0,0 +1,13 @@
+package org.elyashevich.producer.api.dto.order;
+
+/**
+ * Returned once the broker has acknowledged an order event, or once the event was written to
+ * the local journal for later delivery; a journaled event has no partition and offset yet.
+ */
+public record OrderAcceptedResponse(
+        String eventId,
+        Integer partition,
+        Long offset,
+        boolean journaled
+) {
+}
@@ -0,0 +1,19 @@
+package org.elyashevich.producer.api.dto.order;
+
+import java.util.List;
+
+/**
+ * Outcome of a batch ingest request. {@code accepted} lines were acknowledged by the broker or
+ * journaled, {@code rejected} lines could not be parsed, mapped or delivered and
+ * {@code unconfirmed} lines were still in flight when the request stopped waiting.
+ * {@code errors} lists the first rejected lines; for a JSON array body the line is the element
+ * number.
+ */
+public record OrderBatchResponse(
+        long accepted,
+        long rejected,
+        long unconfirmed,
+        List<LineError> errors
+) {
+    public record LineError(long line, String error) {}
+}
@@ -1,6 +1,7 @@
 package org.elyashevich.producer.api.mapper;
 
 import org.elyashevich.producer.api.dto.order.OrderCreateRequest;
+import org.elyashevich.producer.ids.EventIds;
 import org.elyashevich.producer.model.EventType;
 import org.elyashevich.producer.model.OrderEvent;
 import org.mapstruct.Mapper;
@@ -9,16 +10,15 @@ import org.mapstruct.Named;
 import org.mapstruct.factory.Mappers;
 
 import java.time.LocalDateTime;
-import java.util.UUID;
 
 import static org.mapstruct.MappingConstants.ComponentModel.SPRING;
 
-@Mapper(componentModel = SPRING, imports = {UUID.class, LocalDateTime.class})
+@Mapper(componentModel = SPRING, imports = {EventIds.class, LocalDateTime.class})
 public interface OrderEventMapper {
 
     OrderEventMapper INSTANCE = Mappers.getMapper(OrderEventMapper.class);
 
-    @Mapping(target = "eventId", expression = "java(UUID.randomUUID().toString())")
+    @Mapping(target = "eventId", expression = "java(EventIds.next())")
     @Mapping(target = "timestamp", expression = "java(LocalDateTime.now())")
     @Mapping(source = "eventType", target = "eventType", qualifiedByName = "stringToEventType")
     @Mapping(source = ".", target = "order")
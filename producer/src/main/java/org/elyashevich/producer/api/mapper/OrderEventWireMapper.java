@@ -0,0 +1,26 @@
+package org.elyashevich.producer.api.mapper;
+
+import org.elyashevich.codec.WireOrderData;
+import org.elyashevich.codec.WireOrderEvent;
+import org.elyashevich.producer.model.OrderData;
+import org.elyashevich.producer.model.OrderEvent;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.factory.Mappers;
+
+import static org.mapstruct.MappingConstants.ComponentModel.SPRING;
+
+@Mapper(componentModel = SPRING)
+public interface OrderEventWireMapper {
+
+    OrderEventWireMapper INSTANCE = Mappers.getMapper(OrderEventWireMapper.class);
+
+    WireOrderEvent toWire(OrderEvent event);
+
+    @Mapping(target = "categoryId", ignore = true)
+    WireOrderData toWire(OrderData order);
+
+    OrderEvent fromWire(WireOrderEvent event);
+
+    OrderData fromWire(WireOrderData order);
+}
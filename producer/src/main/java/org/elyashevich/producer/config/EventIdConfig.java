@@ -0,0 +1,48 @@
+package org.elyashevich.producer.config;
+
+import lombok.RequiredArgsConstructor;
+import org.elyashevich.producer.ids.EventIdGenerator;
+import org.elyashevich.producer.ids.EventIds;
+import org.elyashevich.producer.ids.RandomUuidEventIdGenerator;
+import org.elyashevich.producer.ids.SnowflakeEventIdGenerator;
+import org.elyashevich.producer.ids.UuidV7EventIdGenerator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@RequiredArgsConstructor
+public class EventIdConfig {
+
+    private final OrderProducerProperties properties;
+
+    @Bean
+    public EventIdGenerator eventIdGenerator() {
+        var eventId = this.properties.getEventId();
+        EventIdGenerator generator = switch (eventId.getGenerator()) {
+            case UUID_V7 -> new UuidV7EventIdGenerator();
+            case SNOWFLAKE -> new SnowflakeEventIdGenerator(resolveNodeId(eventId));
+            case RANDOM -> new RandomUuidEventIdGenerator();
+        };
+        EventIds.use(generator);
+        return generator;
+    }
+
+    /**
+     * Replicas that share a snowflake node id generate colliding ids, so there is no default and
+     * no guessing from the host name, whose numeric suffixes repeat across hosts: the id has to
+     * be configured per instance, for example from a StatefulSet pod's index label.
+     */
+    static int resolveNodeId(OrderProducerProperties.EventId eventId) {
+        var nodeId = eventId.getNodeId();
+        if (nodeId == null) {
+            throw new IllegalStateException("Snowflake event ids need a node id unique to this instance: set "
+                    + "orders.producer.event-id.node-id (ORDERS_NODE_ID) to a value from 0 to "
+                    + SnowflakeEventIdGenerator.MAX_NODE_ID);
+        }
+        if (nodeId < 0 || nodeId > SnowflakeEventIdGenerator.MAX_NODE_ID) {
+            throw new IllegalStateException("orders.producer.event-id.node-id must be from 0 to "
+                    + SnowflakeEventIdGenerator.MAX_NODE_ID + ", was " + nodeId);
+        }
+        return nodeId;
+    }
+}
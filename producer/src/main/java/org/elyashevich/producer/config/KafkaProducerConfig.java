@@ -1,39 +1,90 @@
 package org.elyashevich.producer.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.elyashevich.producer.metrics.KafkaMetrics;
 import org.elyashevich.producer.model.OrderEvent;
+import org.elyashevich.producer.partitioning.OrderAffinityPartitioner;
+import org.elyashevich.producer.producer.DeliveryFailureListener;
+import org.elyashevich.producer.serialization.OrderEventSerializer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
 import org.springframework.kafka.support.serializer.JsonSerializer;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderOptions;
 
 import java.util.HashMap;
 import java.util.Map;
 
 @Configuration
+@RequiredArgsConstructor
+@EnableConfigurationProperties(OrderProducerProperties.class)
 public class KafkaProducerConfig {
 
+    private final OrderProducerProperties properties;
+    private final KafkaProperties kafkaProperties;
+
     @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
     public ProducerFactory<String, OrderEvent> producerFactory(ObjectMapper objectMapper) {
-        Map<String, Object> configProperties = new HashMap<>();
-        configProperties.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
-
-        JsonSerializer<OrderEvent> serializer = new JsonSerializer<>(objectMapper);
-        serializer.setAddTypeInfo(false);
-
         return new DefaultKafkaProducerFactory<>(
-                configProperties,
+                this.producerConfigs(),
                 new StringSerializer(),
-                serializer
+                this.valueSerializer(objectMapper)
         );
     }
 
+    /**
+     * Sender for the reactive stack. It shares the producer settings of the template, and its
+     * in-flight cap limits the demand it signals upstream to the request body.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    public KafkaSender<String, OrderEvent> reactiveKafkaSender(ObjectMapper objectMapper) {
+        SenderOptions<String, OrderEvent> senderOptions = SenderOptions.<String, OrderEvent>create(this.producerConfigs())
+                .withKeySerializer(new StringSerializer())
+                .withValueSerializer(this.valueSerializer(objectMapper))
+                .maxInFlight(this.properties.getInFlight().getMaxSends())
+                .stopOnError(false);
+        return KafkaSender.create(senderOptions);
+    }
+
     @Bean
-    public KafkaTemplate<String, OrderEvent> kafkaTemplate(ProducerFactory<String, OrderEvent> producerFactory) {
-        return new KafkaTemplate<>(producerFactory);
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public KafkaTemplate<String, OrderEvent> kafkaTemplate(ProducerFactory<String, OrderEvent> producerFactory,
+                                                           KafkaMetrics metrics) {
+        KafkaTemplate<String, OrderEvent> kafkaTemplate = new KafkaTemplate<>(producerFactory);
+        kafkaTemplate.setProducerListener(new DeliveryFailureListener(metrics));
+        return kafkaTemplate;
+    }
+
+    private Map<String, Object> producerConfigs() {
+        Map<String, Object> configProperties = new HashMap<>(
+                this.properties.getPerformanceProfile().producerConfigs(this.properties.getCompression())
+        );
+        configProperties.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, this.kafkaProperties.getBootstrapServers());
+        if (this.properties.getPartitioning() == OrderProducerProperties.Partitioning.ORDER_AFFINITY) {
+            configProperties.put(ProducerConfig.PARTITIONER_CLASS_CONFIG, OrderAffinityPartitioner.class);
+        }
+        return configProperties;
+    }
+
+    private Serializer<OrderEvent> valueSerializer(ObjectMapper objectMapper) {
+        if (this.properties.getWireFormat() == OrderProducerProperties.WireFormat.BINARY) {
+            return new OrderEventSerializer();
+        }
+
+        JsonSerializer<OrderEvent> serializer = new JsonSerializer<>(objectMapper);
+        serializer.setAddTypeInfo(false);
+        return serializer;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,95 @@
+package org.elyashevich.producer.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.apache.kafka.common.record.CompressionType;
+import org.elyashevich.producer.journal.SpillJournal;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "orders.producer")
+public class OrderProducerProperties {
+
+    private String id = "kafka-demo";
+    private WireFormat wireFormat = WireFormat.BINARY;
+    private Partitioning partitioning = Partitioning.ORDER_AFFINITY;
+    private ProducerPerformanceProfile performanceProfile = ProducerPerformanceProfile.BALANCED;
+    /**
+     * Replaces the compression codec of the performance profile when set.
+     */
+    private CompressionType compression;
+    private final Batch batch = new Batch();
+    private final InFlight inFlight = new InFlight();
+    private final Journal journal = new Journal();
+    private final EventId eventId = new EventId();
+
+    public enum WireFormat {
+        BINARY,
+        JSON
+    }
+
+    public enum Partitioning {
+        ORDER_AFFINITY,
+        KAFKA_DEFAULT
+    }
+
+    @Getter
+    @Setter
+    public static class Batch {
+        private int maxReportedErrors = 100;
+        private int maxLineLength = 65536;
+        private Duration deliveryTimeout = Duration.ofSeconds(30);
+    }
+
+    /**
+     * Caps sends that the broker has not acknowledged yet. A send waits up to
+     * {@code acquireTimeout} for a slot and is refused after that, so a slow broker pushes back
+     * on HTTP clients before the producer's {@code buffer.memory} fills up.
+     */
+    @Getter
+    @Setter
+    public static class InFlight {
+        private int maxSends = 10000;
+        private Duration acquireTimeout = Duration.ofSeconds(2);
+    }
+
+    /**
+     * Local disk journal that takes the events a send could not hand to the broker and replays
+     * them in order, at most {@code replayRate} per second and {@code replayWindow} unacknowledged
+     * at a time, once the broker answers again.
+     */
+    @Getter
+    @Setter
+    public static class Journal {
+        private boolean enabled = false;
+        private String directory = "data/journal";
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+        private DataSize maxSize = DataSize.ofGigabytes(1);
+        private SpillJournal.FsyncPolicy fsyncPolicy = SpillJournal.FsyncPolicy.INTERVAL;
+        private Duration fsyncInterval = Duration.ofSeconds(1);
+        private int replayRate = 5000;
+        private int replayWindow = 500;
+        private Duration replayBackoff = Duration.ofSeconds(1);
+    }
+
+    @Getter
+    @Setter
+    public static class EventId {
+        private Generator generator = Generator.UUID_V7;
+        /**
+         * Distinguishes producer instances in snowflake ids, 0 to 1023. Required, and unique per
+         * instance, when the snowflake generator is used.
+         */
+        private Integer nodeId;
+
+        public enum Generator {
+            UUID_V7,
+            SNOWFLAKE,
+            RANDOM
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.elyashevich.producer.config;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.record.CompressionType;
+
+import java.util.Map;
+
+/**
+ * Named bundles of the producer settings that trade ack latency for throughput. In-flight
+ * requests are not part of a profile: every profile runs the idempotent producer with five per
+ * connection, the most under which it still keeps per-partition order, which the order events
+ * and the journal replay rely on.
+ */
+public enum ProducerPerformanceProfile {
+    /** Sends as soon as a record arrives; batches only form while a request is in flight. */
+    LATENCY(CompressionType.LZ4, 16 * 1024, 0),
+    /** Waits a few millis to fill larger batches, which lz4 compresses cheaply. */
+    BALANCED(CompressionType.LZ4, 64 * 1024, 5),
+    /** Large, long-lingering batches with zstd for the best ratio per broker byte. */
+    THROUGHPUT(CompressionType.ZSTD, 256 * 1024, 20);
+
+    private static final int MAX_IN_FLIGHT_REQUESTS = 5;
+
+    private final CompressionType compression;
+    private final int batchSize;
+    private final int lingerMs;
+
+    ProducerPerformanceProfile(CompressionType compression, int batchSize, int lingerMs) {
+        this.compression = compression;
+        this.batchSize = batchSize;
+        this.lingerMs = lingerMs;
+    }
+
+    /**
+     * @param compressionOverride codec to use instead of the profile's, or {@code null}
+     */
+    public Map<String, Object> producerConfigs(CompressionType compressionOverride) {
+        var codec = compressionOverride != null ? compressionOverride : compression;
+        return Map.of(
+                ProducerConfig.COMPRESSION_TYPE_CONFIG, codec.name,
+                ProducerConfig.BATCH_SIZE_CONFIG, batchSize,
+                ProducerConfig.LINGER_MS_CONFIG, lingerMs,
+                ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true,
+                ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, MAX_IN_FLIGHT_REQUESTS
+        );
+    }
+}
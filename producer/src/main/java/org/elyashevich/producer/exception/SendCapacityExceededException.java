@@ -0,0 +1,7 @@
+package org.elyashevich.producer.exception;
+
+public class SendCapacityExceededException extends RuntimeException {
+    public SendCapacityExceededException(String message) {
+        super(message);
+    }
+}
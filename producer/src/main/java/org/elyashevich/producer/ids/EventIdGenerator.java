@@ -0,0 +1,9 @@
+package org.elyashevich.producer.ids;
+
+/**
+ * Source of {@code eventId} values. Implementations are called concurrently from request threads.
+ */
+public interface EventIdGenerator {
+
+    String nextId();
+}
@@ -0,0 +1,20 @@
+package org.elyashevich.producer.ids;
+
+/**
+ * Generator used by the mappers, which are plain static instances. Configuration installs the
+ * configured generator at startup; until then time-ordered UUIDs are used.
+ */
+public final class EventIds {
+    private static volatile EventIdGenerator generator = new UuidV7EventIdGenerator();
+
+    private EventIds() {
+    }
+
+    public static String next() {
+        return generator.nextId();
+    }
+
+    public static void use(EventIdGenerator eventIdGenerator) {
+        generator = eventIdGenerator;
+    }
+}
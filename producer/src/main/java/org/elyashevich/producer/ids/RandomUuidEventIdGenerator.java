@@ -0,0 +1,15 @@
+package org.elyashevich.producer.ids;
+
+import java.util.UUID;
+
+/**
+ * Random version 4 UUIDs, the ids events had before time-ordered ids. Every call draws from the
+ * shared {@code SecureRandom}.
+ */
+public class RandomUuidEventIdGenerator implements EventIdGenerator {
+
+    @Override
+    public String nextId() {
+        return UUID.randomUUID().toString();
+    }
+}
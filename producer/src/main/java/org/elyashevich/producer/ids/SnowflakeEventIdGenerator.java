@@ -0,0 +1,51 @@
+package org.elyashevich.producer.ids;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 64-bit snowflake ids written as decimal strings: 41 bits of millis since {@link #EPOCH_MILLIS},
+ * a 10-bit node id and a 12-bit sequence. The consumer reads the timestamp back with the same
+ * epoch, so it must not change.
+ * <p>
+ * Millis and sequence share one {@link AtomicLong} advanced by CAS, as in
+ * {@link UuidV7EventIdGenerator}.
+ */
+public class SnowflakeEventIdGenerator implements EventIdGenerator {
+    public static final long EPOCH_MILLIS = 1_704_067_200_000L;
+    public static final int MAX_NODE_ID = 1023;
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final int NODE_BITS = 10;
+
+    private final long node;
+    private final AtomicLong lastTick = new AtomicLong();
+
+    public SnowflakeEventIdGenerator(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ", was " + nodeId);
+        }
+        this.node = nodeId;
+    }
+
+    @Override
+    public String nextId() {
+        return Long.toString(next());
+    }
+
+    long next() {
+        var tick = nextTick();
+        var elapsed = tick >>> SEQUENCE_BITS;
+        var sequence = tick & ((1L << SEQUENCE_BITS) - 1);
+        return elapsed << (NODE_BITS + SEQUENCE_BITS) | node << SEQUENCE_BITS | sequence;
+    }
+
+    private long nextTick() {
+        while (true) {
+            var last = lastTick.get();
+            var next = Math.max((System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS, last + 1);
+            if (lastTick.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.elyashevich.producer.ids;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version 7 UUIDs (RFC 9562): 48 bits of Unix epoch millis, then a 12-bit counter in
+ * {@code rand_a} and 62 random bits from {@link ThreadLocalRandom}.
+ * <p>
+ * Millis and counter share one {@link AtomicLong} that only moves forward through a CAS, so ids
+ * from one generator are strictly increasing without a lock. When more than 4096 ids are taken
+ * within a millisecond the counter carries into the next one, so the clock is borrowed briefly.
+ */
+public class UuidV7EventIdGenerator implements EventIdGenerator {
+    private static final int COUNTER_BITS = 12;
+    private static final long VERSION = 0x7000L;
+    private static final long VARIANT = 0x8000000000000000L;
+    private static final long RANDOM_MASK = 0x3FFFFFFFFFFFFFFFL;
+
+    private final AtomicLong lastTick = new AtomicLong();
+
+    @Override
+    public String nextId() {
+        return next().toString();
+    }
+
+    UUID next() {
+        var tick = nextTick();
+        var millis = tick >>> COUNTER_BITS;
+        var counter = tick & ((1L << COUNTER_BITS) - 1);
+        var mostSignificant = millis << 16 | VERSION | counter;
+        var leastSignificant = VARIANT | ThreadLocalRandom.current().nextLong() & RANDOM_MASK;
+        return new UUID(mostSignificant, leastSignificant);
+    }
+
+    private long nextTick() {
+        while (true) {
+            var last = lastTick.get();
+            var next = Math.max(System.currentTimeMillis() << COUNTER_BITS, last + 1);
+            if (lastTick.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+    }
+}
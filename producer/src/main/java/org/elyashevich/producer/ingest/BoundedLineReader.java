@@ -0,0 +1,72 @@
+package org.elyashevich.producer.ingest;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads lines like {@link java.io.BufferedReader#readLine()} but keeps at most {@code maxLength}
+ * characters of each. The rest of a longer line is read and dropped, so one oversized line costs
+ * no more memory than a full one and the next line is still found.
+ */
+class BoundedLineReader {
+    private final Reader reader;
+    private final int maxLength;
+    private final char[] buffer = new char[8192];
+    private final StringBuilder line = new StringBuilder();
+    private int position;
+    private int limit;
+    private boolean skipLineFeed;
+    private boolean tooLong;
+
+    BoundedLineReader(Reader reader, int maxLength) {
+        this.reader = reader;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * @return the next line without its terminator, or {@code null} at the end of the input. When
+     * the line was longer than {@code maxLength} this is empty and {@link #tooLong()} is set.
+     */
+    String readLine() throws IOException {
+        line.setLength(0);
+        tooLong = false;
+        var started = false;
+        while (true) {
+            if (position == limit && !fill()) {
+                return started ? finish() : null;
+            }
+            var c = buffer[position++];
+            if (skipLineFeed) {
+                skipLineFeed = false;
+                if (c == '\n') {
+                    continue;
+                }
+            }
+            started = true;
+            if (c == '\n' || c == '\r') {
+                skipLineFeed = c == '\r';
+                return finish();
+            }
+            if (line.length() < maxLength) {
+                line.append(c);
+            } else {
+                tooLong = true;
+            }
+        }
+    }
+
+    boolean tooLong() {
+        return tooLong;
+    }
+
+    private boolean fill() throws IOException {
+        var read = reader.read(buffer, 0, buffer.length);
+        position = 0;
+        limit = Math.max(read, 0);
+        return read > 0;
+    }
+
+    private String finish() {
+        return tooLong ? "" : line.toString();
+    }
+}
@@ -0,0 +1,226 @@
+package org.elyashevich.producer.ingest;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.elyashevich.producer.api.dto.order.OrderBatchResponse;
+import org.elyashevich.producer.api.dto.order.OrderCreateRequest;
+import org.elyashevich.producer.api.mapper.OrderEventMapper;
+import org.elyashevich.producer.config.OrderProducerProperties;
+import org.elyashevich.producer.metrics.KafkaMetrics;
+import org.elyashevich.producer.model.OrderEvent;
+import org.elyashevich.producer.producer.KafkaOrderProducer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams a batch request body one order at a time, so memory stays bounded by the largest
+ * single line however long the body is, and lines are capped at {@code batch.max-line-length}. Every order is sent as soon as it is read and only
+ * counted; the response waits for the outstanding sends, up to the configured delivery timeout.
+ * <p>
+ * NDJSON is read line by line and a bad or oversized line only rejects itself. A JSON array is read with a
+ * streaming parser; a bad element is rejected, but a syntax error ends the request because the
+ * rest of the array can no longer be located.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class OrderBatchIngestService {
+    private static final OrderEventMapper orderEventMapper = OrderEventMapper.INSTANCE;
+
+    private final KafkaOrderProducer producer;
+    private final ObjectMapper objectMapper;
+    private final KafkaMetrics metrics;
+    private final OrderProducerProperties properties;
+
+    public OrderBatchResponse ingestNdjson(InputStream body) throws IOException {
+        var progress = new Progress(properties.getBatch().getMaxReportedErrors());
+        var sample = Timer.start();
+
+        var maxLineLength = properties.getBatch().getMaxLineLength();
+        var reader = new BoundedLineReader(new InputStreamReader(body, StandardCharsets.UTF_8), maxLineLength);
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (reader.tooLong()) {
+                progress.reject(lineNumber, "Line is longer than " + maxLineLength + " characters");
+                continue;
+            }
+            if (line.isBlank()) {
+                continue;
+            }
+
+            OrderCreateRequest request;
+            try {
+                request = objectMapper.readValue(line, OrderCreateRequest.class);
+            } catch (JsonProcessingException e) {
+                progress.reject(lineNumber, e.getOriginalMessage());
+                continue;
+            }
+            send(lineNumber, request, progress);
+        }
+
+        return finish(progress, sample);
+    }
+
+    public OrderBatchResponse ingestJsonArray(InputStream body) throws IOException {
+        var progress = new Progress(properties.getBatch().getMaxReportedErrors());
+        var sample = Timer.start();
+
+        try (var parser = objectMapper.createParser(body)) {
+            var first = parser.nextToken();
+            var array = first == JsonToken.START_ARRAY;
+            var token = array ? parser.nextToken() : first;
+
+            long element = 0;
+            while (token != null && token != JsonToken.END_ARRAY) {
+                element++;
+                if (!readElement(parser, element, progress)) {
+                    break;
+                }
+                token = parser.nextToken();
+            }
+        }
+
+        return finish(progress, sample);
+    }
+
+    private boolean readElement(JsonParser parser, long element, Progress progress) {
+        JsonNode node;
+        try {
+            node = parser.readValueAsTree();
+        } catch (IOException e) {
+            progress.reject(element, "Malformed JSON, stopped reading: " + e.getMessage());
+            return false;
+        }
+
+        try {
+            send(element, objectMapper.treeToValue(node, OrderCreateRequest.class), progress);
+        } catch (JsonProcessingException e) {
+            progress.reject(element, e.getOriginalMessage());
+        }
+        return true;
+    }
+
+    private void send(long line, OrderCreateRequest request, Progress progress) {
+        OrderEvent event;
+        try {
+            event = orderEventMapper.toOrderEvent(request);
+        } catch (RuntimeException e) {
+            progress.reject(line, e.getMessage());
+            return;
+        }
+
+        progress.sent();
+        try {
+            producer.send(event).whenComplete((result, ex) -> {
+                if (ex == null) {
+                    progress.delivered();
+                } else {
+                    progress.deliveryFailed(line, ex);
+                }
+            });
+        } catch (RuntimeException e) {
+            progress.deliveryFailed(line, e);
+        }
+    }
+
+    private OrderBatchResponse finish(Progress progress, Timer.Sample sample) {
+        try {
+            progress.settled().get(properties.getBatch().getDeliveryTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Batch request stopped waiting with {} orders unconfirmed", progress.unconfirmed());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+
+        var response = progress.toResponse();
+        sample.stop(metrics.getBatchRequestTimer());
+        metrics.recordBatch(response.accepted(), response.rejected());
+        log.info("Batch request accepted {}, rejected {}, unconfirmed {}",
+                response.accepted(), response.rejected(), response.unconfirmed());
+        return response;
+    }
+
+    /**
+     * Counters shared with the send callbacks. {@code outstanding} starts at one for the reader
+     * itself, so {@link #settled()} cannot complete before the whole body has been read.
+     */
+    private static class Progress {
+        private final int maxReportedErrors;
+        private final AtomicLong accepted = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong outstanding = new AtomicLong(1);
+        private final CompletableFuture<Void> settled = new CompletableFuture<>();
+        private final List<OrderBatchResponse.LineError> errors = new ArrayList<>();
+
+        Progress(int maxReportedErrors) {
+            this.maxReportedErrors = maxReportedErrors;
+        }
+
+        void sent() {
+            outstanding.incrementAndGet();
+        }
+
+        void delivered() {
+            accepted.incrementAndGet();
+            release();
+        }
+
+        void deliveryFailed(long line, Throwable ex) {
+            reject(line, ex.getMessage());
+            release();
+        }
+
+        void reject(long line, String error) {
+            rejected.incrementAndGet();
+            synchronized (errors) {
+                if (errors.size() < maxReportedErrors) {
+                    errors.add(new OrderBatchResponse.LineError(line, error));
+                }
+            }
+        }
+
+        CompletableFuture<Void> settled() {
+            release();
+            return settled;
+        }
+
+        long unconfirmed() {
+            return Math.max(0, outstanding.get());
+        }
+
+        OrderBatchResponse toResponse() {
+            synchronized (errors) {
+                return new OrderBatchResponse(accepted.get(), rejected.get(), unconfirmed(), List.copyOf(errors));
+            }
+        }
+
+        private void release() {
+            if (outstanding.decrementAndGet() == 0) {
+                settled.complete(null);
+            }
+        }
+    }
+}
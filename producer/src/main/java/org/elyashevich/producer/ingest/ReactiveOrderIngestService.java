@@ -0,0 +1,126 @@
+package org.elyashevich.producer.ingest;
+
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.elyashevich.producer.api.dto.order.OrderAcceptedResponse;
+import org.elyashevich.producer.api.dto.order.OrderBatchResponse;
+import org.elyashevich.producer.api.dto.order.OrderCreateRequest;
+import org.elyashevich.producer.api.mapper.OrderEventMapper;
+import org.elyashevich.producer.config.OrderProducerProperties;
+import org.elyashevich.producer.metrics.KafkaMetrics;
+import org.elyashevich.producer.model.OrderEvent;
+import org.elyashevich.producer.producer.ReactiveOrderProducer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.kafka.KafkaException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reactive ingestion: request bodies are decoded element by element and streamed through the
+ * mapper into {@link ReactiveOrderProducer}, which only asks for more elements while it has
+ * in-flight capacity.
+ * <p>
+ * An element that cannot be mapped rejects itself. A body that cannot be decoded ends the
+ * request like a JSON syntax error does on the servlet stack, and the lines read so far are
+ * still reported.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveOrderIngestService {
+    private static final OrderEventMapper orderEventMapper = OrderEventMapper.INSTANCE;
+
+    private final ReactiveOrderProducer producer;
+    private final KafkaMetrics metrics;
+    private final OrderProducerProperties properties;
+
+    public Mono<OrderAcceptedResponse> ingest(OrderCreateRequest request) {
+        return producer.send(Flux.just(request), orderEventMapper::toOrderEvent)
+                .next()
+                .flatMap(delivery -> delivery.delivered()
+                        ? Mono.just(new OrderAcceptedResponse(
+                                delivery.event().getEventId(),
+                                delivery.metadata().partition(),
+                                delivery.metadata().offset(),
+                                false))
+                        : Mono.error(new KafkaException("Order event was not delivered", delivery.exception())));
+    }
+
+    public Mono<OrderBatchResponse> ingestBatch(Flux<OrderCreateRequest> requests) {
+        return Mono.defer(() -> {
+            var tally = new Tally(properties.getBatch().getMaxReportedErrors());
+            var lineNumber = new AtomicLong();
+            var sample = Timer.start();
+
+            Flux<Line> lines = requests
+                    .<Line>handle((request, sink) -> {
+                        var number = lineNumber.incrementAndGet();
+                        try {
+                            sink.next(new Line(number, orderEventMapper.toOrderEvent(request)));
+                        } catch (RuntimeException e) {
+                            tally.reject(number, e.getMessage());
+                        }
+                    })
+                    .onErrorResume(e -> {
+                        tally.reject(lineNumber.get() + 1, "Malformed JSON, stopped reading: " + e.getMessage());
+                        return Mono.empty();
+                    });
+
+            return producer.send(lines, Line::event)
+                    .doOnNext(delivery -> {
+                        if (delivery.delivered()) {
+                            tally.accept();
+                        } else {
+                            tally.reject(delivery.item().number(), delivery.exception().getMessage());
+                        }
+                    })
+                    .then(Mono.fromSupplier(() -> {
+                        var response = tally.toResponse();
+                        sample.stop(metrics.getBatchRequestTimer());
+                        metrics.recordBatch(response.accepted(), response.rejected());
+                        log.info("Batch request accepted {}, rejected {}", response.accepted(), response.rejected());
+                        return response;
+                    }));
+        });
+    }
+
+    private record Line(long number, OrderEvent event) {
+    }
+
+    private static final class Tally {
+        private final int maxReportedErrors;
+        private final AtomicLong accepted = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final List<OrderBatchResponse.LineError> errors = new ArrayList<>();
+
+        Tally(int maxReportedErrors) {
+            this.maxReportedErrors = maxReportedErrors;
+        }
+
+        void accept() {
+            accepted.incrementAndGet();
+        }
+
+        void reject(long line, String error) {
+            rejected.incrementAndGet();
+            synchronized (errors) {
+                if (errors.size() < maxReportedErrors) {
+                    errors.add(new OrderBatchResponse.LineError(line, error));
+                }
+            }
+        }
+
+        OrderBatchResponse toResponse() {
+            synchronized (errors) {
+                return new OrderBatchResponse(accepted.get(), rejected.get(), 0, List.copyOf(errors));
+            }
+        }
+    }
+}
@@ -0,0 +1,387 @@
+package org.elyashevich.producer.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of byte records kept in fixed-size memory-mapped segment files. Records
+ * are read back in append order and stay in the journal until {@link #advance()} confirms them;
+ * the read position survives restarts in a small checkpoint file and segments are deleted once
+ * they are read through.
+ * <p>
+ * A record is an int length, the CRC32 of the payload, the append time in epoch millis and the
+ * payload. New segment files are zero-filled, so a zero length marks the end of written data and
+ * {@value #END_OF_SEGMENT} marks a segment the writer has left for the next one. On open the
+ * last segment is scanned to the last record with a valid checksum, which drops a torn write.
+ * <p>
+ * All methods are synchronized; appends come from request threads and reads from one drainer.
+ */
+@Slf4j
+public class SpillJournal implements Closeable {
+    static final int HEADER_SIZE = Integer.BYTES * 2 + Long.BYTES;
+
+    private static final int END_OF_SEGMENT = -1;
+    private static final String SEGMENT_SUFFIX = ".segment";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final int CHECKPOINT_SIZE = Long.BYTES + Integer.BYTES;
+
+    public enum FsyncPolicy {
+        /** Force every append and checkpoint to disk before returning. */
+        ALWAYS,
+        /** Leave forcing to {@link #flush()}, called on a schedule. */
+        INTERVAL,
+        /** Leave writing back to the operating system. */
+        NONE
+    }
+
+    public record Entry(byte[] payload, long appendedAt) {
+    }
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final FsyncPolicy fsyncPolicy;
+    private final NavigableMap<Long, Segment> segments = new TreeMap<>();
+    private final FileChannel checkpoint;
+
+    private Segment writeSegment;
+    private int writePosition;
+    private long readSegmentId;
+    private int readPosition;
+    private long depth;
+
+    public SpillJournal(Path directory, int segmentSize, long maxSize, FsyncPolicy fsyncPolicy) throws IOException {
+        if (segmentSize <= HEADER_SIZE) {
+            throw new IllegalArgumentException("Segment size must exceed the " + HEADER_SIZE + " byte record header");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = (int) Math.max(1, maxSize / segmentSize);
+        this.fsyncPolicy = fsyncPolicy;
+
+        Files.createDirectories(directory);
+        try (var files = Files.list(directory)) {
+            for (var file : files.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX)).toList()) {
+                var name = file.getFileName().toString();
+                var id = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                var size = Files.size(file);
+                segments.put(id, Segment.open(file, id, size > 0 ? size : segmentSize));
+            }
+        }
+        this.checkpoint = FileChannel.open(directory.resolve(CHECKPOINT_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        recover();
+    }
+
+    /**
+     * @return {@code false} when the journal is full or the payload does not fit in a segment
+     */
+    public synchronized boolean append(byte[] payload) {
+        var size = HEADER_SIZE + payload.length;
+        if (size > segmentSize) {
+            return false;
+        }
+        if (writePosition + size > writeSegment.capacity()) {
+            if (segments.size() >= maxSegments) {
+                return false;
+            }
+            rotate();
+        }
+
+        var crc = new CRC32();
+        crc.update(payload);
+        var buffer = writeSegment.buffer();
+        buffer.put(writePosition + HEADER_SIZE, payload);
+        buffer.putLong(writePosition + Integer.BYTES * 2, System.currentTimeMillis());
+        buffer.putInt(writePosition + Integer.BYTES, (int) crc.getValue());
+        buffer.putInt(writePosition, payload.length);
+        if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+            buffer.force(writePosition, size);
+        }
+        writePosition += size;
+        depth++;
+        return true;
+    }
+
+    /**
+     * @return the oldest record that was not {@linkplain #advance() advanced} past, or {@code null}
+     */
+    public synchronized Entry peek() {
+        while (!isEmpty()) {
+            var segment = segments.get(readSegmentId);
+            var buffer = segment.buffer();
+            var length = readPosition + HEADER_SIZE <= segment.capacity() ? buffer.getInt(readPosition) : 0;
+            if (length <= 0 || readPosition + HEADER_SIZE + length > segment.capacity()) {
+                if (segment == writeSegment) {
+                    skipCorruptSegment(segment);
+                } else {
+                    nextReadSegment();
+                }
+                continue;
+            }
+
+            var payload = new byte[length];
+            buffer.get(readPosition + HEADER_SIZE, payload);
+            var crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != buffer.getInt(readPosition + Integer.BYTES)) {
+                log.error("Corrupt record in journal segment {} at {}, skipping the rest of the segment",
+                        segment.id(), readPosition);
+                skipCorruptSegment(segment);
+                continue;
+            }
+            return new Entry(payload, buffer.getLong(readPosition + Integer.BYTES * 2));
+        }
+        return null;
+    }
+
+    /**
+     * Reads ahead without moving the read position, so the records can be sent together and
+     * {@linkplain #advance(int) advanced} past once acknowledged. The window stops early at the
+     * end of the current segment.
+     *
+     * @return up to {@code max} of the oldest records, in append order
+     */
+    public synchronized List<Entry> peek(int max) {
+        var head = peek();
+        if (head == null) {
+            return List.of();
+        }
+        var entries = new ArrayList<Entry>(Math.min(max, 1024));
+        entries.add(head);
+
+        var segment = segments.get(readSegmentId);
+        var end = segment == writeSegment ? writePosition : segment.capacity();
+        var position = readPosition + HEADER_SIZE + head.payload().length;
+        while (entries.size() < max && position < end) {
+            var next = nextRecord(segment, position);
+            if (next < 0) {
+                break;
+            }
+            var payload = new byte[next - position - HEADER_SIZE];
+            segment.buffer().get(position + HEADER_SIZE, payload);
+            entries.add(new Entry(payload, segment.buffer().getLong(position + Integer.BYTES * 2)));
+            position = next;
+        }
+        return entries;
+    }
+
+    /**
+     * Moves past the record last returned by {@link #peek()}.
+     */
+    public synchronized void advance() {
+        advance(1);
+    }
+
+    /**
+     * Moves past the oldest {@code count} records with a single checkpoint write.
+     */
+    public synchronized void advance(int count) {
+        for (var i = 0; i < count; i++) {
+            if (peek() == null) {
+                throw new IllegalStateException("Journal is empty");
+            }
+            var length = segments.get(readSegmentId).buffer().getInt(readPosition);
+            readPosition += HEADER_SIZE + length;
+            depth--;
+        }
+        writeCheckpoint();
+    }
+
+    public synchronized boolean isEmpty() {
+        return readSegmentId == writeSegment.id() && readPosition >= writePosition;
+    }
+
+    public synchronized long depth() {
+        return depth;
+    }
+
+    public synchronized long sizeBytes() {
+        return segments.values().stream().mapToLong(Segment::capacity).sum();
+    }
+
+    /**
+     * @return how long the oldest record has been waiting, zero when the journal is empty
+     */
+    public synchronized long replayLagMillis() {
+        var head = peek();
+        return head == null ? 0 : Math.max(0, System.currentTimeMillis() - head.appendedAt());
+    }
+
+    public synchronized void flush() {
+        writeSegment.buffer().force();
+        try {
+            checkpoint.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (fsyncPolicy != FsyncPolicy.NONE) {
+            flush();
+        }
+        for (var segment : segments.values()) {
+            segment.channel().close();
+        }
+        checkpoint.close();
+    }
+
+    private void recover() throws IOException {
+        if (segments.isEmpty()) {
+            segments.put(0L, createSegment(0));
+        }
+        writeSegment = segments.lastEntry().getValue();
+
+        readSegmentId = segments.firstKey();
+        readPosition = 0;
+        if (checkpoint.size() >= CHECKPOINT_SIZE) {
+            var saved = ByteBuffer.allocate(CHECKPOINT_SIZE);
+            checkpoint.read(saved, 0);
+            var savedSegment = saved.getLong(0);
+            if (segments.containsKey(savedSegment)) {
+                readSegmentId = savedSegment;
+                readPosition = saved.getInt(Long.BYTES);
+            }
+        }
+
+        var start = readSegmentId == writeSegment.id() ? readPosition : 0;
+        writePosition = scan(writeSegment, start);
+        depth = 0;
+        for (var segment : segments.tailMap(readSegmentId, true).values()) {
+            var from = segment.id() == readSegmentId ? readPosition : 0;
+            depth += count(segment, from, segment == writeSegment ? writePosition : segment.capacity());
+        }
+        log.info("Opened journal {} with {} pending records in {} segments", directory, depth, segments.size());
+    }
+
+    /**
+     * @return the position after the last intact record
+     */
+    private static int scan(Segment segment, int from) {
+        var position = from;
+        while (true) {
+            var next = nextRecord(segment, position);
+            if (next < 0) {
+                return position;
+            }
+            position = next;
+        }
+    }
+
+    private static long count(Segment segment, int from, int to) {
+        long records = 0;
+        var position = from;
+        while (position < to) {
+            var next = nextRecord(segment, position);
+            if (next < 0) {
+                break;
+            }
+            records++;
+            position = next;
+        }
+        return records;
+    }
+
+    private static int nextRecord(Segment segment, int position) {
+        var buffer = segment.buffer();
+        if (position + HEADER_SIZE > segment.capacity()) {
+            return -1;
+        }
+        var length = buffer.getInt(position);
+        if (length <= 0 || position + HEADER_SIZE + length > segment.capacity()) {
+            return -1;
+        }
+        var payload = new byte[length];
+        buffer.get(position + HEADER_SIZE, payload);
+        var crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue() == buffer.getInt(position + Integer.BYTES) ? position + HEADER_SIZE + length : -1;
+    }
+
+    private void rotate() {
+        if (writePosition + Integer.BYTES <= writeSegment.capacity()) {
+            writeSegment.buffer().putInt(writePosition, END_OF_SEGMENT);
+        }
+        if (fsyncPolicy != FsyncPolicy.NONE) {
+            writeSegment.buffer().force();
+        }
+        var id = writeSegment.id() + 1;
+        try {
+            writeSegment = createSegment(id);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        segments.put(id, writeSegment);
+        writePosition = 0;
+    }
+
+    private void nextReadSegment() {
+        var consumed = segments.remove(readSegmentId);
+        readSegmentId = segments.higherKey(readSegmentId);
+        readPosition = 0;
+        writeCheckpoint();
+        try {
+            consumed.channel().close();
+            Files.deleteIfExists(consumed.path());
+        } catch (IOException e) {
+            log.warn("Could not delete journal segment {}", consumed.path(), e);
+        }
+    }
+
+    private void skipCorruptSegment(Segment segment) {
+        var lost = count(segment, readPosition, segment == writeSegment ? writePosition : segment.capacity());
+        if (segment == writeSegment) {
+            readPosition = writePosition;
+            writeCheckpoint();
+        } else {
+            nextReadSegment();
+        }
+        depth = Math.max(0, depth - Math.max(lost, 1));
+    }
+
+    private void writeCheckpoint() {
+        var saved = ByteBuffer.allocate(CHECKPOINT_SIZE).putLong(readSegmentId).putInt(readPosition).flip();
+        try {
+            checkpoint.write(saved, 0);
+            if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                checkpoint.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Segment createSegment(long id) throws IOException {
+        return Segment.open(directory.resolve("%020d%s".formatted(id, SEGMENT_SUFFIX)), id, segmentSize);
+    }
+
+    private record Segment(long id, Path path, FileChannel channel, MappedByteBuffer buffer) {
+
+        static Segment open(Path path, long id, long size) throws IOException {
+            var channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            return new Segment(id, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+
+        int capacity() {
+            return buffer.capacity();
+        }
+    }
+}
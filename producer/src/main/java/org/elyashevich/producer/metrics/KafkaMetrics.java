@@ -1,14 +1,28 @@
 package org.elyashevich.producer.metrics;
 
 import io.micrometer.core.instrument.*;
+import org.elyashevich.producer.journal.SpillJournal;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
 @Component
 public class KafkaMetrics {
     private final Counter kafkaMessageCounter;
     private final Timer kafkaProcessingTimer;
+    private final MeterRegistry registry;
+    private final Timer batchRequestTimer;
+    private final DistributionSummary batchSizeSummary;
+    private final Timer ackSuccessTimer;
+    private final Timer ackFailureTimer;
+    private final Counter sendRejectedCounter;
+    private final Counter journalAppendCounter;
+    private final Counter journalReplayCounter;
 
     public KafkaMetrics(MeterRegistry registry) {
+        this.registry = registry;
+
         this.kafkaMessageCounter = Counter.builder("kafka.messages.total")
             .description("Total received Kafka messages")
             .tag("type", "consumer")
@@ -18,6 +32,30 @@ public class KafkaMetrics {
             .description("Time spent processing Kafka messages")
             .publishPercentiles(0.5, 0.95)
             .register(registry);
+
+        this.batchRequestTimer = Timer.builder("kafka.batch.request.time")
+            .description("Time to stream, send and confirm one batch ingest request")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(registry);
+
+        this.batchSizeSummary = DistributionSummary.builder("kafka.batch.request.lines")
+            .description("Lines read per batch ingest request")
+            .register(registry);
+
+        this.ackSuccessTimer = ackTimer("success");
+        this.ackFailureTimer = ackTimer("failure");
+
+        this.sendRejectedCounter = Counter.builder("kafka.producer.send.rejected")
+            .description("Sends refused because the in-flight limit stayed full")
+            .register(registry);
+
+        this.journalAppendCounter = Counter.builder("kafka.producer.journal.appends")
+            .description("Events written to the spill journal instead of the broker")
+            .register(registry);
+
+        this.journalReplayCounter = Counter.builder("kafka.producer.journal.replayed")
+            .description("Journaled events delivered to the broker")
+            .register(registry);
     }
 
     public void incrementMessageCount() {
@@ -27,4 +65,76 @@ public class KafkaMetrics {
     public Timer getProcessingTimer() {
         return kafkaProcessingTimer;
     }
-}
\ No newline at end of file
+
+    public Timer getBatchRequestTimer() {
+        return batchRequestTimer;
+    }
+
+    public void recordBatch(long accepted, long rejected) {
+        batchSizeSummary.record(accepted + rejected);
+        batchLines("accepted").increment(accepted);
+        batchLines("rejected").increment(rejected);
+    }
+
+    private Counter batchLines(String outcome) {
+        return Counter.builder("kafka.batch.lines")
+            .description("Batch ingest lines by outcome")
+            .tag("outcome", outcome)
+            .register(registry);
+    }
+
+    public void recordAck(long nanos, boolean success) {
+        (success ? ackSuccessTimer : ackFailureTimer).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordSendRejected() {
+        sendRejectedCounter.increment();
+    }
+
+    public void recordDeliveryFailure(String topic, String partition) {
+        Counter.builder("kafka.producer.send.failures")
+            .description("Sends the broker did not acknowledge, by partition")
+            .tag("topic", topic)
+            .tag("partition", partition)
+            .register(registry)
+            .increment();
+    }
+
+    public void registerInFlight(Supplier<Number> inFlight) {
+        Gauge.builder("kafka.producer.in.flight", inFlight)
+            .description("Sends waiting for a broker acknowledgment")
+            .register(registry);
+    }
+
+    public void recordJournalAppend() {
+        journalAppendCounter.increment();
+    }
+
+    public void recordJournalReplay() {
+        journalReplayCounter.increment();
+    }
+
+    public void registerJournal(SpillJournal journal) {
+        Gauge.builder("kafka.producer.journal.depth", journal, SpillJournal::depth)
+            .description("Events waiting in the spill journal")
+            .register(registry);
+
+        Gauge.builder("kafka.producer.journal.size", journal, SpillJournal::sizeBytes)
+            .description("Disk space held by journal segments")
+            .baseUnit("bytes")
+            .register(registry);
+
+        Gauge.builder("kafka.producer.journal.replay.lag", journal, j -> j.replayLagMillis() / 1000.0)
+            .description("Age of the oldest event waiting in the spill journal")
+            .baseUnit("seconds")
+            .register(registry);
+    }
+
+    private Timer ackTimer(String outcome) {
+        return Timer.builder("kafka.producer.ack.time")
+            .description("Time from send to broker acknowledgment")
+            .tag("outcome", outcome)
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(registry);
+    }
+}
@@ -0,0 +1,62 @@
+package org.elyashevich.producer.partitioning;
+
+import org.apache.kafka.clients.producer.Partitioner;
+import org.apache.kafka.common.Cluster;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Maps record keys to partitions with jump consistent hashing, so every event of one order lands
+ * on the same partition and adding partitions moves only the keys the new partitions take over,
+ * unlike Kafka's default {@code murmur2 % partitions}. The consumer mirrors {@link #partitionFor}
+ * to tell which orders belong to its assigned partitions; the two must change together.
+ */
+public class OrderAffinityPartitioner implements Partitioner {
+
+    @Override
+    public int partition(String topic, Object key, byte[] keyBytes, Object value, byte[] valueBytes, Cluster cluster) {
+        var partitions = cluster.partitionCountForTopic(topic);
+        if (keyBytes == null) {
+            return ThreadLocalRandom.current().nextInt(partitions);
+        }
+        return partitionFor(keyBytes, partitions);
+    }
+
+    public static int partitionFor(byte[] keyBytes, int partitions) {
+        var key = hash(keyBytes);
+        long bucket = -1;
+        long next = 0;
+        while (next < partitions) {
+            bucket = next;
+            key = key * 2862933555777941757L + 1;
+            next = (long) ((bucket + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) bucket;
+    }
+
+    /**
+     * FNV-1a over the key bytes, finished with the MurmurHash3 mixer so short decimal keys
+     * spread over all 64 bits.
+     */
+    private static long hash(byte[] keyBytes) {
+        var hash = 0xCBF29CE484222325L;
+        for (var b : keyBytes) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001B3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,35 @@
+package org.elyashevich.producer.producer;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.elyashevich.producer.metrics.KafkaMetrics;
+import org.elyashevich.producer.model.OrderEvent;
+import org.springframework.kafka.support.ProducerListener;
+
+/**
+ * Counts failed deliveries by partition. The partition comes from the producer callback, as the
+ * records are sent without one; it is {@code unknown} when the send failed before the
+ * partitioner ran.
+ */
+@RequiredArgsConstructor
+public class DeliveryFailureListener implements ProducerListener<String, OrderEvent> {
+    static final String UNKNOWN_PARTITION = "unknown";
+
+    private final KafkaMetrics metrics;
+
+    @Override
+    public void onError(ProducerRecord<String, OrderEvent> record, RecordMetadata metadata, Exception exception) {
+        metrics.recordDeliveryFailure(record.topic(), partitionOf(record.partition(), metadata));
+    }
+
+    static String partitionOf(Integer recordPartition, RecordMetadata metadata) {
+        if (metadata != null && metadata.partition() != RecordMetadata.UNKNOWN_PARTITION) {
+            return String.valueOf(metadata.partition());
+        }
+        if (recordPartition != null) {
+            return String.valueOf(recordPartition);
+        }
+        return UNKNOWN_PARTITION;
+    }
+}
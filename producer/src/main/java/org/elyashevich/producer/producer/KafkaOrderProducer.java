@@ -1,36 +1,180 @@
 package org.elyashevich.producer.producer;
 
+import jakarta.annotation.PreDestroy;
+import org.elyashevich.producer.config.OrderProducerProperties;
+import org.elyashevich.producer.exception.SendCapacityExceededException;
 import org.elyashevich.producer.metrics.KafkaMetrics;
 import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.TimeoutException;
 import org.elyashevich.producer.model.OrderEvent;
+import org.elyashevich.producer.serialization.OrderEventHeaders;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.concurrent.ThreadLocalRandom;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Sends order events with at most {@link OrderProducerProperties.InFlight#getMaxSends()}
+ * unacknowledged at a time. A slot is taken before the record is handed to the producer and
+ * given back when the broker answers, whatever the answer.
+ * <p>
+ * An event that gets no slot in time, or whose send times out, goes to the {@link OrderJournal}
+ * when it has room. Either case means the broker has not answered for a while, since every answer
+ * frees a slot, so both mark it unavailable: new events then go to the journal until a replay is
+ * acknowledged again. Timed out sends are journaled on a spill thread of their own, never on the
+ * producer's network thread that completes the send.
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class KafkaOrderProducer {
+    private static final long SPILL_SHUTDOWN_TIMEOUT_SECONDS = 5;
 
     private final KafkaTemplate<String, OrderEvent> kafkaTemplate;
     private final KafkaMetrics metrics;
+    private final OrderProducerProperties properties;
+    private final OrderJournal journal;
+    private final Semaphore inFlight;
+    private final ExecutorService spillExecutor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("order-journal-spill").daemon().factory());
+
+    public KafkaOrderProducer(KafkaTemplate<String, OrderEvent> kafkaTemplate,
+                              KafkaMetrics metrics,
+                              OrderProducerProperties properties,
+                              OrderJournal journal) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.metrics = metrics;
+        this.properties = properties;
+        this.journal = journal;
+        var maxSends = properties.getInFlight().getMaxSends();
+        this.inFlight = new Semaphore(maxSends);
+        metrics.registerInFlight(() -> maxSends - inFlight.availablePermits());
+    }
+
+    /**
+     * Hands the event to the producer and returns once it is buffered. The returned future
+     * completes when the broker acknowledges the record, or with a result without
+     * {@linkplain SendResult#getRecordMetadata() record metadata} once the event is journaled.
+     *
+     * @throws SendCapacityExceededException when no in-flight slot frees up within the acquire
+     *                                       timeout and the journal cannot take the event
+     */
+    public CompletableFuture<SendResult<String, OrderEvent>> send(OrderEvent order) {
+        if (journal.isBrokerUnavailable()) {
+            return spill(order);
+        }
+        if (!acquireSlot()) {
+            journal.markBrokerUnavailable();
+            return spill(order);
+        }
 
-    public void sendOrderToKafka(OrderEvent order) {
+        var sentAt = System.nanoTime();
         Timer.Sample sample = Timer.start();
+        CompletableFuture<SendResult<String, OrderEvent>> result;
         try {
-            kafkaTemplate.send(
-                    "orders",
-                    String.valueOf(ThreadLocalRandom.current().nextInt(1, 11)),
-                    order
-            );
-            log.info("Sent order event: {}", order.getEventId());
-            metrics.incrementMessageCount();
+            result = kafkaTemplate.send(toRecord(properties.getId(), order));
+        } catch (RuntimeException e) {
+            inFlight.release();
+            if (isTimeout(e) && journalTimedOut(order)) {
+                return CompletableFuture.completedFuture(journaled(order));
+            }
+            throw e;
         } finally {
             sample.stop(metrics.getProcessingTimer());
         }
+        metrics.incrementMessageCount();
+
+        return result.whenComplete((sendResult, ex) -> {
+            inFlight.release();
+            metrics.recordAck(System.nanoTime() - sentAt, ex == null);
+            if (ex == null) {
+                log.debug("Delivered order event {} to partition {}",
+                        order.getEventId(), sendResult.getRecordMetadata().partition());
+            } else {
+                log.warn("Order event {} was not delivered", order.getEventId(), ex);
+            }
+        }).exceptionallyComposeAsync(ex -> isTimeout(ex) && journalTimedOut(order)
+                ? CompletableFuture.completedFuture(journaled(order))
+                : CompletableFuture.failedFuture(ex), spillExecutor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        spillExecutor.shutdown();
+        try {
+            spillExecutor.awaitTermination(SPILL_SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static ProducerRecord<String, OrderEvent> toRecord(String producerId, OrderEvent order) {
+        return new ProducerRecord<>(
+                "orders",
+                null,
+                recordKey(order),
+                order,
+                OrderEventHeaders.of(producerId, order)
+        );
+    }
+
+    private boolean acquireSlot() {
+        var timeout = properties.getInFlight().getAcquireTimeout();
+        try {
+            return inFlight.tryAcquire(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private CompletableFuture<SendResult<String, OrderEvent>> spill(OrderEvent order) {
+        if (journal.append(order)) {
+            return CompletableFuture.completedFuture(journaled(order));
+        }
+        metrics.recordSendRejected();
+        throw new SendCapacityExceededException(
+                "Too many order events waiting for the broker, event " + order.getEventId() + " was not sent.");
+    }
+
+    private boolean journalTimedOut(OrderEvent order) {
+        journal.markBrokerUnavailable();
+        return journal.append(order);
+    }
+
+    private static SendResult<String, OrderEvent> journaled(OrderEvent order) {
+        return new SendResult<>(new ProducerRecord<>("orders", recordKey(order), order), null);
+    }
+
+    /**
+     * A timed out send may still have reached the broker, so a journaled replay can deliver it
+     * twice; the consumer drops events it has already processed.
+     */
+    private static boolean isTimeout(Throwable ex) {
+        for (var cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Events of an existing order are keyed by its id so they share a partition. Creates do not
+     * have an id yet and are spread by event id.
+     */
+    private static String recordKey(OrderEvent order) {
+        if (order.getOrder() != null && order.getOrder().getOrderId() != null) {
+            return String.valueOf(order.getOrder().getOrderId());
+        }
+        return order.getEventId();
     }
-}
\ No newline at end of file
+}
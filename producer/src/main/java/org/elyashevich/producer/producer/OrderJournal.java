@@ -0,0 +1,220 @@
+package org.elyashevich.producer.producer;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.elyashevich.codec.OrderEventBinaryCodec;
+import org.elyashevich.producer.api.mapper.OrderEventWireMapper;
+import org.elyashevich.producer.config.OrderProducerProperties;
+import org.elyashevich.producer.journal.SpillJournal;
+import org.elyashevich.producer.metrics.KafkaMetrics;
+import org.elyashevich.producer.model.OrderEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Keeps events the broker could not take in a {@link SpillJournal} and replays them from a
+ * single drainer thread. Replay sends a window of up to {@code replayWindow} entries in append
+ * order without waiting in between, so one producer keeps them in order per partition, and
+ * therefore per order. The journal then advances past the acknowledged prefix of the window; the
+ * rest is sent again after the configured backoff.
+ * <p>
+ * A timed out send, or a send that got no in-flight slot in time, marks the broker unavailable
+ * until a replay is acknowledged again, and while it is marked {@link KafkaOrderProducer}
+ * journals new events instead of sending them.
+ * <p>
+ * Events are journaled in the binary encoding whatever the wire format. When the journal is
+ * disabled nothing is appended and {@link #isBrokerUnavailable()} is always {@code false}.
+ */
+@Slf4j
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class OrderJournal {
+    private static final Duration IDLE_POLL = Duration.ofMillis(100);
+
+    private final KafkaTemplate<String, OrderEvent> kafkaTemplate;
+    private final KafkaMetrics metrics;
+    private final OrderProducerProperties properties;
+    private final SpillJournal journal;
+    private final Thread drainer;
+    private final ScheduledExecutorService flusher;
+
+    private volatile boolean brokerUnavailable;
+
+    public OrderJournal(KafkaTemplate<String, OrderEvent> kafkaTemplate,
+                        KafkaMetrics metrics,
+                        OrderProducerProperties properties) throws IOException {
+        this.kafkaTemplate = kafkaTemplate;
+        this.metrics = metrics;
+        this.properties = properties;
+
+        var journalProperties = properties.getJournal();
+        if (!journalProperties.isEnabled()) {
+            this.journal = null;
+            this.drainer = null;
+            this.flusher = null;
+            return;
+        }
+
+        this.journal = new SpillJournal(
+                Path.of(journalProperties.getDirectory()),
+                Math.toIntExact(journalProperties.getSegmentSize().toBytes()),
+                journalProperties.getMaxSize().toBytes(),
+                journalProperties.getFsyncPolicy()
+        );
+        metrics.registerJournal(journal);
+
+        if (journalProperties.getFsyncPolicy() == SpillJournal.FsyncPolicy.INTERVAL) {
+            var interval = journalProperties.getFsyncInterval().toMillis();
+            this.flusher = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("order-journal-flusher").daemon().factory());
+            flusher.scheduleWithFixedDelay(journal::flush, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            this.flusher = null;
+        }
+        this.drainer = Thread.ofPlatform().name("order-journal-drainer").daemon().start(this::drain);
+    }
+
+    /**
+     * @return {@code false} when the journal is disabled or full
+     */
+    public boolean append(OrderEvent event) {
+        if (journal == null || !journal.append(OrderEventBinaryCodec.encode(OrderEventWireMapper.INSTANCE.toWire(event)))) {
+            return false;
+        }
+        metrics.recordJournalAppend();
+        log.debug("Journaled order event {}", event.getEventId());
+        return true;
+    }
+
+    /**
+     * Called when a send timed out or waited too long for a slot, so new events wait in the
+     * journal instead of piling onto a broker that is not answering.
+     */
+    public void markBrokerUnavailable() {
+        if (journal != null && !brokerUnavailable) {
+            log.warn("Broker is not acknowledging sends, journaling new order events until a replay succeeds");
+            brokerUnavailable = true;
+        }
+    }
+
+    /**
+     * While this is {@code true} new events are journaled instead of sent. Once it clears they
+     * are sent directly again, ahead of any backlog still being replayed; the consumer drops an
+     * update that arrives after a newer one of the same order.
+     */
+    public boolean isBrokerUnavailable() {
+        return brokerUnavailable;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (journal == null) {
+            return;
+        }
+        drainer.interrupt();
+        try {
+            drainer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        journal.close();
+    }
+
+    private void drain() {
+        var journalProperties = properties.getJournal();
+        var pause = 1_000_000_000L / Math.max(1, journalProperties.getReplayRate());
+        var nextReplayAt = System.nanoTime();
+        while (!Thread.currentThread().isInterrupted()) {
+            var window = journal.peek(Math.max(1, journalProperties.getReplayWindow()));
+            if (window.isEmpty()) {
+                LockSupport.parkNanos(IDLE_POLL.toNanos());
+                continue;
+            }
+
+            var sends = new ArrayList<CompletableFuture<?>>(window.size());
+            for (var entry : window) {
+                var wait = nextReplayAt - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                nextReplayAt = Math.max(nextReplayAt, System.nanoTime() - pause) + pause;
+                sends.add(replay(entry));
+            }
+
+            var delivered = awaitDelivered(sends);
+            if (delivered > 0) {
+                journal.advance(delivered);
+                if (brokerUnavailable) {
+                    log.info("Journal replay was acknowledged, sending new order events directly again");
+                    brokerUnavailable = false;
+                }
+            }
+            if (delivered < window.size() && !Thread.currentThread().isInterrupted()) {
+                LockSupport.parkNanos(journalProperties.getReplayBackoff().toNanos());
+            }
+        }
+    }
+
+    private CompletableFuture<?> replay(SpillJournal.Entry entry) {
+        OrderEvent event;
+        try {
+            event = OrderEventWireMapper.INSTANCE.fromWire(OrderEventBinaryCodec.decode(entry.payload()));
+        } catch (RuntimeException e) {
+            log.error("Dropping undecodable journal entry appended at {}", entry.appendedAt(), e);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        try {
+            return kafkaTemplate.send(KafkaOrderProducer.toRecord(properties.getId(), event))
+                    .whenComplete((result, ex) -> {
+                        if (ex == null) {
+                            metrics.recordJournalReplay();
+                        } else {
+                            log.warn("Replay of journaled order event {} failed, retrying", event.getEventId(), ex);
+                        }
+                    });
+        } catch (RuntimeException e) {
+            log.warn("Replay of journaled order event {} failed, retrying", event.getEventId(), e);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Waits for every send of the window to settle, so a retry never overlaps sends still in
+     * flight.
+     *
+     * @return how many sends from the start of the window were acknowledged
+     */
+    private static int awaitDelivered(List<CompletableFuture<?>> sends) {
+        try {
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        } catch (ExecutionException e) {
+            // counted below
+        }
+
+        var delivered = 0;
+        while (delivered < sends.size() && !sends.get(delivered).isCompletedExceptionally()) {
+            delivered++;
+        }
+        return delivered;
+    }
+}
@@ -0,0 +1,82 @@
+package org.elyashevich.producer.producer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.elyashevich.producer.config.OrderProducerProperties;
+import org.elyashevich.producer.metrics.KafkaMetrics;
+import org.elyashevich.producer.model.OrderEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+
+import java.util.function.Function;
+
+/**
+ * Reactive counterpart of {@link KafkaOrderProducer}. Events are pulled from the source only as
+ * the sender has in-flight capacity, so a slow broker slows down reading the request body
+ * instead of buffering it. Failed sends are emitted as deliveries with an exception rather than
+ * ending the stream.
+ * <p>
+ * The sender's own in-flight cap applies to each {@link #send} call separately, so all calls also
+ * share {@link SendPermits} sized by {@link OrderProducerProperties.InFlight#getMaxSends()}.
+ * <p>
+ * Sends do not go through the {@link OrderJournal}.
+ */
+@Slf4j
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveOrderProducer {
+
+    private final KafkaSender<String, OrderEvent> kafkaSender;
+    private final KafkaMetrics metrics;
+    private final OrderProducerProperties properties;
+    private final SendPermits permits;
+
+    public ReactiveOrderProducer(KafkaSender<String, OrderEvent> kafkaSender,
+                                 KafkaMetrics metrics,
+                                 OrderProducerProperties properties) {
+        this.kafkaSender = kafkaSender;
+        this.metrics = metrics;
+        this.properties = properties;
+        this.permits = new SendPermits(properties.getInFlight().getMaxSends());
+        metrics.registerInFlight(permits::inUse);
+    }
+
+    public record Delivery<T>(T item, OrderEvent event, RecordMetadata metadata, Exception exception) {
+        public boolean delivered() {
+            return exception == null;
+        }
+    }
+
+    private record Sent<T>(T item, OrderEvent event, long sentAt) {
+    }
+
+    public <T> Flux<Delivery<T>> send(Flux<T> items, Function<? super T, OrderEvent> toEvent) {
+        return Flux.using(permits::lease, lease -> send(items, toEvent, lease), SendPermits.Lease::close);
+    }
+
+    private <T> Flux<Delivery<T>> send(Flux<T> items, Function<? super T, OrderEvent> toEvent, SendPermits.Lease lease) {
+        var records = items.concatMap(item -> lease.acquire().thenReturn(item), 0).map(item -> {
+            var event = toEvent.apply(item);
+            metrics.incrementMessageCount();
+            return SenderRecord.create(
+                    KafkaOrderProducer.toRecord(properties.getId(), event),
+                    new Sent<>(item, event, System.nanoTime())
+            );
+        });
+
+        return kafkaSender.send(records).map(result -> {
+            lease.release();
+            var sent = result.correlationMetadata();
+            var delivery = new Delivery<>(sent.item(), sent.event(), result.recordMetadata(), result.exception());
+            metrics.recordAck(System.nanoTime() - sent.sentAt(), delivery.delivered());
+            if (!delivery.delivered()) {
+                metrics.recordDeliveryFailure("orders", DeliveryFailureListener.partitionOf(null, result.recordMetadata()));
+                log.warn("Order event {} was not delivered", sent.event().getEventId(), result.exception());
+            }
+            return delivery;
+        });
+    }
+}
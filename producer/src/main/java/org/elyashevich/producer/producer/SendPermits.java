@@ -0,0 +1,110 @@
+package org.elyashevich.producer.producer;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Non-blocking counterpart of the in-flight {@link java.util.concurrent.Semaphore} in
+ * {@link KafkaOrderProducer}, shared by every reactive send. A {@link Lease} is taken per send
+ * stream; it acquires a permit before each record, releases one per broker answer, and gives
+ * back whatever it still holds when the stream ends or is cancelled, so an abandoned request
+ * cannot leak permits.
+ */
+class SendPermits {
+    private final int maxPermits;
+    private final Queue<Waiter> waiters = new ArrayDeque<>();
+    private int available;
+
+    SendPermits(int maxPermits) {
+        this.maxPermits = maxPermits;
+        this.available = maxPermits;
+    }
+
+    Lease lease() {
+        return new Lease();
+    }
+
+    synchronized int inUse() {
+        return maxPermits - available;
+    }
+
+    private void release(int permits) {
+        for (var i = 0; i < permits; i++) {
+            Waiter next;
+            synchronized (this) {
+                next = nextLiveWaiter();
+                if (next == null) {
+                    available++;
+                    continue;
+                }
+                next.lease.held++;
+            }
+            next.sink.success();
+        }
+    }
+
+    private Waiter nextLiveWaiter() {
+        Waiter next;
+        while ((next = waiters.poll()) != null && next.lease.closed) {
+            // leases close on cancellation, their waiters no longer want a permit
+        }
+        return next;
+    }
+
+    private record Waiter(Lease lease, MonoSink<Void> sink) {
+    }
+
+    class Lease {
+        private int held;
+        private boolean closed;
+
+        /**
+         * Completes once a permit is held for this lease, straight away when one is free.
+         */
+        Mono<Void> acquire() {
+            return Mono.create(sink -> {
+                synchronized (SendPermits.this) {
+                    if (closed) {
+                        return;
+                    }
+                    if (available == 0) {
+                        var waiter = new Waiter(this, sink);
+                        waiters.add(waiter);
+                        sink.onCancel(() -> {
+                            synchronized (SendPermits.this) {
+                                waiters.remove(waiter);
+                            }
+                        });
+                        return;
+                    }
+                    available--;
+                    held++;
+                }
+                sink.success();
+            });
+        }
+
+        void release() {
+            synchronized (SendPermits.this) {
+                if (held == 0) {
+                    return;
+                }
+                held--;
+            }
+            SendPermits.this.release(1);
+        }
+
+        void close() {
+            int remaining;
+            synchronized (SendPermits.this) {
+                closed = true;
+                remaining = held;
+                held = 0;
+            }
+            SendPermits.this.release(remaining);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.elyashevich.producer.serialization;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.elyashevich.producer.model.OrderEvent;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Routing headers that let the consumer pick a processing lane without reading the payload,
+ * plus the id of the producer instance, which the record key no longer carries.
+ * Values are UTF-8 text; the consumer module reads them with its own copy of these names.
+ */
+public final class OrderEventHeaders {
+    public static final String ORDER_ID = "order-id";
+    public static final String EVENT_TYPE = "order-event-type";
+    public static final String PRODUCER_ID = "producer-id";
+
+    private OrderEventHeaders() {
+    }
+
+    public static Headers of(String producerId, OrderEvent event) {
+        var headers = new RecordHeaders();
+        headers.add(PRODUCER_ID, utf8(producerId));
+        if (event.getOrder() != null && event.getOrder().getOrderId() != null) {
+            headers.add(ORDER_ID, utf8(String.valueOf(event.getOrder().getOrderId())));
+        }
+        if (event.getEventType() != null) {
+            headers.add(EVENT_TYPE, utf8(event.getEventType().name()));
+        }
+        return headers;
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,40 @@
+package org.elyashevich.producer.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EventIdConfigTest {
+
+    @Test
+    void resolveNodeId_Configured_ReturnsIt() {
+        var eventId = new OrderProducerProperties.EventId();
+        eventId.setNodeId(7);
+
+        assertEquals(7, EventIdConfig.resolveNodeId(eventId));
+    }
+
+    @Test
+    void resolveNodeId_Unset_FailsStartup() {
+        var eventId = new OrderProducerProperties.EventId();
+
+        var exception = assertThrows(IllegalStateException.class, () -> EventIdConfig.resolveNodeId(eventId));
+        assertEquals("Snowflake event ids need a node id unique to this instance: set "
+                + "orders.producer.event-id.node-id (ORDERS_NODE_ID) to a value from 0 to 1023", exception.getMessage());
+    }
+
+    @Test
+    void resolveNodeId_OutOfRange_FailsStartup() {
+        var tooLarge = new OrderProducerProperties.EventId();
+        tooLarge.setNodeId(1024);
+        var negative = new OrderProducerProperties.EventId();
+        negative.setNodeId(-1);
+
+        assertAll(
+            () -> assertThrows(IllegalStateException.class, () -> EventIdConfig.resolveNodeId(tooLarge)),
+            () -> assertThrows(IllegalStateException.class, () -> EventIdConfig.resolveNodeId(negative))
+        );
+    }
+}
@@ -0,0 +1,132 @@
+package org.elyashevich.producer.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.elyashevich.producer.ids.UuidV7EventIdGenerator;
+import org.elyashevich.producer.model.EventType;
+import org.elyashevich.producer.model.OrderData;
+import org.elyashevich.producer.model.OrderEvent;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.kafka.test.condition.EmbeddedKafkaCondition;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sends the same seeded stream of order events through each {@link ProducerPerformanceProfile}
+ * against the embedded broker and prints MB/s of serialized values, records/s, p99 ack latency
+ * and the average compression rate. A warm-up pass precedes every measured pass. Excluded from
+ * the default build; run with {@code mvn test -Dgroups=benchmark -Dsurefire.excludedGroups=},
+ * setting {@code -Dbench.records} to change the measured record count.
+ */
+@Tag("benchmark")
+@EmbeddedKafka(partitions = 12, topics = "orders")
+class ProducerPerformanceProfileBenchmarkTest {
+
+    private static final int RECORDS = Integer.getInteger("bench.records", 200_000);
+    private static final int WARMUP_RECORDS = RECORDS / 10;
+    private static final long SEED = 42;
+
+    private static final List<String> PRODUCTS = List.of(
+            "Wireless Mouse", "Mechanical Keyboard", "27-inch Monitor", "USB-C Dock", "Noise Cancelling Headphones",
+            "Webcam 1080p", "Laptop Stand", "Desk Lamp", "Office Chair", "External SSD 1TB"
+    );
+    private static final List<String> CATEGORIES = List.of("Electronics", "Accessories", "Furniture", "Storage");
+    private static final List<String> STATUSES = List.of("PENDING", "PROCESSING", "SHIPPED", "DELIVERED");
+
+    @ParameterizedTest
+    @EnumSource(ProducerPerformanceProfile.class)
+    void throughputAndAckLatency(ProducerPerformanceProfile profile) throws InterruptedException {
+        var broker = EmbeddedKafkaCondition.getBroker();
+        var properties = new OrderProducerProperties();
+        properties.setPerformanceProfile(profile);
+        var kafkaProperties = new KafkaProperties();
+        kafkaProperties.setBootstrapServers(List.of(broker.getBrokersAsString()));
+        var producerFactory = new KafkaProducerConfig(properties, kafkaProperties).producerFactory(new ObjectMapper());
+
+        try (var producer = producerFactory.createProducer()) {
+            run(producer, WARMUP_RECORDS, new long[WARMUP_RECORDS], new AtomicLong());
+
+            var latencies = new long[RECORDS];
+            var valueBytes = new AtomicLong();
+            var started = System.nanoTime();
+            var acknowledged = run(producer, RECORDS, latencies, valueBytes);
+            var seconds = (System.nanoTime() - started) / 1e9;
+
+            Arrays.sort(latencies);
+            var compression = producer.metrics().entrySet().stream()
+                    .filter(metric -> metric.getKey().name().equals("compression-rate-avg")
+                            && metric.getKey().group().equals("producer-metrics"))
+                    .map(metric -> (Double) metric.getValue().metricValue())
+                    .findFirst()
+                    .orElse(Double.NaN);
+            System.out.printf("profile=%-10s %8.2f MB/s %10.0f records/s p99=%7.2f ms compression-rate=%.2f%n",
+                    profile,
+                    valueBytes.get() / seconds / (1024 * 1024),
+                    RECORDS / seconds,
+                    latencies[(int) (RECORDS * 0.99) - 1] / 1e6,
+                    compression);
+
+            assertEquals(RECORDS, acknowledged);
+        }
+        producerFactory.reset();
+    }
+
+    private static long run(Producer<String, OrderEvent> producer,
+                            int records, long[] latencies, AtomicLong valueBytes) throws InterruptedException {
+        var random = new Random(SEED);
+        var ids = new UuidV7EventIdGenerator();
+        var remaining = new CountDownLatch(records);
+        var acknowledged = new AtomicLong();
+
+        for (var i = 0; i < records; i++) {
+            var event = sampleEvent(random, ids);
+            var index = i;
+            var sentAt = System.nanoTime();
+            producer.send(new ProducerRecord<>("orders", String.valueOf(event.getOrder().getOrderId()), event),
+                    (metadata, exception) -> {
+                        latencies[index] = System.nanoTime() - sentAt;
+                        if (exception == null) {
+                            acknowledged.incrementAndGet();
+                            valueBytes.addAndGet(metadata.serializedValueSize());
+                        }
+                        remaining.countDown();
+                    });
+        }
+        producer.flush();
+        assertTrue(remaining.await(2, TimeUnit.MINUTES));
+        return acknowledged.get();
+    }
+
+    private static OrderEvent sampleEvent(Random random, UuidV7EventIdGenerator ids) {
+        var order = new OrderData();
+        order.setOrderId(1 + (long) random.nextInt(100_000));
+        order.setProductName(PRODUCTS.get(random.nextInt(PRODUCTS.size())));
+        order.setCategoryName(CATEGORIES.get(random.nextInt(CATEGORIES.size())));
+        order.setPrice(BigDecimal.valueOf(100 + random.nextInt(99_900), 2));
+        order.setQuantity(1 + random.nextInt(10));
+        order.setStatus(STATUSES.get(random.nextInt(STATUSES.size())));
+        order.setCustomerId(1 + (long) random.nextInt(20_000));
+
+        var event = new OrderEvent();
+        event.setEventId(ids.nextId());
+        event.setEventType(EventType.values()[random.nextInt(EventType.values().length)]);
+        event.setOrder(order);
+        event.setTimestamp(LocalDateTime.now());
+        return event;
+    }
+}
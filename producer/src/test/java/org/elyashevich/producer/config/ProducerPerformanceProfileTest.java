@@ -0,0 +1,56 @@
+package org.elyashevich.producer.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.record.CompressionType;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ProducerPerformanceProfileTest {
+
+    @Test
+    void producerConfigs_CompressionOverride_ReplacesOnlyCodec() {
+        var configs = ProducerPerformanceProfile.THROUGHPUT.producerConfigs(CompressionType.SNAPPY);
+
+        assertAll(
+            () -> assertEquals("snappy", configs.get(ProducerConfig.COMPRESSION_TYPE_CONFIG)),
+            () -> assertEquals(256 * 1024, configs.get(ProducerConfig.BATCH_SIZE_CONFIG)),
+            () -> assertEquals(20, configs.get(ProducerConfig.LINGER_MS_CONFIG))
+        );
+    }
+
+    @Test
+    void producerConfigs_EveryProfile_KeepsOrderingSafeInFlightLimit() {
+        for (var profile : ProducerPerformanceProfile.values()) {
+            var configs = profile.producerConfigs(null);
+
+            assertAll(profile.name(),
+                () -> assertEquals(true, configs.get(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG)),
+                () -> assertEquals(5, configs.get(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION))
+            );
+        }
+    }
+
+    @Test
+    void producerFactory_UsesProfileAndSpringBootstrapServers() {
+        var properties = new OrderProducerProperties();
+        properties.setPerformanceProfile(ProducerPerformanceProfile.LATENCY);
+        var kafkaProperties = new KafkaProperties();
+        kafkaProperties.setBootstrapServers(List.of("broker:9093"));
+
+        var configs = new KafkaProducerConfig(properties, kafkaProperties)
+                .producerFactory(new ObjectMapper())
+                .getConfigurationProperties();
+
+        assertAll(
+            () -> assertEquals(List.of("broker:9093"), configs.get(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG)),
+            () -> assertEquals("lz4", configs.get(ProducerConfig.COMPRESSION_TYPE_CONFIG)),
+            () -> assertEquals(0, configs.get(ProducerConfig.LINGER_MS_CONFIG))
+        );
+    }
+}
@@ -0,0 +1,42 @@
+package org.elyashevich.producer.ids;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ids per microsecond of every generator, sharing one generator instance across the benchmark
+ * threads as the request threads do. Driven by {@link EventIdGeneratorBenchmarkTest}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EventIdGeneratorBenchmark {
+
+    @Param({"RANDOM", "UUID_V7", "SNOWFLAKE"})
+    public String generatorName;
+
+    private EventIdGenerator generator;
+
+    @Setup
+    public void setUp() {
+        generator = switch (generatorName) {
+            case "RANDOM" -> new RandomUuidEventIdGenerator();
+            case "UUID_V7" -> new UuidV7EventIdGenerator();
+            case "SNOWFLAKE" -> new SnowflakeEventIdGenerator(1);
+            default -> throw new IllegalArgumentException(generatorName);
+        };
+    }
+
+    @Benchmark
+    public String nextId() {
+        return generator.nextId();
+    }
+}
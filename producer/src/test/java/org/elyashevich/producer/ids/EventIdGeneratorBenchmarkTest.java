@@ -0,0 +1,38 @@
+package org.elyashevich.producer.ids;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs {@link EventIdGeneratorBenchmark} at 1, 8 and 32 threads. Excluded from the default
+ * build; run with {@code mvn test -Dgroups=benchmark -Dsurefire.excludedGroups=}.
+ */
+@Tag("benchmark")
+class EventIdGeneratorBenchmarkTest {
+
+    private static final int FORKS = Integer.getInteger("bench.forks", 1);
+    private static final int ITERATIONS = Integer.getInteger("bench.iterations", 5);
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 8, 32})
+    void idsPerMicrosecond(int threads) throws RunnerException {
+        var options = new OptionsBuilder()
+                .include(EventIdGeneratorBenchmark.class.getName())
+                .threads(threads)
+                .forks(FORKS)
+                .warmupIterations(ITERATIONS)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(ITERATIONS)
+                .measurementTime(TimeValue.seconds(1))
+                .build();
+
+        assertEquals(3, new Runner(options).run().size());
+    }
+}
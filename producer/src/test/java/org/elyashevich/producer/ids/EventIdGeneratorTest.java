@@ -0,0 +1,113 @@
+package org.elyashevich.producer.ids;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventIdGeneratorTest {
+
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 20_000;
+
+    @Test
+    void uuidV7_VersionVariantAndTimestamp() {
+        var before = System.currentTimeMillis();
+        var id = new UuidV7EventIdGenerator().next();
+        var after = System.currentTimeMillis();
+
+        var millis = id.getMostSignificantBits() >>> 16;
+        assertAll(
+            () -> assertEquals(7, id.version()),
+            () -> assertEquals(2, id.variant()),
+            () -> assertTrue(millis >= before && millis <= after + 1)
+        );
+    }
+
+    @Test
+    void uuidV7_ConcurrentCalls_UniqueAndIncreasingPerThread() throws Exception {
+        var generator = new UuidV7EventIdGenerator();
+
+        var perThread = generateConcurrently(() -> generator.next().getMostSignificantBits());
+
+        assertUniqueAndIncreasing(perThread);
+    }
+
+    @Test
+    void snowflake_NodeAndTimestamp() {
+        var before = System.currentTimeMillis();
+        var id = new SnowflakeEventIdGenerator(37).next();
+
+        var millis = (id >>> 22) + SnowflakeEventIdGenerator.EPOCH_MILLIS;
+        assertAll(
+            () -> assertEquals(37, (id >>> 12) & SnowflakeEventIdGenerator.MAX_NODE_ID),
+            () -> assertTrue(millis >= before && millis <= System.currentTimeMillis() + 1)
+        );
+    }
+
+    @Test
+    void snowflake_ConcurrentCalls_UniqueAndIncreasingPerThread() throws Exception {
+        var generator = new SnowflakeEventIdGenerator(1);
+
+        var perThread = generateConcurrently(generator::next);
+
+        assertUniqueAndIncreasing(perThread);
+    }
+
+    @Test
+    void snowflake_NodeIdOutOfRange_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeEventIdGenerator(1024));
+    }
+
+    @Test
+    void eventIds_UsesInstalledGenerator() {
+        try {
+            EventIds.use(new SnowflakeEventIdGenerator(0));
+            assertTrue(EventIds.next().chars().allMatch(Character::isDigit));
+        } finally {
+            EventIds.use(new UuidV7EventIdGenerator());
+        }
+        assertEquals(7, UUID.fromString(EventIds.next()).version());
+    }
+
+    private static List<List<Long>> generateConcurrently(Callable<Long> next) throws InterruptedException, ExecutionException {
+        try (var executor = Executors.newFixedThreadPool(THREADS)) {
+            List<Callable<List<Long>>> tasks = new ArrayList<>();
+            for (var t = 0; t < THREADS; t++) {
+                tasks.add(() -> {
+                    List<Long> ids = new ArrayList<>(IDS_PER_THREAD);
+                    for (var i = 0; i < IDS_PER_THREAD; i++) {
+                        ids.add(next.call());
+                    }
+                    return ids;
+                });
+            }
+            List<List<Long>> results = new ArrayList<>();
+            for (var future : executor.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+            return results;
+        }
+    }
+
+    private static void assertUniqueAndIncreasing(List<List<Long>> perThread) {
+        var all = new HashSet<Long>();
+        for (var ids : perThread) {
+            for (var i = 1; i < ids.size(); i++) {
+                assertTrue(ids.get(i) > ids.get(i - 1));
+            }
+            all.addAll(ids);
+        }
+        assertEquals(THREADS * IDS_PER_THREAD, all.size());
+    }
+}
@@ -0,0 +1,149 @@
+package org.elyashevich.producer.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.elyashevich.producer.api.dto.order.OrderBatchResponse;
+import org.elyashevich.producer.config.OrderProducerProperties;
+import org.elyashevich.producer.metrics.KafkaMetrics;
+import org.elyashevich.producer.model.OrderEvent;
+import org.elyashevich.producer.producer.KafkaOrderProducer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.support.SendResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OrderBatchIngestServiceTest {
+
+    private static final String ORDER = """
+            {"orderId":%d,"productName":"Mouse","categoryName":"Electronics","price":19.99,"quantity":1,"eventType":"ORDER_UPDATED"}""";
+
+    @Mock
+    private KafkaOrderProducer producer;
+
+    private SimpleMeterRegistry registry;
+    private OrderProducerProperties properties;
+    private OrderBatchIngestService ingestService;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        properties = new OrderProducerProperties();
+        properties.getBatch().setDeliveryTimeout(Duration.ofMillis(200));
+        ingestService = new OrderBatchIngestService(producer, new ObjectMapper(), new KafkaMetrics(registry), properties);
+    }
+
+    @Test
+    void ingestNdjson_MalformedAndBlankLines_RejectsOnlyMalformedLine() throws IOException {
+        when(producer.send(any())).thenReturn(delivered());
+
+        var response = ingestService.ingestNdjson(body(ORDER.formatted(1) + "\n{not json\n\n" + ORDER.formatted(2) + "\n"));
+
+        assertAll(
+            () -> assertEquals(2, response.accepted()),
+            () -> assertEquals(1, response.rejected()),
+            () -> assertEquals(0, response.unconfirmed()),
+            () -> assertEquals(List.of(2L), response.errors().stream().map(OrderBatchResponse.LineError::line).toList()),
+            () -> assertEquals(2, registry.get("kafka.batch.lines").tag("outcome", "accepted").counter().count())
+        );
+        verify(producer).send(argThat(event -> event.getOrder().getOrderId() == 1L));
+        verify(producer).send(argThat(event -> event.getOrder().getOrderId() == 2L));
+    }
+
+    @Test
+    void ingestJsonArray_UnknownEventType_RejectsThatElement() throws IOException {
+        when(producer.send(any())).thenReturn(delivered());
+        var unknownType = ORDER.formatted(2).replace("ORDER_UPDATED", "ORDER_SHREDDED");
+
+        var response = ingestService.ingestJsonArray(body("[" + ORDER.formatted(1) + "," + unknownType + "," + ORDER.formatted(3) + "]"));
+
+        assertAll(
+            () -> assertEquals(2, response.accepted()),
+            () -> assertEquals(1, response.rejected()),
+            () -> assertEquals(2L, response.errors().get(0).line())
+        );
+    }
+
+    @Test
+    void ingestJsonArray_SyntaxError_StopsReading() throws IOException {
+        when(producer.send(any())).thenReturn(delivered());
+
+        var response = ingestService.ingestJsonArray(body("[" + ORDER.formatted(1) + ", {\"orderId\": ]" + ORDER.formatted(3)));
+
+        assertAll(
+            () -> assertEquals(1, response.accepted()),
+            () -> assertEquals(1, response.rejected())
+        );
+        verify(producer, times(1)).send(any());
+    }
+
+    @Test
+    void ingestNdjson_DeliveryFailsOrHangs_ReportsRejectedAndUnconfirmed() throws IOException {
+        when(producer.send(any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")))
+                .thenReturn(new CompletableFuture<>());
+
+        var response = ingestService.ingestNdjson(body(ORDER.formatted(1) + "\n" + ORDER.formatted(2)));
+
+        assertAll(
+            () -> assertEquals(0, response.accepted()),
+            () -> assertEquals(1, response.rejected()),
+            () -> assertEquals(1, response.unconfirmed()),
+            () -> assertEquals("broker down", response.errors().get(0).error())
+        );
+    }
+
+    @Test
+    void ingestNdjson_ManyBadLines_CapsReportedErrors() throws IOException {
+        properties.getBatch().setMaxReportedErrors(3);
+
+        var response = ingestService.ingestNdjson(body("x\n".repeat(10)));
+
+        assertAll(
+            () -> assertEquals(10, response.rejected()),
+            () -> assertEquals(3, response.errors().size())
+        );
+    }
+
+    @Test
+    void ingestNdjson_OversizedLine_RejectsItAndReadsOn() throws IOException {
+        properties.getBatch().setMaxLineLength(ORDER.formatted(1).length());
+        when(producer.send(any())).thenReturn(delivered());
+
+        var oversized = "{\"productName\":\"" + "x".repeat(20_000) + "\"}";
+        var response = ingestService.ingestNdjson(body(ORDER.formatted(1) + "\r\n" + oversized + "\r\n" + ORDER.formatted(2)));
+
+        assertAll(
+            () -> assertEquals(2, response.accepted()),
+            () -> assertEquals(1, response.rejected()),
+            () -> assertEquals(List.of(2L), response.errors().stream().map(OrderBatchResponse.LineError::line).toList())
+        );
+        verify(producer, times(2)).send(any());
+    }
+
+    private static CompletableFuture<SendResult<String, OrderEvent>> delivered() {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private static InputStream body(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,146 @@
+package org.elyashevich.producer.ingest;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.elyashevich.producer.api.dto.order.OrderCreateRequest;
+import org.elyashevich.producer.config.OrderProducerProperties;
+import org.elyashevich.producer.metrics.KafkaMetrics;
+import org.elyashevich.producer.model.OrderEvent;
+import org.elyashevich.producer.producer.ReactiveOrderProducer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.reactivestreams.Publisher;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.kafka.KafkaException;
+import reactor.core.publisher.Flux;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+import reactor.kafka.sender.SenderResult;
+import reactor.test.StepVerifier;
+import reactor.test.publisher.TestPublisher;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveOrderIngestServiceTest {
+
+    @Mock
+    private KafkaSender<String, OrderEvent> kafkaSender;
+
+    private SimpleMeterRegistry registry;
+    private ReactiveOrderIngestService ingestService;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        var metrics = new KafkaMetrics(registry);
+        var properties = new OrderProducerProperties();
+        ingestService = new ReactiveOrderIngestService(
+                new ReactiveOrderProducer(kafkaSender, metrics, properties), metrics, properties);
+    }
+
+    @Test
+    void ingest_Delivered_ReturnsPartitionAndOffset() {
+        acknowledgeExcept(Set.of());
+
+        StepVerifier.create(ingestService.ingest(request(1L, "ORDER_UPDATED")))
+                .assertNext(response -> assertAll(
+                    () -> assertEquals(1, response.partition()),
+                    () -> assertEquals(1L, response.offset())
+                ))
+                .verifyComplete();
+    }
+
+    @Test
+    void ingest_NotDelivered_FailsWithKafkaException() {
+        acknowledgeExcept(Set.of(1L));
+
+        StepVerifier.create(ingestService.ingest(request(1L, "ORDER_UPDATED")))
+                .expectError(KafkaException.class)
+                .verify();
+        assertEquals(1, registry.get("kafka.producer.send.failures").tag("partition", "1").counter().count());
+    }
+
+    @Test
+    void ingestBatch_BadElementAndFailedDelivery_RejectsOnlyThoseLines() {
+        acknowledgeExcept(Set.of(3L));
+        var requests = Flux.just(
+                request(1L, "ORDER_UPDATED"),
+                request(2L, "ORDER_SHREDDED"),
+                request(3L, "ORDER_UPDATED"),
+                request(4L, "ORDER_CANCELLED")
+        );
+
+        StepVerifier.create(ingestService.ingestBatch(requests))
+                .assertNext(response -> assertAll(
+                    () -> assertEquals(2, response.accepted()),
+                    () -> assertEquals(2, response.rejected()),
+                    () -> assertEquals(Set.of(2L, 3L), Set.copyOf(response.errors().stream().map(e -> e.line()).toList())),
+                    () -> assertEquals(2, registry.get("kafka.batch.lines").tag("outcome", "accepted").counter().count())
+                ))
+                .verifyComplete();
+    }
+
+    @Test
+    void ingestBatch_MalformedBody_ReportsLinesReadSoFar() {
+        acknowledgeExcept(Set.of());
+        var body = TestPublisher.<OrderCreateRequest>create();
+
+        StepVerifier.create(ingestService.ingestBatch(body.flux()))
+                .then(() -> body.next(request(1L, "ORDER_UPDATED")).error(new DecodingException("bad json")))
+                .assertNext(response -> assertAll(
+                    () -> assertEquals(1, response.accepted()),
+                    () -> assertEquals(1, response.rejected()),
+                    () -> assertEquals(2L, response.errors().get(0).line())
+                ))
+                .verifyComplete();
+    }
+
+    /**
+     * Acknowledges every record on partition {@code orderId % 2} at offset {@code orderId}, except
+     * for the given order ids, which fail.
+     */
+    @SuppressWarnings("unchecked")
+    private void acknowledgeExcept(Set<Long> failing) {
+        when(kafkaSender.send(any())).thenAnswer(invocation -> Flux.from(invocation.<Publisher<SenderRecord<String, OrderEvent, Object>>>getArgument(0))
+                .map(record -> {
+                    var orderId = record.value().getOrder().getOrderId();
+                    var metadata = new RecordMetadata(new TopicPartition("orders", (int) (orderId % 2)), orderId, 0, 0, 0, 0);
+                    var exception = failing.contains(orderId) ? new IllegalStateException("broker down") : null;
+                    return result(metadata, exception, record.correlationMetadata());
+                }));
+    }
+
+    private static <T> SenderResult<T> result(RecordMetadata metadata, Exception exception, T correlation) {
+        return new SenderResult<>() {
+            @Override
+            public RecordMetadata recordMetadata() {
+                return metadata;
+            }
+
+            @Override
+            public Exception exception() {
+                return exception;
+            }
+
+            @Override
+            public T correlationMetadata() {
+                return correlation;
+            }
+        };
+    }
+
+    private static OrderCreateRequest request(long orderId, String eventType) {
+        return new OrderCreateRequest(orderId, "Mouse", "Electronics", new BigDecimal("19.99"), 1, null, null, eventType);
+    }
+}
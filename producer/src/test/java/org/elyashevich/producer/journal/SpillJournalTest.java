@@ -0,0 +1,154 @@
+package org.elyashevich.producer.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpillJournalTest {
+
+    private static final int SEGMENT_SIZE = 128;
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void appendAndAdvance_AcrossSegments_ReadsInOrderAndDeletesReadSegments() throws IOException {
+        try (var journal = open(1024)) {
+            for (var i = 0; i < 10; i++) {
+                assertTrue(journal.append(bytes("event-" + i)));
+            }
+            var segmentsBeforeRead = segmentFiles();
+
+            List<String> read = new ArrayList<>();
+            SpillJournal.Entry entry;
+            while ((entry = journal.peek()) != null) {
+                read.add(new String(entry.payload(), StandardCharsets.UTF_8));
+                journal.advance();
+            }
+
+            assertAll(
+                () -> assertEquals(List.of("event-0", "event-1", "event-2", "event-3", "event-4",
+                        "event-5", "event-6", "event-7", "event-8", "event-9"), read),
+                () -> assertTrue(segmentsBeforeRead > 1),
+                () -> assertEquals(1, segmentFiles()),
+                () -> assertEquals(0, journal.depth()),
+                () -> assertTrue(journal.isEmpty())
+            );
+        }
+    }
+
+    @Test
+    void peekWindow_ReadsAheadWithoutAdvancingAndStopsAtSegmentEnd() throws IOException {
+        try (var journal = open(1024)) {
+            for (var i = 0; i < 10; i++) {
+                journal.append(bytes("event-" + i));
+            }
+
+            var first = texts(journal.peek(3));
+            var again = texts(journal.peek(3));
+            journal.advance(3);
+            var restOfSegment = texts(journal.peek(10));
+            journal.advance(restOfSegment.size());
+            var nextSegment = texts(journal.peek(10));
+
+            assertAll(
+                () -> assertEquals(List.of("event-0", "event-1", "event-2"), first),
+                () -> assertEquals(first, again),
+                () -> assertEquals(List.of("event-3", "event-4"), restOfSegment),
+                () -> assertEquals(List.of("event-5", "event-6", "event-7", "event-8", "event-9"), nextSegment),
+                () -> assertEquals(5, journal.depth())
+            );
+        }
+    }
+
+    @Test
+    void reopen_AfterPartialReplay_ResumesFromCheckpoint() throws IOException {
+        try (var journal = open(1024)) {
+            for (var i = 0; i < 6; i++) {
+                journal.append(bytes("event-" + i));
+            }
+            journal.peek();
+            journal.advance();
+            journal.peek();
+            journal.advance();
+        }
+
+        try (var journal = open(1024)) {
+            assertAll(
+                () -> assertEquals(4, journal.depth()),
+                () -> assertEquals("event-2", new String(journal.peek().payload(), StandardCharsets.UTF_8))
+            );
+        }
+    }
+
+    @Test
+    void reopen_TornLastRecord_DropsOnlyThatRecord() throws IOException {
+        try (var journal = open(1024)) {
+            journal.append(bytes("event-0"));
+            journal.append(bytes("event-1"));
+        }
+        try (var file = new RandomAccessFile(directory.resolve("%020d.segment".formatted(0)).toFile(), "rw")) {
+            var secondPayload = SpillJournal.HEADER_SIZE * 2 + "event-0".length();
+            file.seek(secondPayload);
+            file.write('X');
+        }
+
+        try (var journal = open(1024)) {
+            assertEquals(1, journal.depth());
+            assertEquals("event-0", new String(journal.peek().payload(), StandardCharsets.UTF_8));
+            journal.advance();
+            assertNull(journal.peek());
+            assertTrue(journal.append(bytes("event-2")));
+            assertEquals("event-2", new String(journal.peek().payload(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void append_MaxSizeReached_RefusesUntilReplayed() throws IOException {
+        try (var journal = open(SEGMENT_SIZE * 2)) {
+            var appended = 0;
+            while (journal.append(bytes("event-" + appended))) {
+                appended++;
+            }
+
+            assertFalse(journal.append(bytes("x".repeat(SEGMENT_SIZE))));
+            for (var i = 0; i < appended; i++) {
+                journal.peek();
+                journal.advance();
+            }
+            assertTrue(journal.append(bytes("event-again")));
+            assertEquals(1, journal.depth());
+        }
+    }
+
+    private SpillJournal open(long maxSize) throws IOException {
+        return new SpillJournal(directory, SEGMENT_SIZE, maxSize, SpillJournal.FsyncPolicy.ALWAYS);
+    }
+
+    private long segmentFiles() throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(".segment")).count();
+        }
+    }
+
+    private static List<String> texts(List<SpillJournal.Entry> entries) {
+        return entries.stream().map(entry -> new String(entry.payload(), StandardCharsets.UTF_8)).toList();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
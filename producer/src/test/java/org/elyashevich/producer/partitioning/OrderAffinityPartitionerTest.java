@@ -0,0 +1,30 @@
+package org.elyashevich.producer.partitioning;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OrderAffinityPartitionerTest {
+
+    /**
+     * The consumer's order cache computes the same partitions; its test pins the same values.
+     */
+    @Test
+    void partitionFor_KnownOrderIds_MatchesConsumerCopy() {
+        assertEquals(List.of(8, 11, 1, 6, 8), LongStream.rangeClosed(1, 5)
+                .mapToObj(id -> OrderAffinityPartitioner.partitionFor(
+                        String.valueOf(id).getBytes(StandardCharsets.UTF_8), 12))
+                .toList());
+    }
+
+    @Test
+    void partitionFor_SingleOrder_IsStable() {
+        var key = "42".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(OrderAffinityPartitioner.partitionFor(key, 12), OrderAffinityPartitioner.partitionFor(key, 12));
+    }
+}
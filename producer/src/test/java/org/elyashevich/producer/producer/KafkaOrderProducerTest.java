@@ -0,0 +1,192 @@
+package org.elyashevich.producer.producer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.elyashevich.producer.config.OrderProducerProperties;
+import org.elyashevich.producer.exception.SendCapacityExceededException;
+import org.elyashevich.producer.metrics.KafkaMetrics;
+import org.elyashevich.producer.model.OrderData;
+import org.elyashevich.producer.model.OrderEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaProducerException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class KafkaOrderProducerTest {
+
+    @Mock
+    private KafkaTemplate<String, OrderEvent> kafkaTemplate;
+
+    @Mock
+    private OrderJournal journal;
+
+    private SimpleMeterRegistry registry;
+    private KafkaMetrics metrics;
+    private KafkaOrderProducer producer;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics = new KafkaMetrics(registry);
+        var properties = new OrderProducerProperties();
+        properties.getInFlight().setMaxSends(2);
+        properties.getInFlight().setAcquireTimeout(Duration.ofMillis(50));
+        producer = new KafkaOrderProducer(kafkaTemplate, metrics, properties, journal);
+    }
+
+    @AfterEach
+    void tearDown() {
+        producer.shutdown();
+    }
+
+    @Test
+    void send_BrokerAcknowledges_ReleasesSlotAndRecordsAckTime() {
+        var ack = new CompletableFuture<SendResult<String, OrderEvent>>();
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(ack);
+
+        var result = producer.send(event("event-1", 42L));
+        var inFlightBeforeAck = inFlight();
+        ack.complete(sendResult(3));
+
+        assertAll(
+            () -> assertEquals(1.0, inFlightBeforeAck),
+            () -> assertEquals(0.0, inFlight()),
+            () -> assertEquals(3, result.join().getRecordMetadata().partition()),
+            () -> assertEquals(1, registry.get("kafka.producer.ack.time").tag("outcome", "success").timer().count())
+        );
+    }
+
+    @Test
+    void send_InFlightLimitReached_RefusesUntilBrokerAnswers() {
+        var first = new CompletableFuture<SendResult<String, OrderEvent>>();
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(first)
+                .thenReturn(new CompletableFuture<>())
+                .thenReturn(new CompletableFuture<>());
+
+        producer.send(event("event-1", 1L));
+        producer.send(event("event-2", 2L));
+
+        assertThrows(SendCapacityExceededException.class, () -> producer.send(event("event-3", 3L)));
+        first.completeExceptionally(new IllegalStateException("broker down"));
+        producer.send(event("event-3", 3L));
+
+        assertAll(
+            () -> assertEquals(1, registry.get("kafka.producer.send.rejected").counter().count()),
+            () -> assertEquals(1, registry.get("kafka.producer.ack.time").tag("outcome", "failure").timer().count()),
+            () -> assertEquals(2.0, inFlight())
+        );
+    }
+
+    @Test
+    void send_TemplateThrows_ReleasesSlot() {
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenThrow(new IllegalStateException("closed"));
+
+        assertThrows(IllegalStateException.class, () -> producer.send(event("event-1", 1L)));
+
+        assertEquals(0.0, inFlight());
+    }
+
+    @Test
+    void send_NoSlotButJournalHasRoom_JournalsEvent() {
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(new CompletableFuture<>());
+        producer.send(event("event-1", 1L));
+        producer.send(event("event-2", 2L));
+        when(journal.append(any())).thenReturn(true);
+
+        var result = producer.send(event("event-3", 3L)).join();
+
+        assertAll(
+            () -> assertNull(result.getRecordMetadata()),
+            () -> assertEquals(0, registry.get("kafka.producer.send.rejected").counter().count())
+        );
+        verify(journal).append(argThat(event -> "event-3".equals(event.getEventId())));
+        verify(journal).markBrokerUnavailable();
+    }
+
+    @Test
+    void send_DeliveryTimesOut_JournalsEventOffTheCompletingThreadAndReleasesSlot() {
+        var ack = new CompletableFuture<SendResult<String, OrderEvent>>();
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(ack);
+        var journalingThread = new AtomicReference<String>();
+        when(journal.append(any())).thenAnswer(invocation -> {
+            journalingThread.set(Thread.currentThread().getName());
+            return true;
+        });
+
+        var result = producer.send(event("event-1", 1L));
+        ack.completeExceptionally(new KafkaProducerException(null, "send failed", new TimeoutException("expired")));
+
+        assertAll(
+            () -> assertNull(result.join().getRecordMetadata()),
+            () -> assertEquals(0.0, inFlight()),
+            () -> assertEquals("order-journal-spill", journalingThread.get())
+        );
+        verify(journal).markBrokerUnavailable();
+    }
+
+    @Test
+    void send_BrokerUnavailable_JournalsWithoutSending() {
+        when(journal.isBrokerUnavailable()).thenReturn(true);
+        when(journal.append(any())).thenReturn(true);
+
+        producer.send(event("event-1", 1L)).join();
+
+        verify(kafkaTemplate, never()).send(any(ProducerRecord.class));
+    }
+
+    @Test
+    void deliveryFailureListener_CountsByPartition() {
+        var listener = new DeliveryFailureListener(metrics);
+        var record = new ProducerRecord<String, OrderEvent>("orders", "42", event("event-1", 42L));
+
+        listener.onError(record, new RecordMetadata(new TopicPartition("orders", 5), -1, 0, 0, 0, 0), new IllegalStateException());
+        listener.onError(record, null, new IllegalStateException());
+
+        assertAll(
+            () -> assertEquals(1, registry.get("kafka.producer.send.failures").tag("partition", "5").counter().count()),
+            () -> assertEquals(1, registry.get("kafka.producer.send.failures")
+                    .tag("partition", DeliveryFailureListener.UNKNOWN_PARTITION).counter().count())
+        );
+    }
+
+    private double inFlight() {
+        return registry.get("kafka.producer.in.flight").gauge().value();
+    }
+
+    private static SendResult<String, OrderEvent> sendResult(int partition) {
+        return new SendResult<>(null, new RecordMetadata(new TopicPartition("orders", partition), 7, 0, 0, 0, 0));
+    }
+
+    private static OrderEvent event(String eventId, long orderId) {
+        var order = new OrderData();
+        order.setOrderId(orderId);
+        var event = new OrderEvent();
+        event.setEventId(eventId);
+        event.setOrder(order);
+        return event;
+    }
+}
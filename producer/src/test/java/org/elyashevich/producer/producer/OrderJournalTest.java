@@ -0,0 +1,141 @@
+package org.elyashevich.producer.producer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.elyashevich.producer.config.OrderProducerProperties;
+import org.elyashevich.producer.journal.SpillJournal;
+import org.elyashevich.producer.metrics.KafkaMetrics;
+import org.elyashevich.producer.model.OrderData;
+import org.elyashevich.producer.model.OrderEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OrderJournalTest {
+
+    @Mock
+    private KafkaTemplate<String, OrderEvent> kafkaTemplate;
+
+    @TempDir
+    private Path directory;
+
+    private SimpleMeterRegistry registry;
+    private OrderJournal journal;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        registry = new SimpleMeterRegistry();
+        var properties = new OrderProducerProperties();
+        properties.getJournal().setEnabled(true);
+        properties.getJournal().setDirectory(directory.toString());
+        properties.getJournal().setFsyncPolicy(SpillJournal.FsyncPolicy.NONE);
+        properties.getJournal().setReplayBackoff(Duration.ofMillis(50));
+        journal = new OrderJournal(kafkaTemplate, new KafkaMetrics(registry), properties);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        journal.close();
+    }
+
+    @Test
+    void replay_SendsWholeWindowBeforeTheFirstAck() {
+        var acks = new CopyOnWriteArrayList<CompletableFuture<SendResult<String, OrderEvent>>>();
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenAnswer(invocation -> {
+            var ack = new CompletableFuture<SendResult<String, OrderEvent>>();
+            acks.add(ack);
+            return ack;
+        });
+
+        for (var i = 1; i <= 3; i++) {
+            journal.append(event("event-" + i, 42L));
+        }
+
+        verify(kafkaTemplate, timeout(2000).times(3)).send(any(ProducerRecord.class));
+        acks.forEach(ack -> ack.complete(null));
+        assertTrue(eventually(() -> replayed() == 3));
+    }
+
+    @Test
+    void replay_FailureInWindow_ResendsFromTheFirstUnacknowledgedEventInOrder() {
+        var sent = new CopyOnWriteArrayList<String>();
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenAnswer(invocation -> {
+            ProducerRecord<String, OrderEvent> record = invocation.getArgument(0);
+            var eventId = record.value().getEventId();
+            sent.add(eventId);
+            return "event-2".equals(eventId) && sent.indexOf(eventId) == sent.size() - 1
+                    ? CompletableFuture.failedFuture(new IllegalStateException("broker down"))
+                    : CompletableFuture.completedFuture(null);
+        });
+
+        for (var i = 1; i <= 3; i++) {
+            journal.append(event("event-" + i, 42L));
+        }
+
+        verify(kafkaTemplate, timeout(2000).times(5)).send(any(ProducerRecord.class));
+        assertEquals(List.of("event-1", "event-2", "event-3", "event-2", "event-3"), sent);
+    }
+
+    @Test
+    void brokerUnavailable_ClearsOnceAReplayIsAcknowledged() {
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+
+        journal.markBrokerUnavailable();
+        var unavailableBeforeReplay = journal.isBrokerUnavailable();
+        journal.append(event("event-1", 42L));
+
+        verify(kafkaTemplate, timeout(2000).times(1)).send(any(ProducerRecord.class));
+        assertAll(
+            () -> assertTrue(unavailableBeforeReplay),
+            () -> assertTrue(eventually(() -> !journal.isBrokerUnavailable())),
+            () -> assertEquals(1.0, replayed())
+        );
+    }
+
+    private double replayed() {
+        return registry.get("kafka.producer.journal.replayed").counter().count();
+    }
+
+    private static boolean eventually(BooleanSupplier condition) {
+        var deadline = System.nanoTime() + Duration.ofSeconds(2).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.onSpinWait();
+        }
+        return true;
+    }
+
+    private static OrderEvent event(String eventId, long orderId) {
+        var order = new OrderData();
+        order.setOrderId(orderId);
+        var event = new OrderEvent();
+        event.setEventId(eventId);
+        event.setOrder(order);
+        return event;
+    }
+}
@@ -0,0 +1,32 @@
+package org.elyashevich.producer.producer;
+
+import org.elyashevich.producer.api.controller.OrderController;
+import org.elyashevich.producer.api.controller.ReactiveOrderController;
+import org.elyashevich.producer.ingest.OrderBatchIngestService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("reactive")
+class ReactiveProducerApplicationTests {
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Test
+    void contextLoads_ReactiveProfile_ServesOrdersWithWebFlux() {
+        assertAll(
+            () -> assertEquals(1, context.getBeanNamesForType(ReactiveOrderController.class).length),
+            () -> assertEquals(0, context.getBeanNamesForType(OrderController.class).length),
+            () -> assertEquals(0, context.getBeanNamesForType(KafkaOrderProducer.class).length),
+            () -> assertEquals(0, context.getBeanNamesForType(OrderJournal.class).length),
+            () -> assertEquals(0, context.getBeanNamesForType(OrderBatchIngestService.class).length)
+        );
+    }
+}
@@ -0,0 +1,68 @@
+package org.elyashevich.producer.producer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SendPermitsTest {
+
+    @Test
+    void acquire_CapIsSharedAcrossLeases() {
+        var permits = new SendPermits(2);
+        var first = permits.lease();
+        var second = permits.lease();
+
+        var granted = new AtomicBoolean();
+        first.acquire().subscribe();
+        second.acquire().subscribe();
+        second.acquire().subscribe(null, null, () -> granted.set(true));
+        var blockedAtCap = !granted.get();
+
+        first.release();
+
+        assertAll(
+            () -> assertTrue(blockedAtCap),
+            () -> assertTrue(granted.get()),
+            () -> assertEquals(2, permits.inUse())
+        );
+    }
+
+    @Test
+    void close_ReturnsHeldPermitsAndSkipsWaitersOfClosedLease() {
+        var permits = new SendPermits(1);
+        var abandoned = permits.lease();
+        var waiting = permits.lease();
+
+        var grantedToAbandoned = new AtomicBoolean();
+        var grantedToWaiting = new AtomicBoolean();
+        abandoned.acquire().subscribe();
+        abandoned.acquire().subscribe(null, null, () -> grantedToAbandoned.set(true));
+        waiting.acquire().subscribe(null, null, () -> grantedToWaiting.set(true));
+
+        abandoned.close();
+
+        assertAll(
+            () -> assertFalse(grantedToAbandoned.get()),
+            () -> assertTrue(grantedToWaiting.get()),
+            () -> assertEquals(1, permits.inUse())
+        );
+    }
+
+    @Test
+    void release_MoreThanHeld_DoesNotInflateCap() {
+        var permits = new SendPermits(1);
+        var lease = permits.lease();
+        lease.acquire().subscribe();
+
+        lease.release();
+        lease.release();
+        lease.close();
+
+        assertEquals(0, permits.inUse());
+    }
+}